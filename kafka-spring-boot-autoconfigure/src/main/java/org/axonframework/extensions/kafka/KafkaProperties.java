@@ -290,6 +290,12 @@ public static class Producer {
          */
         private String transactionIdPrefix;
 
+        /**
+         * Identity of this node, appended to the transaction id prefix together with a slot number. Should be unique
+         * within the cluster and stable across restarts, to prevent nodes sharing a prefix from fencing each other.
+         */
+        private String transactionIdNodeId;
+
         /**
          * Serializer class for keys. Defaults to a {@link StringSerializer}.
          */
@@ -379,6 +385,14 @@ public void setTransactionIdPrefix(String transactionIdPrefix) {
             this.transactionIdPrefix = transactionIdPrefix;
         }
 
+        public String getTransactionIdNodeId() {
+            return transactionIdNodeId;
+        }
+
+        public void setTransactionIdNodeId(String transactionIdNodeId) {
+            this.transactionIdNodeId = transactionIdNodeId;
+        }
+
         public Class<?> getKeySerializer() {
             return this.keySerializer;
         }
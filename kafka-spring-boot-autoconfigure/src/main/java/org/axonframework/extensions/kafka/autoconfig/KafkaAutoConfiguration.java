@@ -35,6 +35,7 @@
 import org.axonframework.extensions.kafka.eventhandling.producer.DefaultProducerFactory;
 import org.axonframework.extensions.kafka.eventhandling.producer.KafkaEventPublisher;
 import org.axonframework.extensions.kafka.eventhandling.producer.KafkaPublisher;
+import org.axonframework.extensions.kafka.eventhandling.producer.NodeTransactionalIdAllocator;
 import org.axonframework.extensions.kafka.eventhandling.producer.ProducerFactory;
 import org.axonframework.extensions.kafka.eventhandling.tokenstore.KafkaTokenStore;
 import org.axonframework.serialization.Serializer;
@@ -127,6 +128,7 @@ public KafkaAutoConfiguration(
     public <K, V> ProducerFactory<?, ?> kafkaProducerFactory() {
         ConfirmationMode confirmationMode = properties.getPublisher().getConfirmationMode();
         String transactionIdPrefix = properties.getProducer().getTransactionIdPrefix();
+        String transactionIdNodeId = properties.getProducer().getTransactionIdNodeId();
 
         DefaultProducerFactory.Builder<K, V> builder =
                 DefaultProducerFactory.<K, V>builder()
@@ -136,6 +138,12 @@ public KafkaAutoConfiguration(
         if (isNonEmptyString(transactionIdPrefix)) {
             builder.transactionalIdPrefix(transactionIdPrefix)
                    .confirmationMode(ConfirmationMode.TRANSACTIONAL);
+            if (isNonEmptyString(transactionIdNodeId)) {
+                builder.transactionalIdAllocator(NodeTransactionalIdAllocator.builder()
+                                                                             .prefix(transactionIdPrefix)
+                                                                             .nodeId(transactionIdNodeId)
+                                                                             .build());
+            }
             if (!confirmationMode.isTransactional()) {
                 logger.warn(
                         "The confirmation mode is set to [{}], whilst a transactional id prefix is present. "
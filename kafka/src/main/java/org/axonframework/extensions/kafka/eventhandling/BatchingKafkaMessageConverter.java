@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.axonframework.eventhandling.EventMessage;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link KafkaMessageConverter} capable of packing several {@link EventMessage}s in to a single Kafka record, and of
+ * unpacking such a record in to the original {@link EventMessage}s again.
+ * <p>
+ * Packing events reduces the per-record overhead of Kafka (headers, offsets, CRCs) and of the consuming side, which
+ * pays off at high event rates with small payloads.
+ *
+ * @param <K> the key type of the Kafka record
+ * @param <V> the value type of the Kafka record
+ * @since 4.9.0
+ */
+public interface BatchingKafkaMessageConverter<K, V> extends KafkaMessageConverter<K, V> {
+
+    /**
+     * Resolve the key of the Kafka record the given {@code eventMessage} would be published with. Events resolving to
+     * the same key may be packed in to a single record through {@link #createKafkaMessage(List, String)}.
+     *
+     * @param eventMessage the event message to resolve the record key for
+     * @return the key of the Kafka record the given {@code eventMessage} would be published with, may be {@code null}
+     */
+    K recordKey(EventMessage<?> eventMessage);
+
+    /**
+     * Creates a single {@link ProducerRecord} containing all given {@code eventMessages}, in order. All {@code
+     * eventMessages} are expected to resolve to the same {@link #recordKey(EventMessage)}.
+     *
+     * @param eventMessages the event messages to pack in to a single {@link ProducerRecord}
+     * @param topic         the Kafka topic to publish the record on
+     * @return a {@link ProducerRecord} containing all given {@code eventMessages}
+     */
+    ProducerRecord<K, V> createKafkaMessage(List<? extends EventMessage<?>> eventMessages, String topic);
+
+    /**
+     * Reconstruct all {@link EventMessage}s contained in the given {@link ConsumerRecord}, in the order they were
+     * packed. Records which were not packed result in a list of at most one element, matching the outcome of {@link
+     * #readKafkaMessage(ConsumerRecord)}. The position of an event in the returned list is regarded as its sub-offset
+     * within the record.
+     *
+     * @param consumerRecord the Event Message(s) represented inside Kafka
+     * @return the converted {@code consumerRecord} as a {@link List} of {@link EventMessage}s
+     */
+    List<EventMessage<?>> readKafkaMessages(ConsumerRecord<K, V> consumerRecord);
+
+    /**
+     * Read all {@link EventMessage}s from the given {@code consumerRecord} with the given {@code messageConverter}.
+     * Uses {@link #readKafkaMessages(ConsumerRecord)} if the {@code messageConverter} is a {@link
+     * BatchingKafkaMessageConverter}, or {@link KafkaMessageConverter#readKafkaMessage(ConsumerRecord)} otherwise.
+     *
+     * @param messageConverter the {@link KafkaMessageConverter} to read the {@code consumerRecord} with
+     * @param consumerRecord   the Event Message(s) represented inside Kafka
+     * @param <K>              the key type of the Kafka record
+     * @param <V>              the value type of the Kafka record
+     * @return the converted {@code consumerRecord} as a {@link List} of {@link EventMessage}s
+     */
+    static <K, V> List<EventMessage<?>> readAll(KafkaMessageConverter<K, V> messageConverter,
+                                                ConsumerRecord<K, V> consumerRecord) {
+        if (messageConverter instanceof BatchingKafkaMessageConverter) {
+            return ((BatchingKafkaMessageConverter<K, V>) messageConverter).readKafkaMessages(consumerRecord);
+        }
+        return messageConverter.readKafkaMessage(consumerRecord)
+                               .<List<EventMessage<?>>>map(Collections::singletonList)
+                               .orElse(Collections.emptyList());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteBufferDeserializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.axonframework.common.AxonConfigurationException;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.extensions.kafka.eventhandling.converters.ByteBufferToByteArrayConverter;
+import org.axonframework.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.axonframework.common.BuilderUtils.assertNonNull;
+
+/**
+ * A {@link KafkaMessageConverter} for records with {@link ByteBuffer} values, as produced by the {@link
+ * ByteBufferSerializer} and consumed by the {@link ByteBufferDeserializer}. Converting is delegated to a {@link
+ * DefaultKafkaMessageConverter}, so the records are compatible with those of the {@code byte[]} based converter.
+ * <p>
+ * When reading, payloads are handed to the {@link Serializer} as {@link ByteBuffer} views on the record value, rather
+ * than as copies. This includes every event packed in to a batched record. Serializers reading from an {@link
+ * java.io.InputStream}, like the {@link org.axonframework.serialization.xml.XStreamSerializer}, deserialize straight
+ * from the record value. Serializers reading a {@code byte[]} receive the record's backing array as is when the payload
+ * spans it entirely. This relies on the {@link org.axonframework.serialization.ContentTypeConverter}s for {@link
+ * ByteBuffer}s registered by this extension; if the {@link Serializer}'s converter does not support these, payloads
+ * are copied instead.
+ *
+ * @since 4.9.0
+ */
+public class ByteBufferKafkaMessageConverter
+        implements BatchingKafkaMessageConverter<String, ByteBuffer>, ChunkingKafkaMessageConverter<String, ByteBuffer> {
+
+    private final DefaultKafkaMessageConverter delegate;
+
+    /**
+     * Instantiate a {@link ByteBufferKafkaMessageConverter} based on the fields contained in the {@link Builder}.
+     * <p>
+     * Will assert that the {@link DefaultKafkaMessageConverter} is not {@code null} and will throw an {@link
+     * AxonConfigurationException} if it is {@code null}.
+     *
+     * @param builder the {@link Builder} used to instantiate a {@link ByteBufferKafkaMessageConverter} instance
+     */
+    protected ByteBufferKafkaMessageConverter(Builder builder) {
+        builder.validate();
+        this.delegate = builder.messageConverter;
+    }
+
+    /**
+     * Instantiate a Builder to be able to create a {@link ByteBufferKafkaMessageConverter}.
+     * <p>
+     * The {@link DefaultKafkaMessageConverter} to delegate to is a <b>hard requirement</b> and as such should be
+     * provided.
+     *
+     * @return a Builder to be able to create a {@link ByteBufferKafkaMessageConverter}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public ProducerRecord<String, ByteBuffer> createKafkaMessage(EventMessage<?> eventMessage, String topic) {
+        return wrap(delegate.createKafkaMessage(eventMessage, topic));
+    }
+
+    @Override
+    public String recordKey(EventMessage<?> eventMessage) {
+        return delegate.recordKey(eventMessage);
+    }
+
+    @Override
+    public ProducerRecord<String, ByteBuffer> createKafkaMessage(List<? extends EventMessage<?>> eventMessages,
+                                                                 String topic) {
+        return wrap(delegate.createKafkaMessage(eventMessages, topic));
+    }
+
+    @Override
+    public Optional<EventMessage<?>> readKafkaMessage(ConsumerRecord<String, ByteBuffer> consumerRecord) {
+        return delegate.readKafkaMessage(consumerRecord.headers(), consumerRecord.value());
+    }
+
+    @Override
+    public List<EventMessage<?>> readKafkaMessages(ConsumerRecord<String, ByteBuffer> consumerRecord) {
+        return delegate.readKafkaMessages(consumerRecord.headers(), consumerRecord.value());
+    }
+
+    @Override
+    public List<ProducerRecord<String, ByteBuffer>> toChunks(ProducerRecord<String, ByteBuffer> record) {
+        ByteBuffer value = record.value();
+        ProducerRecord<String, byte[]> arrayRecord = new ProducerRecord<>(
+                record.topic(), record.partition(), record.timestamp(), record.key(),
+                value != null ? new ByteBufferToByteArrayConverter().convert(value) : null,
+                record.headers()
+        );
+        List<ProducerRecord<String, byte[]>> arrayChunks = delegate.toChunks(arrayRecord);
+        if (arrayChunks.size() == 1) {
+            return Collections.singletonList(record);
+        }
+        List<ProducerRecord<String, ByteBuffer>> chunks = new ArrayList<>(arrayChunks.size());
+        arrayChunks.forEach(chunk -> chunks.add(wrap(chunk)));
+        return chunks;
+    }
+
+    @Override
+    public Optional<RecordChunk> chunkOf(ConsumerRecord<String, ByteBuffer> consumerRecord) {
+        return DefaultKafkaMessageConverter.chunkOf(consumerRecord.headers());
+    }
+
+    @Override
+    public ConsumerRecord<String, ByteBuffer> reassemble(List<ConsumerRecord<String, ByteBuffer>> chunks) {
+        ConsumerRecord<String, ByteBuffer> firstChunk = chunks.get(0);
+        ConsumerRecord<String, ByteBuffer> lastChunk = chunks.get(chunks.size() - 1);
+
+        int size = 0;
+        for (ConsumerRecord<String, ByteBuffer> chunk : chunks) {
+            size += chunk.value().remaining();
+        }
+        ByteBuffer value = ByteBuffer.allocate(size);
+        chunks.forEach(chunk -> value.put(chunk.value().duplicate()));
+        value.flip();
+        return new ConsumerRecord<>(lastChunk.topic(), lastChunk.partition(), lastChunk.offset(),
+                                    lastChunk.timestamp(), lastChunk.timestampType(),
+                                    ConsumerRecord.NULL_SIZE, size,
+                                    DefaultKafkaMessageConverter.originalKey(firstChunk), value,
+                                    DefaultKafkaMessageConverter.originalHeaders(firstChunk.headers()),
+                                    lastChunk.leaderEpoch());
+    }
+
+    private static ProducerRecord<String, ByteBuffer> wrap(ProducerRecord<String, byte[]> record) {
+        return new ProducerRecord<>(
+                record.topic(), record.partition(), record.timestamp(), record.key(),
+                record.value() != null ? ByteBuffer.wrap(record.value()) : null,
+                record.headers()
+        );
+    }
+
+    /**
+     * Builder class to instantiate a {@link ByteBufferKafkaMessageConverter}.
+     * <p>
+     * The {@link DefaultKafkaMessageConverter} to delegate to is a <b>hard requirement</b> and as such should be
+     * provided.
+     */
+    public static class Builder {
+
+        private DefaultKafkaMessageConverter messageConverter;
+
+        /**
+         * Sets the {@link DefaultKafkaMessageConverter} to delegate the conversion of events and records to.
+         *
+         * @param messageConverter the {@link DefaultKafkaMessageConverter} to delegate the conversion to
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder messageConverter(DefaultKafkaMessageConverter messageConverter) {
+            assertNonNull(messageConverter, "DefaultKafkaMessageConverter may not be null");
+            this.messageConverter = messageConverter;
+            return this;
+        }
+
+        /**
+         * Initializes a {@link ByteBufferKafkaMessageConverter} as specified through this Builder.
+         *
+         * @return a {@link ByteBufferKafkaMessageConverter} as specified through this Builder
+         */
+        public ByteBufferKafkaMessageConverter build() {
+            return new ByteBufferKafkaMessageConverter(this);
+        }
+
+        /**
+         * Validates whether the fields contained in this Builder are set accordingly.
+         *
+         * @throws AxonConfigurationException if one field is asserted to be incorrect according to the Builder's
+         *                                    specifications
+         */
+        protected void validate() throws AxonConfigurationException {
+            assertNonNull(messageConverter,
+                          "The DefaultKafkaMessageConverter is a hard requirement and should be provided");
+        }
+    }
+}
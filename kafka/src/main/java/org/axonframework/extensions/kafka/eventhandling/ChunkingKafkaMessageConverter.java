@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A {@link KafkaMessageConverter} capable of splitting records which are too large for the broker in to several chunk
+ * records, and of reassembling those chunks in to the original record again.
+ * <p>
+ * All chunks of a record are published with the same key, so that they end up on the same partition. Consumers are
+ * expected to buffer the chunks of a record until the last chunk has been received, after which {@link
+ * #reassemble(List)} restores the original record. Reading a single chunk through {@link
+ * #readKafkaMessage(ConsumerRecord)} does not result in an event.
+ *
+ * @param <K> the key type of the Kafka record
+ * @param <V> the value type of the Kafka record
+ * @since 4.9.0
+ */
+public interface ChunkingKafkaMessageConverter<K, V> extends KafkaMessageConverter<K, V> {
+
+    /**
+     * Splits the given {@code record} in to ordered chunk records if its value exceeds the configured chunk size. A
+     * singleton list containing the given {@code record} is returned if it does not need to be split.
+     *
+     * @param record the {@link ProducerRecord} to split in to chunks if it is too large
+     * @return the chunk records to publish, in order, or a singleton list of the given {@code record}
+     */
+    List<ProducerRecord<K, V>> toChunks(ProducerRecord<K, V> record);
+
+    /**
+     * Returns the {@link RecordChunk} describing the given {@code consumerRecord} if it is a chunk of a larger record,
+     * or an empty {@link Optional} if it is a complete record.
+     *
+     * @param consumerRecord the {@link ConsumerRecord} to describe
+     * @return the {@link RecordChunk} describing the given {@code consumerRecord}, if it is a chunk
+     */
+    Optional<RecordChunk> chunkOf(ConsumerRecord<K, V> consumerRecord);
+
+    /**
+     * Reassembles the given {@code chunks}, ordered by {@link RecordChunk#index()}, in to the record they were split
+     * from. The returned record has the topic, partition, offset and timestamp of the last chunk.
+     *
+     * @param chunks all chunks of a single record, in order
+     * @return the reassembled {@link ConsumerRecord}
+     */
+    ConsumerRecord<K, V> reassemble(List<ConsumerRecord<K, V>> chunks);
+}
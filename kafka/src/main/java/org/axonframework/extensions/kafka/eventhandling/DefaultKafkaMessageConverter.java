@@ -18,8 +18,10 @@
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.axonframework.common.AxonConfigurationException;
 import org.axonframework.eventhandling.EventData;
 import org.axonframework.eventhandling.EventMessage;
@@ -28,6 +30,8 @@
 import org.axonframework.eventhandling.GenericEventMessage;
 import org.axonframework.eventhandling.async.SequencingPolicy;
 import org.axonframework.eventhandling.async.SequentialPerAggregatePolicy;
+import org.axonframework.extensions.kafka.eventhandling.consumer.FetchEventException;
+import org.axonframework.extensions.kafka.eventhandling.converters.ByteBufferToByteArrayConverter;
 import org.axonframework.messaging.MetaData;
 import org.axonframework.serialization.LazyDeserializingObject;
 import org.axonframework.serialization.SerializedMessage;
@@ -38,13 +42,25 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.BiFunction;
-import java.util.stream.Stream;
 
 import static org.axonframework.common.BuilderUtils.assertNonNull;
+import static org.axonframework.common.BuilderUtils.assertThat;
 import static org.axonframework.extensions.kafka.eventhandling.HeaderUtils.*;
 import static org.axonframework.messaging.Headers.*;
 
@@ -62,19 +78,68 @@
  * limited to one-to-one and one-to-many up-casters only.
  * </p>
  * This implementation will suffice in most cases.
+ * <p>
+ * Several events sharing the same record key can be packed in to a single record through {@link
+ * #createKafkaMessage(List, String)}. Such a record carries the {@link #BATCH_SIZE} header and contains the headers and
+ * serialized payload of every packed event. Note that consumers need to use {@link #readKafkaMessages(ConsumerRecord)}
+ * to unpack these records, as {@link #readKafkaMessage(ConsumerRecord)} does not regard them as Axon messages.
+ * <p>
+ * Serialized payloads can optionally be compressed with a per payload type dictionary by configuring a {@link
+ * DictionaryPayloadCodec}. Records without the {@link DictionaryPayloadCodec#PAYLOAD_DICTIONARY} header are read as
+ * is, so uncompressed records remain readable once compression is enabled. Compressed records which can not be
+ * decompressed, because no {@link DictionaryPayloadCodec} is configured or their dictionary is unknown to it, are not
+ * skipped. Reading them throws a {@link FetchEventException} instead, stopping the consumption of the records.
+ * <p>
+ * Records with a value larger than the configured {@link Builder#chunkSize(int) chunkSize} are split in to chunk
+ * records by {@link #toChunks(ProducerRecord)}. The first chunk carries the headers of the original record, and every
+ * chunk carries the {@link #CHUNK_ID}, {@link #CHUNK_INDEX} and {@link #CHUNK_COUNT} headers. Chunks are reassembled by
+ * the {@link org.axonframework.extensions.kafka.eventhandling.consumer.streamable.TrackingRecordConverter}.
+ * <p>
+ * In {@link Builder#serializationPassthrough(boolean) serialization passthrough} mode the metadata is written as a
+ * single serialized {@link #SERIALIZED_METADATA} header instead of a header per entry. Combined with the {@link
+ * Serializer} of the event store, events read from the event store are then published with their stored payload and
+ * metadata bytes, type and revision, without being deserialized. Records with the {@link #SERIALIZED_METADATA} header
+ * are read regardless of the mode.
  *
  * @author Nakul Mishra
  * @author Steven van Beelen
  * @since 4.0
  */
-public class DefaultKafkaMessageConverter implements KafkaMessageConverter<String, byte[]> {
+public class DefaultKafkaMessageConverter
+        implements BatchingKafkaMessageConverter<String, byte[]>, ChunkingKafkaMessageConverter<String, byte[]> {
+
+    /**
+     * The Kafka header key containing the number of events packed in to a single record.
+     */
+    public static final String BATCH_SIZE = "axon-batch-size";
+    /**
+     * The Kafka header key containing the identifier of the record a chunk record was split from.
+     */
+    public static final String CHUNK_ID = "axon-chunk-id";
+    /**
+     * The Kafka header key containing the zero-based index of a chunk record.
+     */
+    public static final String CHUNK_INDEX = "axon-chunk-index";
+    /**
+     * The Kafka header key containing the total number of chunks a record was split in to.
+     */
+    public static final String CHUNK_COUNT = "axon-chunk-count";
+    /**
+     * The Kafka header key containing the serialized {@link MetaData} of an event, as written in serialization
+     * passthrough mode.
+     */
+    public static final String SERIALIZED_METADATA = "axon-serialized-metadata";
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultKafkaMessageConverter.class);
 
     private final Serializer serializer;
     private final SequencingPolicy<? super EventMessage<?>> sequencingPolicy;
     private final BiFunction<String, Object, RecordHeader> headerValueMapper;
-    private final EventUpcasterChain upcasterChain;
+    private final UpcasterFastPath upcasterFastPath;
+    private final DictionaryPayloadCodec payloadCodec;
+    private final int chunkSize;
+    private final boolean serializationPassthrough;
+    private final boolean readsByteBuffers;
 
     /**
      * Instantiate a {@link DefaultKafkaMessageConverter} based on the fields contained in the {@link Builder}.
@@ -90,7 +155,13 @@ protected DefaultKafkaMessageConverter(Builder builder) {
         this.serializer = builder.serializer;
         this.sequencingPolicy = builder.sequencingPolicy;
         this.headerValueMapper = builder.headerValueMapper;
-        this.upcasterChain = builder.upcasterChain;
+        this.upcasterFastPath = builder.upcasterChainConfigured
+                ? new UpcasterFastPath(builder.upcasterChain, builder.passThroughTypeCacheSize)
+                : UpcasterFastPath.withoutUpcasters();
+        this.payloadCodec = builder.payloadCodec;
+        this.chunkSize = builder.chunkSize;
+        this.serializationPassthrough = builder.serializationPassthrough;
+        this.readsByteBuffers = serializer.getConverter().canConvert(ByteBuffer.class, byte[].class);
     }
 
     /**
@@ -124,41 +195,395 @@ public static Builder builder() {
     @Override
     public ProducerRecord<String, byte[]> createKafkaMessage(EventMessage<?> eventMessage, String topic) {
         SerializedObject<byte[]> serializedObject = eventMessage.serializePayload(serializer, byte[].class);
+        Headers headers = headersFor(eventMessage, serializedObject);
         return new ProducerRecord<>(
                 topic, null, null, recordKey(eventMessage),
-                serializedObject.getData(),
-                toHeaders(eventMessage, serializedObject, headerValueMapper)
+                encodePayload(serializedObject, headers),
+                headers
         );
     }
 
-    private String recordKey(EventMessage<?> eventMessage) {
+    private Headers headersFor(EventMessage<?> eventMessage, SerializedObject<byte[]> serializedObject) {
+        if (!serializationPassthrough) {
+            return toHeaders(eventMessage, serializedObject, headerValueMapper);
+        }
+        RecordHeaders headers = new RecordHeaders();
+        defaultHeaders(eventMessage, serializedObject).forEach((key, value) -> addHeader(headers, key, value));
+        headers.add(SERIALIZED_METADATA, eventMessage.serializeMetaData(serializer, byte[].class).getData());
+        return headers;
+    }
+
+    private byte[] encodePayload(SerializedObject<byte[]> serializedObject, Headers headers) {
+        return payloadCodec != null
+                ? payloadCodec.encode(serializedObject.getType().getName(), serializedObject.getData(), headers)
+                : serializedObject.getData();
+    }
+
+    private Object decodePayload(Object messageBody, Headers headers) {
+        if (DictionaryPayloadCodec.dictionaryId(headers) == null) {
+            return messageBody;
+        }
+        if (payloadCodec == null) {
+            throw new FetchEventException("Payload is compressed, but no DictionaryPayloadCodec is configured");
+        }
+        byte[] compressedBody = messageBody instanceof ByteBuffer
+                ? new ByteBufferToByteArrayConverter().convert((ByteBuffer) messageBody)
+                : (byte[]) messageBody;
+        try {
+            return payloadCodec.decode(compressedBody, headers);
+        } catch (IllegalStateException e) {
+            throw new FetchEventException("Unable to decompress payload of record", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The key is defined by the configured {@link SequencingPolicy}.
+     */
+    @Override
+    public String recordKey(EventMessage<?> eventMessage) {
         Object sequenceIdentifier = sequencingPolicy.getSequenceIdentifierFor(eventMessage);
         return sequenceIdentifier != null ? sequenceIdentifier.toString() : null;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A single event results in the same {@link ProducerRecord} as {@link #createKafkaMessage(EventMessage, String)}
+     * would create. Several events are packed into one record, containing a {@link #BATCH_SIZE} header and a body
+     * consisting of the Kafka headers and serialized payload of every event. The key of the record is the key of the
+     * first event.
+     */
+    @Override
+    public ProducerRecord<String, byte[]> createKafkaMessage(List<? extends EventMessage<?>> eventMessages,
+                                                             String topic) {
+        if (eventMessages.size() == 1) {
+            return createKafkaMessage(eventMessages.get(0), topic);
+        }
+
+        ByteArrayOutputStream batchBody = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(batchBody)) {
+            out.writeInt(eventMessages.size());
+            for (EventMessage<?> eventMessage : eventMessages) {
+                SerializedObject<byte[]> serializedObject = eventMessage.serializePayload(serializer, byte[].class);
+                Headers eventHeaders = headersFor(eventMessage, serializedObject);
+                byte[] payload = encodePayload(serializedObject, eventHeaders);
+                writeHeaders(out, eventHeaders);
+                writeBytes(out, payload);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to pack event messages in to a single record", e);
+        }
+
+        RecordHeaders headers = new RecordHeaders();
+        addHeader(headers, BATCH_SIZE, eventMessages.size());
+        return new ProducerRecord<>(
+                topic, null, null, recordKey(eventMessages.get(0)), batchBody.toByteArray(), headers
+        );
+    }
+
+    private static void writeHeaders(DataOutputStream out, Headers headers) throws IOException {
+        Header[] headerArray = headers.toArray();
+        out.writeInt(headerArray.length);
+        for (Header header : headerArray) {
+            out.writeUTF(header.key());
+            writeBytes(out, header.value());
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Records with a value of at most the configured {@code chunkSize} are returned as is. Chunk records use the key of
+     * the original record, or the chunked record identifier if the original record has no key, so all chunks of a
+     * record are published on the same partition.
+     */
+    @Override
+    public List<ProducerRecord<String, byte[]>> toChunks(ProducerRecord<String, byte[]> record) {
+        byte[] value = record.value();
+        if (value == null || value.length <= chunkSize) {
+            return Collections.singletonList(record);
+        }
+
+        int chunkCount = (value.length + chunkSize - 1) / chunkSize;
+        String chunkedRecordId = UUID.randomUUID().toString();
+        String chunkKey = record.key() != null ? record.key() : chunkedRecordId;
+        List<ProducerRecord<String, byte[]>> chunks = new ArrayList<>(chunkCount);
+        for (int index = 0; index < chunkCount; index++) {
+            RecordHeaders headers = new RecordHeaders();
+            if (index == 0) {
+                record.headers().forEach(headers::add);
+            }
+            addHeader(headers, CHUNK_ID, chunkedRecordId);
+            addHeader(headers, CHUNK_INDEX, index);
+            addHeader(headers, CHUNK_COUNT, chunkCount);
+            int from = index * chunkSize;
+            byte[] chunkValue = Arrays.copyOfRange(value, from, Math.min(from + chunkSize, value.length));
+            chunks.add(new ProducerRecord<>(
+                    record.topic(), record.partition(), record.timestamp(), chunkKey, chunkValue, headers
+            ));
+        }
+        return chunks;
+    }
+
+    @Override
+    public Optional<RecordChunk> chunkOf(ConsumerRecord<String, byte[]> consumerRecord) {
+        return chunkOf(consumerRecord.headers());
+    }
+
+    /**
+     * Returns the {@link RecordChunk} described by the given {@code headers}, if they belong to a chunk record.
+     *
+     * @param headers the {@link Headers} of a Kafka record
+     * @return the {@link RecordChunk} described by the given {@code headers}, if they belong to a chunk record
+     */
+    static Optional<RecordChunk> chunkOf(Headers headers) {
+        if (!isChunk(headers)) {
+            return Optional.empty();
+        }
+        return Optional.of(new RecordChunk(valueAsString(headers, CHUNK_ID),
+                                           valueAsInt(headers, CHUNK_INDEX),
+                                           valueAsInt(headers, CHUNK_COUNT)));
+    }
+
+    @Override
+    public ConsumerRecord<String, byte[]> reassemble(List<ConsumerRecord<String, byte[]>> chunks) {
+        ConsumerRecord<String, byte[]> firstChunk = chunks.get(0);
+        ConsumerRecord<String, byte[]> lastChunk = chunks.get(chunks.size() - 1);
+
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        chunks.forEach(chunk -> value.write(chunk.value(), 0, chunk.value().length));
+        return new ConsumerRecord<>(lastChunk.topic(), lastChunk.partition(), lastChunk.offset(),
+                                    lastChunk.timestamp(), lastChunk.timestampType(),
+                                    ConsumerRecord.NULL_SIZE, value.size(),
+                                    originalKey(firstChunk), value.toByteArray(),
+                                    originalHeaders(firstChunk.headers()), lastChunk.leaderEpoch());
+    }
+
+    /**
+     * Returns the key of the record the given {@code firstChunk} was split from.
+     *
+     * @param firstChunk the first chunk of a record
+     * @return the key of the record the given {@code firstChunk} was split from
+     */
+    static String originalKey(ConsumerRecord<String, ?> firstChunk) {
+        String chunkedRecordId = valueAsString(firstChunk.headers(), CHUNK_ID);
+        return chunkedRecordId.equals(firstChunk.key()) ? null : firstChunk.key();
+    }
+
+    /**
+     * Returns the headers of the record the chunk with the given {@code firstChunkHeaders} was split from.
+     *
+     * @param firstChunkHeaders the {@link Headers} of the first chunk of a record
+     * @return the headers of the record the first chunk was split from
+     */
+    static Headers originalHeaders(Headers firstChunkHeaders) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : firstChunkHeaders) {
+            if (!CHUNK_ID.equals(header.key()) && !CHUNK_INDEX.equals(header.key())
+                    && !CHUNK_COUNT.equals(header.key())) {
+                headers.add(header);
+            }
+        }
+        return headers;
+    }
+
+    private static boolean isChunk(Headers headers) {
+        return headers != null && headers.lastHeader(CHUNK_ID) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws FetchEventException if the payload of the {@code consumerRecord} is compressed, but can not be
+     *                             decompressed
+     */
     @Override
     public Optional<EventMessage<?>> readKafkaMessage(ConsumerRecord<String, byte[]> consumerRecord) {
+        try {
+            byte[] messageBody = consumerRecord.value();
+            return readEventMessage(consumerRecord.headers(), messageBody);
+        } catch (FetchEventException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.trace("Error converting ConsumerRecord [{}] to an EventMessage", consumerRecord, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Records without a {@link #BATCH_SIZE} header are read through {@link #readKafkaMessage(ConsumerRecord)}. If any
+     * of the packed events cannot be read, an empty list is returned for the entire record.
+     *
+     * @throws FetchEventException if a payload of the {@code consumerRecord} is compressed, but can not be
+     *                             decompressed
+     */
+    @Override
+    public List<EventMessage<?>> readKafkaMessages(ConsumerRecord<String, byte[]> consumerRecord) {
         try {
             Headers headers = consumerRecord.headers();
-            if (isAxonMessage(headers)) {
-                byte[] messageBody = consumerRecord.value();
-                final EventData<?> eventData = createEventData(headers, messageBody);
-                return upcasterChain
-                        .upcast(Stream.of(new InitialEventRepresentation(eventData, serializer)))
-                        .findFirst()
-                        .map(upcastedEventData -> new SerializedMessage<>(
-                                     upcastedEventData.getMessageIdentifier(),
-                                     new LazyDeserializingObject<>(upcastedEventData.getData(), serializer),
-                                     upcastedEventData.getMetaData()
-                             )
-                        ).flatMap(serializedMessage -> buildMessage(headers, serializedMessage));
+            if (isChunk(headers)) {
+                return Collections.emptyList();
+            }
+            if (headers == null || headers.lastHeader(BATCH_SIZE) == null) {
+                return readKafkaMessage(consumerRecord).<List<EventMessage<?>>>map(Collections::singletonList)
+                                                       .orElse(Collections.emptyList());
             }
+
+            byte[] batchBody = consumerRecord.value();
+            return readBatch(batchBody, 0, batchBody.length);
+        } catch (FetchEventException e) {
+            throw e;
         } catch (Exception e) {
-            logger.trace("Error converting ConsumerRecord [{}] to an EventMessage", consumerRecord, e);
+            logger.trace("Error converting batched ConsumerRecord [{}] to EventMessages", consumerRecord, e);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Reconstruct an {@link EventMessage} from the given {@code headers} and {@code value} of a Kafka record. If the
+     * configured {@link Serializer} is able to read {@link ByteBuffer}s, the payload is read directly from the {@code
+     * value}, without copying it.
+     *
+     * @param headers the {@link Headers} of the Kafka record
+     * @param value   the value of the Kafka record
+     * @return the converted record as an {@link EventMessage}, if it represents one
+     * @throws FetchEventException if the payload of the record is compressed, but can not be decompressed
+     */
+    Optional<EventMessage<?>> readKafkaMessage(Headers headers, ByteBuffer value) {
+        try {
+            return readEventMessage(headers, payloadOf(value));
+        } catch (FetchEventException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.trace("Error converting record with headers [{}] to an EventMessage", headers, e);
         }
         return Optional.empty();
     }
 
+    /**
+     * Reconstruct all {@link EventMessage}s from the given {@code headers} and {@code value} of a Kafka record, which
+     * may contain several packed events. If the configured {@link Serializer} is able to read {@link ByteBuffer}s, the
+     * payloads are read directly from the {@code value}, without copying them.
+     *
+     * @param headers the {@link Headers} of the Kafka record
+     * @param value   the value of the Kafka record
+     * @return the converted record as a {@link List} of {@link EventMessage}s
+     * @throws FetchEventException if a payload of the record is compressed, but can not be decompressed
+     */
+    List<EventMessage<?>> readKafkaMessages(Headers headers, ByteBuffer value) {
+        if (isChunk(headers)) {
+            return Collections.emptyList();
+        }
+        if (headers == null || headers.lastHeader(BATCH_SIZE) == null) {
+            return readKafkaMessage(headers, value).<List<EventMessage<?>>>map(Collections::singletonList)
+                                                   .orElse(Collections.emptyList());
+        }
+        try {
+            if (value.hasArray()) {
+                return readBatch(value.array(), value.arrayOffset() + value.position(), value.remaining());
+            }
+            byte[] batchBody = new byte[value.remaining()];
+            value.duplicate().get(batchBody);
+            return readBatch(batchBody, 0, batchBody.length);
+        } catch (FetchEventException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.trace("Error converting batched record with headers [{}] to EventMessages", headers, e);
+        }
+        return Collections.emptyList();
+    }
+
+    private List<EventMessage<?>> readBatch(byte[] batchBody, int offset, int length) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(batchBody, offset, length);
+        DataInputStream in = new DataInputStream(bytes);
+        int batchSize = in.readInt();
+        List<EventMessage<?>> eventMessages = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Headers eventHeaders = readHeaders(in);
+            int payloadLength = in.readInt();
+            Object messageBody = null;
+            if (payloadLength >= 0) {
+                int payloadOffset = offset + length - bytes.available();
+                if (in.skipBytes(payloadLength) != payloadLength) {
+                    throw new EOFException("Batched record ends within the payload of event [" + i + "]");
+                }
+                messageBody = payloadOf(batchBody, payloadOffset, payloadLength);
+            }
+            Optional<EventMessage<?>> eventMessage = readEventMessage(eventHeaders, messageBody);
+            if (!eventMessage.isPresent()) {
+                logger.trace("Unable to convert event [{}] of batched record", i);
+                return Collections.emptyList();
+            }
+            eventMessages.add(eventMessage.get());
+        }
+        return eventMessages;
+    }
+
+    /**
+     * Returns the payload contained in the given range of the {@code source} array. This is a {@link ByteBuffer} view
+     * on the array if the {@link Serializer} is able to read those, or a copy of the range otherwise.
+     */
+    private Object payloadOf(byte[] source, int offset, int length) {
+        return readsByteBuffers
+                ? ByteBuffer.wrap(source, offset, length).slice()
+                : Arrays.copyOfRange(source, offset, offset + length);
+    }
+
+    private Object payloadOf(ByteBuffer value) {
+        if (value == null) {
+            return null;
+        }
+        return readsByteBuffers ? value.slice() : new ByteBufferToByteArrayConverter().convert(value);
+    }
+
+    private static Headers readHeaders(DataInputStream in) throws IOException {
+        int numberOfHeaders = in.readInt();
+        RecordHeaders headers = new RecordHeaders();
+        for (int i = 0; i < numberOfHeaders; i++) {
+            headers.add(in.readUTF(), readBytes(in));
+        }
+        return headers;
+    }
+
+    @SuppressWarnings("squid:S1168") // null is a valid value
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private Optional<EventMessage<?>> readEventMessage(Headers headers, Object messageBody) {
+        if (!isAxonMessage(headers) || isChunk(headers)) {
+            return Optional.empty();
+        }
+        final EventData<?> eventData = createEventData(headers, decodePayload(messageBody, headers));
+        return upcasterFastPath
+                .upcast(new InitialEventRepresentation(eventData, serializer))
+                .map(upcastedEventData -> new SerializedMessage<>(
+                             upcastedEventData.getMessageIdentifier(),
+                             new LazyDeserializingObject<>(upcastedEventData.getData(), serializer),
+                             upcastedEventData.getMetaData()
+                     )
+                ).flatMap(serializedMessage -> buildMessage(headers, serializedMessage));
+    }
+
     /**
      * Constructs event data representation from given Kafka headers and byte array body.
      * <p>
@@ -172,10 +597,10 @@ public Optional<EventMessage<?>> readKafkaMessage(ConsumerRecord<String, byte[]>
      * </p>
      *
      * @param headers     Kafka headers.
-     * @param messageBody Kafka payload as a byte array.
+     * @param messageBody Kafka payload as a byte array or {@link ByteBuffer}.
      * @return event data.
      */
-    private EventData<?> createEventData(Headers headers, byte[] messageBody) {
+    private EventData<?> createEventData(Headers headers, Object messageBody) {
         return new GenericDomainEventEntry<>(
                 valueAsString(headers, AGGREGATE_TYPE),
                 valueAsString(headers, AGGREGATE_ID),
@@ -190,6 +615,10 @@ private EventData<?> createEventData(Headers headers, byte[] messageBody) {
     }
 
     private byte[] extractMetadataAsBytes(Headers headers) {
+        Header serializedMetaData = headers.lastHeader(SERIALIZED_METADATA);
+        if (serializedMetaData != null) {
+            return serializedMetaData.value();
+        }
         return serializer.serialize(MetaData.from(extractAxonMetadata(headers)), byte[].class).getData();
     }
 
@@ -255,6 +684,11 @@ public static class Builder {
         private SequencingPolicy<? super EventMessage<?>> sequencingPolicy = SequentialPerAggregatePolicy.instance();
         private BiFunction<String, Object, RecordHeader> headerValueMapper = byteMapper();
         private EventUpcasterChain upcasterChain = new EventUpcasterChain();
+        private boolean upcasterChainConfigured = false;
+        private int passThroughTypeCacheSize = 0;
+        private DictionaryPayloadCodec payloadCodec;
+        private int chunkSize = Integer.MAX_VALUE;
+        private boolean serializationPassthrough = false;
 
         /**
          * Sets the serializer to serialize the Event Message's payload with.
@@ -305,6 +739,72 @@ public Builder headerValueMapper(BiFunction<String, Object, RecordHeader> header
         public Builder upcasterChain(EventUpcasterChain upcasterChain) {
             assertNonNull(upcasterChain, "UpcasterChain must not be null");
             this.upcasterChain = upcasterChain;
+            this.upcasterChainConfigured = true;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of payload type and revision combinations remembered to pass through the {@code
+         * upcasterChain} untouched. Events of a remembered combination skip the {@code upcasterChain} entirely. Only
+         * enable this if the upcasters decide whether to act on an event based on its payload type and revision. Defaults
+         * to {@code 0}, passing every event through the {@code upcasterChain}.
+         *
+         * @param passThroughTypeCacheSize the maximum number of payload type and revision combinations to remember
+         * @return the current Builder instance, for fluent interfacing
+         * @see UpcasterFastPath
+         */
+        public Builder passThroughTypeCacheSize(int passThroughTypeCacheSize) {
+            assertThat(passThroughTypeCacheSize, size -> size >= 0,
+                       "The pass through type cache size may not be negative");
+            this.passThroughTypeCacheSize = passThroughTypeCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets the {@link DictionaryPayloadCodec} used to compress serialized payloads when creating records and to
+         * decompress them when reading records. Optional; by default payloads are not compressed.
+         *
+         * @param payloadCodec the {@link DictionaryPayloadCodec} used to compress and decompress serialized payloads
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder payloadCodec(DictionaryPayloadCodec payloadCodec) {
+            assertNonNull(payloadCodec, "DictionaryPayloadCodec may not be null");
+            this.payloadCodec = payloadCodec;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size in bytes of a record value before {@link #toChunks(ProducerRecord)} splits the record
+         * in to chunks of at most this size. Should be set sufficiently below the broker's {@code max.message.bytes}
+         * to leave room for the headers. Defaults to {@link Integer#MAX_VALUE}, effectively disabling chunking.
+         *
+         * @param chunkSize the maximum size in bytes of a record value before it is split in to chunks
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder chunkSize(int chunkSize) {
+            assertThat(chunkSize, size -> size > 0, "The chunk size should be a positive number");
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets whether events are written in serialization passthrough mode. In this mode, the metadata of an event is
+         * written as a single {@link #SERIALIZED_METADATA} header containing the metadata serialized with the
+         * configured {@link Serializer}, instead of a header per metadata entry.
+         * <p>
+         * Configure the {@link Serializer} used by the event store when publishing events read from it. A {@link
+         * SerializedMessage} hands out its stored payload and metadata as is when asked to serialize with the {@link
+         * Serializer} it was read with, so events are forwarded without touching their object model. Events read with
+         * a different {@link Serializer} are deserialized and serialized again, as they would be without this mode.
+         * <p>
+         * Note that consumers need a converter of this version or later to read the metadata of such records, and that
+         * metadata entries are no longer visible as individual Kafka headers. Defaults to {@code false}.
+         *
+         * @param serializationPassthrough whether to write events in serialization passthrough mode
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder serializationPassthrough(boolean serializationPassthrough) {
+            this.serializationPassthrough = serializationPassthrough;
             return this;
         }
 
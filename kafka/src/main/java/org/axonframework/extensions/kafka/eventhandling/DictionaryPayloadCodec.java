@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.apache.kafka.common.header.Headers;
+import org.axonframework.common.AxonConfigurationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.axonframework.common.BuilderUtils.assertNonEmpty;
+import static org.axonframework.common.BuilderUtils.assertNonNull;
+import static org.axonframework.common.BuilderUtils.assertThat;
+import static org.axonframework.extensions.kafka.eventhandling.HeaderUtils.addHeader;
+import static org.axonframework.extensions.kafka.eventhandling.HeaderUtils.valueAsString;
+
+/**
+ * Compresses serialized payloads with a preset dictionary per payload type. Small payloads, like typical JSON events of
+ * a few hundred bytes, barely benefit from Kafka's batch-level compression when producer batches are small. A
+ * dictionary trained up front on sample payloads of a given type allows even a single payload to be compressed
+ * efficiently.
+ * <p>
+ * Compressed payloads are marked with the {@link #PAYLOAD_DICTIONARY} header, containing the identifier of the
+ * dictionary used. Consumers need a codec which knows a dictionary by that identifier to decode the payload. Payloads
+ * without this header are returned as is, so uncompressed records remain readable. Dictionaries are expected to be
+ * immutable once published: ship a new dictionary under a new identifier instead of changing an existing one.
+ * <p>
+ * Compression uses the DEFLATE algorithm with a preset dictionary, as provided by {@link Deflater#setDictionary(byte[])}.
+ * A payload is only compressed if this actually reduces its size.
+ *
+ * @since 4.9.0
+ */
+public class DictionaryPayloadCodec {
+
+    /**
+     * The Kafka header key containing the identifier of the dictionary the payload was compressed with.
+     */
+    public static final String PAYLOAD_DICTIONARY = "axon-payload-dictionary";
+
+    private final Map<String, String> dictionaryIdsByPayloadType;
+    private final Map<String, byte[]> dictionaries;
+    private final int compressionLevel;
+    private final int minimumPayloadSize;
+
+    /**
+     * Instantiate a {@link DictionaryPayloadCodec} based on the fields contained in the {@link Builder}.
+     *
+     * @param builder the {@link Builder} used to instantiate a {@link DictionaryPayloadCodec} instance
+     */
+    protected DictionaryPayloadCodec(Builder builder) {
+        builder.validate();
+        this.dictionaryIdsByPayloadType = new HashMap<>(builder.dictionaryIdsByPayloadType);
+        this.dictionaries = new HashMap<>(builder.dictionaries);
+        this.compressionLevel = builder.compressionLevel;
+        this.minimumPayloadSize = builder.minimumPayloadSize;
+    }
+
+    /**
+     * Instantiate a Builder to be able to create a {@link DictionaryPayloadCodec}.
+     * <p>
+     * The {@code compressionLevel} defaults to {@link Deflater#BEST_COMPRESSION} and the {@code minimumPayloadSize} to
+     * {@code 64} bytes. Dictionaries are registered through {@link Builder#dictionary(String, String, byte[])}, {@link
+     * Builder#dictionaryResource(String, String, String)} or {@link Builder#decodingDictionary(String, byte[])}.
+     *
+     * @return a Builder to be able to create a {@link DictionaryPayloadCodec}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Compress the given {@code payload} of the given {@code payloadType} with the dictionary registered for that type.
+     * If the payload was compressed, the {@link #PAYLOAD_DICTIONARY} header is added to the given {@code headers}. The
+     * {@code payload} is returned as is if no dictionary is registered for the {@code payloadType}, if it is smaller
+     * than the configured {@code minimumPayloadSize}, or if compression does not reduce its size.
+     *
+     * @param payloadType the type of the serialized payload, used to select the dictionary
+     * @param payload     the serialized payload to compress
+     * @param headers     the {@link Headers} of the Kafka record to mark the used dictionary in
+     * @return the compressed {@code payload}, or the {@code payload} as is if it was not compressed
+     */
+    public byte[] encode(String payloadType, byte[] payload, Headers headers) {
+        String dictionaryId = dictionaryIdsByPayloadType.get(payloadType);
+        if (dictionaryId == null || payload == null || payload.length < minimumPayloadSize) {
+            return payload;
+        }
+
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setDictionary(dictionaries.get(dictionaryId));
+            deflater.setInput(payload);
+            deflater.finish();
+            byte[] buffer = new byte[payload.length];
+            int compressedSize = 0;
+            while (!deflater.finished() && compressedSize < buffer.length) {
+                compressedSize += deflater.deflate(buffer, compressedSize, buffer.length - compressedSize);
+            }
+            if (!deflater.finished() || compressedSize >= payload.length) {
+                // Compression did not reduce the size, so there is no point in using it
+                return payload;
+            }
+            addHeader(headers, PAYLOAD_DICTIONARY, dictionaryId);
+            return Arrays.copyOf(buffer, compressedSize);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompress the given {@code payload} with the dictionary referred to by the {@link #PAYLOAD_DICTIONARY} header in
+     * the given {@code headers}. The {@code payload} is returned as is if this header is not present.
+     *
+     * @param payload the possibly compressed payload
+     * @param headers the {@link Headers} of the Kafka record the {@code payload} originates from
+     * @return the decompressed {@code payload}, or the {@code payload} as is if it was not compressed
+     * @throws IllegalStateException if the {@code payload} was compressed with a dictionary unknown to this codec, or
+     *                               if the {@code payload} could not be decompressed
+     */
+    public byte[] decode(byte[] payload, Headers headers) {
+        String dictionaryId = dictionaryId(headers);
+        if (dictionaryId == null) {
+            return payload;
+        }
+        byte[] dictionary = dictionaries.get(dictionaryId);
+        if (dictionary == null) {
+            throw new IllegalStateException(
+                    "Payload was compressed with unknown dictionary [" + dictionaryId + "]"
+            );
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+            byte[] buffer = new byte[Math.max(512, payload.length * 4)];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalStateException(
+                                "Compressed payload is truncated for dictionary [" + dictionaryId + "]"
+                        );
+                    }
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Unable to decompress payload with dictionary [" + dictionaryId + "]", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns the identifier of the dictionary the payload of a record with the given {@code headers} was compressed
+     * with, or {@code null} if the payload was not compressed.
+     *
+     * @param headers the {@link Headers} of the Kafka record
+     * @return the identifier of the dictionary used, or {@code null} if the payload was not compressed
+     */
+    public static String dictionaryId(Headers headers) {
+        return headers.lastHeader(PAYLOAD_DICTIONARY) != null ? valueAsString(headers, PAYLOAD_DICTIONARY) : null;
+    }
+
+    /**
+     * Builder class to instantiate a {@link DictionaryPayloadCodec}.
+     * <p>
+     * The {@code compressionLevel} defaults to {@link Deflater#BEST_COMPRESSION} and the {@code minimumPayloadSize} to
+     * {@code 64} bytes. At least one dictionary should be registered.
+     */
+    public static class Builder {
+
+        private final Map<String, String> dictionaryIdsByPayloadType = new HashMap<>();
+        private final Map<String, byte[]> dictionaries = new HashMap<>();
+        private int compressionLevel = Deflater.BEST_COMPRESSION;
+        private int minimumPayloadSize = 64;
+
+        /**
+         * Registers the given {@code dictionary} under the given {@code dictionaryId}, to be used to compress payloads
+         * of the given {@code payloadType}. The dictionary is also used to decompress payloads marked with the given
+         * {@code dictionaryId}.
+         *
+         * @param payloadType  the serialized type name of the payloads to compress with the given {@code dictionary}
+         * @param dictionaryId the identifier of the dictionary, added as a header to compressed records
+         * @param dictionary   the preset dictionary, typically consisting of representative sample payloads
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder dictionary(String payloadType, String dictionaryId, byte[] dictionary) {
+            assertNonEmpty(payloadType, "The payload type may not be null or empty");
+            decodingDictionary(dictionaryId, dictionary);
+            this.dictionaryIdsByPayloadType.put(payloadType, dictionaryId);
+            return this;
+        }
+
+        /**
+         * Registers the dictionary found on the classpath at the given {@code resourcePath} under the given {@code
+         * dictionaryId}, to be used to compress payloads of the given {@code payloadType}. Allows dictionaries trained
+         * offline to be shipped as resources.
+         *
+         * @param payloadType  the serialized type name of the payloads to compress with the dictionary
+         * @param dictionaryId the identifier of the dictionary, added as a header to compressed records
+         * @param resourcePath the classpath location of the dictionary
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder dictionaryResource(String payloadType, String dictionaryId, String resourcePath) {
+            return dictionary(payloadType, dictionaryId, loadResource(resourcePath));
+        }
+
+        /**
+         * Registers the given {@code dictionary} under the given {@code dictionaryId} for decompression only. Useful to
+         * keep reading records compressed with a dictionary that has been superseded for a payload type.
+         *
+         * @param dictionaryId the identifier of the dictionary, as found in the header of compressed records
+         * @param dictionary   the preset dictionary
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder decodingDictionary(String dictionaryId, byte[] dictionary) {
+            assertNonEmpty(dictionaryId, "The dictionary id may not be null or empty");
+            assertThat(dictionary, d -> d != null && d.length > 0, "The dictionary may not be null or empty");
+            byte[] existing = this.dictionaries.get(dictionaryId);
+            assertThat(existing, e -> e == null || Arrays.equals(e, dictionary),
+                       "A different dictionary is already registered under id [" + dictionaryId + "]");
+            this.dictionaries.put(dictionaryId, dictionary.clone());
+            return this;
+        }
+
+        /**
+         * Sets the compression level used, ranging from {@link Deflater#BEST_SPEED} to {@link
+         * Deflater#BEST_COMPRESSION}. Defaults to {@link Deflater#BEST_COMPRESSION}.
+         *
+         * @param compressionLevel the compression level used
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder compressionLevel(int compressionLevel) {
+            assertThat(compressionLevel,
+                       level -> level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION,
+                       "The compression level should be between 1 and 9");
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * Sets the size in bytes a payload should at least have to be compressed. Defaults to {@code 64} bytes.
+         *
+         * @param minimumPayloadSize the size in bytes a payload should at least have to be compressed
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder minimumPayloadSize(int minimumPayloadSize) {
+            assertThat(minimumPayloadSize, size -> size >= 0, "The minimum payload size may not be negative");
+            this.minimumPayloadSize = minimumPayloadSize;
+            return this;
+        }
+
+        /**
+         * Initializes a {@link DictionaryPayloadCodec} as specified through this Builder.
+         *
+         * @return a {@link DictionaryPayloadCodec} as specified through this Builder
+         */
+        public DictionaryPayloadCodec build() {
+            return new DictionaryPayloadCodec(this);
+        }
+
+        /**
+         * Validates whether the fields contained in this Builder are set accordingly.
+         *
+         * @throws AxonConfigurationException if one field is asserted to be incorrect according to the Builder's
+         *                                    specifications
+         */
+        protected void validate() throws AxonConfigurationException {
+            assertThat(dictionaries, d -> !d.isEmpty(), "At least one dictionary should be provided");
+        }
+
+        private static byte[] loadResource(String resourcePath) {
+            assertNonEmpty(resourcePath, "The dictionary resource path may not be null or empty");
+            ClassLoader classLoader = DictionaryPayloadCodec.class.getClassLoader();
+            try (InputStream in = classLoader.getResourceAsStream(resourcePath)) {
+                assertNonNull(in, "No dictionary found at resource path [" + resourcePath + "]");
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read dictionary from [" + resourcePath + "]", e);
+            }
+        }
+    }
+}
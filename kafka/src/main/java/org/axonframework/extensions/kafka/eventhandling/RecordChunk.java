@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import java.util.Objects;
+
+/**
+ * Describes a Kafka record which is one of the chunks a large record was split in to by a {@link
+ * ChunkingKafkaMessageConverter}.
+ *
+ * @since 4.9.0
+ */
+public final class RecordChunk {
+
+    private final String chunkedRecordId;
+    private final int index;
+    private final int count;
+
+    /**
+     * Constructs a {@link RecordChunk} being chunk {@code index} out of {@code count} chunks of the record identified
+     * by {@code chunkedRecordId}.
+     *
+     * @param chunkedRecordId the identifier of the record which was split in to chunks
+     * @param index           the zero-based index of this chunk
+     * @param count           the total number of chunks the record was split in to
+     */
+    public RecordChunk(String chunkedRecordId, int index, int count) {
+        this.chunkedRecordId = chunkedRecordId;
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Returns the identifier of the record which was split in to chunks, shared by all of its chunks.
+     *
+     * @return the identifier of the record which was split in to chunks
+     */
+    public String chunkedRecordId() {
+        return chunkedRecordId;
+    }
+
+    /**
+     * Returns the zero-based index of this chunk.
+     *
+     * @return the zero-based index of this chunk
+     */
+    public int index() {
+        return index;
+    }
+
+    /**
+     * Returns the total number of chunks the record was split in to.
+     *
+     * @return the total number of chunks the record was split in to
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns whether this is the last chunk of the record.
+     *
+     * @return {@code true} if this is the last chunk of the record, {@code false} otherwise
+     */
+    public boolean isLast() {
+        return index == count - 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RecordChunk that = (RecordChunk) o;
+        return index == that.index && count == that.count && Objects.equals(chunkedRecordId, that.chunkedRecordId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(chunkedRecordId, index, count);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordChunk{" +
+                "chunkedRecordId='" + chunkedRecordId + '\'' +
+                ", index=" + index +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.eventhandling.Segment;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.axonframework.common.Assert.isTrue;
+import static org.axonframework.common.Assert.notNull;
+
+/**
+ * Utility class aligning Kafka partitions with Axon {@link Segment}s. A sequence identifier is placed on the partition
+ * derived from the same hash a {@link Segment} matches it on, being {@link Objects#hashCode(Object)} of the
+ * identifier. Identifiers of type {@code byte[]} are hashed as a wrapping {@link ByteBuffer}, as is done by the {@link
+ * org.axonframework.extensions.kafka.eventhandling.consumer.streamable.KafkaRecordKeySequencingPolicy}.
+ * <p>
+ * As segments split the hash space in powers of two, only the largest power of two not exceeding the number of
+ * partitions of a topic is used, referred to as the aligned partition count. A topic with six partitions thus has four
+ * aligned partitions, leaving the last two partitions unused. The events of a segment then reside on a fixed subset of
+ * the partitions: a fraction of the aligned partitions when there are fewer segments than aligned partitions, or a
+ * single partition otherwise.
+ * <p>
+ * Note that the record key of the {@link DefaultKafkaMessageConverter} is the {@code toString()} of the sequence
+ * identifier. Partitions hence only align with the segments of a processor if its sequencing policy resolves the same
+ * hash, as is the case for {@link String} identifiers, such as aggregate identifiers, and for the {@code
+ * KafkaRecordKeySequencingPolicy}.
+ *
+ * @since 4.9.0
+ */
+public abstract class SegmentPartitions {
+
+    private SegmentPartitions() {
+        // Utility class
+    }
+
+    /**
+     * Returns the hash a {@link Segment} matches the given {@code sequenceIdentifier} on.
+     *
+     * @param sequenceIdentifier the sequence identifier to hash, may be {@code null}
+     * @return the hash a {@link Segment} matches the given {@code sequenceIdentifier} on
+     */
+    public static int hash(Object sequenceIdentifier) {
+        return sequenceIdentifier instanceof byte[]
+                ? ByteBuffer.wrap((byte[]) sequenceIdentifier).hashCode()
+                : Objects.hashCode(sequenceIdentifier);
+    }
+
+    /**
+     * Returns the number of partitions used out of the given {@code numberOfPartitions}, being the largest power of
+     * two not exceeding it.
+     *
+     * @param numberOfPartitions the number of partitions of a topic
+     * @return the number of partitions used out of the given {@code numberOfPartitions}
+     */
+    public static int alignedPartitionCount(int numberOfPartitions) {
+        isTrue(numberOfPartitions > 0, () -> "The number of partitions should be strictly positive");
+        return Integer.highestOneBit(numberOfPartitions);
+    }
+
+    /**
+     * Returns the partition the given {@code sequenceIdentifier} is placed on, for a topic with the given {@code
+     * numberOfPartitions}.
+     *
+     * @param sequenceIdentifier the sequence identifier to place on a partition, may be {@code null}
+     * @param numberOfPartitions the number of partitions of the topic
+     * @return the partition the given {@code sequenceIdentifier} is placed on
+     */
+    public static int partitionFor(Object sequenceIdentifier, int numberOfPartitions) {
+        return hash(sequenceIdentifier) & (alignedPartitionCount(numberOfPartitions) - 1);
+    }
+
+    /**
+     * Returns the partitions containing the events matched by the given {@code segment}, for a topic with the given
+     * {@code numberOfPartitions}, in ascending order.
+     *
+     * @param segment            the {@link Segment} to return the partitions for
+     * @param numberOfPartitions the number of partitions of the topic
+     * @return the partitions containing the events matched by the given {@code segment}
+     */
+    public static List<Integer> partitionsFor(Segment segment, int numberOfPartitions) {
+        notNull(segment, () -> "The segment may not be null");
+        int partitionMask = alignedPartitionCount(numberOfPartitions) - 1;
+        if (segment.getMask() >= partitionMask) {
+            return Collections.singletonList(segment.getSegmentId() & partitionMask);
+        }
+        List<Integer> partitions = new ArrayList<>();
+        for (int partition = 0; partition <= partitionMask; partition++) {
+            if (segment.matches(partition)) {
+                partitions.add(partition);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Selects the {@link TopicPartition}s containing the events matched by the given {@code segment} from the given
+     * {@code topicPartitions}. The given {@code topicPartitions} should contain all partitions of every topic
+     * included, as the number of partitions of a topic is derived from them.
+     *
+     * @param segment         the {@link Segment} to select the {@link TopicPartition}s for
+     * @param topicPartitions all {@link TopicPartition}s of the topics to select from
+     * @return the {@link TopicPartition}s containing the events matched by the given {@code segment}
+     */
+    public static List<TopicPartition> topicPartitionsFor(Segment segment,
+                                                          Collection<TopicPartition> topicPartitions) {
+        notNull(topicPartitions, () -> "The topic partitions may not be null");
+        Map<String, Long> partitionsPerTopic =
+                topicPartitions.stream()
+                               .collect(Collectors.groupingBy(TopicPartition::topic, Collectors.counting()));
+        return topicPartitions.stream()
+                              .filter(topicPartition -> partitionsFor(
+                                      segment, partitionsPerTopic.get(topicPartition.topic()).intValue()
+                              ).contains(topicPartition.partition()))
+                              .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.axonframework.serialization.upcasting.event.EventUpcaster;
+import org.axonframework.serialization.upcasting.event.IntermediateEventRepresentation;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Upcasts single events read from Kafka through an {@link EventUpcaster} chain, skipping the chain for event types it
+ * is known to leave untouched.
+ * <p>
+ * Whenever the chain returns an event as is, its payload type and revision are remembered, up to a configured maximum
+ * number of combinations. Subsequent events of such a combination are not passed through the chain at all. This
+ * assumes the upcasters decide whether to act on an event based on its payload type and revision only, which holds
+ * for upcasters like the {@link org.axonframework.serialization.upcasting.event.SingleEventUpcaster} that check the
+ * type in {@code canUpcast}. Upcasters deciding based on payload content or metadata should not be combined with a
+ * cache.
+ *
+ * @since 4.9.0
+ */
+public class UpcasterFastPath {
+
+    private static final UpcasterFastPath WITHOUT_UPCASTERS = new UpcasterFastPath(null, 0);
+
+    private final EventUpcaster upcasterChain;
+    private final int maxPassThroughTypes;
+    private final Set<SerializedType> passThroughTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Instantiates an {@link UpcasterFastPath} for the given {@code upcasterChain}, remembering at most {@code
+     * maxPassThroughTypes} combinations of payload type and revision the chain leaves untouched. A {@code
+     * maxPassThroughTypes} of {@code 0} disables remembering, passing every event through the chain.
+     *
+     * @param upcasterChain       the {@link EventUpcaster} chain to upcast events with
+     * @param maxPassThroughTypes the maximum number of payload type and revision combinations to remember
+     */
+    public UpcasterFastPath(EventUpcaster upcasterChain, int maxPassThroughTypes) {
+        this.upcasterChain = upcasterChain;
+        this.maxPassThroughTypes = maxPassThroughTypes;
+    }
+
+    /**
+     * Returns an {@link UpcasterFastPath} for an empty upcaster chain, which returns every event as is.
+     *
+     * @return an {@link UpcasterFastPath} for an empty upcaster chain
+     */
+    public static UpcasterFastPath withoutUpcasters() {
+        return WITHOUT_UPCASTERS;
+    }
+
+    /**
+     * Upcast the given {@code initialRepresentation}, returning the first resulting representation. Returns the given
+     * {@code initialRepresentation} as is if its payload type and revision are known to pass through the chain
+     * untouched.
+     *
+     * @param initialRepresentation the representation of the event as read from Kafka
+     * @return the first representation resulting from upcasting, or an empty {@link Optional} if the chain dropped
+     * the event
+     */
+    public Optional<IntermediateEventRepresentation> upcast(IntermediateEventRepresentation initialRepresentation) {
+        if (upcasterChain == null) {
+            return Optional.of(initialRepresentation);
+        }
+        SerializedType type = new SimpleSerializedType(initialRepresentation.getType().getName(),
+                                                       initialRepresentation.getType().getRevision());
+        if (passThroughTypes.contains(type)) {
+            return Optional.of(initialRepresentation);
+        }
+
+        Iterator<IntermediateEventRepresentation> upcasted =
+                upcasterChain.upcast(Stream.of(initialRepresentation)).iterator();
+        if (!upcasted.hasNext()) {
+            return Optional.empty();
+        }
+        IntermediateEventRepresentation first = upcasted.next();
+        if (first == initialRepresentation && !upcasted.hasNext() && passThroughTypes.size() < maxPassThroughTypes) {
+            passThroughTypes.add(type);
+        }
+        return Optional.of(first);
+    }
+
+    /**
+     * Returns whether events of the given {@code payloadType} and {@code revision} are known to pass through the chain
+     * untouched, and hence skip it.
+     *
+     * @param payloadType the payload type of an event
+     * @param revision    the payload revision of an event, may be {@code null}
+     * @return {@code true} if events of the given type and revision skip the upcaster chain
+     */
+    public boolean skipsChainFor(String payloadType, String revision) {
+        return upcasterChain == null || passThroughTypes.contains(new SimpleSerializedType(payloadType, revision));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.cloudevent;
+
+import io.cloudevents.CloudEvent;
+import org.axonframework.messaging.MetaData;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.axonframework.extensions.kafka.eventhandling.cloudevent.ExtensionUtils.isNonMetadataExtension;
+import static org.axonframework.extensions.kafka.eventhandling.cloudevent.ExtensionUtils.resolveMetadataKey;
+import static org.axonframework.extensions.kafka.eventhandling.cloudevent.MetadataUtils.getAdditionalEntries;
+
+/**
+ * Builds the {@link MetaData} of a {@link CloudEvent} from its extensions and attributes, remembering which metadata key
+ * every extension name resolves to. Reading a record thus resolves an extension name only once, instead of checking
+ * whether it is reserved for Axon and looking it up in the extension-to-metadata map for every record read.
+ * <p>
+ * At most {@link #MAX_CACHED_NAMES} extension names are remembered, protecting against an unbounded number of distinct
+ * extension names. Names beyond that are resolved on every read.
+ *
+ * @since 4.9.0
+ */
+class CachingMetadataKeyResolver {
+
+    /**
+     * The maximum number of extension names remembered.
+     */
+    static final int MAX_CACHED_NAMES = 1024;
+
+    private final Map<String, String> metadataNameResolver;
+    private final Map<String, Optional<String>> metadataKeys = new ConcurrentHashMap<>();
+
+    CachingMetadataKeyResolver(Map<String, String> metadataNameResolver) {
+        this.metadataNameResolver = metadataNameResolver;
+    }
+
+    /**
+     * Builds the {@link MetaData} of the given {@code cloudEvent}, containing its extensions which aren't reserved for
+     * Axon and the attributes listed by {@link MetadataUtils#getAdditionalEntries(CloudEvent)}.
+     *
+     * @param cloudEvent the {@link CloudEvent} to build the {@link MetaData} for
+     * @return the {@link MetaData} of the given {@code cloudEvent}
+     */
+    MetaData metaDataOf(CloudEvent cloudEvent) {
+        Map<String, Object> metadataMap = new HashMap<>();
+        for (String extensionName : cloudEvent.getExtensionNames()) {
+            metadataKey(extensionName).ifPresent(key -> metadataMap.put(key, cloudEvent.getExtension(extensionName)));
+        }
+        metadataMap.putAll(getAdditionalEntries(cloudEvent));
+        return MetaData.from(metadataMap);
+    }
+
+    private Optional<String> metadataKey(String extensionName) {
+        Optional<String> metadataKey = metadataKeys.get(extensionName);
+        if (metadataKey != null) {
+            return metadataKey;
+        }
+        metadataKey = isNonMetadataExtension(extensionName)
+                ? Optional.empty()
+                : Optional.of(resolveMetadataKey(extensionName, metadataNameResolver));
+        if (metadataKeys.size() < MAX_CACHED_NAMES) {
+            metadataKeys.put(extensionName, metadataKey);
+        }
+        return metadataKey;
+    }
+}
@@ -29,11 +29,15 @@
 import org.axonframework.eventhandling.async.SequencingPolicy;
 import org.axonframework.eventhandling.async.SequentialPerAggregatePolicy;
 import org.axonframework.extensions.kafka.eventhandling.KafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.UpcasterFastPath;
 import org.axonframework.messaging.MetaData;
 import org.axonframework.serialization.LazyDeserializingObject;
 import org.axonframework.serialization.SerializedMessage;
 import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SerializedType;
 import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.axonframework.serialization.SimpleSerializedType;
 import org.axonframework.serialization.upcasting.event.EventUpcasterChain;
 import org.axonframework.serialization.upcasting.event.InitialEventRepresentation;
 import org.slf4j.Logger;
@@ -47,7 +51,6 @@
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static org.axonframework.common.BuilderUtils.assertNonNull;
 import static org.axonframework.common.BuilderUtils.assertThat;
@@ -85,9 +88,9 @@ public class CloudEventKafkaMessageConverter implements KafkaMessageConverter<St
 
     private final Serializer serializer;
     private final SequencingPolicy<? super EventMessage<?>> sequencingPolicy;
-    private final EventUpcasterChain upcasterChain;
+    private final UpcasterFastPath upcasterFastPath;
     private final Map<String, String> extensionNameResolver;
-    private final Map<String, String> metadataNameResolver;
+    private final CachingMetadataKeyResolver metadataKeyResolver;
     private final Function<EventMessage<?>, URI> sourceSupplier;
     private final Function<EventMessage<?>, Optional<String>> subjectSupplier;
     private final Function<EventMessage<?>, Optional<String>> dataContentTypeSupplier;
@@ -117,12 +120,15 @@ protected CloudEventKafkaMessageConverter(Builder builder) {
         builder.validate();
         this.serializer = builder.serializer;
         this.sequencingPolicy = builder.sequencingPolicy;
-        this.upcasterChain = builder.upcasterChain;
+        this.upcasterFastPath = builder.upcasterChainConfigured
+                ? new UpcasterFastPath(builder.upcasterChain, builder.passThroughTypeCacheSize)
+                : UpcasterFastPath.withoutUpcasters();
         this.extensionNameResolver = builder.metadataToExtensionMap;
-        this.metadataNameResolver = builder.metadataToExtensionMap.entrySet()
-                                                                  .stream()
-                                                                  .collect(Collectors.toMap(Map.Entry::getValue,
-                                                                                            Map.Entry::getKey));
+        this.metadataKeyResolver = new CachingMetadataKeyResolver(
+                builder.metadataToExtensionMap.entrySet()
+                                              .stream()
+                                              .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey))
+        );
         this.sourceSupplier = builder.sourceSupplier;
         this.subjectSupplier = builder.subjectSupplier;
         this.dataContentTypeSupplier = builder.dataContentTypeSupplier;
@@ -190,10 +196,13 @@ private String recordKey(EventMessage<?> eventMessage) {
     public Optional<EventMessage<?>> readKafkaMessage(ConsumerRecord<String, CloudEvent> consumerRecord) {
         try {
             CloudEvent cloudEvent = consumerRecord.value();
+            String revision = asNullableString(cloudEvent.getExtension(MESSAGE_REVISION));
+            if (upcasterFastPath.skipsChainFor(cloudEvent.getType(), revision)) {
+                return buildMessage(cloudEvent, serializedMessage(cloudEvent, revision), consumerRecord.timestamp());
+            }
             final EventData<?> eventData = createEventData(cloudEvent, consumerRecord.timestamp());
-            return upcasterChain
-                    .upcast(Stream.of(new InitialEventRepresentation(eventData, serializer)))
-                    .findFirst()
+            return upcasterFastPath
+                    .upcast(new InitialEventRepresentation(eventData, serializer))
                     .map(upcastedEventData -> new SerializedMessage<>(
                                  upcastedEventData.getMessageIdentifier(),
                                  new LazyDeserializingObject<>(upcastedEventData.getData(), serializer),
@@ -208,6 +217,30 @@ public Optional<EventMessage<?>> readKafkaMessage(ConsumerRecord<String, CloudEv
         return Optional.empty();
     }
 
+    /**
+     * Constructs a {@link SerializedMessage} wrapping the data of the given {@code cloudEvent} as is, used when the
+     * event doesn't need to pass the upcaster chain. The data is only turned in to a {@code byte[]} when the payload is
+     * deserialized, which doesn't involve a copy for the {@link io.cloudevents.core.data.BytesCloudEventData} the
+     * {@link io.cloudevents.kafka.CloudEventDeserializer} produces. The {@link MetaData} is built from the extensions on
+     * first access, without passing through the {@link Serializer}.
+     *
+     * @param cloudEvent the event read from Kafka
+     * @param revision   the revision of the payload of the {@code cloudEvent}, may be {@code null}
+     * @return a {@link SerializedMessage} representing the given {@code cloudEvent}
+     */
+    private SerializedMessage<?> serializedMessage(CloudEvent cloudEvent, String revision) {
+        SerializedType payloadType = new SimpleSerializedType(cloudEvent.getType(), revision);
+        return new SerializedMessage<>(
+                cloudEvent.getId(),
+                new LazyDeserializingObject<>(
+                        () -> new SimpleSerializedObject<>(asBytes(cloudEvent.getData()), byte[].class, payloadType),
+                        payloadType,
+                        serializer
+                ),
+                new LazyCloudEventMetaData(() -> metadataKeyResolver.metaDataOf(cloudEvent), serializer)
+        );
+    }
+
     /**
      * Constructs event data representation from given Cloud Event. Note that we rely on the
      * {@link io.cloudevents.kafka.CloudEventSerializer} to transform the Kafka value bytes, and optionally headers to a
@@ -240,9 +273,7 @@ private EventData<?> createEventData(CloudEvent cloudEvent, long fallBackTimesta
     }
 
     private byte[] extractMetadataAsBytes(CloudEvent cloudEvent) {
-        MetaData metaData = getExtensionsAsMetadata(cloudEvent, metadataNameResolver)
-                .mergedWith(getAdditionalEntries(cloudEvent));
-        return serializer.serialize(metaData, byte[].class).getData();
+        return serializer.serialize(metadataKeyResolver.metaDataOf(cloudEvent), byte[].class).getData();
     }
 
     /**
@@ -309,6 +340,8 @@ public static class Builder {
         private Serializer serializer;
         private SequencingPolicy<? super EventMessage<?>> sequencingPolicy = SequentialPerAggregatePolicy.instance();
         private EventUpcasterChain upcasterChain = new EventUpcasterChain();
+        private boolean upcasterChainConfigured = false;
+        private int passThroughTypeCacheSize = 0;
         private final Map<String, String> metadataToExtensionMap = tracingMap();
         private Function<EventMessage<?>, URI> sourceSupplier = m -> URI.create("https://www.axoniq.io/");
         private Function<EventMessage<?>, Optional<String>> subjectSupplier = defaultSubjectSupplier();
@@ -363,6 +396,24 @@ public Builder sequencingPolicy(SequencingPolicy<? super EventMessage<?>> sequen
         public Builder upcasterChain(EventUpcasterChain upcasterChain) {
             assertNonNull(upcasterChain, "UpcasterChain must not be null");
             this.upcasterChain = upcasterChain;
+            this.upcasterChainConfigured = true;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of payload type and revision combinations remembered to pass through the {@code
+         * upcasterChain} untouched. Events of a remembered combination skip the {@code upcasterChain} entirely. Only
+         * enable this if the upcasters decide whether to act on an event based on its payload type and revision. Defaults
+         * to {@code 0}, passing every event through the {@code upcasterChain}.
+         *
+         * @param passThroughTypeCacheSize the maximum number of payload type and revision combinations to remember
+         * @return the current Builder instance, for fluent interfacing
+         * @see UpcasterFastPath
+         */
+        public Builder passThroughTypeCacheSize(int passThroughTypeCacheSize) {
+            assertThat(passThroughTypeCacheSize, size -> size >= 0,
+                       "The pass through type cache size may not be negative");
+            this.passThroughTypeCacheSize = passThroughTypeCacheSize;
             return this;
         }
 
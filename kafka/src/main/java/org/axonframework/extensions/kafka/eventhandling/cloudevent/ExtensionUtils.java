@@ -125,7 +125,7 @@ public static MetaData getExtensionsAsMetadata(CloudEvent cloudEvent, Map<String
         return MetaData.from(metadataMap);
     }
 
-    private static String resolveMetadataKey(String extensionName, Map<String, String> metadataNameResolver) {
+    static String resolveMetadataKey(String extensionName, Map<String, String> metadataNameResolver) {
         if (metadataNameResolver.containsKey(extensionName)) {
             return metadataNameResolver.get(extensionName);
         }
@@ -141,7 +141,7 @@ private static String resolveExtensionName(String metadataKey, Map<String, Strin
         return metadataKey;
     }
 
-    private static boolean isNonMetadataExtension(String extensionName) {
+    static boolean isNonMetadataExtension(String extensionName) {
         return NON_METADATA_EXTENSIONS.contains(extensionName);
     }
 
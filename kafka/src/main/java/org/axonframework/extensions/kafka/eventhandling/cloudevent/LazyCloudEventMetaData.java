@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.cloudevent;
+
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.CachingSupplier;
+import org.axonframework.serialization.LazyDeserializingObject;
+import org.axonframework.serialization.Serializer;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link LazyDeserializingObject} for {@link MetaData} which is built from a {@link io.cloudevents.CloudEvent} on
+ * first access, rather than deserialized. This spares handlers which never look at the metadata of an event from
+ * building it, and spares all others from serializing the metadata only to deserialize it right after.
+ * <p>
+ * The serialized form, as required when the message is serialized again with the same {@link Serializer}, is only
+ * created on request.
+ *
+ * @since 4.9.0
+ */
+class LazyCloudEventMetaData extends LazyDeserializingObject<MetaData> {
+
+    private final CachingSupplier<MetaData> metaData;
+    private volatile boolean built;
+
+    LazyCloudEventMetaData(Supplier<MetaData> metaDataSupplier, Serializer serializer) {
+        this(CachingSupplier.of(metaDataSupplier), serializer);
+    }
+
+    private LazyCloudEventMetaData(CachingSupplier<MetaData> metaData, Serializer serializer) {
+        super(() -> serializer.serialize(metaData.get(), byte[].class),
+              serializer.typeForClass(MetaData.class),
+              serializer);
+        this.metaData = metaData;
+    }
+
+    @Override
+    public Class<MetaData> getType() {
+        return MetaData.class;
+    }
+
+    @Override
+    public MetaData getObject() {
+        MetaData result = metaData.get();
+        built = true;
+        return result;
+    }
+
+    @Override
+    public boolean isDeserialized() {
+        return built;
+    }
+}
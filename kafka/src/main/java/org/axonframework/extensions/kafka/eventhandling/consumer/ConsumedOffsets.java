@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2010-2022. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The offsets of a batch of {@link ConsumerRecords} together with the {@link ConsumerGroupMetadata} of the {@link
+ * org.apache.kafka.clients.consumer.Consumer} which polled them. While the events of the batch are handled, these
+ * offsets are bound to the handling thread, allowing a transactional {@link org.apache.kafka.clients.producer.Producer}
+ * to commit them as part of its transaction through {@code Producer#sendOffsetsToTransaction(Map,
+ * ConsumerGroupMetadata)}. Doing so makes a consume-transform-produce pipeline exactly-once, as the consumed offsets
+ * are only committed if the events published in response are.
+ *
+ * @since 4.9.0
+ */
+public final class ConsumedOffsets {
+
+    private static final ThreadLocal<ConsumedOffsets> CURRENT = new ThreadLocal<>();
+
+    private final Map<TopicPartition, OffsetAndMetadata> offsets;
+    private final ConsumerGroupMetadata groupMetadata;
+    private volatile boolean committed;
+
+    private ConsumedOffsets(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+        this.offsets = Collections.unmodifiableMap(offsets);
+        this.groupMetadata = groupMetadata;
+    }
+
+    /**
+     * Creates the {@link ConsumedOffsets} of the given {@code records}, being the offset following the last record of
+     * every partition in the batch.
+     *
+     * @param records       the batch of {@link ConsumerRecords} to create the {@link ConsumedOffsets} for
+     * @param groupMetadata the {@link ConsumerGroupMetadata} of the {@link org.apache.kafka.clients.consumer.Consumer}
+     *                      which polled the {@code records}
+     * @return the {@link ConsumedOffsets} of the given {@code records}
+     */
+    public static ConsumedOffsets of(ConsumerRecords<?, ?> records, ConsumerGroupMetadata groupMetadata) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : records.partitions()) {
+            List<? extends ConsumerRecord<?, ?>> partitionRecords = records.records(partition);
+            long lastOffset = partitionRecords.get(partitionRecords.size() - 1).offset();
+            offsets.put(partition, new OffsetAndMetadata(lastOffset + 1));
+        }
+        return new ConsumedOffsets(offsets, groupMetadata);
+    }
+
+    /**
+     * Returns the {@link ConsumedOffsets} of the batch of events being handled by the current thread, if any.
+     *
+     * @return the {@link ConsumedOffsets} of the batch of events being handled by the current thread, if any
+     */
+    public static Optional<ConsumedOffsets> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Runs the given {@code task} with these offsets bound to the current thread, as returned by {@link #current()}.
+     *
+     * @param task the task handling the events of the batch these offsets belong to
+     */
+    public void execute(Runnable task) {
+        ConsumedOffsets previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * The offsets to commit per {@link TopicPartition}, being the offset following the last consumed record.
+     *
+     * @return the offsets to commit per {@link TopicPartition}
+     */
+    public Map<TopicPartition, OffsetAndMetadata> offsets() {
+        return offsets;
+    }
+
+    /**
+     * The {@link ConsumerGroupMetadata} of the {@link org.apache.kafka.clients.consumer.Consumer} which consumed the
+     * records.
+     *
+     * @return the {@link ConsumerGroupMetadata} of the {@link org.apache.kafka.clients.consumer.Consumer} which
+     * consumed the records
+     */
+    public ConsumerGroupMetadata groupMetadata() {
+        return groupMetadata;
+    }
+
+    /**
+     * Marks these offsets as committed as part of a Kafka transaction, such that the {@link
+     * org.apache.kafka.clients.consumer.Consumer} does not need to commit them itself.
+     */
+    public void markCommitted() {
+        this.committed = true;
+    }
+
+    /**
+     * Whether these offsets have been committed as part of a Kafka transaction.
+     *
+     * @return {@code true} if these offsets have been committed as part of a Kafka transaction, {@code false}
+     * otherwise
+     */
+    public boolean isCommitted() {
+        return committed;
+    }
+}
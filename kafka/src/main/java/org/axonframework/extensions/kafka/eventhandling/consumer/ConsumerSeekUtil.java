@@ -60,7 +60,8 @@ public static void seekToCurrentPositions(Consumer<?, ?> consumer, Supplier<Kafk
      * Assigns the correct {@link TopicPartition partitions} to the consumer, and seeks to the correct offset, using the
      * {@link KafkaTrackingToken}, defaulting to the head of the partition. So for each {@link TopicPartition partition}
      * that belongs to the {@code subscriber}, either it will start reading from the next record of the partition, if
-     * included in the token, or else from the start.
+     * included in the token, or else from the start. If the token marks the record at the partition's offset as
+     * partially handled, reading resumes at that record instead.
      *
      * @param consumer      a Kafka consumer instance
      * @param tokenSupplier a function that returns the current {@link KafkaTrackingToken}
@@ -75,7 +76,10 @@ public static void seekToCurrentPositions(Consumer<?, ?> consumer, Supplier<Kafk
         all.forEach(assignedPartition -> {
             long offset = 0L;
             if (tokenPartitionPositions.containsKey(assignedPartition)) {
-                offset = tokenPartitionPositions.get(assignedPartition) + 1;
+                offset = tokenPartitionPositions.get(assignedPartition);
+                if (!currentToken.isPartiallyHandled(assignedPartition)) {
+                    offset++;
+                }
             }
 
             logger.info("Seeking topic-partition [{}] with offset [{}]", assignedPartition, offset);
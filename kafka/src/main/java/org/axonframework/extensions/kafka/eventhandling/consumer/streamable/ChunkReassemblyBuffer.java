@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.extensions.kafka.eventhandling.ChunkingKafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.RecordChunk;
+import org.axonframework.extensions.kafka.eventhandling.consumer.FetchEventException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A buffer gathering the chunks of records split by a {@link ChunkingKafkaMessageConverter}, until all chunks of a
+ * record have been received.
+ * <p>
+ * Incomplete records are never discarded, as the position of their first chunk is what a stream should resume from.
+ * If the combined size of the buffered chunks exceeds the configured maximum, the buffer is regarded {@link #isFull()
+ * full}, which the consumer should respond to by only fetching the partition of the {@link
+ * #oldestIncompletePartition() oldest incomplete record} until that record completes. A record which by itself does
+ * not fit in the buffer fails the stream, as it can never be reassembled.
+ * <p>
+ * Chunks are expected to arrive in order. A duplicate of an already received chunk is ignored, while a gap in the
+ * chunks of a record fails the stream. Chunks of which the first chunk was not received are dropped, as they belong to
+ * a record which started before this buffer started consuming the partition. If the first chunk should have been
+ * received, the dropped chunks are logged as an error.
+ *
+ * @param <K> the key of the Kafka {@link ConsumerRecord}s to reassemble
+ * @param <V> the value type of the Kafka {@link ConsumerRecord}s to reassemble
+ * @since 4.9.0
+ */
+class ChunkReassemblyBuffer<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkReassemblyBuffer.class);
+
+    private final ChunkingKafkaMessageConverter<K, V> messageConverter;
+    private final long maxBufferedBytes;
+    private final Map<String, PendingRecord<K, V>> pendingRecords = new LinkedHashMap<>();
+    private final Map<TopicPartition, Long> firstConsumedOffsets = new HashMap<>();
+    private long bufferedBytes;
+
+    /**
+     * Instantiates a {@link ChunkReassemblyBuffer} reassembling records through the given {@code messageConverter},
+     * regarded full once more than {@code maxBufferedBytes} of chunk values are buffered.
+     *
+     * @param messageConverter the {@link ChunkingKafkaMessageConverter} used to reassemble chunks
+     * @param maxBufferedBytes the maximum combined size in bytes of the buffered chunk values
+     */
+    ChunkReassemblyBuffer(ChunkingKafkaMessageConverter<K, V> messageConverter, long maxBufferedBytes) {
+        this.messageConverter = messageConverter;
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    /**
+     * Offers the given {@code consumerRecord} to this buffer. Returns the {@code consumerRecord} itself if it is not a
+     * chunk, the reassembled record if it is the last chunk of its record, or an empty {@link Optional} otherwise.
+     *
+     * @param consumerRecord the {@link ConsumerRecord} consumed
+     * @return the record to convert, if any
+     * @throws FetchEventException if the record of the {@code consumerRecord} can never be reassembled
+     */
+    Optional<ConsumerRecord<K, V>> offer(ConsumerRecord<K, V> consumerRecord) {
+        TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+        firstConsumedOffsets.putIfAbsent(topicPartition, consumerRecord.offset());
+        Optional<RecordChunk> chunk = messageConverter.chunkOf(consumerRecord);
+        return chunk.isPresent() ? add(topicPartition, consumerRecord, chunk.get()) : Optional.of(consumerRecord);
+    }
+
+    private Optional<ConsumerRecord<K, V>> add(TopicPartition topicPartition,
+                                               ConsumerRecord<K, V> chunkRecord,
+                                               RecordChunk chunk) {
+        String chunkedRecordId = chunk.chunkedRecordId();
+        PendingRecord<K, V> pendingRecord = pendingRecords.get(chunkedRecordId);
+        if (pendingRecord == null) {
+            if (chunk.index() != 0) {
+                dropOrphan(topicPartition, chunkRecord, chunk);
+                return Optional.empty();
+            }
+            pendingRecord = new PendingRecord<>(topicPartition, chunkRecord.offset());
+            pendingRecords.put(chunkedRecordId, pendingRecord);
+        } else if (chunk.index() < pendingRecord.chunks.size()) {
+            logger.debug("Ignoring duplicate chunk [{}] of record [{}] at offset [{}].",
+                         chunk.index(), chunkedRecordId, chunkRecord.offset());
+            return Optional.empty();
+        } else if (chunk.index() > pendingRecord.chunks.size()) {
+            throw new FetchEventException(
+                    "Cannot reassemble record [" + chunkedRecordId + "] of partition [" + topicPartition
+                            + "], as chunk [" + chunk.index() + "] at offset [" + chunkRecord.offset()
+                            + "] was received while expecting chunk [" + pendingRecord.chunks.size() + "]."
+            );
+        }
+
+        long chunkSize = Math.max(0, chunkRecord.serializedValueSize());
+        pendingRecord.chunks.add(chunkRecord);
+        pendingRecord.bufferedBytes += chunkSize;
+        bufferedBytes += chunkSize;
+        if (pendingRecord.bufferedBytes > maxBufferedBytes) {
+            throw new FetchEventException(
+                    "Cannot reassemble record [" + chunkedRecordId + "] of partition [" + topicPartition
+                            + "], as its chunks exceed the chunk buffer size of [" + maxBufferedBytes
+                            + "] bytes. Increase the chunk buffer size to consume this record."
+            );
+        }
+
+        if (chunk.isLast()) {
+            pendingRecords.remove(chunkedRecordId);
+            bufferedBytes -= pendingRecord.bufferedBytes;
+            return Optional.of(messageConverter.reassemble(pendingRecord.chunks));
+        }
+        return Optional.empty();
+    }
+
+    private void dropOrphan(TopicPartition topicPartition, ConsumerRecord<K, V> chunkRecord, RecordChunk chunk) {
+        // The preceding chunks are at distinct offsets before this chunk
+        if (chunkRecord.offset() - chunk.index() >= firstConsumedOffsets.get(topicPartition)) {
+            logger.error("Dropping chunk [{}] of record [{}] at offset [{}] of partition [{}], as its preceding "
+                                 + "chunks are missing. The events of this record are lost.",
+                         chunk.index(), chunk.chunkedRecordId(), chunkRecord.offset(), topicPartition);
+        } else {
+            logger.info("Dropping chunk [{}] of record [{}] at offset [{}] of partition [{}], as the record started "
+                                + "before the position consumption started from.",
+                        chunk.index(), chunk.chunkedRecordId(), chunkRecord.offset(), topicPartition);
+        }
+    }
+
+    /**
+     * Returns the highest position up to which the given {@code topicPartition} can be regarded as handled when a
+     * record at the given {@code offset} has been handled. This is the {@code offset} itself, unless an incomplete
+     * record of that partition is buffered. In that case it is the offset right before the first chunk of the oldest
+     * incomplete record, ensuring its chunks are consumed again when resuming from that position. A negative position
+     * signals the oldest incomplete record starts at the first offset, in which case no position is safe.
+     *
+     * @param topicPartition the {@link TopicPartition} to compute the safe position for
+     * @param offset         the offset of the handled record
+     * @return the highest position up to which the {@code topicPartition} can be regarded as handled
+     */
+    long safePosition(TopicPartition topicPartition, long offset) {
+        long position = offset;
+        for (PendingRecord<K, V> pendingRecord : pendingRecords.values()) {
+            if (pendingRecord.topicPartition.equals(topicPartition)) {
+                position = Math.min(position, pendingRecord.firstOffset - 1);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Returns whether the combined size of the buffered chunks exceeds the maximum this buffer was configured with.
+     *
+     * @return {@code true} if the combined size of the buffered chunks exceeds the maximum, {@code false} otherwise
+     */
+    boolean isFull() {
+        return bufferedBytes > maxBufferedBytes;
+    }
+
+    /**
+     * Returns the {@link TopicPartition} of the oldest incomplete record, if any. Only fetching this partition while
+     * the buffer is {@link #isFull() full} allows the record to complete, freeing up the buffer.
+     *
+     * @return the {@link TopicPartition} of the oldest incomplete record, if any
+     */
+    Optional<TopicPartition> oldestIncompletePartition() {
+        return pendingRecords.values().stream().findFirst().map(pendingRecord -> pendingRecord.topicPartition);
+    }
+
+    /**
+     * The chunks received so far of a record.
+     */
+    private static final class PendingRecord<K, V> {
+
+        private final TopicPartition topicPartition;
+        private final long firstOffset;
+        private final List<ConsumerRecord<K, V>> chunks = new ArrayList<>();
+        private long bufferedBytes;
+
+        private PendingRecord(TopicPartition topicPartition, long firstOffset) {
+            this.topicPartition = topicPartition;
+            this.firstOffset = firstOffset;
+        }
+    }
+}
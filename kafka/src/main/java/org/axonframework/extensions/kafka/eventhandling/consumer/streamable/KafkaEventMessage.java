@@ -17,13 +17,13 @@
 package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.axonframework.eventhandling.DomainEventMessage;
 import org.axonframework.eventhandling.EventMessage;
 import org.axonframework.eventhandling.TrackedEventMessage;
 
 import java.util.Comparator;
 
 import static org.axonframework.common.Assert.notNull;
-import static org.axonframework.eventhandling.EventUtils.asTrackedEventMessage;
 
 /**
  * Wrapper around an {@link TrackedEventMessage} containing additional required information to correctly publish an
@@ -38,11 +38,13 @@ public class KafkaEventMessage implements KafkaRecordMetaData<TrackedEventMessag
     private static final Comparator<KafkaEventMessage> MESSAGE_COMPARATOR =
             Comparator.comparing(KafkaEventMessage::timestamp)
                       .thenComparing(KafkaEventMessage::partition)
-                      .thenComparing(KafkaEventMessage::offset);
+                      .thenComparing(KafkaEventMessage::offset)
+                      .thenComparing(KafkaEventMessage::subOffset);
 
     private final TrackedEventMessage<?> eventMessage;
     private final int partition;
     private final long offset;
+    private final int subOffset;
     private final long timestamp;
 
     /**
@@ -55,17 +57,39 @@ public class KafkaEventMessage implements KafkaRecordMetaData<TrackedEventMessag
      * @param timestamp    the timestamp of the wrapped record
      */
     public KafkaEventMessage(TrackedEventMessage<?> eventMessage, int partition, long offset, long timestamp) {
+        this(eventMessage, partition, offset, 0, timestamp);
+    }
+
+    /**
+     * Construct a Kafka {@link EventMessage} wrapper, encapsulating the given {@code eventMessage} and providing
+     * additional information, like the Kafka {@code partition}, {@code offset}, {@code subOffset} and {@code
+     * timestamp}.
+     *
+     * @param eventMessage the {@link TrackedEventMessage} to wrap
+     * @param partition    the partition the wrapped record originates from
+     * @param offset       the position of the wrapped record in the corresponding Kafka {@code partition}
+     * @param subOffset    the position of the {@code eventMessage} within the wrapped record, which is {@code 0} unless
+     *                     the record contains several packed events
+     * @param timestamp    the timestamp of the wrapped record
+     */
+    public KafkaEventMessage(TrackedEventMessage<?> eventMessage,
+                             int partition,
+                             long offset,
+                             int subOffset,
+                             long timestamp) {
         notNull(eventMessage, () -> "Event Message may not be null");
         this.eventMessage = eventMessage;
         this.partition = partition;
         this.offset = offset;
+        this.subOffset = subOffset;
         this.timestamp = timestamp;
     }
 
     /**
      * Construct a {@link KafkaEventMessage} based on the deserialized body, the {@code eventMessage}, of a {@link
      * ConsumerRecord} retrieved from a Kafka topic. The {@code trackingToken} is used to change the {@code
-     * eventMessage} in an {@link TrackedEventMessage}.
+     * eventMessage} in an {@link TrackedEventMessage}, which carries the {@link KafkaRecordOrigin} of the {@code
+     * consumerRecord}.
      *
      * @param eventMessage   the {@link EventMessage} to wrap
      * @param consumerRecord the {@link ConsumerRecord} which the given {@code eventMessage} was the body of
@@ -77,11 +101,69 @@ public static KafkaEventMessage from(EventMessage<?> eventMessage,
                                          ConsumerRecord<?, ?> consumerRecord,
                                          KafkaTrackingToken trackingToken) {
         return new KafkaEventMessage(
-                asTrackedEventMessage(eventMessage, trackingToken),
+                asTrackedEventMessage(eventMessage, consumerRecord, trackingToken),
                 consumerRecord.partition(), consumerRecord.offset(), consumerRecord.timestamp()
         );
     }
 
+    /**
+     * Construct a {@link KafkaEventMessage} based on one of the events packed in the body of a {@link ConsumerRecord}
+     * retrieved from a Kafka topic. The {@code subOffset} defines the position of the {@code eventMessage} within the
+     * record. The {@code trackingToken} is used to change the {@code eventMessage} in an {@link TrackedEventMessage},
+     * which carries the {@link KafkaRecordOrigin} of the {@code consumerRecord}.
+     *
+     * @param eventMessage   the {@link EventMessage} to wrap
+     * @param consumerRecord the {@link ConsumerRecord} which the given {@code eventMessage} was (part of) the body of
+     * @param subOffset      the position of the {@code eventMessage} within the {@code consumerRecord}
+     * @param trackingToken  the {@link KafkaTrackingToken} defining the position of this message
+     * @return the {@link KafkaEventMessage} constructed from the given {@code eventMessage}, {@code consumerRecord},
+     * {@code subOffset} and {@code trackingToken}
+     */
+    public static KafkaEventMessage from(EventMessage<?> eventMessage,
+                                         ConsumerRecord<?, ?> consumerRecord,
+                                         int subOffset,
+                                         KafkaTrackingToken trackingToken) {
+        return new KafkaEventMessage(
+                asTrackedEventMessage(eventMessage, consumerRecord, trackingToken),
+                consumerRecord.partition(), consumerRecord.offset(), subOffset, consumerRecord.timestamp()
+        );
+    }
+
+    /**
+     * Construct a {@link KafkaEventMessage} based on one of the events in the body of a {@link ConsumerRecord}, whose
+     * tracking token is only materialized from the given {@code position} once it is requested.
+     *
+     * @param eventMessage   the {@link EventMessage} to wrap
+     * @param consumerRecord the {@link ConsumerRecord} which the given {@code eventMessage} was (part of) the body of
+     * @param subOffset      the position of the {@code eventMessage} within the {@code consumerRecord}
+     * @param position       the {@link KafkaTrackingTokenDelta} defining the position of this message
+     * @return the {@link KafkaEventMessage} constructed from the given {@code eventMessage}, {@code consumerRecord},
+     * {@code subOffset} and {@code position}
+     */
+    static KafkaEventMessage from(EventMessage<?> eventMessage,
+                                  ConsumerRecord<?, ?> consumerRecord,
+                                  int subOffset,
+                                  KafkaTrackingTokenDelta position) {
+        KafkaRecordOrigin recordOrigin = KafkaRecordOrigin.from(consumerRecord);
+        TrackedEventMessage<?> trackedEventMessage = eventMessage instanceof DomainEventMessage
+                ? new KafkaTrackedDomainEventMessage<>(position, (DomainEventMessage<?>) eventMessage, recordOrigin)
+                : new KafkaTrackedEventMessage<>(position, eventMessage, recordOrigin);
+        return new KafkaEventMessage(
+                trackedEventMessage,
+                consumerRecord.partition(), consumerRecord.offset(), subOffset, consumerRecord.timestamp()
+        );
+    }
+
+    private static TrackedEventMessage<?> asTrackedEventMessage(EventMessage<?> eventMessage,
+                                                                ConsumerRecord<?, ?> consumerRecord,
+                                                                KafkaTrackingToken trackingToken) {
+        KafkaRecordOrigin recordOrigin = KafkaRecordOrigin.from(consumerRecord);
+        if (eventMessage instanceof DomainEventMessage) {
+            return new KafkaTrackedDomainEventMessage<>(trackingToken, (DomainEventMessage<?>) eventMessage, recordOrigin);
+        }
+        return new KafkaTrackedEventMessage<>(trackingToken, eventMessage, recordOrigin);
+    }
+
     @Override
     public int partition() {
         return partition;
@@ -92,6 +174,16 @@ public long offset() {
         return offset;
     }
 
+    /**
+     * The position of the event within the record in the corresponding Kafka {@code partition}. Is {@code 0}, unless
+     * the record contains several packed events.
+     *
+     * @return an {@code int} defining the position of the event within the record
+     */
+    public int subOffset() {
+        return subOffset;
+    }
+
     @Override
     public long timestamp() {
         return timestamp;
@@ -124,7 +216,8 @@ public boolean equals(Object other) {
             KafkaEventMessage otherMessage = (KafkaEventMessage) other;
             return this.timestamp == otherMessage.timestamp &&
                     this.partition == otherMessage.partition &&
-                    this.offset == otherMessage.offset;
+                    this.offset == otherMessage.offset &&
+                    this.subOffset == otherMessage.subOffset;
         } else {
             return false;
         }
@@ -136,6 +229,7 @@ public int hashCode() {
         hash = (int) (31 * hash + this.timestamp);
         hash = 31 * hash + partition;
         hash = (int) (31 * hash + offset);
+        hash = 31 * hash + subOffset;
         return hash;
     }
 
@@ -145,6 +239,7 @@ public String toString() {
                 "eventMessage=" + eventMessage +
                 ", partition=" + partition +
                 ", offset=" + offset +
+                ", subOffset=" + subOffset +
                 ", timestamp=" + timestamp +
                 '}';
     }
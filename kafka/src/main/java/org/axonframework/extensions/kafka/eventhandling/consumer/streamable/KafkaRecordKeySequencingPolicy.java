@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.async.SequencingPolicy;
+import org.axonframework.eventhandling.async.SequentialPerAggregatePolicy;
+
+import java.nio.ByteBuffer;
+
+import static org.axonframework.common.BuilderUtils.assertNonNull;
+
+/**
+ * A {@link SequencingPolicy} using the key of the Kafka record an event was read from as its sequence identifier. As
+ * the key is computed on the producing side, for example by the sequencing policy of the {@link
+ * org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter}, events are routed to segments without
+ * deserializing their payload. Events sharing a record key are hence handled sequentially, matching the ordering Kafka
+ * guarantees for them.
+ * <p>
+ * Only events read through the {@link TrackingRecordConverter}, thus by a {@link StreamableKafkaMessageSource}, carry
+ * a {@link KafkaRecordOrigin}. For other events, and for events read from records without a key, the sequence
+ * identifier is resolved by a fallback policy, which defaults to the {@link SequentialPerAggregatePolicy}.
+ * <p>
+ * Keys of type {@code byte[]} are wrapped in a {@link ByteBuffer}, so that equal keys result in equal sequence
+ * identifiers.
+ *
+ * @since 4.9.0
+ */
+public class KafkaRecordKeySequencingPolicy implements SequencingPolicy<EventMessage<?>> {
+
+    private final SequencingPolicy<? super EventMessage<?>> fallbackPolicy;
+
+    /**
+     * Instantiates a {@link KafkaRecordKeySequencingPolicy} falling back to the {@link SequentialPerAggregatePolicy}
+     * for events without a record key.
+     */
+    public KafkaRecordKeySequencingPolicy() {
+        this(SequentialPerAggregatePolicy.instance());
+    }
+
+    /**
+     * Instantiates a {@link KafkaRecordKeySequencingPolicy} falling back to the given {@code fallbackPolicy} for
+     * events without a record key.
+     *
+     * @param fallbackPolicy the {@link SequencingPolicy} resolving the sequence identifier of events without a record
+     *                       key
+     */
+    public KafkaRecordKeySequencingPolicy(SequencingPolicy<? super EventMessage<?>> fallbackPolicy) {
+        assertNonNull(fallbackPolicy, "The fallback SequencingPolicy may not be null");
+        this.fallbackPolicy = fallbackPolicy;
+    }
+
+    @Override
+    public Object getSequenceIdentifierFor(EventMessage<?> event) {
+        Object recordKey = KafkaRecordOrigin.of(event)
+                                            .map(KafkaRecordOrigin::key)
+                                            .orElse(null);
+        if (recordKey == null) {
+            return fallbackPolicy.getSequenceIdentifierFor(event);
+        }
+        return recordKey instanceof byte[] ? ByteBuffer.wrap((byte[]) recordKey) : recordKey;
+    }
+}
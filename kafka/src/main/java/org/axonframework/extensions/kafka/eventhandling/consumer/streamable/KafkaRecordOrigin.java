@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.axonframework.eventhandling.EventMessage;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Describes the Kafka record an event was read from: its topic, partition, offset and key. Attached to the {@link
+ * org.axonframework.eventhandling.TrackedEventMessage}s produced by the {@link TrackingRecordConverter}, and retrievable
+ * through {@link #of(EventMessage)}. This allows components like a {@link
+ * org.axonframework.eventhandling.async.SequencingPolicy} to use the record key computed on the producing side, without
+ * deserializing the payload of the event.
+ *
+ * @since 4.9.0
+ */
+public final class KafkaRecordOrigin {
+
+    private final String topic;
+    private final int partition;
+    private final long offset;
+    private final Object key;
+
+    /**
+     * Instantiates a {@link KafkaRecordOrigin} describing a record with the given {@code topic}, {@code partition},
+     * {@code offset} and {@code key}.
+     *
+     * @param topic     the topic the record was read from
+     * @param partition the partition the record was read from
+     * @param offset    the offset of the record within its {@code partition}
+     * @param key       the key of the record, may be {@code null}
+     */
+    public KafkaRecordOrigin(String topic, int partition, long offset, Object key) {
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.key = key;
+    }
+
+    /**
+     * Instantiates a {@link KafkaRecordOrigin} describing the given {@code consumerRecord}.
+     *
+     * @param consumerRecord the {@link ConsumerRecord} to describe
+     * @return a {@link KafkaRecordOrigin} describing the given {@code consumerRecord}
+     */
+    public static KafkaRecordOrigin from(ConsumerRecord<?, ?> consumerRecord) {
+        return new KafkaRecordOrigin(
+                consumerRecord.topic(), consumerRecord.partition(), consumerRecord.offset(), consumerRecord.key()
+        );
+    }
+
+    /**
+     * Returns the {@link KafkaRecordOrigin} of the given {@code eventMessage}, if it was read from Kafka by the {@link
+     * TrackingRecordConverter}.
+     *
+     * @param eventMessage the {@link EventMessage} to retrieve the {@link KafkaRecordOrigin} for
+     * @return the {@link KafkaRecordOrigin} of the given {@code eventMessage}, or an empty {@link Optional} if it was
+     * not read from Kafka by the {@link TrackingRecordConverter}
+     */
+    public static Optional<KafkaRecordOrigin> of(EventMessage<?> eventMessage) {
+        if (eventMessage instanceof KafkaTrackedEventMessage) {
+            return Optional.ofNullable(((KafkaTrackedEventMessage<?>) eventMessage).recordOrigin());
+        }
+        if (eventMessage instanceof KafkaTrackedDomainEventMessage) {
+            return Optional.ofNullable(((KafkaTrackedDomainEventMessage<?>) eventMessage).recordOrigin());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The topic the record was read from.
+     *
+     * @return the topic the record was read from
+     */
+    public String topic() {
+        return topic;
+    }
+
+    /**
+     * The partition the record was read from.
+     *
+     * @return the partition the record was read from
+     */
+    public int partition() {
+        return partition;
+    }
+
+    /**
+     * The offset of the record within its partition.
+     *
+     * @return the offset of the record within its partition
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * The key of the record, as computed on the producing side.
+     *
+     * @return the key of the record, may be {@code null}
+     */
+    public Object key() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KafkaRecordOrigin that = (KafkaRecordOrigin) o;
+        return partition == that.partition
+                && offset == that.offset
+                && Objects.equals(topic, that.topic)
+                && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(topic, partition, offset, key);
+    }
+
+    @Override
+    public String toString() {
+        return "KafkaRecordOrigin{" +
+                "topic='" + topic + '\'' +
+                ", partition=" + partition +
+                ", offset=" + offset +
+                ", key=" + key +
+                '}';
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.GenericTrackedDomainEventMessage;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.messaging.Message;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A {@link GenericTrackedDomainEventMessage} read from Kafka, carrying the {@link KafkaRecordOrigin} of the record it
+ * was read from. The tracking token may be given as a {@link KafkaTrackingTokenDelta}, in which case it is materialized
+ * once {@link #trackingToken()} is invoked.
+ *
+ * @param <T> the payload type of the event
+ * @since 4.9.0
+ */
+class KafkaTrackedDomainEventMessage<T> extends GenericTrackedDomainEventMessage<T> {
+
+    private static final long serialVersionUID = -3196727311574583290L;
+
+    private final transient KafkaRecordOrigin recordOrigin;
+    private final transient KafkaTrackingTokenDelta position;
+
+    KafkaTrackedDomainEventMessage(TrackingToken trackingToken,
+                                   DomainEventMessage<T> delegate,
+                                   KafkaRecordOrigin recordOrigin) {
+        super(trackingToken, delegate);
+        this.recordOrigin = recordOrigin;
+        this.position = null;
+    }
+
+    KafkaTrackedDomainEventMessage(KafkaTrackingTokenDelta position,
+                                   DomainEventMessage<T> delegate,
+                                   KafkaRecordOrigin recordOrigin) {
+        super(null, delegate);
+        this.recordOrigin = recordOrigin;
+        this.position = position;
+    }
+
+    private KafkaTrackedDomainEventMessage(TrackingToken trackingToken,
+                                           String type,
+                                           String aggregateIdentifier,
+                                           long sequenceNumber,
+                                           Message<T> delegate,
+                                           Instant timestamp,
+                                           KafkaRecordOrigin recordOrigin) {
+        super(trackingToken, type, aggregateIdentifier, sequenceNumber, delegate, timestamp);
+        this.recordOrigin = recordOrigin;
+        this.position = null;
+    }
+
+    KafkaRecordOrigin recordOrigin() {
+        return recordOrigin;
+    }
+
+    @Override
+    public TrackingToken trackingToken() {
+        return position != null ? position.get() : super.trackingToken();
+    }
+
+    @Override
+    public KafkaTrackedDomainEventMessage<T> withTrackingToken(TrackingToken trackingToken) {
+        return withDelegate(trackingToken, getDelegate());
+    }
+
+    @Override
+    public KafkaTrackedDomainEventMessage<T> withMetaData(Map<String, ?> metaData) {
+        return withDelegate(trackingToken(), getDelegate().withMetaData(metaData));
+    }
+
+    @Override
+    public KafkaTrackedDomainEventMessage<T> andMetaData(Map<String, ?> metaData) {
+        return withDelegate(trackingToken(), getDelegate().andMetaData(metaData));
+    }
+
+    private KafkaTrackedDomainEventMessage<T> withDelegate(TrackingToken trackingToken, Message<T> delegate) {
+        return new KafkaTrackedDomainEventMessage<>(
+                trackingToken, getType(), getAggregateIdentifier(), getSequenceNumber(), delegate, getTimestamp(),
+                recordOrigin
+        );
+    }
+
+    private Object writeReplace() {
+        return position != null ? withTrackingToken(trackingToken()) : this;
+    }
+}
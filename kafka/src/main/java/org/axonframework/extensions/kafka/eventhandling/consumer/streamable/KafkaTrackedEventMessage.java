@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericTrackedEventMessage;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.messaging.Message;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A {@link GenericTrackedEventMessage} read from Kafka, carrying the {@link KafkaRecordOrigin} of the record it was
+ * read from. The tracking token may be given as a {@link KafkaTrackingTokenDelta}, in which case it is materialized
+ * once {@link #trackingToken()} is invoked.
+ *
+ * @param <T> the payload type of the event
+ * @since 4.9.0
+ */
+class KafkaTrackedEventMessage<T> extends GenericTrackedEventMessage<T> {
+
+    private static final long serialVersionUID = 2406396584155493466L;
+
+    private final transient KafkaRecordOrigin recordOrigin;
+    private final transient KafkaTrackingTokenDelta position;
+
+    KafkaTrackedEventMessage(TrackingToken trackingToken, EventMessage<T> delegate, KafkaRecordOrigin recordOrigin) {
+        super(trackingToken, delegate);
+        this.recordOrigin = recordOrigin;
+        this.position = null;
+    }
+
+    KafkaTrackedEventMessage(KafkaTrackingTokenDelta position,
+                             EventMessage<T> delegate,
+                             KafkaRecordOrigin recordOrigin) {
+        super(null, delegate);
+        this.recordOrigin = recordOrigin;
+        this.position = position;
+    }
+
+    private KafkaTrackedEventMessage(TrackingToken trackingToken,
+                                     Message<T> delegate,
+                                     Instant timestamp,
+                                     KafkaRecordOrigin recordOrigin) {
+        super(trackingToken, delegate, timestamp);
+        this.recordOrigin = recordOrigin;
+        this.position = null;
+    }
+
+    KafkaRecordOrigin recordOrigin() {
+        return recordOrigin;
+    }
+
+    @Override
+    public TrackingToken trackingToken() {
+        return position != null ? position.get() : super.trackingToken();
+    }
+
+    @Override
+    public KafkaTrackedEventMessage<T> withTrackingToken(TrackingToken trackingToken) {
+        return new KafkaTrackedEventMessage<>(trackingToken, getDelegate(), getTimestamp(), recordOrigin);
+    }
+
+    @Override
+    public KafkaTrackedEventMessage<T> withMetaData(Map<String, ?> metaData) {
+        return new KafkaTrackedEventMessage<>(
+                trackingToken(), getDelegate().withMetaData(metaData), getTimestamp(), recordOrigin
+        );
+    }
+
+    @Override
+    public KafkaTrackedEventMessage<T> andMetaData(Map<String, ?> metaData) {
+        return new KafkaTrackedEventMessage<>(
+                trackingToken(), getDelegate().andMetaData(metaData), getTimestamp(), recordOrigin
+        );
+    }
+
+    private Object writeReplace() {
+        return position != null ? withTrackingToken(trackingToken()) : this;
+    }
+}
@@ -17,6 +17,7 @@
 package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import org.apache.kafka.common.TopicPartition;
@@ -27,13 +28,22 @@
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.LongBinaryOperator;
 
 import static org.axonframework.common.Assert.isTrue;
 
 /**
  * A {@link TrackingToken} implementation dedicated to tracking all consumed Kafka records which have been committed by
  * another Axon Kafka Publisher.
+ * <p>
+ * Next to the offset per {@link TopicPartition}, the token may contain a {@code subOffset} for a partition. A
+ * sub-offset is present when the record at the partition's offset contains several packed events of which only the
+ * events up to and including the sub-offset have been handled. Once the last event of such a record is handled, the
+ * sub-offset is removed again, leaving a token which is identical to a token tracking unpacked records.
+ * <p>
+ * Internally the offsets are kept as primitive {@code long}s per interned topic, shared between a token and the tokens
+ * advanced from it wherever they do not differ. Advancing a token hence copies a small block of offsets instead of a
+ * map with an entry per partition. The serialized form of the token is unaffected by this, as it is written with a
+ * regular {@link Map} of positions.
  *
  * @author Nakul Mishra
  * @author Steven van Beelen
@@ -41,12 +51,31 @@
  */
 public class KafkaTrackingToken implements TrackingToken, Serializable {
 
+    private static final long serialVersionUID = -6839551894159527074L;
+
+    /**
+     * Only set in the serialized form of a token, as written by {@link #writeReplace()}.
+     */
     @JsonDeserialize(keyUsing = TopicPartitionDeserializer.class)
     private final Map<TopicPartition, Long> positions;
+    @JsonDeserialize(keyUsing = TopicPartitionDeserializer.class)
+    private final Map<TopicPartition, Integer> subOffsets;
+    private final transient PartitionOffsets offsets;
     private static final String INCOMPATIBLE_TOKEN_MESSAGE = "Incompatible token type provided.";
+    private static final int COMPLETE_RECORD = Integer.MAX_VALUE;
 
-    private KafkaTrackingToken(Map<TopicPartition, Long> positions) {
-        this.positions = Collections.unmodifiableMap(new HashMap<>(positions));
+    private KafkaTrackingToken(PartitionOffsets offsets, Map<TopicPartition, Integer> subOffsets) {
+        this.positions = null;
+        this.offsets = offsets;
+        this.subOffsets = subOffsets == null || subOffsets.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new HashMap<>(subOffsets));
+    }
+
+    private KafkaTrackingToken(HashMap<TopicPartition, Long> positions, HashMap<TopicPartition, Integer> subOffsets) {
+        this.positions = positions;
+        this.offsets = null;
+        this.subOffsets = subOffsets;
     }
 
     /**
@@ -56,9 +85,26 @@ private KafkaTrackingToken(Map<TopicPartition, Long> positions) {
      *                                partition
      * @return a new tracking token based on the given {@code partitionPositions}
      */
+    public static KafkaTrackingToken newInstance(Map<TopicPartition, Long> positions) {
+        return new KafkaTrackingToken(PartitionOffsets.from(positions), Collections.emptyMap());
+    }
+
+    /**
+     * Returns a new {@link KafkaTrackingToken} instance based on the given {@code positions} and {@code subOffsets}.
+     * The {@code subOffsets} may be {@code null}, which is treated as the absence of any sub-offset.
+     *
+     * @param positions  a {@link Map} from {@link TopicPartition} to {@link Long}, specifying the offset of every
+     *                   partition
+     * @param subOffsets a {@link Map} from {@link TopicPartition} to {@link Integer}, specifying the last handled event
+     *                   within the record at the partition's offset, for records which have not been fully handled
+     * @return a new tracking token based on the given {@code positions} and {@code subOffsets}
+     */
     @JsonCreator
-    public static KafkaTrackingToken newInstance(@JsonProperty("positions") Map<TopicPartition, Long> positions) {
-        return new KafkaTrackingToken(positions);
+    public static KafkaTrackingToken newInstance(
+            @JsonProperty("positions") Map<TopicPartition, Long> positions,
+            @JsonProperty("subOffsets") Map<TopicPartition, Integer> subOffsets
+    ) {
+        return new KafkaTrackingToken(PartitionOffsets.from(positions), subOffsets);
     }
 
     /**
@@ -67,7 +113,7 @@ public static KafkaTrackingToken newInstance(@JsonProperty("positions") Map<Topi
      * @return an empty {@link KafkaTrackingToken} instance
      */
     public static KafkaTrackingToken emptyToken() {
-        return newInstance(new HashMap<>());
+        return new KafkaTrackingToken(PartitionOffsets.empty(), Collections.emptyMap());
     }
 
     /**
@@ -87,7 +133,7 @@ public static boolean isNotEmpty(KafkaTrackingToken token) {
      * @return {@code true} if the given {@code token} is {@code null} or empty and {@code false} if it isn't
      */
     public static boolean isEmpty(KafkaTrackingToken token) {
-        return token == null || token.positions.isEmpty();
+        return token == null || token.offsets.isEmpty();
     }
 
     /**
@@ -109,12 +155,35 @@ public static KafkaTrackingToken from(TrackingToken trackingToken) {
 
     /**
      * Retrieve the {@link TopicPartition}/offset {@link Map} stored in this {@link TrackingToken}. This collection
-     * corresponds to the actual progress of a Consumer polling for records.
+     * corresponds to the actual progress of a Consumer polling for records. The returned {@link Map} is unmodifiable.
      *
      * @return the {@link TopicPartition}/offset {@link Map} stored in this {@link TrackingToken}
      */
     public Map<TopicPartition, Long> getPositions() {
-        return positions;
+        return offsets;
+    }
+
+    /**
+     * Retrieve the {@link TopicPartition}/sub-offset {@link Map} stored in this {@link TrackingToken}. Only partitions
+     * for which the record at the current offset has been partially handled have an entry in this collection.
+     *
+     * @return the {@link TopicPartition}/sub-offset {@link Map} stored in this {@link TrackingToken}
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public Map<TopicPartition, Integer> getSubOffsets() {
+        return subOffsets;
+    }
+
+    /**
+     * Verify whether the record at the offset of the given {@code topicPartition} has only been partially handled. If
+     * this is the case, the consumer should resume at the current offset instead of the offset after it.
+     *
+     * @param topicPartition the {@link TopicPartition} to validate
+     * @return {@code true} if the record at the current offset of the given {@code topicPartition} has only been
+     * partially handled, {@code false} otherwise
+     */
+    public boolean isPartiallyHandled(TopicPartition topicPartition) {
+        return subOffsets.containsKey(topicPartition);
     }
 
     /**
@@ -132,39 +201,76 @@ public KafkaTrackingToken advancedTo(String topic, int partition, long offset) {
         isTrue(partition >= 0, () -> "Partition may not be negative");
         isTrue(offset >= 0, () -> "Offset may not be negative");
 
-        return advancedTo(new TopicPartition(topic, partition), offset);
+        PartitionOffsets updatedOffsets = offsets.with(topic, partition, offset);
+        if (subOffsets.isEmpty()) {
+            return new KafkaTrackingToken(updatedOffsets, subOffsets);
+        }
+        Map<TopicPartition, Integer> updatedSubOffsets = new HashMap<>(getSubOffsets());
+        updatedSubOffsets.remove(new TopicPartition(topic, partition));
+        return new KafkaTrackingToken(updatedOffsets, updatedSubOffsets);
     }
 
-    private KafkaTrackingToken advancedTo(TopicPartition topicPartition, long offset) {
-        Map<TopicPartition, Long> updatedPositions = new HashMap<>(getPositions());
-        updatedPositions.put(topicPartition, offset);
-        return new KafkaTrackingToken(updatedPositions);
+    /**
+     * Advance {@code this} token to a position <em>within</em> the record at the given {@code offset}. The {@code
+     * subOffset} marks the last handled event of a record containing several packed events. Returns a new {@link
+     * KafkaTrackingToken} instance.
+     * <p>
+     * Use {@link #advancedTo(String, int, long)} once the last event of the record has been handled.
+     *
+     * @param topic     a {@link String} defining the topic for which the {@code offset} advanced
+     * @param partition the partition number tied to the given {@code topic} for which the {@code offset} advanced
+     * @param offset    the offset corresponding to the given {@code topic} and {@code partition} which advanced
+     * @param subOffset the index of the last handled event within the record at the given {@code offset}
+     * @return a new advanced {@link KafkaTrackingToken} instance
+     */
+    public KafkaTrackingToken advancedTo(String topic, int partition, long offset, int subOffset) {
+        isTrue(topic != null && !topic.equals(""), () -> "Topic should be a non-empty string");
+        isTrue(partition >= 0, () -> "Partition may not be negative");
+        isTrue(offset >= 0, () -> "Offset may not be negative");
+        isTrue(subOffset >= 0, () -> "Sub-offset may not be negative");
+
+        Map<TopicPartition, Integer> updatedSubOffsets = new HashMap<>(getSubOffsets());
+        updatedSubOffsets.put(new TopicPartition(topic, partition), subOffset);
+        return new KafkaTrackingToken(offsets.with(topic, partition, offset), updatedSubOffsets);
     }
 
     @Override
     public TrackingToken lowerBound(TrackingToken other) {
         isTrue(other instanceof KafkaTrackingToken, () -> INCOMPATIBLE_TOKEN_MESSAGE);
         //noinspection ConstantConditions - Verified cast through `Assert.isTrue` operation
-        return new KafkaTrackingToken(bounds((KafkaTrackingToken) other, Math::min));
+        return bounds((KafkaTrackingToken) other, false);
     }
 
     @Override
     public TrackingToken upperBound(TrackingToken other) {
         isTrue(other instanceof KafkaTrackingToken, () -> INCOMPATIBLE_TOKEN_MESSAGE);
         //noinspection ConstantConditions - Verified cast through `Assert.isTrue` operation
-        return new KafkaTrackingToken(bounds((KafkaTrackingToken) other, Math::max));
+        return bounds((KafkaTrackingToken) other, true);
     }
 
-    private Map<TopicPartition, Long> bounds(KafkaTrackingToken other, LongBinaryOperator boundsFunction) {
+    private KafkaTrackingToken bounds(KafkaTrackingToken other, boolean upper) {
+        if (this.subOffsets.isEmpty() && other.subOffsets.isEmpty()) {
+            return new KafkaTrackingToken(offsets.bound(other.offsets, upper), Collections.emptyMap());
+        }
         Map<TopicPartition, Long> intersection = new HashMap<>(getPositions());
         other.getPositions().forEach(intersection::putIfAbsent);
+        Map<TopicPartition, Integer> boundSubOffsets = new HashMap<>();
+
+        intersection.keySet().forEach(topicPartition -> {
+            long thisOffset = this.getPositions().getOrDefault(topicPartition, 0L);
+            long otherOffset = other.getPositions().getOrDefault(topicPartition, 0L);
+            int thisSubOffset = this.subOffsetOf(topicPartition);
+            int otherSubOffset = other.subOffsetOf(topicPartition);
+            boolean thisIsAhead = comparePositions(thisOffset, thisSubOffset, otherOffset, otherSubOffset) >= 0;
+            boolean pickThis = upper == thisIsAhead;
 
-        intersection.keySet()
-                    .forEach(topicPartition -> intersection.put(topicPartition, boundsFunction.applyAsLong(
-                            this.getPositions().getOrDefault(topicPartition, 0L),
-                            other.getPositions().getOrDefault(topicPartition, 0L))
-                    ));
-        return intersection;
+            intersection.put(topicPartition, pickThis ? thisOffset : otherOffset);
+            int boundSubOffset = pickThis ? thisSubOffset : otherSubOffset;
+            if (boundSubOffset != COMPLETE_RECORD) {
+                boundSubOffsets.put(topicPartition, boundSubOffset);
+            }
+        });
+        return new KafkaTrackingToken(PartitionOffsets.from(intersection), boundSubOffsets);
     }
 
     @Override
@@ -172,14 +278,53 @@ public boolean covers(TrackingToken other) {
         isTrue(other instanceof KafkaTrackingToken, () -> INCOMPATIBLE_TOKEN_MESSAGE);
         //noinspection ConstantConditions - Verified cast through `Assert.isTrue` operation
         KafkaTrackingToken otherToken = (KafkaTrackingToken) other;
+        if (this.subOffsets.isEmpty() && otherToken.subOffsets.isEmpty()) {
+            return offsets.covers(otherToken.offsets);
+        }
 
         return otherToken.getPositions()
                          .entrySet().stream()
-                         .allMatch(offsetsEntry -> match(offsetsEntry.getKey(), offsetsEntry.getValue()));
+                         .allMatch(offsetsEntry -> match(offsetsEntry.getKey(),
+                                                         offsetsEntry.getValue(),
+                                                         otherToken.subOffsetOf(offsetsEntry.getKey())));
+    }
+
+    private boolean match(TopicPartition otherTopicPartition, long otherOffset, int otherSubOffset) {
+        Long thisOffset = this.getPositions().get(otherTopicPartition);
+        return thisOffset != null
+                && comparePositions(thisOffset, subOffsetOf(otherTopicPartition), otherOffset, otherSubOffset) >= 0;
     }
 
-    private boolean match(TopicPartition otherTopicPartition, long otherOffset) {
-        return otherOffset <= this.getPositions().getOrDefault(otherTopicPartition, -1L);
+    private int subOffsetOf(TopicPartition topicPartition) {
+        return subOffsets.getOrDefault(topicPartition, COMPLETE_RECORD);
+    }
+
+    private static int comparePositions(long offset, int subOffset, long otherOffset, int otherSubOffset) {
+        int offsetComparison = Long.compare(offset, otherOffset);
+        return offsetComparison != 0 ? offsetComparison : Integer.compare(subOffset, otherSubOffset);
+    }
+
+    /**
+     * Replaces this token by its serialized form, which holds the positions and sub-offsets in a {@link HashMap}. This
+     * keeps the serialized form of the token independent of its internal representation. Absent sub-offsets are
+     * omitted from the serialized form.
+     *
+     * @return the serialized form of this token
+     */
+    private Object writeReplace() {
+        return positions != null
+                ? this
+                : new KafkaTrackingToken(new HashMap<>(offsets), subOffsets.isEmpty() ? null : new HashMap<>(subOffsets));
+    }
+
+    /**
+     * Restores the internal representation of a deserialized token. Ensures tokens serialized before the introduction
+     * of sub-offsets are deserialized with an empty sub-offset collection.
+     *
+     * @return a {@link KafkaTrackingToken} with its internal representation and a non-null sub-offset collection
+     */
+    private Object readResolve() {
+        return new KafkaTrackingToken(PartitionOffsets.from(positions), subOffsets);
     }
 
     @Override
@@ -191,18 +336,19 @@ public boolean equals(Object o) {
             return false;
         }
         KafkaTrackingToken that = (KafkaTrackingToken) o;
-        return Objects.equals(positions, that.positions);
+        return Objects.equals(offsets, that.offsets) && Objects.equals(subOffsets, that.subOffsets);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(positions);
+        return 31 * Objects.hash(offsets) + subOffsets.hashCode();
     }
 
     @Override
     public String toString() {
         return "KafkaTrackingToken{" +
-                "positions=" + positions +
+                "positions=" + offsets +
+                (subOffsets.isEmpty() ? "" : ", subOffsets=" + subOffsets) +
                 '}';
     }
 }
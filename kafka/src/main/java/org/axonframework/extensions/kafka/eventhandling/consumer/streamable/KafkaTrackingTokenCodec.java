@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.serialization.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a {@link KafkaTrackingToken}, as an alternative to the XML or JSON produced by a general
+ * purpose {@link org.axonframework.serialization.Serializer}.
+ * <p>
+ * The encoding starts with a marker, followed by a table of the distinct topics of the token. Every position refers to
+ * its topic by index in this table and stores its partition and offset as the difference with those of the preceding
+ * position, as variable length integers. As positions are ordered by partition and offsets of a topic tend to be
+ * close together, most positions take only a few bytes. The sub-offsets of the token follow the positions.
+ * <p>
+ * The marker starts with a {@code 0} byte, which neither XML, JSON nor Java serialization output starts with. {@link
+ * #isEncoded(byte[])} can hence be used to distinguish binary tokens from tokens serialized otherwise.
+ *
+ * @since 4.9.0
+ */
+public final class KafkaTrackingTokenCodec {
+
+    private static final byte[] MARKER = {0, 'K', 'T'};
+    private static final byte VERSION = 1;
+
+    private KafkaTrackingTokenCodec() {
+        // Utility class
+    }
+
+    /**
+     * Encode the given {@code token} in its compact binary form.
+     *
+     * @param token the {@link KafkaTrackingToken} to encode
+     * @return the compact binary form of the given {@code token}
+     */
+    public static byte[] encode(KafkaTrackingToken token) {
+        Map<String, Integer> topicIndices = new LinkedHashMap<>();
+        for (TopicPartition topicPartition : token.getPositions().keySet()) {
+            topicIndices.putIfAbsent(topicPartition.topic(), topicIndices.size());
+        }
+        for (TopicPartition topicPartition : token.getSubOffsets().keySet()) {
+            topicIndices.putIfAbsent(topicPartition.topic(), topicIndices.size());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + 4 * token.getPositions().size());
+        out.write(MARKER, 0, MARKER.length);
+        out.write(VERSION);
+        writeVarLong(out, topicIndices.size());
+        for (String topic : topicIndices.keySet()) {
+            byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, topicBytes.length);
+            out.write(topicBytes, 0, topicBytes.length);
+        }
+
+        writeVarLong(out, token.getPositions().size());
+        int previousPartition = 0;
+        long previousOffset = 0;
+        for (Map.Entry<TopicPartition, Long> position : token.getPositions().entrySet()) {
+            TopicPartition topicPartition = position.getKey();
+            writeVarLong(out, topicIndices.get(topicPartition.topic()));
+            writeVarLong(out, zigZag(topicPartition.partition() - previousPartition));
+            writeVarLong(out, zigZag(position.getValue() - previousOffset));
+            previousPartition = topicPartition.partition();
+            previousOffset = position.getValue();
+        }
+
+        writeVarLong(out, token.getSubOffsets().size());
+        for (Map.Entry<TopicPartition, Integer> subOffset : token.getSubOffsets().entrySet()) {
+            TopicPartition topicPartition = subOffset.getKey();
+            writeVarLong(out, topicIndices.get(topicPartition.topic()));
+            writeVarLong(out, topicPartition.partition());
+            writeVarLong(out, subOffset.getValue());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode the given compact binary form of a {@link KafkaTrackingToken}, as created by {@link
+     * #encode(KafkaTrackingToken)}.
+     *
+     * @param bytes the compact binary form of a {@link KafkaTrackingToken}
+     * @return the decoded {@link KafkaTrackingToken}
+     * @throws SerializationException if the given {@code bytes} are not a valid compact binary form of a token
+     */
+    public static KafkaTrackingToken decode(byte[] bytes) {
+        if (!isEncoded(bytes)) {
+            throw new SerializationException("The given bytes are not a binary encoded KafkaTrackingToken");
+        }
+        Reader in = new Reader(bytes, MARKER.length);
+        byte version = bytes[in.position++];
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported binary KafkaTrackingToken version [" + version + "]");
+        }
+        try {
+            int topicCount = in.readCount();
+            List<String> topics = new ArrayList<>(topicCount);
+            for (int i = 0; i < topicCount; i++) {
+                int length = in.readCount();
+                topics.add(new String(bytes, in.skip(length), length, StandardCharsets.UTF_8).intern());
+            }
+
+            int positionCount = in.readCount();
+            PartitionOffsets positions = PartitionOffsets.empty();
+            int partition = 0;
+            long offset = 0;
+            for (int i = 0; i < positionCount; i++) {
+                String topic = topics.get(in.readCount());
+                partition += (int) unZigZag(in.readVarLong());
+                offset += unZigZag(in.readVarLong());
+                if (partition < 0 || offset < 0) {
+                    throw new SerializationException("Invalid position in binary KafkaTrackingToken");
+                }
+                positions = positions.with(topic, partition, offset);
+            }
+
+            int subOffsetCount = in.readCount();
+            Map<TopicPartition, Integer> subOffsets =
+                    subOffsetCount == 0 ? Collections.emptyMap() : new HashMap<>(subOffsetCount);
+            for (int i = 0; i < subOffsetCount; i++) {
+                String topic = topics.get(in.readCount());
+                subOffsets.put(new TopicPartition(topic, in.readCount()), in.readCount());
+            }
+            return KafkaTrackingToken.newInstance(positions, subOffsets);
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated or corrupt binary KafkaTrackingToken", e);
+        }
+    }
+
+    /**
+     * Verify whether the given {@code bytes} start with the marker of the compact binary form of a {@link
+     * KafkaTrackingToken}.
+     *
+     * @param bytes the bytes to verify
+     * @return {@code true} if the given {@code bytes} are a compact binary form of a token, {@code false} otherwise
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        if (bytes == null || bytes.length <= MARKER.length) {
+            return false;
+        }
+        for (int i = 0; i < MARKER.length; i++) {
+            if (bytes[i] != MARKER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed variable length integer in binary KafkaTrackingToken");
+        }
+
+        private int readCount() {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new SerializationException("Invalid count in binary KafkaTrackingToken");
+            }
+            return (int) value;
+        }
+
+        private int skip(int length) {
+            int start = position;
+            if (length > bytes.length - start) {
+                throw new IndexOutOfBoundsException("Topic name exceeds the binary KafkaTrackingToken");
+            }
+            position += length;
+            return start;
+        }
+    }
+}
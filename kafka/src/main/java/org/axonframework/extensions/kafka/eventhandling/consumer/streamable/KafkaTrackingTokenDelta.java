@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The position of a {@link KafkaEventMessage}, expressed as the (topic, partition, offset) delta on the position of the
+ * message preceding it. The full {@link KafkaTrackingToken} is only materialized once it is requested through {@link
+ * #get()}, after which the reference to the preceding position is dropped.
+ * <p>
+ * This allows buffered messages to retain a few fields each, instead of a full {@link KafkaTrackingToken} snapshot.
+ * Materializing a position walks back to the closest preceding position that has already been materialized, which
+ * typically is the position of the previously handled message or the base of the fetched batch.
+ *
+ * @since 4.9.0
+ */
+final class KafkaTrackingTokenDelta {
+
+    private static final int NO_SUB_OFFSET = -1;
+
+    private final String topic;
+    private final int partition;
+    private final long offset;
+    private final int subOffset;
+    private volatile KafkaTrackingTokenDelta previous;
+    private volatile KafkaTrackingToken token;
+
+    private KafkaTrackingTokenDelta(KafkaTrackingTokenDelta previous,
+                                    String topic,
+                                    int partition,
+                                    long offset,
+                                    int subOffset) {
+        this.previous = previous;
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.subOffset = subOffset;
+    }
+
+    /**
+     * Returns a materialized {@link KafkaTrackingTokenDelta} for the given {@code token}, to serve as the base of
+     * subsequent deltas.
+     *
+     * @param token the {@link KafkaTrackingToken} to base subsequent deltas on
+     * @return a materialized {@link KafkaTrackingTokenDelta} for the given {@code token}
+     */
+    static KafkaTrackingTokenDelta of(KafkaTrackingToken token) {
+        KafkaTrackingTokenDelta base = new KafkaTrackingTokenDelta(null, null, 0, 0, NO_SUB_OFFSET);
+        base.token = token;
+        return base;
+    }
+
+    /**
+     * Returns the position following {@code this} position, in which the given {@code topic} and {@code partition}
+     * have been advanced to the given {@code offset}. Equivalent to {@link KafkaTrackingToken#advancedTo(String, int,
+     * long)}.
+     *
+     * @param topic     the topic to advance
+     * @param partition the partition to advance
+     * @param offset    the offset to advance to
+     * @return the position following {@code this} position
+     */
+    KafkaTrackingTokenDelta advancedTo(String topic, int partition, long offset) {
+        return new KafkaTrackingTokenDelta(this, topic, partition, offset, NO_SUB_OFFSET);
+    }
+
+    /**
+     * Returns the position following {@code this} position, in which the given {@code topic} and {@code partition}
+     * have been advanced to the given {@code subOffset} within the record at the given {@code offset}. Equivalent to
+     * {@link KafkaTrackingToken#advancedTo(String, int, long, int)}.
+     *
+     * @param topic     the topic to advance
+     * @param partition the partition to advance
+     * @param offset    the offset of the partially handled record
+     * @param subOffset the position of the last handled event within the record
+     * @return the position following {@code this} position
+     */
+    KafkaTrackingTokenDelta advancedTo(String topic, int partition, long offset, int subOffset) {
+        return new KafkaTrackingTokenDelta(this, topic, partition, offset, subOffset);
+    }
+
+    /**
+     * Returns the {@link KafkaTrackingToken} of this position, materializing it if this has not been done yet.
+     *
+     * @return the {@link KafkaTrackingToken} of this position
+     */
+    KafkaTrackingToken get() {
+        KafkaTrackingToken result = token;
+        if (result != null) {
+            return result;
+        }
+        Deque<KafkaTrackingTokenDelta> unmaterialized = new ArrayDeque<>();
+        KafkaTrackingTokenDelta current = this;
+        while ((result = current.token) == null) {
+            unmaterialized.push(current);
+            KafkaTrackingTokenDelta preceding = current.previous;
+            if (preceding == null) {
+                // Materialized concurrently, which sets the token before dropping the preceding position
+                result = current.token;
+                unmaterialized.pop();
+                break;
+            }
+            current = preceding;
+        }
+        while (!unmaterialized.isEmpty()) {
+            result = unmaterialized.pop().applyTo(result);
+        }
+        token = result;
+        previous = null;
+        return result;
+    }
+
+    private KafkaTrackingToken applyTo(KafkaTrackingToken precedingToken) {
+        return subOffset == NO_SUB_OFFSET
+                ? precedingToken.advancedTo(topic, partition, offset)
+                : precedingToken.advancedTo(topic, partition, offset, subOffset);
+    }
+
+    @Override
+    public String toString() {
+        KafkaTrackingToken materialized = token;
+        return materialized != null
+                ? materialized.toString()
+                : "KafkaTrackingTokenDelta{topic='" + topic + "', partition=" + partition + ", offset=" + offset
+                        + ", subOffset=" + subOffset + '}';
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.axonframework.common.AxonConfigurationException;
+import org.axonframework.serialization.Converter;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+
+import static org.axonframework.common.BuilderUtils.assertNonNull;
+
+/**
+ * A {@link Serializer} decorator which serializes {@link KafkaTrackingToken}s in to their compact binary form, as
+ * defined by the {@link KafkaTrackingTokenCodec}, and delegates all other objects to the wrapped {@link Serializer}.
+ * Intended to be used as the serializer of a {@link org.axonframework.eventhandling.tokenstore.TokenStore}, like the
+ * JPA, JDBC or Kafka token store, to reduce the size of the stored tokens and the time spent writing them.
+ * <p>
+ * Tokens are only serialized in to their binary form if a {@code byte[]} representation is requested, as other
+ * representations, like a {@link String}, typically expect text. The serialized type of a binary token is the same as
+ * that of a token serialized by the delegate. Upon deserialization, binary tokens are recognized by their marker (see
+ * {@link KafkaTrackingTokenCodec#isEncoded(byte[])}). Tokens stored before this serializer was introduced hence remain
+ * readable, as they are deserialized by the delegate.
+ *
+ * @since 4.9.0
+ */
+public class KafkaTrackingTokenSerializer implements Serializer {
+
+    private final Serializer delegate;
+
+    /**
+     * Instantiate a {@link KafkaTrackingTokenSerializer} based on the fields contained in the {@link Builder}.
+     * <p>
+     * Will assert that the delegate {@link Serializer} is not {@code null}, and will throw an {@link
+     * AxonConfigurationException} if it is.
+     *
+     * @param builder the {@link Builder} used to instantiate a {@link KafkaTrackingTokenSerializer} instance
+     */
+    protected KafkaTrackingTokenSerializer(Builder builder) {
+        builder.validate();
+        this.delegate = builder.delegate;
+    }
+
+    /**
+     * Instantiate a Builder to be able to create a {@link KafkaTrackingTokenSerializer}.
+     * <p>
+     * The delegate {@link Serializer} is a <b>hard requirement</b> and as such should be provided.
+     *
+     * @return a Builder to be able to create a {@link KafkaTrackingTokenSerializer}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public <T> SerializedObject<T> serialize(Object object, Class<T> expectedRepresentation) {
+        if (!(object instanceof KafkaTrackingToken) || !byte[].class.equals(expectedRepresentation)) {
+            return delegate.serialize(object, expectedRepresentation);
+        }
+        byte[] encoded = KafkaTrackingTokenCodec.encode((KafkaTrackingToken) object);
+        //noinspection unchecked
+        return new SimpleSerializedObject<>((T) encoded, expectedRepresentation, typeForClass(object.getClass()));
+    }
+
+    @Override
+    public <T> boolean canSerializeTo(Class<T> expectedRepresentation) {
+        return delegate.canSerializeTo(expectedRepresentation);
+    }
+
+    @Override
+    public <S, T> T deserialize(SerializedObject<S> serializedObject) {
+        if (!KafkaTrackingToken.class.getName().equals(serializedObject.getType().getName())
+                || !getConverter().canConvert(serializedObject.getContentType(), byte[].class)) {
+            return delegate.deserialize(serializedObject);
+        }
+        SerializedObject<byte[]> bytes = getConverter().convert(serializedObject, byte[].class);
+        if (KafkaTrackingTokenCodec.isEncoded(bytes.getData())) {
+            //noinspection unchecked
+            return (T) KafkaTrackingTokenCodec.decode(bytes.getData());
+        }
+        return delegate.deserialize(bytes);
+    }
+
+    @Override
+    public Class classForType(SerializedType type) {
+        return delegate.classForType(type);
+    }
+
+    @Override
+    public SerializedType typeForClass(Class type) {
+        return delegate.typeForClass(type);
+    }
+
+    @Override
+    public Converter getConverter() {
+        return delegate.getConverter();
+    }
+
+    /**
+     * Builder class to instantiate a {@link KafkaTrackingTokenSerializer}.
+     * <p>
+     * The delegate {@link Serializer} is a <b>hard requirement</b> and as such should be provided.
+     */
+    public static class Builder {
+
+        private Serializer delegate;
+
+        /**
+         * Sets the {@link Serializer} used for all objects other than {@link KafkaTrackingToken}s, and to deserialize
+         * tokens which are not in the compact binary form.
+         *
+         * @param delegate the {@link Serializer} to delegate to
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder delegate(Serializer delegate) {
+            assertNonNull(delegate, "The delegate Serializer may not be null");
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * Initializes a {@link KafkaTrackingTokenSerializer} as specified through this Builder.
+         *
+         * @return a {@link KafkaTrackingTokenSerializer} as specified through this Builder
+         */
+        public KafkaTrackingTokenSerializer build() {
+            return new KafkaTrackingTokenSerializer(this);
+        }
+
+        /**
+         * Validates whether the fields contained in this Builder are set accordingly.
+         *
+         * @throws AxonConfigurationException if one field is asserted to be incorrect according to the Builder's
+         *                                    specifications
+         */
+        protected void validate() throws AxonConfigurationException {
+            assertNonNull(delegate, "The delegate Serializer is a hard requirement and should be provided");
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.axonframework.common.Assert.isTrue;
+
+/**
+ * An immutable {@link Map} from {@link TopicPartition} to offset, used as the internal representation of the {@link
+ * KafkaTrackingToken}.
+ * <p>
+ * Topics are interned and the offsets of a topic are stored as primitive {@code long}s, indexed by partition and split
+ * in to blocks of {@link #BLOCK_SIZE} partitions. Updating an offset copies only the block containing the partition and
+ * the (small) arrays referring to the blocks, sharing all other blocks with the original. Comparing two instances
+ * derived from one another hence mostly compares block references. An absent partition is marked with an offset of
+ * {@code -1}, as Kafka offsets are never negative.
+ *
+ * @since 4.9.0
+ */
+final class PartitionOffsets extends AbstractMap<TopicPartition, Long> {
+
+    /**
+     * The number of partitions stored in a single block of offsets.
+     */
+    static final int BLOCK_SIZE = 64;
+
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final long ABSENT = -1L;
+    private static final long[][] NO_BLOCKS = new long[0][];
+    private static final PartitionOffsets EMPTY = new PartitionOffsets(new String[0], new long[0][][], 0);
+
+    private final String[] topics;
+    private final long[][][] offsets;
+    private final int size;
+    private int hashCode;
+
+    private PartitionOffsets(String[] topics, long[][][] offsets, int size) {
+        this.topics = topics;
+        this.offsets = offsets;
+        this.size = size;
+    }
+
+    /**
+     * Returns an empty {@link PartitionOffsets} instance.
+     *
+     * @return an empty {@link PartitionOffsets} instance
+     */
+    static PartitionOffsets empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a {@link PartitionOffsets} instance containing the given {@code positions}. Returns the given {@code
+     * positions} as is if they already are a {@link PartitionOffsets} instance.
+     *
+     * @param positions the offsets per {@link TopicPartition} to contain
+     * @return a {@link PartitionOffsets} instance containing the given {@code positions}
+     */
+    static PartitionOffsets from(Map<TopicPartition, Long> positions) {
+        if (positions instanceof PartitionOffsets) {
+            return (PartitionOffsets) positions;
+        }
+        PartitionOffsets result = EMPTY;
+        for (Map.Entry<TopicPartition, Long> position : positions.entrySet()) {
+            Long offset = position.getValue();
+            isTrue(offset != null && offset >= 0, () -> "Offset may not be null or negative");
+            //noinspection ConstantConditions - Verified through `Assert.isTrue` operation
+            result = result.with(position.getKey().topic(), position.getKey().partition(), offset);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the offset of the given {@code topic} and {@code partition}, or {@code -1} if it is absent.
+     *
+     * @param topic     the topic to return the offset for
+     * @param partition the partition to return the offset for
+     * @return the offset of the given {@code topic} and {@code partition}, or {@code -1} if it is absent
+     */
+    long offset(String topic, int partition) {
+        int topicIndex = indexOf(topic);
+        return topicIndex < 0 ? ABSENT : offset(offsets[topicIndex], partition);
+    }
+
+    /**
+     * Returns a {@link PartitionOffsets} instance in which the given {@code topic} and {@code partition} have the given
+     * {@code offset}, sharing all unaffected blocks of offsets with {@code this} instance.
+     *
+     * @param topic     the topic to set the offset for
+     * @param partition the partition to set the offset for
+     * @param offset    the offset to set, may not be negative
+     * @return a {@link PartitionOffsets} instance in which the given {@code topic} and {@code partition} have the given
+     * {@code offset}
+     */
+    PartitionOffsets with(String topic, int partition, long offset) {
+        int topicIndex = indexOf(topic);
+        String[] updatedTopics = topics;
+        long[][][] updatedOffsets;
+        long[][] blocks;
+        if (topicIndex < 0) {
+            topicIndex = topics.length;
+            updatedTopics = Arrays.copyOf(topics, topics.length + 1);
+            updatedTopics[topicIndex] = topic.intern();
+            updatedOffsets = Arrays.copyOf(offsets, offsets.length + 1);
+            blocks = new long[0][];
+        } else {
+            long currentOffset = offset(offsets[topicIndex], partition);
+            if (currentOffset == offset) {
+                return this;
+            }
+            updatedOffsets = offsets.clone();
+            blocks = offsets[topicIndex];
+        }
+
+        int blockIndex = partition >>> BLOCK_SHIFT;
+        int indexInBlock = partition & BLOCK_MASK;
+        long[][] updatedBlocks = Arrays.copyOf(blocks, Math.max(blocks.length, blockIndex + 1));
+        long[] block = updatedBlocks[blockIndex];
+        long[] updatedBlock;
+        if (block == null || block.length <= indexInBlock) {
+            int currentLength = block == null ? 0 : block.length;
+            updatedBlock = block == null ? new long[indexInBlock + 1] : Arrays.copyOf(block, indexInBlock + 1);
+            Arrays.fill(updatedBlock, currentLength, indexInBlock + 1, ABSENT);
+        } else {
+            updatedBlock = block.clone();
+        }
+        boolean added = updatedBlock[indexInBlock] == ABSENT;
+        updatedBlock[indexInBlock] = offset;
+        updatedBlocks[blockIndex] = updatedBlock;
+        updatedOffsets[topicIndex] = updatedBlocks;
+        return new PartitionOffsets(updatedTopics, updatedOffsets, added ? size + 1 : size);
+    }
+
+    /**
+     * Verify whether every offset in {@code other} is present in {@code this} instance and smaller than or equal to
+     * the offset in {@code this} instance.
+     *
+     * @param other the {@link PartitionOffsets} to verify
+     * @return {@code true} if {@code this} instance covers all offsets in {@code other}, {@code false} otherwise
+     */
+    boolean covers(PartitionOffsets other) {
+        for (int otherTopicIndex = 0; otherTopicIndex < other.topics.length; otherTopicIndex++) {
+            long[][] otherBlocks = other.offsets[otherTopicIndex];
+            int topicIndex = indexOf(other.topics[otherTopicIndex]);
+            long[][] blocks = topicIndex < 0 ? NO_BLOCKS : offsets[topicIndex];
+            for (int blockIndex = 0; blockIndex < otherBlocks.length; blockIndex++) {
+                long[] otherBlock = otherBlocks[blockIndex];
+                long[] block = blockIndex < blocks.length ? blocks[blockIndex] : null;
+                if (otherBlock == null || otherBlock == block) {
+                    continue;
+                }
+                for (int indexInBlock = 0; indexInBlock < otherBlock.length; indexInBlock++) {
+                    long otherOffset = otherBlock[indexInBlock];
+                    if (otherOffset != ABSENT && otherOffset > offset(block, indexInBlock)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bound of {@code this} and the {@code other} instance, containing every partition of either instance.
+     * The offset of a partition is the highest offset of both instances for an {@code upper} bound and the lowest
+     * offset for a lower bound, where a partition absent from one of the instances counts as offset {@code 0}.
+     *
+     * @param other the {@link PartitionOffsets} to compute the bound with
+     * @param upper {@code true} to compute the upper bound, {@code false} to compute the lower bound
+     * @return the bound of {@code this} and the {@code other} instance
+     */
+    PartitionOffsets bound(PartitionOffsets other, boolean upper) {
+        String[] boundTopics = topics;
+        long[][][] boundOffsets = offsets.clone();
+        for (int otherTopicIndex = 0; otherTopicIndex < other.topics.length; otherTopicIndex++) {
+            int topicIndex = indexOf(other.topics[otherTopicIndex]);
+            if (topicIndex < 0) {
+                topicIndex = boundTopics.length;
+                boundTopics = Arrays.copyOf(boundTopics, boundTopics.length + 1);
+                boundTopics[topicIndex] = other.topics[otherTopicIndex];
+                boundOffsets = Arrays.copyOf(boundOffsets, boundOffsets.length + 1);
+                boundOffsets[topicIndex] = NO_BLOCKS;
+            }
+            boundOffsets[topicIndex] = boundBlocks(boundOffsets[topicIndex], other.offsets[otherTopicIndex], upper);
+        }
+        for (int topicIndex = 0; topicIndex < topics.length; topicIndex++) {
+            if (other.indexOf(topics[topicIndex]) < 0) {
+                boundOffsets[topicIndex] = boundBlocks(offsets[topicIndex], NO_BLOCKS, upper);
+            }
+        }
+
+        int boundSize = 0;
+        for (long[][] blocks : boundOffsets) {
+            for (long[] block : blocks) {
+                boundSize += block == null ? 0 : countPresent(block);
+            }
+        }
+        return new PartitionOffsets(boundTopics, boundOffsets, boundSize);
+    }
+
+    private static long[][] boundBlocks(long[][] blocks, long[][] otherBlocks, boolean upper) {
+        long[][] boundBlocks = new long[Math.max(blocks.length, otherBlocks.length)][];
+        for (int blockIndex = 0; blockIndex < boundBlocks.length; blockIndex++) {
+            long[] block = blockIndex < blocks.length ? blocks[blockIndex] : null;
+            long[] otherBlock = blockIndex < otherBlocks.length ? otherBlocks[blockIndex] : null;
+            boundBlocks[blockIndex] = block == otherBlock ? block : boundBlock(block, otherBlock, upper);
+        }
+        return boundBlocks;
+    }
+
+    private static long[] boundBlock(long[] block, long[] otherBlock, boolean upper) {
+        if (upper && (block == null || otherBlock == null)) {
+            return block == null ? otherBlock : block;
+        }
+        int length = Math.max(block == null ? 0 : block.length, otherBlock == null ? 0 : otherBlock.length);
+        long[] boundBlock = new long[length];
+        for (int indexInBlock = 0; indexInBlock < length; indexInBlock++) {
+            long offset = offset(block, indexInBlock);
+            long otherOffset = offset(otherBlock, indexInBlock);
+            if (offset == ABSENT && otherOffset == ABSENT) {
+                boundBlock[indexInBlock] = ABSENT;
+            } else {
+                long thisOrZero = Math.max(offset, 0L);
+                long otherOrZero = Math.max(otherOffset, 0L);
+                boundBlock[indexInBlock] = upper ? Math.max(thisOrZero, otherOrZero) : Math.min(thisOrZero, otherOrZero);
+            }
+        }
+        return boundBlock;
+    }
+
+    private static int countPresent(long[] block) {
+        int present = 0;
+        for (long offset : block) {
+            if (offset != ABSENT) {
+                present++;
+            }
+        }
+        return present;
+    }
+
+    private int indexOf(String topic) {
+        for (int topicIndex = 0; topicIndex < topics.length; topicIndex++) {
+            String candidate = topics[topicIndex];
+            if (candidate == topic || candidate.equals(topic)) {
+                return topicIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static long offset(long[][] blocks, int partition) {
+        int blockIndex = partition >>> BLOCK_SHIFT;
+        return blockIndex < blocks.length ? offset(blocks[blockIndex], partition & BLOCK_MASK) : ABSENT;
+    }
+
+    private static long offset(long[] block, int indexInBlock) {
+        return block != null && indexInBlock < block.length ? block[indexInBlock] : ABSENT;
+    }
+
+    @Override
+    public Long get(Object key) {
+        if (!(key instanceof TopicPartition)) {
+            return null;
+        }
+        TopicPartition topicPartition = (TopicPartition) key;
+        long offset = offset(topicPartition.topic(), topicPartition.partition());
+        return offset == ABSENT ? null : offset;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Entry<TopicPartition, Long>> entrySet() {
+        return new AbstractSet<Entry<TopicPartition, Long>>() {
+            @Override
+            public Iterator<Entry<TopicPartition, Long>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PartitionOffsets)) {
+            return super.equals(o);
+        }
+        PartitionOffsets other = (PartitionOffsets) o;
+        return size == other.size && covers(other) && other.covers(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Computed without allocating {@link TopicPartition} instances, matching {@link TopicPartition#hashCode()}, and
+     * cached as the instance is immutable.
+     */
+    @Override
+    public int hashCode() {
+        int hash = hashCode;
+        if (hash == 0 && size > 0) {
+            for (int topicIndex = 0; topicIndex < topics.length; topicIndex++) {
+                int topicHash = topics[topicIndex].hashCode();
+                long[][] blocks = offsets[topicIndex];
+                for (int blockIndex = 0; blockIndex < blocks.length; blockIndex++) {
+                    long[] block = blocks[blockIndex];
+                    for (int indexInBlock = 0; block != null && indexInBlock < block.length; indexInBlock++) {
+                        if (block[indexInBlock] != ABSENT) {
+                            int partition = (blockIndex << BLOCK_SHIFT) + indexInBlock;
+                            int topicPartitionHash = 31 * (31 + partition) + topicHash;
+                            hash += topicPartitionHash ^ Long.hashCode(block[indexInBlock]);
+                        }
+                    }
+                }
+            }
+            hashCode = hash;
+        }
+        return hash;
+    }
+
+    private class EntryIterator implements Iterator<Entry<TopicPartition, Long>> {
+
+        private int topicIndex;
+        private int partition = -1;
+        private int remaining = size;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Entry<TopicPartition, Long> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (true) {
+                partition++;
+                long[][] blocks = offsets[topicIndex];
+                if (partition >= blocks.length << BLOCK_SHIFT) {
+                    topicIndex++;
+                    partition = -1;
+                    continue;
+                }
+                long offset = offset(blocks, partition);
+                if (offset != ABSENT) {
+                    remaining--;
+                    return new SimpleImmutableEntry<>(new TopicPartition(topics[topicIndex], partition), offset);
+                }
+            }
+        }
+    }
+}
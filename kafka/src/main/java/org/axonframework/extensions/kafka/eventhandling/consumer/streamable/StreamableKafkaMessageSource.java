@@ -41,6 +41,7 @@
 
 import java.lang.invoke.MethodHandles;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -73,6 +74,7 @@
     private final Fetcher<K, V, KafkaEventMessage> fetcher;
     private final KafkaMessageConverter<K, V> messageConverter;
     private final Supplier<Buffer<KafkaEventMessage>> bufferFactory;
+    private final long chunkBufferSize;
 
     /**
      * Instantiate a {@link StreamableKafkaMessageSource} based on the fields contained in the {@link Builder}.
@@ -89,6 +91,7 @@ protected StreamableKafkaMessageSource(Builder<K, V> builder) {
         this.fetcher = builder.fetcher;
         this.messageConverter = builder.messageConverter;
         this.bufferFactory = builder.bufferFactory;
+        this.chunkBufferSize = builder.chunkBufferSize;
     }
 
     /**
@@ -117,14 +120,18 @@ public static <K, V> Builder<K, V> builder() {
     @Override
     public BlockingStream<TrackedEventMessage<?>> openStream(TrackingToken trackingToken) {
         KafkaTrackingToken token = KafkaTrackingToken.from(trackingToken);
-        TrackingRecordConverter<K, V> recordConverter = new TrackingRecordConverter<>(messageConverter, token);
+        TrackingRecordConverter<K, V> recordConverter = new TrackingRecordConverter<>(messageConverter, token, chunkBufferSize);
 
         logger.debug("Will start consuming from topics: ", subscriber.describe());
         Consumer<K, V> consumer = consumerFactory.createConsumer(null);
         ConsumerSeekUtil.seekToCurrentPositions(consumer, recordConverter::currentToken, subscriber);
 
         Buffer<KafkaEventMessage> buffer = bufferFactory.get();
-        Registration closeHandler = fetcher.poll(consumer, recordConverter, buffer::putAll, buffer::setException);
+        Registration closeHandler = fetcher.poll(consumer, records -> {
+            List<KafkaEventMessage> eventMessages = recordConverter.convert(records);
+            recordConverter.regulateFetching(consumer);
+            return eventMessages;
+        }, buffer::putAll, buffer::setException);
         return new KafkaMessageStream(buffer, closeHandler);
     }
 
@@ -161,6 +168,7 @@ public TrackingToken createTokenAt(Instant dateTime) {
         private Fetcher<K, V, KafkaEventMessage> fetcher;
         private KafkaMessageConverter<K, V> messageConverter;
         private Supplier<Buffer<KafkaEventMessage>> bufferFactory = SortedKafkaMessageBuffer::new;
+        private long chunkBufferSize = TrackingRecordConverter.DEFAULT_CHUNK_BUFFER_SIZE;
         private Supplier<Serializer> serializer;
 
         /**
@@ -293,6 +301,22 @@ public Builder<K, V> bufferFactory(Supplier<Buffer<KafkaEventMessage>> bufferFac
             return this;
         }
 
+        /**
+         * Sets the maximum combined size in bytes of the chunks buffered per stream while reassembling records split
+         * by a {@link org.axonframework.extensions.kafka.eventhandling.ChunkingKafkaMessageConverter}. When exceeded,
+         * only the partition of the oldest incomplete record is fetched until that record completes. A single record
+         * exceeding this size fails the stream. Defaults to
+         * {@link TrackingRecordConverter#DEFAULT_CHUNK_BUFFER_SIZE}.
+         *
+         * @param chunkBufferSize the maximum combined size in bytes of the buffered chunks
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> chunkBufferSize(long chunkBufferSize) {
+            assertThat(chunkBufferSize, size -> size > 0, "The chunk buffer size should be a positive number");
+            this.chunkBufferSize = chunkBufferSize;
+            return this;
+        }
+
         /**
          * Initializes a {@link StreamableKafkaMessageSource} as specified through this Builder.
          *
@@ -16,15 +16,23 @@
 
 package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
 
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.extensions.kafka.eventhandling.BatchingKafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.ChunkingKafkaMessageConverter;
 import org.axonframework.extensions.kafka.eventhandling.KafkaMessageConverter;
 import org.axonframework.extensions.kafka.eventhandling.consumer.RecordConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.axonframework.common.Assert.nonNull;
 
@@ -39,9 +47,16 @@
  */
 public class TrackingRecordConverter<K, V> implements RecordConverter<K, V, KafkaEventMessage> {
 
+    /**
+     * The default maximum combined size in bytes of the chunks buffered while reassembling chunked records.
+     */
+    public static final long DEFAULT_CHUNK_BUFFER_SIZE = 64L * 1024 * 1024;
+
     private static final Logger logger = LoggerFactory.getLogger(TrackingRecordConverter.class);
 
     private final KafkaMessageConverter<K, V> messageConverter;
+    private final ChunkReassemblyBuffer<K, V> chunkBuffer;
+    private final Set<TopicPartition> pausedPartitions = new HashSet<>();
     private KafkaTrackingToken currentToken;
 
     /**
@@ -55,8 +70,33 @@
      * @param token            the {@link KafkaTrackingToken} to advance for every fetched {@link ConsumerRecord}
      */
     public TrackingRecordConverter(KafkaMessageConverter<K, V> messageConverter, KafkaTrackingToken token) {
+        this(messageConverter, token, DEFAULT_CHUNK_BUFFER_SIZE);
+    }
+
+    /**
+     * Instantiates a {@link TrackingRecordConverter}, using the {@link KafkaMessageConverter} to convert {@link
+     * ConsumerRecord} instances in to an {@link org.axonframework.eventhandling.EventMessage} instances. As it
+     * traverses the {@link ConsumerRecords} it will advance the provided {@code token}. An {@link
+     * IllegalArgumentException} will be thrown if the provided {@code token} is {@code null}.
+     * <p>
+     * If the {@code messageConverter} is a {@link ChunkingKafkaMessageConverter}, chunks of records are buffered until
+     * the record is complete. Once more than {@code chunkBufferSize} bytes of chunks are buffered, {@link
+     * #regulateFetching(Consumer)} limits fetching to the partition of the oldest incomplete record. A record which by
+     * itself exceeds the {@code chunkBufferSize} fails the conversion.
+     *
+     * @param messageConverter the {@link KafkaMessageConverter} used to convert a {@link ConsumerRecord} in to an
+     *                         {@link org.axonframework.eventhandling.EventMessage}
+     * @param token            the {@link KafkaTrackingToken} to advance for every fetched {@link ConsumerRecord}
+     * @param chunkBufferSize  the maximum combined size in bytes of the chunks buffered while reassembling records
+     */
+    public TrackingRecordConverter(KafkaMessageConverter<K, V> messageConverter,
+                                   KafkaTrackingToken token,
+                                   long chunkBufferSize) {
         this.messageConverter = messageConverter;
         this.currentToken = nonNull(token, () -> "Token may not be null");
+        this.chunkBuffer = messageConverter instanceof ChunkingKafkaMessageConverter
+                ? new ChunkReassemblyBuffer<>((ChunkingKafkaMessageConverter<K, V>) messageConverter, chunkBufferSize)
+                : null;
     }
 
     /**
@@ -64,26 +104,113 @@ public TrackingRecordConverter(KafkaMessageConverter<K, V> messageConverter, Kaf
      * <p>
      * {@code E} is defined as a {@link KafkaEventMessage} for this implementation. Every {@link ConsumerRecord} will
      * advance the defined {@code token}'s position further with the ConsumerRecord's {@link ConsumerRecord#partition()}
-     * and {@link ConsumerRecord#offset()}.
+     * and {@link ConsumerRecord#offset()}. The returned messages only retain the delta of their position on the
+     * preceding message, materializing their full tracking token once it is requested.
+     * <p>
+     * If the {@link KafkaMessageConverter} is a {@link BatchingKafkaMessageConverter}, a record may result in several
+     * {@link KafkaEventMessage}s. All but the last of these advance the token to a sub-offset within the record, so
+     * that resuming from any of their tokens skips the events already handled.
+     * <p>
+     * If the {@link KafkaMessageConverter} is a {@link ChunkingKafkaMessageConverter}, chunk records are buffered and
+     * only converted once the final chunk has been received. While a record of a partition is incomplete, the token is
+     * not advanced past its first chunk for that partition, nor advanced at all if that first chunk is the first record
+     * of the partition. Events of that partition in between the chunks hence do not move the token, and may be
+     * redelivered when resuming from one of their tokens. Incomplete records are never
+     * discarded. If a record can never be reassembled, because it exceeds the chunk buffer size or misses a chunk, a
+     * {@link org.axonframework.extensions.kafka.eventhandling.consumer.FetchEventException} is thrown.
      */
     @Override
     public List<KafkaEventMessage> convert(ConsumerRecords<K, V> records) {
         List<KafkaEventMessage> eventMessages = new ArrayList<>(records.count());
-        for (ConsumerRecord<K, V> consumerRecord : records) {
-            messageConverter.readKafkaMessage(consumerRecord).ifPresent(eventMessage -> {
-                KafkaTrackingToken nextToken =
-                        currentToken.advancedTo(consumerRecord.topic(),
-                                                consumerRecord.partition(),
-                                                consumerRecord.offset());
-                logger.debug("Advancing token from [{}] to [{}]", currentToken, nextToken);
-
-                currentToken = nextToken;
-                eventMessages.add(KafkaEventMessage.from(eventMessage, consumerRecord, currentToken));
-            });
+        KafkaTrackingTokenDelta position = KafkaTrackingTokenDelta.of(currentToken);
+        for (ConsumerRecord<K, V> fetchedRecord : records) {
+            Optional<ConsumerRecord<K, V>> completeRecord = completeRecord(fetchedRecord);
+            if (!completeRecord.isPresent()) {
+                continue;
+            }
+            ConsumerRecord<K, V> consumerRecord = completeRecord.get();
+            long safePosition = safePosition(consumerRecord);
+            List<EventMessage<?>> recordEvents = BatchingKafkaMessageConverter.readAll(messageConverter, consumerRecord);
+            int lastSubOffset = recordEvents.size() - 1;
+            for (int subOffset = firstUnhandledSubOffset(consumerRecord); subOffset <= lastSubOffset; subOffset++) {
+                // An incomplete record starting at the partition's first offset leaves nothing to advance to
+                if (safePosition >= 0) {
+                    position = subOffset == lastSubOffset || safePosition != consumerRecord.offset()
+                            ? position.advancedTo(consumerRecord.topic(), consumerRecord.partition(), safePosition)
+                            : position.advancedTo(consumerRecord.topic(),
+                                                  consumerRecord.partition(),
+                                                  consumerRecord.offset(),
+                                                  subOffset);
+                    logger.debug("Advancing token to [{}]", position);
+                }
+
+                eventMessages.add(
+                        KafkaEventMessage.from(recordEvents.get(subOffset), consumerRecord, subOffset, position)
+                );
+            }
         }
+        currentToken = position.get();
         return eventMessages;
     }
 
+    private Optional<ConsumerRecord<K, V>> completeRecord(ConsumerRecord<K, V> consumerRecord) {
+        return chunkBuffer == null ? Optional.of(consumerRecord) : chunkBuffer.offer(consumerRecord);
+    }
+
+    /**
+     * Applies backpressure on the given {@code consumer} while the chunk buffer is full, by pausing all its assigned
+     * partitions but the one of the oldest incomplete record. Once that record completes, the next oldest incomplete
+     * record is awaited, until the buffer is no longer full and all partitions paused by this converter are resumed.
+     * Should be invoked on the thread polling the {@code consumer}, after every {@link #convert(ConsumerRecords)}.
+     *
+     * @param consumer the {@link Consumer} fetching the records converted by this converter
+     */
+    void regulateFetching(Consumer<?, ?> consumer) {
+        if (chunkBuffer == null) {
+            return;
+        }
+        Set<TopicPartition> toPause = new HashSet<>();
+        if (chunkBuffer.isFull()) {
+            toPause.addAll(consumer.assignment());
+            chunkBuffer.oldestIncompletePartition().ifPresent(toPause::remove);
+        }
+        Set<TopicPartition> toResume = new HashSet<>(pausedPartitions);
+        toResume.removeAll(toPause);
+        toPause.removeAll(pausedPartitions);
+        if (!toResume.isEmpty()) {
+            logger.debug("Resuming partitions [{}], as the chunk buffer has room again", toResume);
+            consumer.resume(toResume);
+            pausedPartitions.removeAll(toResume);
+        }
+        if (!toPause.isEmpty()) {
+            logger.info("Pausing partitions [{}] until the oldest incomplete chunked record completes, "
+                                + "as the chunk buffer is full", toPause);
+            consumer.pause(toPause);
+            pausedPartitions.addAll(toPause);
+        }
+    }
+
+    private long safePosition(ConsumerRecord<K, V> consumerRecord) {
+        if (chunkBuffer == null) {
+            return consumerRecord.offset();
+        }
+        TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+        return chunkBuffer.safePosition(topicPartition, consumerRecord.offset());
+    }
+
+    private int firstUnhandledSubOffset(ConsumerRecord<K, V> consumerRecord) {
+        if (currentToken.getSubOffsets().isEmpty()) {
+            return 0;
+        }
+        TopicPartition topicPartition = new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+        Long currentOffset = currentToken.getPositions().get(topicPartition);
+        if (currentOffset == null || currentOffset != consumerRecord.offset()
+                || !currentToken.isPartiallyHandled(topicPartition)) {
+            return 0;
+        }
+        return currentToken.getSubOffsets().get(topicPartition) + 1;
+    }
+
     /**
      * Return the current state of the {@link KafkaTrackingToken} this converter updates
      *
@@ -91,7 +91,10 @@ public void onPartitionsAssigned(Collection<TopicPartition> assignedPartitions)
 
             long offset = 0L;
             if (tokenPartitionPositions.containsKey(assignedPartition)) {
-                offset = tokenPartitionPositions.get(assignedPartition) + 1;
+                offset = tokenPartitionPositions.get(assignedPartition);
+                if (!currentToken.isPartiallyHandled(assignedPartition)) {
+                    offset++;
+                }
             }
 
             logger.info("Seeking topic-partition [{}] with offset [{}]", assignedPartition, offset);
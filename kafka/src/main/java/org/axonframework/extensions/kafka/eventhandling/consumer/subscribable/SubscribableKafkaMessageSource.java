@@ -18,14 +18,19 @@
 
 import com.thoughtworks.xstream.XStream;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.header.Headers;
 import org.axonframework.common.AxonConfigurationException;
 import org.axonframework.common.Registration;
 import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.extensions.kafka.eventhandling.BatchingKafkaMessageConverter;
 import org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter;
 import org.axonframework.extensions.kafka.eventhandling.KafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.consumer.ConsumedOffsets;
 import org.axonframework.extensions.kafka.eventhandling.consumer.ConsumerFactory;
 import org.axonframework.extensions.kafka.eventhandling.consumer.DefaultConsumerFactory;
+import org.axonframework.extensions.kafka.eventhandling.consumer.FetchEventException;
 import org.axonframework.extensions.kafka.eventhandling.consumer.Fetcher;
 import org.axonframework.extensions.kafka.eventhandling.consumer.TopicSubscriberBuilder;
 import org.axonframework.extensions.kafka.eventhandling.consumer.RuntimeErrorHandler;
@@ -40,11 +45,11 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -65,6 +70,22 @@
  * <p>
  * If Axon's approach of segregating the event stream and replaying is desired, use the {@link
  * org.axonframework.extensions.kafka.eventhandling.consumer.streamable.StreamableKafkaMessageSource} instead.
+ * <p>
+ * For exactly-once consume-transform-produce pipelines, {@link Builder#exactlyOnce()} binds the {@link
+ * ConsumedOffsets} of every batch to the thread handling it. A transactional {@link
+ * org.axonframework.extensions.kafka.eventhandling.producer.KafkaPublisher} publishing events in response commits
+ * these offsets as part of its transaction. Offsets of batches which did not lead to such a transaction are committed
+ * by the {@link Consumer} once the batch has been handled. Such a source only accepts a single subscribed Event
+ * Processor, which should handle every batch in a single root {@link org.axonframework.messaging.unitofwork.UnitOfWork}
+ * on the thread polling it, as is the case for a {@link org.axonframework.eventhandling.SubscribingEventProcessor}
+ * using the default {@link org.axonframework.eventhandling.DirectEventProcessingStrategy}.
+ * <p>
+ * Records split in to chunks by a {@link org.axonframework.extensions.kafka.eventhandling.ChunkingKafkaMessageConverter}
+ * are not reassembled by this source, nor are records packing several events read if the {@link KafkaMessageConverter}
+ * is not a {@link BatchingKafkaMessageConverter}. Rather than skipping the events of such a record, the {@link
+ * Consumer} reading it is stopped and the failure logged. Use the {@link
+ * org.axonframework.extensions.kafka.eventhandling.consumer.streamable.StreamableKafkaMessageSource} to consume these
+ * records.
  *
  * @param <K> the key of the {@link ConsumerRecords} to consume, fetch and convert
  * @param <V> the value type of {@link ConsumerRecords} to consume, fetch and convert
@@ -81,6 +102,7 @@
     private final KafkaMessageConverter<K, V> messageConverter;
     private final boolean autoStart;
     private final int consumerCount;
+    private final boolean exactlyOnce;
 
     private final Set<java.util.function.Consumer<List<? extends EventMessage<?>>>> eventProcessors = new CopyOnWriteArraySet<>();
     private final Map<Integer, Registration> fetcherRegistrations = new ConcurrentHashMap<>();
@@ -104,6 +126,7 @@ protected SubscribableKafkaMessageSource(Builder<K, V> builder) {
         this.messageConverter = builder.messageConverter;
         this.autoStart = builder.autoStart;
         this.consumerCount = builder.consumerCount;
+        this.exactlyOnce = builder.exactlyOnce;
     }
 
     /**
@@ -127,9 +150,18 @@ public static <K, V> Builder<K, V> builder() {
      * <p>
      * Any subscribed Event Processor will be placed in the same Consumer Group, defined through the (mandatory) {@link
      * Builder#groupId(String)} method.
+     *
+     * @throws AxonConfigurationException if this source consumes {@link Builder#exactlyOnce() exactly-once} and
+     *                                    another Event Processor is already subscribed
      */
     @Override
     public Registration subscribe(java.util.function.Consumer<List<? extends EventMessage<?>>> eventProcessor) {
+        if (exactlyOnce && !eventProcessors.isEmpty() && !eventProcessors.contains(eventProcessor)) {
+            throw new AxonConfigurationException(
+                    "An exactly-once source can only be subscribed to by a single Event Processor, "
+                            + "as the consumed offsets are committed with the transaction of the first one"
+            );
+        }
         if (this.eventProcessors.add(eventProcessor)) {
             logger.debug("Event Processor [{}] subscribed successfully", eventProcessor);
         } else {
@@ -177,21 +209,75 @@ private void addConsumer(int consumerIndex) {
         Consumer<K, V> consumer = consumerFactory.createConsumer(groupId);
         subscriber.subscribeTopics(consumer);
 
-        Registration closeConsumer = fetcher.poll(
-                consumer,
-                consumerRecords -> StreamSupport.stream(consumerRecords.spliterator(), false)
-                                                .map(messageConverter::readKafkaMessage)
-                                                .filter(Optional::isPresent)
-                                                .map(Optional::get)
-                                                .collect(Collectors.toList()),
-                eventMessages -> eventProcessors.forEach(eventProcessor -> eventProcessor.accept(eventMessages)),
-                restartOnError(consumerIndex)
-        );
+        Registration closeConsumer;
+        if (exactlyOnce) {
+            // The Fetcher converts and consumes every batch on the polling thread, in that order
+            AtomicReference<ConsumedOffsets> consumedOffsets = new AtomicReference<>();
+            closeConsumer = fetcher.poll(
+                    consumer,
+                    consumerRecords -> {
+                        consumedOffsets.set(ConsumedOffsets.of(consumerRecords, consumer.groupMetadata()));
+                        return convert(consumerRecords);
+                    },
+                    eventMessages -> handleExactlyOnce(consumer, consumedOffsets.getAndSet(null), eventMessages),
+                    restartOnError(consumerIndex)
+            );
+        } else {
+            closeConsumer = fetcher.poll(consumer, this::convert, this::handle, restartOnError(consumerIndex));
+        }
         fetcherRegistrations.put(consumerIndex, closeConsumer);
     }
 
+    private List<EventMessage<?>> convert(ConsumerRecords<K, V> consumerRecords) {
+        return StreamSupport.stream(consumerRecords.spliterator(), false)
+                            .flatMap(consumerRecord -> {
+                                assertSupported(consumerRecord);
+                                return BatchingKafkaMessageConverter.readAll(messageConverter, consumerRecord)
+                                                                    .stream();
+                            })
+                            .collect(Collectors.toList());
+    }
+
+    /**
+     * Asserts the given {@code consumerRecord} can be read by this source, which neither reassembles chunks nor reads
+     * packed records without a {@link BatchingKafkaMessageConverter}.
+     *
+     * @throws UnsupportedRecordException if the {@code consumerRecord} cannot be read by this source
+     */
+    private void assertSupported(ConsumerRecord<K, V> consumerRecord) {
+        Headers headers = consumerRecord.headers();
+        if (headers.lastHeader(DefaultKafkaMessageConverter.CHUNK_ID) != null) {
+            throw new UnsupportedRecordException(consumerRecord, "it is a chunk of a larger record");
+        }
+        if (headers.lastHeader(DefaultKafkaMessageConverter.BATCH_SIZE) != null
+                && !(messageConverter instanceof BatchingKafkaMessageConverter)) {
+            throw new UnsupportedRecordException(
+                    consumerRecord, "it packs several events and the message converter cannot unpack them"
+            );
+        }
+    }
+
+    private void handle(List<? extends EventMessage<?>> eventMessages) {
+        eventProcessors.forEach(eventProcessor -> eventProcessor.accept(eventMessages));
+    }
+
+    private void handleExactlyOnce(Consumer<K, V> consumer,
+                                   ConsumedOffsets consumedOffsets,
+                                   List<? extends EventMessage<?>> eventMessages) {
+        consumedOffsets.execute(() -> handle(eventMessages));
+        if (!consumedOffsets.isCommitted()) {
+            consumer.commitSync(consumedOffsets.offsets());
+        }
+    }
+
     private RuntimeErrorHandler restartOnError(int consumerIndex) {
         return e -> {
+            if (e.getCause() instanceof UnsupportedRecordException) {
+                // A new consumer would resume at the same record, so stop instead of skipping its events
+                logger.error("Consumer read a record it cannot handle, stopping it", e.getCause());
+                fetcherRegistrations.remove(consumerIndex);
+                return;
+            }
             logger.warn("Consumer had a fatal exception, starting a new one", e);
             addConsumer(consumerIndex);
         };
@@ -209,6 +295,19 @@ public void close() {
         fetcherRegistrations.clear();
         inProgress.set(false);
     }
+
+    /**
+     * Exception signaling a record was read which cannot be handled by a {@link SubscribableKafkaMessageSource}.
+     */
+    private static final class UnsupportedRecordException extends FetchEventException {
+
+        private UnsupportedRecordException(ConsumerRecord<?, ?> consumerRecord, String reason) {
+            super("Cannot handle the record at offset [" + consumerRecord.offset() + "] of partition ["
+                          + consumerRecord.topic() + "-" + consumerRecord.partition() + "], as " + reason
+                          + ". Use a StreamableKafkaMessageSource to consume such records.");
+        }
+    }
+
     /**
      * Builder class to instantiate an {@link SubscribableKafkaMessageSource}.
      * <p>
@@ -228,6 +327,7 @@ public void close() {
         private KafkaMessageConverter<K, V> messageConverter;
         private boolean autoStart = false;
         private int consumerCount = 1;
+        private boolean exactlyOnce = false;
         private Supplier<Serializer> serializer;
 
         /**
@@ -327,6 +427,28 @@ public Builder<K, V> autoStart() {
             return this;
         }
 
+        /**
+         * Toggles on exactly-once consumption, binding the {@link ConsumedOffsets} of every polled batch to the thread
+         * handling it. A transactional {@link org.axonframework.extensions.kafka.eventhandling.producer.KafkaPublisher}
+         * publishing events while the batch is handled commits these offsets within its transaction. Otherwise the
+         * {@link Consumer} commits them once the batch has been handled. By default this behaviour is turned off.
+         * <p>
+         * The {@link Consumer}s should be configured with {@code enable.auto.commit} set to {@code false}, and with
+         * {@code isolation.level} set to {@code read_committed} if the consumed topics are written transactionally.
+         * Errors should be propagated by the Event Processors subscribed to this source, for the batch to be consumed
+         * again after a failed transaction.
+         * <p>
+         * Only a single Event Processor can subscribe to an exactly-once source, handling every batch in a single root
+         * {@link org.axonframework.messaging.unitofwork.UnitOfWork} on the thread polling it.
+         *
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> exactlyOnce() {
+            exactlyOnce = true;
+            return this;
+        }
+
+
         /**
          * Sets the number of {@link Consumer} instances to create when this {@link SubscribableMessageSource} starts
          * consuming events. Default to {@code 1}.
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.converters;
+
+import org.axonframework.extensions.kafka.eventhandling.consumer.streamable.KafkaTrackingToken;
+import org.axonframework.extensions.kafka.eventhandling.consumer.streamable.KafkaTrackingTokenCodec;
+import org.axonframework.serialization.ContentTypeConverter;
+
+/**
+ * A {@link ContentTypeConverter} implementation that converts the compact binary form of a {@link KafkaTrackingToken},
+ * as defined by the {@link KafkaTrackingTokenCodec}, back in to a {@link KafkaTrackingToken}.
+ *
+ * @since 4.9.0
+ */
+public class ByteArrayToKafkaTrackingTokenConverter implements ContentTypeConverter<byte[], KafkaTrackingToken> {
+
+    @Override
+    public Class<byte[]> expectedSourceType() {
+        return byte[].class;
+    }
+
+    @Override
+    public Class<KafkaTrackingToken> targetType() {
+        return KafkaTrackingToken.class;
+    }
+
+    @Override
+    public KafkaTrackingToken convert(byte[] original) {
+        return KafkaTrackingTokenCodec.decode(original);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.converters;
+
+import org.axonframework.serialization.ContentTypeConverter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A {@link ContentTypeConverter} implementation that converts a {@link ByteBuffer} in to a {@code byte[]}. The
+ * remaining bytes of the buffer are converted, without changing the buffer's position.
+ * <p>
+ * If the buffer is backed by an array which it spans entirely, that array is returned as is instead of being copied.
+ * Hence, the resulting {@code byte[]} should be treated as read-only.
+ *
+ * @since 4.9.0
+ */
+public class ByteBufferToByteArrayConverter implements ContentTypeConverter<ByteBuffer, byte[]> {
+
+    @Override
+    public Class<ByteBuffer> expectedSourceType() {
+        return ByteBuffer.class;
+    }
+
+    @Override
+    public Class<byte[]> targetType() {
+        return byte[].class;
+    }
+
+    @Override
+    public byte[] convert(ByteBuffer original) {
+        if (original.hasArray()) {
+            byte[] array = original.array();
+            int offset = original.arrayOffset() + original.position();
+            if (offset == 0 && original.remaining() == array.length) {
+                return array;
+            }
+            return Arrays.copyOfRange(array, offset, offset + original.remaining());
+        }
+        byte[] bytes = new byte[original.remaining()];
+        original.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.axonframework.common.AxonConfigurationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.axonframework.common.BuilderUtils.assertNonNull;
+import static org.axonframework.common.BuilderUtils.assertThat;
+
+/**
+ * A policy moving the non-transactional {@link org.apache.kafka.clients.producer.Producer} of the {@link
+ * DefaultProducerFactory} between a set of batching levels, based on the observed publish rate, batch fill ratio and
+ * latency.
+ * <p>
+ * Every level is a set of {@link ProducerConfig} overrides, typically of {@code linger.ms} and {@code batch.size}.
+ * Levels are ordered from the most latency oriented to the most throughput oriented. Once per {@code
+ * evaluationInterval} the metrics of the current {@link org.apache.kafka.clients.producer.Producer} are evaluated:
+ * <ul>
+ *     <li>if the latency exceeds the {@code latencyTarget}, the policy moves one level down,</li>
+ *     <li>if batches are mostly filled while the latency is below half of the {@code latencyTarget}, the policy moves
+ *     one level up, to allow larger batches,</li>
+ *     <li>if batches are mostly empty, the policy moves one level down, as lingering does not pay off.</li>
+ * </ul>
+ * The latency is approximated by the maximum time records spent in the accumulator plus the maximum request latency,
+ * as Kafka's {@link org.apache.kafka.clients.producer.Producer} metrics do not expose latency percentiles. This makes
+ * it an upper bound of the tail latency within the metrics' sample window.
+ *
+ * @since 4.9.0
+ */
+public class AdaptiveBatchingPolicy {
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+    private static final String RECORD_SEND_RATE = "record-send-rate";
+    private static final String BATCH_SIZE_AVG = "batch-size-avg";
+    private static final String RECORD_QUEUE_TIME_MAX = "record-queue-time-max";
+    private static final String REQUEST_LATENCY_MAX = "request-latency-max";
+    private static final int DEFAULT_BATCH_SIZE = 16384;
+
+    private static final double LOW_FILL_RATIO = 0.25;
+    private static final double HIGH_FILL_RATIO = 0.75;
+
+    private final List<Map<String, Object>> levels;
+    private final double latencyTargetMillis;
+    private final Duration evaluationInterval;
+
+    /**
+     * Instantiate a {@link AdaptiveBatchingPolicy} based on the fields contained in the {@link Builder}.
+     * <p>
+     * Will assert that at least two levels and the {@code latencyTarget} are provided, and will throw an {@link
+     * AxonConfigurationException} otherwise.
+     *
+     * @param builder the {@link Builder} used to instantiate a {@link AdaptiveBatchingPolicy} instance
+     */
+    protected AdaptiveBatchingPolicy(Builder builder) {
+        builder.validate();
+        this.levels = Collections.unmodifiableList(new ArrayList<>(builder.levels));
+        this.latencyTargetMillis = builder.latencyTarget.toNanos() / 1_000_000d;
+        this.evaluationInterval = builder.evaluationInterval;
+    }
+
+    /**
+     * Instantiate a Builder to be able to create a {@link AdaptiveBatchingPolicy}.
+     * <p>
+     * The {@code evaluationInterval} defaults to a {@link Duration#ofSeconds(long)} of {@code 10}. At least two levels
+     * and the {@code latencyTarget} are <b>hard requirements</b> and as such should be provided.
+     *
+     * @return a Builder to be able to create a {@link AdaptiveBatchingPolicy}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The number of batching levels of this policy.
+     *
+     * @return the number of batching levels of this policy
+     */
+    public int levels() {
+        return levels.size();
+    }
+
+    /**
+     * The {@link ProducerConfig} overrides of the given {@code level}.
+     *
+     * @param level the batching level to return the overrides for
+     * @return the {@link ProducerConfig} overrides of the given {@code level}
+     */
+    public Map<String, Object> levelOverrides(int level) {
+        return levels.get(level);
+    }
+
+    /**
+     * The interval in which the metrics of the current {@link org.apache.kafka.clients.producer.Producer} are
+     * evaluated.
+     *
+     * @return the interval in which the metrics of the current {@link org.apache.kafka.clients.producer.Producer} are
+     * evaluated
+     */
+    public Duration evaluationInterval() {
+        return evaluationInterval;
+    }
+
+    /**
+     * Evaluates the given {@code metrics} of the {@link org.apache.kafka.clients.producer.Producer} at the given
+     * {@code level}, configured with the given {@code configuration}, returning the level to continue with. The
+     * metrics of all clients contained in {@code metrics}, like those of several stripes, are aggregated.
+     *
+     * @param level         the current batching level
+     * @param configuration the configuration of the {@link org.apache.kafka.clients.producer.Producer} at the current
+     *                      level
+     * @param metrics       the metrics of the {@link org.apache.kafka.clients.producer.Producer} at the current level
+     * @return the batching level to continue with
+     */
+    int evaluate(int level, Map<String, Object> configuration, Map<MetricName, ? extends Metric> metrics) {
+        Map<String, ClientMetrics> metricsPerClient = new HashMap<>();
+        metrics.forEach((name, metric) -> {
+            if (PRODUCER_METRICS_GROUP.equals(name.group())) {
+                metricsPerClient.computeIfAbsent(String.valueOf(name.tags().get("client-id")),
+                                                 clientId -> new ClientMetrics())
+                                .record(name.name(), metric.metricValue());
+            }
+        });
+        double sendRate = 0;
+        double batchSizeSum = 0;
+        int batchSizeCount = 0;
+        double latencyMillis = 0;
+        for (ClientMetrics clientMetrics : metricsPerClient.values()) {
+            sendRate += clientMetrics.sendRate;
+            if (clientMetrics.batchSize > 0) {
+                batchSizeSum += clientMetrics.batchSize;
+                batchSizeCount++;
+            }
+            latencyMillis = Math.max(latencyMillis, clientMetrics.queueTimeMax + clientMetrics.requestLatencyMax);
+        }
+        if (sendRate <= 0 || batchSizeCount == 0) {
+            return level;
+        }
+        double fillRatio = batchSizeSum / batchSizeCount / batchSize(configuration);
+        return evaluate(level, fillRatio, latencyMillis);
+    }
+
+    /**
+     * Decides on the level to continue with, given the {@code fillRatio} of the batches and the observed {@code
+     * latencyMillis} at the current {@code level}.
+     */
+    int evaluate(int level, double fillRatio, double latencyMillis) {
+        if (latencyMillis > latencyTargetMillis || fillRatio < LOW_FILL_RATIO) {
+            return Math.max(0, level - 1);
+        }
+        if (fillRatio >= HIGH_FILL_RATIO && latencyMillis <= latencyTargetMillis / 2) {
+            return Math.min(levels.size() - 1, level + 1);
+        }
+        return level;
+    }
+
+    private static int batchSize(Map<String, Object> configuration) {
+        Object batchSize = configuration.get(ProducerConfig.BATCH_SIZE_CONFIG);
+        return batchSize == null ? DEFAULT_BATCH_SIZE : Math.max(1, Integer.parseInt(String.valueOf(batchSize)));
+    }
+
+    private static final class ClientMetrics {
+
+        private double sendRate;
+        private double batchSize;
+        private double queueTimeMax;
+        private double requestLatencyMax;
+
+        private void record(String name, Object value) {
+            if (!(value instanceof Number) || !Double.isFinite(((Number) value).doubleValue())) {
+                return;
+            }
+            double doubleValue = ((Number) value).doubleValue();
+            switch (name) {
+                case RECORD_SEND_RATE:
+                    sendRate = doubleValue;
+                    break;
+                case BATCH_SIZE_AVG:
+                    batchSize = doubleValue;
+                    break;
+                case RECORD_QUEUE_TIME_MAX:
+                    queueTimeMax = doubleValue;
+                    break;
+                case REQUEST_LATENCY_MAX:
+                    requestLatencyMax = doubleValue;
+                    break;
+                default:
+                    // Not used for the evaluation
+            }
+        }
+    }
+
+    /**
+     * Builder class to instantiate a {@link AdaptiveBatchingPolicy}.
+     * <p>
+     * The {@code evaluationInterval} defaults to a {@link Duration#ofSeconds(long)} of {@code 10}. At least two levels
+     * and the {@code latencyTarget} are <b>hard requirements</b> and as such should be provided.
+     */
+    public static class Builder {
+
+        private final List<Map<String, Object>> levels = new ArrayList<>();
+        private Duration latencyTarget;
+        private Duration evaluationInterval = Duration.ofSeconds(10);
+
+        /**
+         * Adds a batching level with the given {@link ProducerConfig} overrides, like {@code linger.ms} and {@code
+         * batch.size}. Levels should be added from the most latency oriented to the most throughput oriented. The
+         * first level is used initially.
+         *
+         * @param configurationOverrides the {@link ProducerConfig} overrides of the batching level
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder level(Map<String, Object> configurationOverrides) {
+            assertNonNull(configurationOverrides, "The configurationOverrides may not be null");
+            levels.add(Collections.unmodifiableMap(new HashMap<>(configurationOverrides)));
+            return this;
+        }
+
+        /**
+         * Sets the latency target the policy aims to stay under, while maximizing the batch size.
+         *
+         * @param latencyTarget the latency target the policy aims to stay under
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder latencyTarget(Duration latencyTarget) {
+            assertThat(latencyTarget,
+                       target -> target != null && !target.isNegative() && !target.isZero(),
+                       "The latencyTarget should be a positive duration");
+            this.latencyTarget = latencyTarget;
+            return this;
+        }
+
+        /**
+         * Sets the interval in which the metrics of the current {@link org.apache.kafka.clients.producer.Producer}
+         * are evaluated. Switching between levels only happens when a {@link org.apache.kafka.clients.producer.Producer}
+         * is requested, thus at the start of a publication. Defaults to a {@link Duration#ofSeconds(long)} of {@code
+         * 10}.
+         *
+         * @param evaluationInterval the interval in which the metrics of the current {@link
+         *                           org.apache.kafka.clients.producer.Producer} are evaluated
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder evaluationInterval(Duration evaluationInterval) {
+            assertThat(evaluationInterval,
+                       interval -> interval != null && !interval.isNegative() && !interval.isZero(),
+                       "The evaluationInterval should be a positive duration");
+            this.evaluationInterval = evaluationInterval;
+            return this;
+        }
+
+        /**
+         * Initializes a {@link AdaptiveBatchingPolicy} as specified through this Builder.
+         *
+         * @return a {@link AdaptiveBatchingPolicy} as specified through this Builder
+         */
+        public AdaptiveBatchingPolicy build() {
+            return new AdaptiveBatchingPolicy(this);
+        }
+
+        /**
+         * Validates whether the fields contained in this Builder are set accordingly.
+         *
+         * @throws AxonConfigurationException if one field is asserted to be incorrect according to the Builder's
+         *                                    specifications
+         */
+        protected void validate() throws AxonConfigurationException {
+            assertThat(levels, l -> l.size() >= 2, "At least two batching levels should be provided");
+            assertNonNull(latencyTarget, "The latencyTarget is a hard requirement and should be provided");
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Header;
+import org.axonframework.common.AxonConfigurationException;
+import org.axonframework.messaging.EventPublicationFailedException;
+
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.axonframework.common.BuilderUtils.assertNonNull;
+import static org.axonframework.common.BuilderUtils.assertThat;
+
+/**
+ * Admission control for a {@link KafkaPublisher}, tracking the records and bytes handed to a {@link Producer} that
+ * have not been acknowledged or failed yet.
+ * <p>
+ * Once the in-flight records or bytes reach their threshold, the admission control is saturated, and events published
+ * are handled according to the {@link SaturationPolicy}: rejected, shed or delayed until capacity frees up. As a
+ * {@link Producer} blocks on {@link Producer#send(ProducerRecord)} for up to {@code max.block.ms} once its {@code
+ * buffer.memory} is exhausted, the {@code maxInFlightBytes} should be set below the {@code buffer.memory}. Publishing
+ * threads are then turned away before they pile up in the {@link Producer}.
+ * <p>
+ * The saturation state is exposed through {@link #isSaturated()} and {@link #metrics()}, allowing applications to
+ * report it, or to scale out, before threads are exhausted. An {@link AdmissionControl} instance should be used by a
+ * single {@link KafkaPublisher}.
+ * <p>
+ * Publishers deferring their records to the commit of the unit of work, by packing, parallel serialization or group
+ * commit, only hand those records to the {@link Producer} once the unit of work prepares to commit. The events of a
+ * single unit of work are thus admitted regardless of its own records, which may take the in-flight records and bytes
+ * beyond their thresholds. Admission control can not be combined with a {@link RecordSpool}, as the records relayed
+ * from it are not tracked.
+ *
+ * @since 4.9.0
+ */
+public class AdmissionControl {
+
+    private final long maxInFlightRecords;
+    private final long maxInFlightBytes;
+    private final SaturationPolicy saturationPolicy;
+    private final long maxDelayNanos;
+
+    private final AtomicLong inFlightRecords = new AtomicLong();
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final LongAdder rejectedEvents = new LongAdder();
+    private final LongAdder shedEvents = new LongAdder();
+    private final LongAdder delayedEvents = new LongAdder();
+    private final LongAdder totalDelayNanos = new LongAdder();
+    private final AtomicInteger waitingEvents = new AtomicInteger();
+    private final Object capacityMonitor = new Object();
+
+    /**
+     * Instantiate a {@link AdmissionControl} based on the fields contained in the {@link Builder}.
+     *
+     * @param builder the {@link Builder} used to instantiate a {@link AdmissionControl} instance
+     */
+    protected AdmissionControl(Builder builder) {
+        builder.validate();
+        this.maxInFlightRecords = builder.maxInFlightRecords;
+        this.maxInFlightBytes = builder.maxInFlightBytes;
+        this.saturationPolicy = builder.saturationPolicy;
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+    }
+
+    /**
+     * Instantiate a Builder to be able to create a {@link AdmissionControl}.
+     * <p>
+     * The {@code maxInFlightRecords} and {@code maxInFlightBytes} default to {@link Long#MAX_VALUE}, the {@link
+     * SaturationPolicy} to {@link SaturationPolicy#FAIL_FAST} and the {@code maxDelay} to a {@link
+     * Duration#ofSeconds(long)} of {@code 1}.
+     *
+     * @return a Builder to be able to create a {@link AdmissionControl}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Whether the in-flight records or bytes reached their threshold.
+     *
+     * @return {@code true} if the in-flight records or bytes reached their threshold, {@code false} otherwise
+     */
+    public boolean isSaturated() {
+        return inFlightRecords.get() >= maxInFlightRecords || inFlightBytes.get() >= maxInFlightBytes;
+    }
+
+    /**
+     * Returns a snapshot of the metrics of this admission control.
+     *
+     * @return a snapshot of the metrics of this admission control
+     */
+    public AdmissionMetrics metrics() {
+        return new AdmissionMetrics(inFlightRecords.get(),
+                                    inFlightBytes.get(),
+                                    isSaturated(),
+                                    rejectedEvents.sum(),
+                                    shedEvents.sum(),
+                                    delayedEvents.sum(),
+                                    totalDelayNanos.sum());
+    }
+
+    /**
+     * Decides whether an event may be published, applying the {@link SaturationPolicy} if this admission control is
+     * saturated.
+     *
+     * @return {@code true} if the event may be published, {@code false} if it should be shed
+     * @throws EventPublicationFailedException if the event is rejected
+     */
+    boolean admit() {
+        if (!isSaturated()) {
+            return true;
+        }
+        if (saturationPolicy == SaturationPolicy.SHED) {
+            shedEvents.increment();
+            return false;
+        }
+        if (saturationPolicy == SaturationPolicy.DELAY && awaitCapacity()) {
+            return true;
+        }
+        rejectedEvents.increment();
+        throw new EventPublicationFailedException(
+                "Event publication rejected, the publisher is saturated with " + inFlightRecords.get()
+                        + " records and " + inFlightBytes.get() + " bytes in flight.", null
+        );
+    }
+
+    private boolean awaitCapacity() {
+        delayedEvents.increment();
+        long start = System.nanoTime();
+        waitingEvents.incrementAndGet();
+        try {
+            synchronized (capacityMonitor) {
+                while (isSaturated()) {
+                    long remaining = maxDelayNanos - (System.nanoTime() - start);
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(capacityMonitor, remaining);
+                }
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitingEvents.decrementAndGet();
+            totalDelayNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Sends the given {@code record} through the given {@code producer}, tracking it as in flight until it has been
+     * acknowledged or has failed.
+     *
+     * @param producer the {@link Producer} to send the {@code record} with
+     * @param record   the record to send
+     * @param callback the {@link Callback} to invoke once the {@code record} completes, may be {@code null}
+     * @param <K>      the key type of the {@code record}
+     * @param <V>      the value type of the {@code record}
+     * @return the {@link Future} of the {@link RecordMetadata} of the {@code record}
+     */
+    <K, V> Future<RecordMetadata> send(Producer<K, V> producer, ProducerRecord<K, V> record, Callback callback) {
+        long bytes = estimateSize(record);
+        inFlightRecords.incrementAndGet();
+        inFlightBytes.addAndGet(bytes);
+        AtomicBoolean completed = new AtomicBoolean();
+        try {
+            return producer.send(record, (metadata, exception) -> {
+                release(bytes, completed);
+                if (callback != null) {
+                    callback.onCompletion(metadata, exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            release(bytes, completed);
+            throw e;
+        }
+    }
+
+    private void release(long bytes, AtomicBoolean completed) {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        inFlightRecords.decrementAndGet();
+        inFlightBytes.addAndGet(-bytes);
+        if (waitingEvents.get() > 0) {
+            synchronized (capacityMonitor) {
+                capacityMonitor.notifyAll();
+            }
+        }
+    }
+
+    private static long estimateSize(ProducerRecord<?, ?> record) {
+        long size = sizeOf(record.key()) + sizeOf(record.value());
+        for (Header header : record.headers()) {
+            size += header.key().length() + (header.value() == null ? 0 : header.value().length);
+        }
+        return size;
+    }
+
+    private static long sizeOf(Object data) {
+        if (data instanceof byte[]) {
+            return ((byte[]) data).length;
+        }
+        if (data instanceof CharSequence) {
+            return ((CharSequence) data).length();
+        }
+        return 0;
+    }
+
+    /**
+     * Builder class to instantiate a {@link AdmissionControl}.
+     * <p>
+     * The {@code maxInFlightRecords} and {@code maxInFlightBytes} default to {@link Long#MAX_VALUE}, the {@link
+     * SaturationPolicy} to {@link SaturationPolicy#FAIL_FAST} and the {@code maxDelay} to a {@link
+     * Duration#ofSeconds(long)} of {@code 1}.
+     */
+    public static class Builder {
+
+        private long maxInFlightRecords = Long.MAX_VALUE;
+        private long maxInFlightBytes = Long.MAX_VALUE;
+        private SaturationPolicy saturationPolicy = SaturationPolicy.FAIL_FAST;
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        /**
+         * Sets the number of in-flight records at which the admission control is saturated. Defaults to {@link
+         * Long#MAX_VALUE}.
+         *
+         * @param maxInFlightRecords the number of in-flight records at which the admission control is saturated
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder maxInFlightRecords(long maxInFlightRecords) {
+            assertThat(maxInFlightRecords, max -> max > 0, "The maxInFlightRecords should be a positive number");
+            this.maxInFlightRecords = maxInFlightRecords;
+            return this;
+        }
+
+        /**
+         * Sets the estimated number of in-flight bytes at which the admission control is saturated. Should be set
+         * below the {@code buffer.memory} of the {@link Producer}. Defaults to {@link Long#MAX_VALUE}.
+         *
+         * @param maxInFlightBytes the estimated number of in-flight bytes at which the admission control is saturated
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder maxInFlightBytes(long maxInFlightBytes) {
+            assertThat(maxInFlightBytes, max -> max > 0, "The maxInFlightBytes should be a positive number");
+            this.maxInFlightBytes = maxInFlightBytes;
+            return this;
+        }
+
+        /**
+         * Sets the {@link SaturationPolicy} applied to events published while the admission control is saturated.
+         * Defaults to {@link SaturationPolicy#FAIL_FAST}.
+         *
+         * @param saturationPolicy the {@link SaturationPolicy} applied to events published while saturated
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder saturationPolicy(SaturationPolicy saturationPolicy) {
+            assertNonNull(saturationPolicy, "The SaturationPolicy may not be null");
+            this.saturationPolicy = saturationPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time an event waits for capacity under the {@link SaturationPolicy#DELAY} policy, after
+         * which it is rejected. Defaults to a {@link Duration#ofSeconds(long)} of {@code 1}.
+         *
+         * @param maxDelay the maximum time an event waits for capacity
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            assertThat(maxDelay,
+                       delay -> delay != null && !delay.isNegative(),
+                       "The maxDelay should be a positive duration or zero");
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Initializes a {@link AdmissionControl} as specified through this Builder.
+         *
+         * @return a {@link AdmissionControl} as specified through this Builder
+         */
+        public AdmissionControl build() {
+            return new AdmissionControl(this);
+        }
+
+        /**
+         * Validates whether the fields contained in this Builder are set accordingly.
+         *
+         * @throws AxonConfigurationException if one field is asserted to be incorrect according to the Builder's
+         *                                    specifications
+         */
+        protected void validate() throws AxonConfigurationException {
+            // Kept to be overridden
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the metrics of the {@link AdmissionControl} of a {@link KafkaPublisher}, like the records and bytes
+ * currently in flight and the number of events rejected, shed or delayed because of saturation.
+ *
+ * @since 4.9.0
+ */
+public final class AdmissionMetrics {
+
+    private final long inFlightRecords;
+    private final long inFlightBytes;
+    private final boolean saturated;
+    private final long rejectedEvents;
+    private final long shedEvents;
+    private final long delayedEvents;
+    private final long totalDelayNanos;
+
+    AdmissionMetrics(long inFlightRecords,
+                     long inFlightBytes,
+                     boolean saturated,
+                     long rejectedEvents,
+                     long shedEvents,
+                     long delayedEvents,
+                     long totalDelayNanos) {
+        this.inFlightRecords = inFlightRecords;
+        this.inFlightBytes = inFlightBytes;
+        this.saturated = saturated;
+        this.rejectedEvents = rejectedEvents;
+        this.shedEvents = shedEvents;
+        this.delayedEvents = delayedEvents;
+        this.totalDelayNanos = totalDelayNanos;
+    }
+
+    /**
+     * The number of records handed to a {@link org.apache.kafka.clients.producer.Producer} which have not been
+     * acknowledged or failed yet.
+     *
+     * @return the number of records currently in flight
+     */
+    public long inFlightRecords() {
+        return inFlightRecords;
+    }
+
+    /**
+     * The estimated number of bytes of the records handed to a {@link org.apache.kafka.clients.producer.Producer}
+     * which have not been acknowledged or failed yet.
+     *
+     * @return the estimated number of bytes currently in flight
+     */
+    public long inFlightBytes() {
+        return inFlightBytes;
+    }
+
+    /**
+     * Whether the in-flight records or bytes reached their threshold at the time of this snapshot.
+     *
+     * @return {@code true} if the {@link AdmissionControl} was saturated, {@code false} otherwise
+     */
+    public boolean saturated() {
+        return saturated;
+    }
+
+    /**
+     * The number of events rejected because of saturation, either immediately or after waiting for capacity in vain.
+     *
+     * @return the number of events rejected because of saturation
+     */
+    public long rejectedEvents() {
+        return rejectedEvents;
+    }
+
+    /**
+     * The number of events dropped because of saturation.
+     *
+     * @return the number of events dropped because of saturation
+     */
+    public long shedEvents() {
+        return shedEvents;
+    }
+
+    /**
+     * The number of events which waited for capacity because of saturation.
+     *
+     * @return the number of events which waited for capacity
+     */
+    public long delayedEvents() {
+        return delayedEvents;
+    }
+
+    /**
+     * The average time delayed events waited for capacity.
+     *
+     * @return the average time delayed events waited for capacity
+     */
+    public Duration averageDelay() {
+        return delayedEvents == 0 ? Duration.ZERO : Duration.ofNanos(totalDelayNanos / delayedEvents);
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionMetrics{" +
+                "inFlightRecords=" + inFlightRecords +
+                ", inFlightBytes=" + inFlightBytes +
+                ", saturated=" + saturated +
+                ", rejectedEvents=" + rejectedEvents +
+                ", shedEvents=" + shedEvents +
+                ", delayedEvents=" + delayedEvents +
+                ", averageDelay=" + averageDelay() +
+                '}';
+    }
+}
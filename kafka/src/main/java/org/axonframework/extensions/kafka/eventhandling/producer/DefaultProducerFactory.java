@@ -30,21 +30,34 @@
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.ProducerFencedException;
 import org.axonframework.common.AxonConfigurationException;
+import org.axonframework.lifecycle.Lifecycle;
+import org.axonframework.lifecycle.Phase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.time.temporal.TemporalUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
 
+import static org.axonframework.common.BuilderUtils.assertNonEmpty;
 import static org.axonframework.common.BuilderUtils.assertNonNull;
 import static org.axonframework.common.BuilderUtils.assertThat;
 
@@ -54,26 +67,62 @@
  * The {@link Producer} instance is freed from the external {@link Producer#close()} invocation with the internal
  * wrapper. The real {@link Producer#close()} is called on the target {@link Producer} during the {@link #shutDown()}.
  * <p>
+ * As a single Kafka {@link Producer} has a single sender thread and record accumulator, the shared {@link Producer} can
+ * be striped over several Kafka {@link Producer}s through {@link Builder#producerStripes(int)}. Records are then routed
+ * to a stripe based on the hash of their key, so that records with the same key retain their order.
+ * <p>
+ * Topics with distinct needs, like latency sensitive and bulk topics, can be given their own producer profile through
+ * {@link Builder#topicProfile(String, Map)} and {@link Builder#topicPatternProfile(Pattern, Map)}. The shared {@link
+ * Producer} then routes the records of such topics to a dedicated Kafka {@link Producer}, configured with the profile's
+ * overrides on top of the {@link Builder#configuration(Map)}. Producer profiles are not supported for transactional
+ * producers, as a transaction cannot span several Kafka {@link Producer}s.
+ * <p>
+ * Instead of a static {@code linger.ms} and {@code batch.size}, the non-transactional {@link Producer} can adapt its
+ * batching to the observed publish rate through an {@link AdaptiveBatchingPolicy}, set with {@link
+ * Builder#adaptiveBatching(AdaptiveBatchingPolicy)}. The factory then switches between a {@link Producer} per batching
+ * level when a {@link Producer} is requested, thus at the start of a publication. A switch waits for the records sent
+ * through the previous level to complete, so records retain their order across levels.
+ * <p>
  * Setting {@link Builder#confirmationMode(ConfirmationMode)} to transactional produces a transactional producer; in
  * which case, a cache of producers is maintained; closing the producer returns it to the cache. If cache is full the
- * producer will be closed through {@link KafkaProducer#close(Duration)} and evicted from cache.
+ * producer will be closed through {@link KafkaProducer#close(Duration)} and evicted from cache. Producers which failed
+ * a transactional operation, or which are closed while a transaction is still in progress, are closed instead of
+ * returned to the cache. The cache can be warmed up on {@link #start()} through {@link
+ * Builder#producerPoolWarmUpSize(int)}, and producers idling longer than {@link Builder#producerIdleTimeout(Duration)}
+ * are evicted. The cache's behaviour is exposed through {@link #poolMetrics()}.
  *
  * @author Nakul Mishra
  * @since 4.0
  */
-public class DefaultProducerFactory<K, V> implements ProducerFactory<K, V> {
+public class DefaultProducerFactory<K, V> implements ProducerFactory<K, V>, Lifecycle {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultProducerFactory.class);
 
     private final Duration closeTimeout;
-    private final BlockingQueue<PoolableProducer<K, V>> cache;
+    private final BlockingDeque<PoolableProducer<K, V>> cache;
     private final Map<String, Object> configuration;
     private final ConfirmationMode confirmationMode;
     private final String transactionIdPrefix;
 
-    private final AtomicInteger transactionIdSuffix;
+    private final int producerStripes;
+    private final List<ProducerProfile> producerProfiles;
+    private final AdaptiveBatchingPolicy adaptiveBatchingPolicy;
+    private final int producerPoolWarmUpSize;
+    private final long producerIdleTimeoutNanos;
 
-    private final AtomicReference<ShareableProducer<K, V>> nonTransactionalProducer = new AtomicReference<>();
+    private final TransactionalIdAllocator transactionalIdAllocator;
+
+    private final Object nonTransactionalProducerLock = new Object();
+    private volatile ProducerDecorator<K, V> nonTransactionalProducer;
+    private final Map<Integer, ProducerDecorator<K, V>> batchingLevelProducers = new HashMap<>();
+    private int batchingLevel = 0;
+    private volatile long lastBatchingEvaluation;
+
+    private final LongAdder poolHits = new LongAdder();
+    private final LongAdder poolMisses = new LongAdder();
+    private final LongAdder poolWaitNanos = new LongAdder();
+    private final LongAdder discardedProducers = new LongAdder();
+    private final LongAdder evictedProducers = new LongAdder();
 
     /**
      * Instantiate a {@link DefaultProducerFactory} based on the fields contained in the {@link Builder}.
@@ -87,11 +136,34 @@
     protected DefaultProducerFactory(Builder<K, V> builder) {
         builder.validate();
         this.closeTimeout = builder.closeTimeout;
-        this.cache = new ArrayBlockingQueue<>(builder.producerCacheSize);
+        this.cache = new LinkedBlockingDeque<>(builder.producerCacheSize);
         this.configuration = builder.configuration;
         this.confirmationMode = builder.confirmationMode;
         this.transactionIdPrefix = builder.transactionIdPrefix;
-        this.transactionIdSuffix = new AtomicInteger();
+        this.producerStripes = builder.producerStripes;
+        this.producerProfiles = new ArrayList<>(builder.producerProfiles);
+        this.adaptiveBatchingPolicy = builder.adaptiveBatchingPolicy;
+        this.producerPoolWarmUpSize = builder.producerPoolWarmUpSize;
+        this.producerIdleTimeoutNanos = builder.producerIdleTimeout.toNanos();
+        this.transactionalIdAllocator = builder.transactionalIdAllocator != null
+                ? builder.transactionalIdAllocator
+                : prefixedTransactionalIdAllocator(builder.transactionIdPrefix);
+    }
+
+    private static TransactionalIdAllocator prefixedTransactionalIdAllocator(String transactionIdPrefix) {
+        String prefix = transactionIdPrefix != null ? transactionIdPrefix : "";
+        AtomicInteger transactionIdSuffix = new AtomicInteger();
+        return new TransactionalIdAllocator() {
+            @Override
+            public String allocate() {
+                return prefix + transactionIdSuffix.getAndIncrement();
+            }
+
+            @Override
+            public void release(String transactionalId) {
+                // Ids are never reused, so nodes sharing a prefix only collide by coincidence of their counters
+            }
+        };
     }
 
     /**
@@ -99,7 +171,9 @@ protected DefaultProducerFactory(Builder<K, V> builder) {
      * <p>
      * The {@code closeTimeout} is defaulted to a {@link Duration#ofSeconds(long)} of {@code 30}, the {@code
      * producerCacheSize} defaults to {@code 10} and the {@link ConfirmationMode} is defaulted to {@link
-     * ConfirmationMode#NONE}. The {@code configuration} is a <b>hard requirement</b> and as such should be provided.
+     * ConfirmationMode#NONE}. The {@code producerPoolWarmUpSize} defaults to {@code 0} and the {@code
+     * producerIdleTimeout} to {@link Duration#ZERO}, disabling idle eviction. The {@code configuration} is a <b>hard
+     * requirement</b> and as such should be provided.
      *
      * @param <K> a generic type for the key of the {@link Producer} this {@link ProducerFactory} will create
      * @param <V> a generic type for the value of the {@link Producer} this {@link ProducerFactory} will create
@@ -114,13 +188,96 @@ public Producer<K, V> createProducer() {
         if (confirmationMode.isTransactional()) {
             return createTransactionalProducer();
         }
-        return nonTransactionalProducer.updateAndGet(currentValue -> {
-            if (currentValue != null) {
-                return currentValue;
+        ProducerDecorator<K, V> producer = nonTransactionalProducer;
+        if (producer != null && !batchingEvaluationDue()) {
+            return producer;
+        }
+        synchronized (nonTransactionalProducerLock) {
+            if (nonTransactionalProducer == null) {
+                ProducerDecorator<K, V> levelProducer = batchingLevelProducers.computeIfAbsent(
+                        batchingLevel, this::createNonTransactionalProducer
+                );
+                nonTransactionalProducer = adaptiveBatchingPolicy == null
+                        ? levelProducer
+                        : new AdaptiveBatchingProducer<>(levelProducer);
+                lastBatchingEvaluation = System.nanoTime();
+            } else if (batchingEvaluationDue()) {
+                adaptBatchingLevel();
+            }
+            return nonTransactionalProducer;
+        }
+    }
+
+    private boolean batchingEvaluationDue() {
+        return adaptiveBatchingPolicy != null
+                && System.nanoTime() - lastBatchingEvaluation >= adaptiveBatchingPolicy.evaluationInterval().toNanos();
+    }
+
+    private void adaptBatchingLevel() {
+        lastBatchingEvaluation = System.nanoTime();
+        int level = adaptiveBatchingPolicy.evaluate(
+                batchingLevel, batchingLevelConfiguration(batchingLevel), nonTransactionalProducer.metrics()
+        );
+        if (level != batchingLevel) {
+            logger.info("Switching the non-transactional Producer from batching level [{}] to [{}].",
+                        batchingLevel, level);
+            batchingLevel = level;
+            ((AdaptiveBatchingProducer<K, V>) nonTransactionalProducer).switchTo(
+                    batchingLevelProducers.computeIfAbsent(level, this::createNonTransactionalProducer)
+            );
+        }
+    }
+
+    private Map<String, Object> batchingLevelConfiguration(int level) {
+        if (adaptiveBatchingPolicy == null) {
+            return configuration;
+        }
+        Map<String, Object> configs = new HashMap<>(configuration);
+        Object clientId = configuration.get(ProducerConfig.CLIENT_ID_CONFIG);
+        if (clientId != null) {
+            configs.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-level-" + level);
+        }
+        configs.putAll(adaptiveBatchingPolicy.levelOverrides(level));
+        return configs;
+    }
+
+    private ProducerDecorator<K, V> createNonTransactionalProducer(int batchingLevel) {
+        Map<String, Object> configuration = batchingLevelConfiguration(batchingLevel);
+        ProducerDecorator<K, V> defaultProducer = createNonTransactionalProducer(configuration);
+        if (producerProfiles.isEmpty()) {
+            return defaultProducer;
+        }
+        Object clientId = configuration.get(ProducerConfig.CLIENT_ID_CONFIG);
+        List<ProducerDecorator<K, V>> profileProducers = new ArrayList<>(producerProfiles.size());
+        for (int profile = 0; profile < producerProfiles.size(); profile++) {
+            logger.debug("Creating a non-transactional Producer for producer profile [{}].",
+                         producerProfiles.get(profile));
+            Map<String, Object> configs = new HashMap<>(configuration);
+            if (clientId != null) {
+                configs.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-profile-" + profile);
             }
+            configs.putAll(producerProfiles.get(profile).configurationOverrides);
+            profileProducers.add(createNonTransactionalProducer(configs));
+        }
+        return new ProfileRoutingProducer<>(defaultProducer, producerProfiles, profileProducers);
+    }
+
+    private ProducerDecorator<K, V> createNonTransactionalProducer(Map<String, Object> configuration) {
+        if (producerStripes == 1) {
             logger.debug("Creating a non-transactional Producer.");
             return new ShareableProducer<>(createKafkaProducer(configuration));
-        });
+        }
+        logger.debug("Creating a non-transactional Producer striped over [{}] Producers.", producerStripes);
+        List<Producer<K, V>> stripes = new ArrayList<>(producerStripes);
+        Object clientId = configuration.get(ProducerConfig.CLIENT_ID_CONFIG);
+        for (int stripe = 0; stripe < producerStripes; stripe++) {
+            Map<String, Object> configs = new HashMap<>(configuration);
+            if (clientId != null) {
+                configs.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-" + stripe);
+            }
+            stripes.add(createKafkaProducer(configs));
+        }
+        return new StripedProducer<>(stripes);
     }
 
     @Override
@@ -147,41 +304,185 @@ public String transactionIdPrefix() {
         return transactionIdPrefix;
     }
 
+    /**
+     * Warms up the pool of transactional {@link Producer}s by creating and initializing {@link Producer}s until the
+     * pool contains the configured {@code producerPoolWarmUpSize}. This moves the coordinator round trip of {@link
+     * Producer#initTransactions()} to start up, instead of the first requests for a {@link Producer}. Does nothing
+     * when this factory does not produce transactional {@link Producer}s.
+     */
+    public void start() {
+        if (!confirmationMode.isTransactional()) {
+            return;
+        }
+        int missing = producerPoolWarmUpSize - cache.size();
+        if (missing > 0) {
+            logger.debug("Warming up the Producer pool with [{}] transactional Producers.", missing);
+        }
+        for (int i = 0; i < missing; i++) {
+            PoolableProducer<K, V> producer = createPoolableProducer();
+            producer.markReleased();
+            if (!cache.offerLast(producer)) {
+                closeQuietly(producer);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Registers a start handler warming up the pool of transactional {@link Producer}s. Starts early in order to have
+     * the {@link Producer}s initialized before any events are published.
+     *
+     * @param lifecycle the lifecycle instance to register the handlers with
+     */
+    @Override
+    public void registerLifecycleHandlers(@Nonnull LifecycleRegistry lifecycle) {
+        lifecycle.onStart(Phase.EXTERNAL_CONNECTIONS, this::start);
+    }
+
+    /**
+     * The batching level the non-transactional {@link Producer} currently uses, being the index of a level of the
+     * {@link AdaptiveBatchingPolicy}. Always {@code 0} without an {@link AdaptiveBatchingPolicy}.
+     *
+     * @return the batching level the non-transactional {@link Producer} currently uses
+     */
+    public int batchingLevel() {
+        synchronized (nonTransactionalProducerLock) {
+            return batchingLevel;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the metrics of the pool of transactional {@link Producer}s, like its hit rate, the average
+     * time spent waiting for a {@link Producer} and its current size.
+     *
+     * @return a snapshot of the metrics of the pool of transactional {@link Producer}s
+     */
+    public ProducerPoolMetrics poolMetrics() {
+        return new ProducerPoolMetrics(poolHits.sum(),
+                                       poolMisses.sum(),
+                                       poolWaitNanos.sum(),
+                                       cache.size(),
+                                       discardedProducers.sum(),
+                                       evictedProducers.sum());
+    }
+
     @Override
     public void shutDown() {
         logger.debug("Shutting down this Producer factory.");
 
-        ProducerDecorator<K, V> producer = nonTransactionalProducer.getAndSet(null);
-        if (producer != null) {
-            producer.delegate.close(this.closeTimeout);
+        List<ProducerDecorator<K, V>> producers;
+        synchronized (nonTransactionalProducerLock) {
+            producers = new ArrayList<>(batchingLevelProducers.values());
+            batchingLevelProducers.clear();
+            nonTransactionalProducer = null;
+        }
+        for (ProducerDecorator<K, V> nonTransactional : producers) {
+            nonTransactional.closeDelegate(this.closeTimeout);
         }
-        producer = this.cache.poll();
+        PoolableProducer<K, V> producer = this.cache.poll();
         while (producer != null) {
-            try {
-                producer.delegate.close(this.closeTimeout);
-            } catch (Exception e) {
-                logger.error("Exception closing producer", e);
-            }
+            closeQuietly(producer);
             producer = this.cache.poll();
         }
     }
 
     private Producer<K, V> createTransactionalProducer() {
-        Producer<K, V> producer = this.cache.poll();
-        if (producer != null) {
-            return producer;
+        long start = System.nanoTime();
+        try {
+            Producer<K, V> producer = this.cache.pollFirst();
+            evictIdleProducers();
+            if (producer != null) {
+                poolHits.increment();
+                return producer;
+            }
+            poolMisses.increment();
+            return createPoolableProducer();
+        } finally {
+            poolWaitNanos.add(System.nanoTime() - start);
         }
-        logger.debug("Creating a transactional Producer.");
+    }
 
+    private PoolableProducer<K, V> createPoolableProducer() {
+        String transactionalId = transactionalIdAllocator.allocate();
+        logger.debug("Creating a transactional Producer with transactional id [{}].", transactionalId);
         Map<String, Object> configs = new HashMap<>(this.configuration);
-        configs.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG,
-                    this.transactionIdPrefix + this.transactionIdSuffix.getAndIncrement());
-        producer = new PoolableProducer<>(createKafkaProducer(configs), cache, closeTimeout);
-        producer.initTransactions();
+        configs.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
+        Producer<K, V> kafkaProducer;
+        try {
+            kafkaProducer = createKafkaProducer(configs);
+        } catch (RuntimeException e) {
+            transactionalIdAllocator.release(transactionalId);
+            throw e;
+        }
+        PoolableProducer<K, V> producer = new PoolableProducer<>(
+                kafkaProducer, this::release, () -> transactionalIdAllocator.release(transactionalId), closeTimeout
+        );
+        try {
+            producer.initTransactions();
+        } catch (RuntimeException e) {
+            closeQuietly(producer);
+            throw e;
+        }
         return producer;
     }
 
-    private Producer<K, V> createKafkaProducer(Map<String, Object> configs) {
+    /**
+     * Returns the given {@code producer} to the pool, unless it is unhealthy or the pool is full. Most recently
+     * released {@link Producer}s are handed out first, such that the {@link Producer}s at the tail of the pool are the
+     * ones idling the longest.
+     */
+    private void release(PoolableProducer<K, V> producer, Duration timeout) {
+        if (!producer.isHealthy()) {
+            logger.info("Discarding transactional Producer [{}] as it failed a transactional operation "
+                                + "or was closed during a transaction.", producer);
+            discardedProducers.increment();
+            closeQuietly(producer, timeout);
+            return;
+        }
+        producer.markReleased();
+        if (!this.cache.offerFirst(producer)) {
+            closeQuietly(producer, timeout);
+        }
+        evictIdleProducers();
+    }
+
+    private void evictIdleProducers() {
+        if (producerIdleTimeoutNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        while (this.cache.size() > producerPoolWarmUpSize) {
+            PoolableProducer<K, V> eldest = this.cache.peekLast();
+            if (eldest == null || now - eldest.releasedAt() < producerIdleTimeoutNanos) {
+                return;
+            }
+            if (this.cache.removeLastOccurrence(eldest)) {
+                logger.debug("Evicting transactional Producer [{}] as it has been idle for too long.", eldest);
+                evictedProducers.increment();
+                closeQuietly(eldest);
+            }
+        }
+    }
+
+    private void closeQuietly(ProducerDecorator<K, V> producer) {
+        closeQuietly(producer, this.closeTimeout);
+    }
+
+    private void closeQuietly(ProducerDecorator<K, V> producer, Duration timeout) {
+        try {
+            producer.closeDelegate(timeout);
+        } catch (Exception e) {
+            logger.error("Exception closing producer", e);
+        }
+    }
+
+    /**
+     * Creates the Kafka {@link Producer} for the given {@code configs}. Defaults to a {@link KafkaProducer}.
+     *
+     * @param configs the configuration to create the Kafka {@link Producer} with
+     * @return a Kafka {@link Producer} for the given {@code configs}
+     */
+    protected Producer<K, V> createKafkaProducer(Map<String, Object> configs) {
         return new KafkaProducer<>(configs);
     }
 
@@ -201,6 +502,15 @@ private Producer<K, V> createKafkaProducer(Map<String, Object> configs) {
             this.delegate = delegate;
         }
 
+        /**
+         * Closes the Kafka {@link Producer}(s) decorated by this instance.
+         *
+         * @param timeout the maximum time to wait for the {@link Producer}(s) to complete pending requests
+         */
+        void closeDelegate(Duration timeout) {
+            this.delegate.close(timeout);
+        }
+
         @Override
         public Future<RecordMetadata> send(ProducerRecord<K, V> producerRecord) {
             return this.delegate.send(producerRecord);
@@ -284,23 +594,105 @@ public String toString() {
      * A decorator for a Kafka {@link Producer} that returns itself to an instance pool when {@link #close()} is called
      * instead of actually closing the wrapped {@link Producer}. If the pool is already full (i.e. has the configured
      * amount of idle producers), the wrapped producer is closed instead.
+     * <p>
+     * Any failure of a transactional operation marks the producer as unhealthy, as Kafka does not allow a producer to
+     * recover from fatal errors like fencing. Unhealthy producers, as well as producers closed while a transaction is
+     * in progress, are closed by the pool instead of recycled. Once the wrapped producer is closed, its {@code
+     * transactional.id} is released for reuse.
      *
      * @param <K> record key type
      * @param <V> record value type
      */
     private static final class PoolableProducer<K, V> extends ProducerDecorator<K, V> {
 
-        private final BlockingQueue<PoolableProducer<K, V>> pool;
+        private final BiConsumer<PoolableProducer<K, V>, Duration> releaser;
+        private final Runnable transactionalIdReleaser;
         private final Duration closeTimeout;
+        private volatile boolean failed;
+        private volatile boolean inTransaction;
+        private volatile long releasedAt;
 
         PoolableProducer(Producer<K, V> delegate,
-                         BlockingQueue<PoolableProducer<K, V>> pool,
+                         BiConsumer<PoolableProducer<K, V>, Duration> releaser,
+                         Runnable transactionalIdReleaser,
                          Duration closeTimeout) {
             super(delegate);
-            this.pool = pool;
+            this.releaser = releaser;
+            this.transactionalIdReleaser = transactionalIdReleaser;
             this.closeTimeout = closeTimeout;
         }
 
+        @Override
+        void closeDelegate(Duration timeout) {
+            try {
+                super.closeDelegate(timeout);
+            } finally {
+                transactionalIdReleaser.run();
+            }
+        }
+
+        boolean isHealthy() {
+            return !failed && !inTransaction;
+        }
+
+        void markReleased() {
+            this.releasedAt = System.nanoTime();
+        }
+
+        long releasedAt() {
+            return releasedAt;
+        }
+
+        private void guard(Runnable transactionalOperation) {
+            try {
+                transactionalOperation.run();
+            } catch (RuntimeException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void initTransactions() {
+            guard(super::initTransactions);
+        }
+
+        @Override
+        public void beginTransaction() throws ProducerFencedException {
+            guard(super::beginTransaction);
+            inTransaction = true;
+        }
+
+        /**
+         * @deprecated deprecated from implemented ProducerFactory interface
+         */
+        @Override
+        @Deprecated
+        @SuppressWarnings("squid:S1133") // can only be removed once removed from the ProducerFactory interface
+        public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId)
+                throws ProducerFencedException {
+            guard(() -> super.sendOffsetsToTransaction(offsets, consumerGroupId));
+        }
+
+        @Override
+        public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                             ConsumerGroupMetadata consumerGroupMetadata)
+                throws ProducerFencedException {
+            guard(() -> super.sendOffsetsToTransaction(offsets, consumerGroupMetadata));
+        }
+
+        @Override
+        public void commitTransaction() throws ProducerFencedException {
+            guard(super::commitTransaction);
+            inTransaction = false;
+        }
+
+        @Override
+        public void abortTransaction() throws ProducerFencedException {
+            guard(super::abortTransaction);
+            inTransaction = false;
+        }
+
         @Override
         public void close() {
             close(closeTimeout);
@@ -308,10 +700,7 @@ public void close() {
 
         @Override
         public void close(Duration timeout) {
-            boolean isAdded = this.pool.offer(this);
-            if (!isAdded) {
-                super.close(timeout);
-            }
+            releaser.accept(this, timeout);
         }
     }
 
@@ -339,6 +728,279 @@ public void close(Duration timeout) {
         }
     }
 
+    /**
+     * A shareable {@link Producer} sending records through the {@link Producer} of the current batching level.
+     * Switching to another level blocks sending until all records sent through the previous level have been completed,
+     * such that records sent after the switch can not overtake records sent before it. As all clients share this
+     * instance, this also holds for clients which obtained it before the switch.
+     *
+     * @param <K> record key type
+     * @param <V> record value type
+     */
+    private static final class AdaptiveBatchingProducer<K, V> extends ProducerDecorator<K, V> {
+
+        private final ReadWriteLock switchLock = new ReentrantReadWriteLock();
+        private volatile ProducerDecorator<K, V> levelProducer;
+
+        AdaptiveBatchingProducer(ProducerDecorator<K, V> levelProducer) {
+            super(levelProducer);
+            this.levelProducer = levelProducer;
+        }
+
+        /**
+         * Flushes the {@link Producer} of the current level and switches to the given {@code levelProducer}.
+         *
+         * @param levelProducer the {@link Producer} of the batching level to switch to
+         */
+        void switchTo(ProducerDecorator<K, V> levelProducer) {
+            switchLock.writeLock().lock();
+            try {
+                this.levelProducer.flush();
+                this.levelProducer = levelProducer;
+            } finally {
+                switchLock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<K, V> producerRecord) {
+            switchLock.readLock().lock();
+            try {
+                return levelProducer.send(producerRecord);
+            } finally {
+                switchLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<K, V> producerRecord, Callback callback) {
+            switchLock.readLock().lock();
+            try {
+                return levelProducer.send(producerRecord, callback);
+            } finally {
+                switchLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void flush() {
+            levelProducer.flush();
+        }
+
+        @Override
+        public List<PartitionInfo> partitionsFor(String topic) {
+            return levelProducer.partitionsFor(topic);
+        }
+
+        @Override
+        public Map<MetricName, ? extends Metric> metrics() {
+            return levelProducer.metrics();
+        }
+
+        @Override
+        public void close() {
+            // Do nothing, the Producers of the batching levels are closed by the factory
+        }
+
+        @Override
+        public void close(Duration timeout) {
+            // Do nothing, the Producers of the batching levels are closed by the factory
+        }
+    }
+
+    /**
+     * A shareable {@link Producer} striped over several Kafka {@link Producer}s, each with their own sender thread and
+     * record accumulator. Records are routed to a stripe based on the hash of their key. Records without a key are
+     * routed based on the sending thread, so that the records of a thread retain their order. All other operations are
+     * handled by the first stripe, except for {@link #flush()} and {@link #metrics()}, which cover all stripes.
+     *
+     * @param <K> record key type
+     * @param <V> record value type
+     */
+    private static final class StripedProducer<K, V> extends ProducerDecorator<K, V> {
+
+        private final Producer<K, V>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        StripedProducer(List<Producer<K, V>> stripes) {
+            super(stripes.get(0));
+            this.stripes = stripes.toArray(new Producer[0]);
+        }
+
+        private Producer<K, V> stripeFor(ProducerRecord<K, V> producerRecord) {
+            K key = producerRecord.key();
+            int hash;
+            if (key == null) {
+                hash = Long.hashCode(Thread.currentThread().getId());
+            } else if (key instanceof byte[]) {
+                hash = Arrays.hashCode((byte[]) key);
+            } else {
+                hash = key.hashCode();
+            }
+            return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<K, V> producerRecord) {
+            return stripeFor(producerRecord).send(producerRecord);
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<K, V> producerRecord, Callback callback) {
+            return stripeFor(producerRecord).send(producerRecord, callback);
+        }
+
+        @Override
+        public void flush() {
+            for (Producer<K, V> stripe : stripes) {
+                stripe.flush();
+            }
+        }
+
+        @Override
+        public Map<MetricName, ? extends Metric> metrics() {
+            Map<MetricName, Metric> metrics = new HashMap<>();
+            for (Producer<K, V> stripe : stripes) {
+                metrics.putAll(stripe.metrics());
+            }
+            return Collections.unmodifiableMap(metrics);
+        }
+
+        @Override
+        void closeDelegate(Duration timeout) {
+            for (Producer<K, V> stripe : stripes) {
+                try {
+                    stripe.close(timeout);
+                } catch (Exception e) {
+                    logger.error("Exception closing producer", e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            // Do nothing
+        }
+
+        @Override
+        public void close(Duration timeout) {
+            // Do nothing
+        }
+    }
+
+    /**
+     * A producer profile, being the configuration overrides for the Kafka {@link Producer} of the topics matching it.
+     */
+    private static final class ProducerProfile {
+
+        private final String description;
+        private final Predicate<String> topicMatcher;
+        private final Map<String, Object> configurationOverrides;
+
+        private ProducerProfile(String description,
+                                Predicate<String> topicMatcher,
+                                Map<String, Object> configurationOverrides) {
+            this.description = description;
+            this.topicMatcher = topicMatcher;
+            this.configurationOverrides = Collections.unmodifiableMap(new HashMap<>(configurationOverrides));
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * A shareable {@link Producer} routing records to the Kafka {@link Producer} of the first producer profile matching
+     * their topic, or to the default {@link Producer} if none matches. The profile of a topic is resolved once, after
+     * which routing the records of that topic is a single map lookup. {@link #flush()} and {@link #metrics()} cover
+     * the {@link Producer}s of all profiles.
+     *
+     * @param <K> record key type
+     * @param <V> record value type
+     */
+    private static final class ProfileRoutingProducer<K, V> extends ProducerDecorator<K, V> {
+
+        private final ProducerDecorator<K, V> defaultProducer;
+        private final List<ProducerProfile> profiles;
+        private final List<ProducerDecorator<K, V>> profileProducers;
+        private final ConcurrentMap<String, ProducerDecorator<K, V>> producersPerTopic = new ConcurrentHashMap<>();
+
+        ProfileRoutingProducer(ProducerDecorator<K, V> defaultProducer,
+                               List<ProducerProfile> profiles,
+                               List<ProducerDecorator<K, V>> profileProducers) {
+            super(defaultProducer);
+            this.defaultProducer = defaultProducer;
+            this.profiles = profiles;
+            this.profileProducers = profileProducers;
+        }
+
+        private ProducerDecorator<K, V> producerFor(String topic) {
+            ProducerDecorator<K, V> producer = producersPerTopic.get(topic);
+            return producer != null ? producer : producersPerTopic.computeIfAbsent(topic, this::resolveProducer);
+        }
+
+        private ProducerDecorator<K, V> resolveProducer(String topic) {
+            for (int profile = 0; profile < profiles.size(); profile++) {
+                if (profiles.get(profile).topicMatcher.test(topic)) {
+                    return profileProducers.get(profile);
+                }
+            }
+            return defaultProducer;
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<K, V> producerRecord) {
+            return producerFor(producerRecord.topic()).send(producerRecord);
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<K, V> producerRecord, Callback callback) {
+            return producerFor(producerRecord.topic()).send(producerRecord, callback);
+        }
+
+        @Override
+        public List<PartitionInfo> partitionsFor(String topic) {
+            return producerFor(topic).partitionsFor(topic);
+        }
+
+        @Override
+        public void flush() {
+            defaultProducer.flush();
+            profileProducers.forEach(ProducerDecorator::flush);
+        }
+
+        @Override
+        public Map<MetricName, ? extends Metric> metrics() {
+            Map<MetricName, Metric> metrics = new HashMap<>(defaultProducer.metrics());
+            profileProducers.forEach(producer -> metrics.putAll(producer.metrics()));
+            return Collections.unmodifiableMap(metrics);
+        }
+
+        @Override
+        void closeDelegate(Duration timeout) {
+            defaultProducer.closeDelegate(timeout);
+            for (ProducerDecorator<K, V> producer : profileProducers) {
+                try {
+                    producer.closeDelegate(timeout);
+                } catch (Exception e) {
+                    logger.error("Exception closing producer", e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            // Do nothing
+        }
+
+        @Override
+        public void close(Duration timeout) {
+            // Do nothing
+        }
+    }
+
     /**
      * Builder class to instantiate a {@link DefaultProducerFactory}.
      * <p>
@@ -356,6 +1018,12 @@ public void close(Duration timeout) {
         private Map<String, Object> configuration;
         private ConfirmationMode confirmationMode = ConfirmationMode.NONE;
         private String transactionIdPrefix;
+        private TransactionalIdAllocator transactionalIdAllocator;
+        private int producerStripes = 1;
+        private final List<ProducerProfile> producerProfiles = new ArrayList<>();
+        private AdaptiveBatchingPolicy adaptiveBatchingPolicy;
+        private int producerPoolWarmUpSize = 0;
+        private Duration producerIdleTimeout = Duration.ZERO;
 
         /**
          * Set the {@code closeTimeout} specifying how long to wait when {@link Producer#close(Duration)} is invoked.
@@ -393,7 +1061,7 @@ public Builder<K, V> closeTimeout(Duration closeTimeout) {
         /**
          * Sets the number of {@link Producer} instances to cache. Defaults to {@code 10}.
          * <p>
-         * Will instantiate an {@link ArrayBlockingQueue} based on this number.
+         * Bounds the {@link LinkedBlockingDeque} holding idle producers to this number.
          *
          * @param producerCacheSize an {@code int} specifying the number of {@link Producer} instances to cache
          * @return the current Builder instance, for fluent interfacing
@@ -431,7 +1099,10 @@ public Builder<K, V> confirmationMode(ConfirmationMode confirmationMode) {
         }
 
         /**
-         * Sets the prefix to generate the {@code transactional.id} required for transactional {@link Producer}s.
+         * Sets the prefix to generate the {@code transactional.id} required for transactional {@link Producer}s. The
+         * prefix is followed by an ever increasing counter of this factory. Use {@link
+         * #transactionalIdAllocator(TransactionalIdAllocator)} with a {@link NodeTransactionalIdAllocator} instead for
+         * {@code transactional.id}s which are stable across restarts and distinct between nodes sharing the prefix.
          *
          * @param transactionIdPrefix a {@link String} specifying the prefix used to generate the {@code
          *                            transactional.id} required for transactional {@link Producer}s
@@ -443,6 +1114,126 @@ public Builder<K, V> transactionalIdPrefix(String transactionIdPrefix) {
             return this.confirmationMode(ConfirmationMode.TRANSACTIONAL);
         }
 
+        /**
+         * Sets the {@link TransactionalIdAllocator} generating the {@code transactional.id} required for transactional
+         * {@link Producer}s. Takes precedence over the {@code transactionalIdPrefix}, which otherwise is followed by an
+         * ever increasing counter. Configure a {@link NodeTransactionalIdAllocator} with a node identity when several
+         * nodes share the same prefix, to prevent them from fencing each other's {@link Producer}s.
+         *
+         * @param transactionalIdAllocator the {@link TransactionalIdAllocator} generating the {@code transactional.id}
+         *                                 required for transactional {@link Producer}s
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> transactionalIdAllocator(TransactionalIdAllocator transactionalIdAllocator) {
+            assertNonNull(transactionalIdAllocator, "The TransactionalIdAllocator may not be null");
+            this.transactionalIdAllocator = transactionalIdAllocator;
+            return this.confirmationMode(ConfirmationMode.TRANSACTIONAL);
+        }
+
+        /**
+         * Sets the number of Kafka {@link Producer}s the shared non-transactional {@link Producer} is striped over.
+         * Records are routed to a stripe based on the hash of their key, retaining the order of records with the same
+         * key. Each stripe has its own sender thread and record accumulator, allowing higher throughput on hosts with
+         * many cores. If the configuration contains a {@code client.id}, the stripe number is appended to it for every
+         * stripe. Defaults to {@code 1}. Does not apply to transactional {@link Producer}s.
+         *
+         * @param producerStripes the number of Kafka {@link Producer}s to stripe the non-transactional {@link
+         *                        Producer} over
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> producerStripes(int producerStripes) {
+            assertThat(producerStripes, stripes -> stripes > 0, "The producerStripes should be a positive number");
+            this.producerStripes = producerStripes;
+            return this;
+        }
+
+        /**
+         * Adds a producer profile for the given {@code topic}. Records for this {@code topic} are sent through a
+         * dedicated Kafka {@link Producer}, configured with the given {@code configurationOverrides} on top of the
+         * {@code configuration}. Use this to tune topics with distinct needs separately, like {@code linger.ms},
+         * {@code acks}, {@code compression.type} and {@code batch.size}. Profiles are matched in the order they were
+         * added. Not supported for transactional {@link Producer}s.
+         *
+         * @param topic                  the topic to use the producer profile for
+         * @param configurationOverrides the Kafka properties overriding the {@code configuration} for the {@code
+         *                               topic}
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> topicProfile(String topic, Map<String, Object> configurationOverrides) {
+            assertNonEmpty(topic, "The topic may not be null or empty");
+            assertNonNull(configurationOverrides, "The configurationOverrides may not be null");
+            producerProfiles.add(new ProducerProfile("topic [" + topic + "]", topic::equals, configurationOverrides));
+            return this;
+        }
+
+        /**
+         * Adds a producer profile for all topics matching the given {@code topicPattern}. Records for such topics are
+         * sent through a dedicated Kafka {@link Producer}, configured with the given {@code configurationOverrides}
+         * on top of the {@code configuration}. Profiles are matched in the order they were added. Not supported for
+         * transactional {@link Producer}s.
+         *
+         * @param topicPattern           the {@link Pattern} matching the topics to use the producer profile for
+         * @param configurationOverrides the Kafka properties overriding the {@code configuration} for the matching
+         *                               topics
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> topicPatternProfile(Pattern topicPattern, Map<String, Object> configurationOverrides) {
+            assertNonNull(topicPattern, "The topicPattern may not be null");
+            assertNonNull(configurationOverrides, "The configurationOverrides may not be null");
+            producerProfiles.add(new ProducerProfile("topic pattern [" + topicPattern + "]",
+                                                     topic -> topicPattern.matcher(topic).matches(),
+                                                     configurationOverrides));
+            return this;
+        }
+
+        /**
+         * Sets the {@link AdaptiveBatchingPolicy} moving the non-transactional {@link Producer} between batching
+         * levels, based on its observed publish rate, batch fill ratio and latency. Each level's overrides are applied
+         * on top of the {@code configuration}. Not supported for transactional {@link Producer}s.
+         *
+         * @param adaptiveBatchingPolicy the {@link AdaptiveBatchingPolicy} for the non-transactional {@link Producer}
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> adaptiveBatching(AdaptiveBatchingPolicy adaptiveBatchingPolicy) {
+            assertNonNull(adaptiveBatchingPolicy, "The AdaptiveBatchingPolicy may not be null");
+            this.adaptiveBatchingPolicy = adaptiveBatchingPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the number of transactional {@link Producer}s created and initialized on {@link
+         * DefaultProducerFactory#start()}, moving the {@link Producer#initTransactions()} round trip to start up. Idle
+         * eviction never shrinks the pool below this size. May not exceed the {@code producerCacheSize}. Defaults to
+         * {@code 0}.
+         *
+         * @param producerPoolWarmUpSize the number of transactional {@link Producer}s to create on start up
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> producerPoolWarmUpSize(int producerPoolWarmUpSize) {
+            assertThat(producerPoolWarmUpSize,
+                       size -> size >= 0,
+                       "The producerPoolWarmUpSize should be zero or a positive number");
+            this.producerPoolWarmUpSize = producerPoolWarmUpSize;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Duration} a transactional {@link Producer} may idle in the pool before it is closed. Idle
+         * {@link Producer}s are evicted whenever a {@link Producer} is taken from or returned to the pool. A {@link
+         * Duration#ZERO} disables idle eviction. Defaults to {@link Duration#ZERO}.
+         *
+         * @param producerIdleTimeout the {@link Duration} a transactional {@link Producer} may idle in the pool
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> producerIdleTimeout(Duration producerIdleTimeout) {
+            assertNonNull(producerIdleTimeout, "The producerIdleTimeout may not be null");
+            assertThat(producerIdleTimeout,
+                       timeout -> !timeout.isNegative(),
+                       "The producerIdleTimeout should be a positive duration");
+            this.producerIdleTimeout = producerIdleTimeout;
+            return this;
+        }
+
         /**
          * Initializes a {@link DefaultProducerFactory} as specified through this Builder.
          *
@@ -461,6 +1252,20 @@ public DefaultProducerFactory<K, V> build() {
         @SuppressWarnings({"WeakerAccess", "ProtectedMemberInFinalClass"})
         protected void validate() throws AxonConfigurationException {
             assertNonNull(configuration, "The configuration is a hard requirement and should be provided");
+            assertThat(producerPoolWarmUpSize,
+                       size -> size <= producerCacheSize,
+                       "The producerPoolWarmUpSize may not exceed the producerCacheSize");
+            if (confirmationMode.isTransactional() && !producerProfiles.isEmpty()) {
+                throw new AxonConfigurationException(
+                        "Producer profiles are not supported for transactional producers, "
+                                + "as a transaction cannot span several producers"
+                );
+            }
+            if (confirmationMode.isTransactional() && adaptiveBatchingPolicy != null) {
+                throw new AxonConfigurationException(
+                        "Adaptive batching is not supported for transactional producers"
+                );
+            }
         }
     }
 }
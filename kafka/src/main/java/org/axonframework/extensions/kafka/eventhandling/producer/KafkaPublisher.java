@@ -17,13 +17,19 @@
 package org.axonframework.extensions.kafka.eventhandling.producer;
 
 import com.thoughtworks.xstream.XStream;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.axonframework.common.AxonConfigurationException;
 import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.extensions.kafka.eventhandling.BatchingKafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.ChunkingKafkaMessageConverter;
 import org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter;
 import org.axonframework.extensions.kafka.eventhandling.KafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.consumer.ConsumedOffsets;
 import org.axonframework.lifecycle.Lifecycle;
 import org.axonframework.lifecycle.Phase;
 import org.axonframework.messaging.EventPublicationFailedException;
@@ -38,12 +44,25 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 
@@ -57,6 +76,50 @@
  * This terminal does not dispatch Events internally, as it relies on each event processor to listen to it's own Kafka
  * Topic.
  * </p>
+ * <p>
+ * When {@link Builder#maxEventsPerRecord(int)} is set to a value larger than {@code 1}, the events of a {@link
+ * UnitOfWork} are gathered until it prepares to commit. Events for the same topic and record key are then packed in to
+ * a single Kafka record through a {@link BatchingKafkaMessageConverter}.
+ * </p>
+ * <p>
+ * If the {@link KafkaMessageConverter} is a {@link ChunkingKafkaMessageConverter}, records too large for the broker are
+ * split in to chunk records which are published on the same partition. A publication is only regarded successful once
+ * all of its chunks are.
+ * </p>
+ * <p>
+ * Through {@link Builder#multiTopicResolver(MultiTopicResolver)} an event can be published to several topics. The
+ * event is serialized once, after which the records of all topics share the serialized key, value and headers. The
+ * event is regarded successfully published once all of its records are.
+ * </p>
+ * <p>
+ * In {@link ConfirmationMode#TRANSACTIONAL} mode, any {@link ConsumedOffsets} bound to the publishing thread are
+ * committed as part of the Kafka transaction. Combined with a {@link
+ * org.axonframework.extensions.kafka.eventhandling.consumer.subscribable.SubscribableKafkaMessageSource} consuming
+ * exactly-once, this makes a consume-transform-produce pipeline exactly-once, as the events published in response
+ * to a consumed batch are published in the single transaction of the root {@link UnitOfWork} handling the batch.
+ * Events published in a nested {@link UnitOfWork}, for example by a command handler invoked from an event handler,
+ * are deferred to the root {@link UnitOfWork} once the nested one commits, and are discarded if it rolls back.
+ * </p>
+ * <p>
+ * When a {@link Builder#serializationExecutor(ExecutorService) serialization executor} is configured, the events of a
+ * {@link UnitOfWork} are gathered until it prepares to commit. They are then converted in to records in parallel,
+ * after which the records are handed to the {@link Producer} in the order the events were published in. This
+ * retains the order of the records per key, while reducing the commit latency of Units of Work publishing many
+ * events.
+ * </p>
+ * <p>
+ * Through {@link Builder#admissionControl(AdmissionControl)} the records and bytes in flight are tracked against
+ * thresholds. Once saturated, events published are rejected, shed or delayed according to the {@link
+ * SaturationPolicy}, instead of blocking the publishing threads in the {@link Producer} once its buffer is full.
+ * </p>
+ * <p>
+ * When a {@link Builder#spool(RecordSpool) spool} is configured, the records of a {@link UnitOfWork} are appended to
+ * the local {@link RecordSpool} when it prepares to commit, and the Unit of Work commits once they are on disk. A
+ * background relay publishes the spooled records to Kafka in order, using the {@link ConfirmationMode} of the {@link
+ * ProducerFactory}. This decouples the commit latency from the availability and latency of Kafka, while the
+ * durability of the records is that of the local disk until they have been relayed. Records are relayed at least
+ * once. Events published through {@link #publishAsync(EventMessage)} are not spooled.
+ * </p>
  *
  * @param <K> a generic type for the key of the {@link ProducerFactory}, {@link Producer} and {@link
  *            KafkaMessageConverter}
@@ -73,11 +136,31 @@
 
     private static final String DEFAULT_TOPIC = "Axon.Events";
 
+    /**
+     * The default maximum number of records published through {@link #publishAsync(EventMessage)} which may await
+     * their acknowledgement at the same time.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_RECORDS = 1_000;
+
     private final ProducerFactory<K, V> producerFactory;
     private final KafkaMessageConverter<K, V> messageConverter;
     private final MessageMonitor<? super EventMessage<?>> messageMonitor;
-    private final TopicResolver topicResolver;
+    private final MultiTopicResolver topicResolver;
     private final long publisherAckTimeout;
+    private final int maxEventsPerRecord;
+    private final int maxInFlightRecords;
+    private final Semaphore inFlightRecords;
+    private final TransactionGroupCommit<K, V> groupCommit;
+    private final ExecutorService serializationExecutor;
+    private final AdmissionControl admissionControl;
+    private final RecordSpool<K, V> spool;
+    private final SpoolRelay<K, V> spoolRelay;
+    private final String batchResourceKey = "__axon-kafka-publisher-batch-" + UUID.randomUUID();
+    private final String publicationResourceKey = "__axon-kafka-publisher-publication-" + UUID.randomUUID();
+    private final String groupCommitResourceKey = "__axon-kafka-publisher-group-commit-" + UUID.randomUUID();
+    private final String serializationResourceKey = "__axon-kafka-publisher-serialization-" + UUID.randomUUID();
+    private final String spoolResourceKey = "__axon-kafka-publisher-spool-" + UUID.randomUUID();
+    private final String nestedResourceKey = "__axon-kafka-publisher-nested-" + UUID.randomUUID();
 
     /**
      * Instantiate a {@link KafkaPublisher} based on the fields contained in the {@link Builder}.
@@ -94,6 +177,21 @@ protected KafkaPublisher(Builder<K, V> builder) {
         this.messageMonitor = builder.messageMonitor;
         this.topicResolver = builder.topicResolver;
         this.publisherAckTimeout = builder.publisherAckTimeout;
+        this.maxEventsPerRecord = builder.maxEventsPerRecord;
+        this.maxInFlightRecords = builder.maxInFlightRecords;
+        this.inFlightRecords = new Semaphore(builder.maxInFlightRecords);
+        this.groupCommit = builder.groupCommitWindow > 0
+                ? new TransactionGroupCommit<>(builder.producerFactory,
+                                               builder.groupCommitWindow,
+                                               builder.publisherAckTimeout,
+                                               builder.admissionControl)
+                : null;
+        this.serializationExecutor = builder.serializationExecutor;
+        this.admissionControl = builder.admissionControl;
+        this.spool = builder.spool;
+        this.spoolRelay = builder.spool != null
+                ? new SpoolRelay<>(builder.spool, builder.producerFactory, builder.publisherAckTimeout)
+                : null;
     }
 
     /**
@@ -125,6 +223,14 @@ public static <K, V> Builder<K, V> builder() {
      * {@link KafkaPublisher.Builder#publisherAckTimeout(long)}).</li>
      * <li>None: fire and forget.</li>
      * </ul>
+     * All events sent within the same {@link UnitOfWork}, like the events of a batch handled by a {@link
+     * KafkaEventPublisher}, share a single {@link Producer}. In transactional mode they are hence published in a single
+     * Kafka transaction, and in ack mode all acknowledgements are awaited at once when the Unit of Work prepares to
+     * commit. The {@link MonitorCallback} of every event is notified of the outcome of the record it was published in.
+     * <p>
+     * If a {@link Builder#groupCommitWindow(long) group commit window} is configured in transactional mode, the records
+     * are only sent once the Unit of Work prepares to commit, in a transaction shared with other Units of Work
+     * preparing to commit within the same window.
      *
      * @param event the events to publish on the Kafka broker.
      * @param <T>   the implementation of {@link EventMessage} send through this method
@@ -132,39 +238,534 @@ public static <K, V> Builder<K, V> builder() {
     @SuppressWarnings("squid:S2095") //producer needs to be closed async, not within this method
     public <T extends EventMessage<?>> void send(T event) {
         logger.debug("Starting event producing process for [{}].", event.getPayloadType());
-        Optional<String> topic = topicResolver.resolve(event);
-        if (!topic.isPresent()) {
+        List<String> topics = topicResolver.resolve(event);
+        if (topics.isEmpty()) {
             logger.debug("Skip publishing event for [{}] since topicFunction returned empty.", event.getPayloadType());
             return;
         }
         UnitOfWork<?> uow = CurrentUnitOfWork.get();
 
-        MonitorCallback monitorCallback = messageMonitor.onMessageIngested(event);
+        MonitorCallback ingested = messageMonitor.onMessageIngested(event);
+        if (!admit(event, ingested)) {
+            return;
+        }
+        publishIn(uow, new SerializableEvent(event, topics, fanOut(ingested, topics.size())));
+    }
+
+    /**
+     * Publishes the given {@code event} within the given {@code uow}. If {@link ConsumedOffsets} are to be committed
+     * and the {@code uow} is nested, the {@code event} is deferred to the parent of the {@code uow} once it commits, so
+     * that all events published in response to a consumed batch end up in the single transaction of the root {@link
+     * UnitOfWork} committing the {@link ConsumedOffsets}.
+     */
+    private void publishIn(UnitOfWork<?> uow, SerializableEvent event) {
+        if (!uow.isRoot() && consumedOffsetsToCommit(uow.root()) != null) {
+            uow.getOrComputeResource(nestedResourceKey, key -> deferToParent(uow)).add(event);
+            return;
+        }
+        if (maxEventsPerRecord > 1) {
+            List<PendingEvent> batch = uow.getOrComputeResource(batchResourceKey, key -> registerBatch(uow));
+            event.topics.forEach(topic -> batch.add(new PendingEvent(topic, event.event, event.monitorCallback)));
+            return;
+        }
+        if (serializationExecutor != null) {
+            uow.getOrComputeResource(serializationResourceKey, key -> registerSerialization(uow)).add(event);
+            return;
+        }
+        dispatch(uow,
+                 fanOut(messageConverter.createKafkaMessage(event.event, event.topics.get(0)), event.topics),
+                 event.monitorCallback);
+    }
+
+    /**
+     * Gathers the events sent within the given nested {@code uow}, to publish them in its parent once the {@code uow}
+     * commits. The events are discarded when the {@code uow} rolls back.
+     */
+    private List<SerializableEvent> deferToParent(UnitOfWork<?> uow) {
+        List<SerializableEvent> events = new ArrayList<>();
+        uow.onPrepareCommit(u -> {
+            // Events sent from here on, by later prepare commit handlers, are gathered anew
+            u.resources().remove(nestedResourceKey);
+            UnitOfWork<?> parent = u.parent().orElseThrow(IllegalStateException::new);
+            events.forEach(event -> publishIn(parent, event));
+        });
+        return events;
+    }
+
+    /**
+     * Decides whether the given {@code event} may be published according to the {@link AdmissionControl}, if any.
+     * Shed events are reported as ignored to the given {@code monitorCallback}, rejected events as failed.
+     *
+     * @throws EventPublicationFailedException if the {@code event} is rejected
+     */
+    private boolean admit(EventMessage<?> event, MonitorCallback monitorCallback) {
+        if (admissionControl == null) {
+            return true;
+        }
+        try {
+            if (admissionControl.admit()) {
+                return true;
+            }
+        } catch (EventPublicationFailedException e) {
+            logger.warn("Rejecting event [{}] as the publisher is saturated.", event.getPayloadType());
+            monitorCallback.reportFailure(e);
+            throw e;
+        }
+        logger.debug("Shedding event [{}] as the publisher is saturated.", event.getPayloadType());
+        monitorCallback.reportIgnored();
+        return false;
+    }
+
+    /**
+     * Sends the given {@code record} through the given {@code producer}, tracked by the {@link AdmissionControl} if
+     * any.
+     */
+    private Future<RecordMetadata> send(Producer<K, V> producer, ProducerRecord<K, V> record, Callback callback) {
+        if (admissionControl != null) {
+            return admissionControl.send(producer, record, callback);
+        }
+        return callback == null ? producer.send(record) : producer.send(record, callback);
+    }
+
+    /**
+     * Sends the given {@code records} of a single event within the given {@code uow}, either through the spool, the
+     * group commit or the {@link Publication} of the {@code uow}.
+     */
+    private void dispatch(UnitOfWork<?> uow, List<ProducerRecord<K, V>> records, MonitorCallback monitorCallback) {
+        if (spool != null) {
+            GatheredRecords gatheredRecords = uow.getOrComputeResource(spoolResourceKey, key -> registerSpooling(uow));
+            records.forEach(record -> gatheredRecords.add(record, monitorCallback));
+            return;
+        }
+        if (usesGroupCommit()) {
+            GatheredRecords participant =
+                    uow.getOrComputeResource(groupCommitResourceKey, key -> joinGroupCommit(uow));
+            records.forEach(record -> participant.add(record, monitorCallback));
+            return;
+        }
+        Publication publication = uow.getOrComputeResource(publicationResourceKey, key -> startPublication(uow));
+        records.forEach(record -> publication.send(record, monitorCallback));
+    }
+
+    private GatheredRecords registerSpooling(UnitOfWork<?> uow) {
+        GatheredRecords gatheredRecords = new GatheredRecords();
+        uow.onPrepareCommit(u -> {
+            // Events sent from here on, by later prepare commit handlers, are gathered anew
+            u.resources().remove(spoolResourceKey);
+            spool(gatheredRecords.records, new CompositeMonitorCallback(gatheredRecords.monitorCallbacks));
+        });
+        return gatheredRecords;
+    }
+
+    /**
+     * Appends the given {@code records} to the spool, reporting the outcome to the given {@code monitorCallback}. The
+     * events are regarded published once their records are on disk, after which the relay publishes them to Kafka.
+     */
+    private void spool(List<ProducerRecord<K, V>> records, MonitorCallback monitorCallback) {
+        List<ProducerRecord<K, V>> chunkedRecords = new ArrayList<>(records.size());
+        records.forEach(record -> chunkedRecords.addAll(toRecords(record)));
+        try {
+            spool.append(chunkedRecords);
+            monitorCallback.reportSuccess();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to append records to the spool.", e);
+            monitorCallback.reportFailure(e);
+            throw new EventPublicationFailedException("Event publication failed, unable to spool the records.", e);
+        }
+    }
+
+    /**
+     * Gathers the events sent within the given {@code uow}, to convert them in parallel and dispatch them in their
+     * original order once the {@code uow} prepares to commit.
+     */
+    private List<SerializableEvent> registerSerialization(UnitOfWork<?> uow) {
+        List<SerializableEvent> events = new ArrayList<>();
+        uow.onPrepareCommit(u -> {
+            // Events sent from here on, by later prepare commit handlers, are gathered anew
+            u.resources().remove(serializationResourceKey);
+            List<Supplier<ProducerRecord<K, V>>> conversions = new ArrayList<>(events.size());
+            events.forEach(e -> conversions.add(() -> messageConverter.createKafkaMessage(e.event, e.topics.get(0))));
+            List<ProducerRecord<K, V>> records;
+            try {
+                records = convert(conversions);
+            } catch (RuntimeException e) {
+                events.forEach(event -> event.monitorCallback.reportFailure(e));
+                throw e;
+            }
+            for (int i = 0; i < events.size(); i++) {
+                SerializableEvent event = events.get(i);
+                dispatch(u, fanOut(records.get(i), event.topics), event.monitorCallback);
+            }
+        });
+        return events;
+    }
+
+    /**
+     * Performs the given {@code conversions}, returning the records in the order of the {@code conversions}. If a
+     * {@code serializationExecutor} is configured, all but the first conversion are performed on it, while the first
+     * is performed on the calling thread.
+     */
+    private List<ProducerRecord<K, V>> convert(List<Supplier<ProducerRecord<K, V>>> conversions) {
+        List<ProducerRecord<K, V>> records = new ArrayList<>(conversions.size());
+        if (serializationExecutor == null || conversions.size() < 2) {
+            conversions.forEach(conversion -> records.add(conversion.get()));
+            return records;
+        }
+        List<CompletableFuture<ProducerRecord<K, V>>> futures = new ArrayList<>(conversions.size() - 1);
+        for (Supplier<ProducerRecord<K, V>> conversion : conversions.subList(1, conversions.size())) {
+            futures.add(CompletableFuture.supplyAsync(conversion, serializationExecutor));
+        }
+        records.add(conversions.get(0).get());
+        try {
+            futures.forEach(future -> records.add(future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return records;
+    }
+
+    /**
+     * Returns the records to send for an event published to the given {@code topics}, being the given {@code record}
+     * for the first topic and a copy of it for every other topic. The copies share the serialized key, value and
+     * headers of the given {@code record}, such that an event is serialized only once regardless of the number of
+     * topics it is published to.
+     */
+    private List<ProducerRecord<K, V>> fanOut(ProducerRecord<K, V> record, List<String> topics) {
+        if (topics.size() == 1) {
+            return Collections.singletonList(record);
+        }
+        List<ProducerRecord<K, V>> records = new ArrayList<>(topics.size());
+        records.add(record);
+        for (String topic : topics.subList(1, topics.size())) {
+            records.add(copyTo(record, topic));
+        }
+        return records;
+    }
+
+    /**
+     * Returns a copy of the given {@code record} for the given {@code topic}, sharing the serialized key and value of
+     * the {@code record} but not its headers, which are mutable.
+     */
+    private static <K, V> ProducerRecord<K, V> copyTo(ProducerRecord<K, V> record, String topic) {
+        return new ProducerRecord<>(topic,
+                                    null,
+                                    record.timestamp(),
+                                    record.key(),
+                                    record.value(),
+                                    new RecordHeaders(record.headers().toArray()));
+    }
+
+    /**
+     * Returns a {@link MonitorCallback} to report to for every topic an event is published to, which reports to the
+     * given {@code monitorCallback} once the event has been published to all {@code topics}, or failed for one.
+     */
+    private static MonitorCallback fanOut(MonitorCallback monitorCallback, int topics) {
+        return topics == 1 ? monitorCallback : new FanOutMonitorCallback(monitorCallback, topics);
+    }
+
+    private boolean usesGroupCommit() {
+        return groupCommit != null && producerFactory.confirmationMode().isTransactional();
+    }
+
+    private GatheredRecords joinGroupCommit(UnitOfWork<?> uow) {
+        GatheredRecords participant = new GatheredRecords();
+        uow.onPrepareCommit(u -> {
+            u.resources().remove(groupCommitResourceKey);
+            commitInGroup(participant.records,
+                          new CompositeMonitorCallback(participant.monitorCallbacks),
+                          consumedOffsetsToCommit(u));
+        });
+        return participant;
+    }
+
+    /**
+     * Returns the {@link ConsumedOffsets} bound to the current thread, if they should be committed as part of the
+     * Kafka transaction of the events published within the given {@code uow}. Returns {@code null} otherwise, which
+     * is the case for any nested {@link UnitOfWork}, as that commits before the remainder of the consumed batch has
+     * been handled.
+     */
+    private ConsumedOffsets consumedOffsetsToCommit(UnitOfWork<?> uow) {
+        return uow.isRoot() && producerFactory.confirmationMode().isTransactional()
+                ? ConsumedOffsets.current().orElse(null)
+                : null;
+    }
+
+    /**
+     * Commits the given {@code records} in a transaction shared with other units of work, together with the given
+     * {@code consumedOffsets} if any, reporting the outcome to the given {@code monitorCallback}.
+     */
+    private void commitInGroup(List<ProducerRecord<K, V>> records,
+                               MonitorCallback monitorCallback,
+                               ConsumedOffsets consumedOffsets) {
+        List<ProducerRecord<K, V>> chunkedRecords = new ArrayList<>(records.size());
+        records.forEach(record -> chunkedRecords.addAll(toRecords(record)));
+        try {
+            groupCommit.commit(chunkedRecords, consumedOffsets);
+            monitorCallback.reportSuccess();
+        } catch (EventPublicationFailedException e) {
+            logger.warn("Unable to commit shared transaction");
+            monitorCallback.reportFailure(e.getCause());
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the {@link Publication} of the events sent within the given {@code uow}, which is completed when the
+     * {@code uow} prepares to commit and aborted when it rolls back.
+     */
+    @SuppressWarnings("squid:S2095") //producer is closed when the publication completes or is aborted
+    private Publication startPublication(UnitOfWork<?> uow) {
         Producer<K, V> producer = producerFactory.createProducer();
         ConfirmationMode confirmationMode = producerFactory.confirmationMode();
-
         if (confirmationMode.isTransactional()) {
-            tryBeginTxn(producer);
+            try {
+                tryBeginTxn(producer);
+            } catch (EventPublicationFailedException e) {
+                tryClose(producer);
+                throw e;
+            }
         }
+        Publication publication = new Publication(producer, confirmationMode, consumedOffsetsToCommit(uow));
+        uow.onPrepareCommit(u -> {
+            // Events sent from here on, by later prepare commit handlers, require a new publication
+            u.resources().remove(publicationResourceKey);
+            publication.complete();
+        });
+        uow.onRollback(u -> publication.abort());
+        return publication;
+    }
 
-        // Sends event messages to Kafka and receive a future indicating the status.
-        Future<RecordMetadata> publishStatus = producer.send(messageConverter.createKafkaMessage(event, topic.get()));
+    /**
+     * Publish the given {@code event} to the configured Kafka {@code topic} without blocking on its acknowledgement,
+     * regardless of any current {@link UnitOfWork}. The returned {@link CompletableFuture} completes once Kafka
+     * acknowledged the record(s) of the {@code event}, with the {@link RecordMetadata} of the last record sent for it.
+     * If the {@link TopicResolver} does not resolve a topic for the {@code event}, it is not published and the future
+     * completes with {@code null}.
+     * <p>
+     * Success or failure is reported to the {@link MessageMonitor} from the {@link Producer}'s callback thread. Hence,
+     * the callbacks of the returned future are invoked on that thread too, unless they are registered through one of
+     * the asynchronous methods of the {@link CompletableFuture}. Such callbacks should not block.
+     * <p>
+     * At most {@link Builder#maxInFlightRecords(int)} records may await their acknowledgement at the same time. If this
+     * window is full, this method blocks until records have been acknowledged, for at most the {@code
+     * publisherAckTimeout}, after which the returned future is completed exceptionally.
+     * <p>
+     * Asynchronous publication is not supported in the {@link ConfirmationMode#TRANSACTIONAL} mode, as a Kafka
+     * transaction can only be committed by blocking on it. Furthermore, the {@link Producer} used is not closed after
+     * publication, as that would block on all in-flight records. It should hence be shared and closed by the {@link
+     * ProducerFactory}, as is the case for the non-transactional producer of the {@link DefaultProducerFactory}.
+     *
+     * @param event the event to publish on the Kafka broker
+     * @param <T>   the implementation of {@link EventMessage} published through this method
+     * @return a {@link CompletableFuture} completing once the {@code event} has been acknowledged by Kafka
+     */
+    public <T extends EventMessage<?>> CompletableFuture<RecordMetadata> publishAsync(T event) {
+        List<String> topics = topicResolver.resolve(event);
+        if (topics.isEmpty()) {
+            logger.debug("Skip publishing event for [{}] since topicFunction returned empty.", event.getPayloadType());
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<RecordMetadata> result = new CompletableFuture<>();
+        if (producerFactory.confirmationMode().isTransactional()) {
+            result.completeExceptionally(new EventPublicationFailedException(
+                    "Asynchronous event publication is not supported in the transactional confirmation mode", null
+            ));
+            return result;
+        }
 
+        MonitorCallback monitorCallback = messageMonitor.onMessageIngested(event);
+        try {
+            if (!admit(event, monitorCallback)) {
+                result.complete(null);
+                return result;
+            }
+        } catch (EventPublicationFailedException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        List<ProducerRecord<K, V>> records = new ArrayList<>();
+        try {
+            fanOut(messageConverter.createKafkaMessage(event, topics.get(0)), topics)
+                    .forEach(record -> records.addAll(toRecords(record)));
+        } catch (RuntimeException e) {
+            logger.warn("Unable to convert event [{}] to records.", event.getPayloadType(), e);
+            monitorCallback.reportFailure(e);
+            result.completeExceptionally(e);
+            return result;
+        }
+        int permits = Math.min(records.size(), maxInFlightRecords);
+        try {
+            if (!inFlightRecords.tryAcquire(permits, publisherAckTimeout, TimeUnit.MILLISECONDS)) {
+                EventPublicationFailedException failure = new EventPublicationFailedException(
+                        "Event publication failed, too many records are awaiting their acknowledgement.", null
+                );
+                monitorCallback.reportFailure(failure);
+                result.completeExceptionally(failure);
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            monitorCallback.reportFailure(e);
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        AsyncPublication publication = new AsyncPublication(records.size(), permits, monitorCallback, result);
+        int sent = 0;
+        try {
+            Producer<K, V> producer = producerFactory.createProducer();
+            for (; sent < records.size(); sent++) {
+                send(producer, records.get(sent), publication);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Encountered error while publishing event asynchronously.", e);
+            for (int unsent = sent; unsent < records.size(); unsent++) {
+                publication.onCompletion(null, e);
+            }
+        }
+        return result;
+    }
+
+    private List<PendingEvent> registerBatch(UnitOfWork<?> uow) {
+        List<PendingEvent> batch = new ArrayList<>();
         uow.onPrepareCommit(u -> {
+            // Events sent from here on, by later prepare commit handlers, are batched anew
+            u.resources().remove(batchResourceKey);
+            publishBatch(batch, consumedOffsetsToCommit(u));
+        });
+        return batch;
+    }
+
+    /**
+     * Publishes the given {@code batch} of events, packing the events per topic and record key in to records of at
+     * most {@code maxEventsPerRecord} events. Records packing the same events for several topics are converted once,
+     * and copied for every other topic. In the {@link ConfirmationMode#TRANSACTIONAL} mode, the given {@code
+     * consumedOffsets}, if any, are committed as part of the transaction of the batch.
+     */
+    @SuppressWarnings("squid:S2095") //producer is closed in the finally block through tryClose
+    private void publishBatch(List<PendingEvent> batch, ConsumedOffsets consumedOffsets) {
+        BatchingKafkaMessageConverter<K, V> batchingConverter = (BatchingKafkaMessageConverter<K, V>) messageConverter;
+        Map<String, Map<K, List<PendingEvent>>> eventsPerTopicAndKey = new LinkedHashMap<>();
+        for (PendingEvent pendingEvent : batch) {
+            eventsPerTopicAndKey.computeIfAbsent(pendingEvent.topic, topic -> new LinkedHashMap<>())
+                                .computeIfAbsent(batchingConverter.recordKey(pendingEvent.event),
+                                                 key -> new ArrayList<>())
+                                .add(pendingEvent);
+        }
+
+        Map<List<EventMessage<?>>, Integer> conversionPerEvents = new HashMap<>();
+        List<Supplier<ProducerRecord<K, V>>> conversions = new ArrayList<>();
+        List<Integer> recordConversions = new ArrayList<>();
+        List<String> recordTopics = new ArrayList<>();
+        List<MonitorCallback> recordCallbacks = new ArrayList<>();
+        eventsPerTopicAndKey.forEach((topic, eventsPerKey) -> eventsPerKey.values().forEach(events -> {
+            for (int start = 0; start < events.size(); start += maxEventsPerRecord) {
+                List<PendingEvent> recordEvents =
+                        events.subList(start, Math.min(start + maxEventsPerRecord, events.size()));
+                List<EventMessage<?>> eventMessages = new ArrayList<>(recordEvents.size());
+                List<MonitorCallback> callbacks = new ArrayList<>(recordEvents.size());
+                recordEvents.forEach(pendingEvent -> {
+                    eventMessages.add(pendingEvent.event);
+                    callbacks.add(pendingEvent.monitorCallback);
+                });
+                recordConversions.add(conversionPerEvents.computeIfAbsent(eventMessages, key -> {
+                    conversions.add(() -> batchingConverter.createKafkaMessage(eventMessages, topic));
+                    return conversions.size() - 1;
+                }));
+                recordTopics.add(topic);
+                recordCallbacks.add(new CompositeMonitorCallback(callbacks));
+            }
+        }));
+        List<ProducerRecord<K, V>> convertedRecords;
+        try {
+            convertedRecords = convert(conversions);
+        } catch (RuntimeException e) {
+            recordCallbacks.forEach(recordCallback -> recordCallback.reportFailure(e));
+            throw e;
+        }
+        List<ProducerRecord<K, V>> records = new ArrayList<>(recordConversions.size());
+        for (int i = 0; i < recordConversions.size(); i++) {
+            ProducerRecord<K, V> record = convertedRecords.get(recordConversions.get(i));
+            records.add(record.topic().equals(recordTopics.get(i)) ? record : copyTo(record, recordTopics.get(i)));
+        }
+        if (spool != null) {
+            spool(records, new CompositeMonitorCallback(recordCallbacks));
+            return;
+        }
+        if (usesGroupCommit()) {
+            commitInGroup(records, new CompositeMonitorCallback(recordCallbacks), consumedOffsets);
+            return;
+        }
+
+        Producer<K, V> producer = producerFactory.createProducer();
+        ConfirmationMode confirmationMode = producerFactory.confirmationMode();
+        try {
             if (confirmationMode.isTransactional()) {
-                tryCommit(producer, monitorCallback);
-            } else if (confirmationMode.isWaitForAck()) {
-                waitForPublishAck(publishStatus, monitorCallback);
+                tryBeginTxn(producer);
+            }
+
+            List<SentRecord> sentRecords = new ArrayList<>(records.size());
+            for (int i = 0; i < records.size(); i++) {
+                sentRecords.add(new SentRecord(sendRecord(producer, records.get(i)), recordCallbacks.get(i)));
             }
-            tryClose(producer);
-        });
 
-        uow.onRollback(u -> {
+            if (confirmationMode.isTransactional()) {
+                List<MonitorCallback> callbacks = new ArrayList<>();
+                sentRecords.forEach(sentRecord -> callbacks.add(sentRecord.monitorCallback));
+                tryCommit(producer, consumedOffsets, new CompositeMonitorCallback(callbacks));
+            } else if (confirmationMode.isWaitForAck()) {
+                waitForPublishAcks(sentRecords);
+            }
+        } catch (RuntimeException e) {
             if (confirmationMode.isTransactional()) {
                 tryRollback(producer);
             }
+            throw e;
+        } finally {
             tryClose(producer);
-        });
+        }
+    }
+
+    /**
+     * Sends the given {@code record}, split in to chunks first if the {@link KafkaMessageConverter} is a {@link
+     * ChunkingKafkaMessageConverter}.
+     */
+    private List<Future<RecordMetadata>> sendRecord(Producer<K, V> producer, ProducerRecord<K, V> record) {
+        if (!(messageConverter instanceof ChunkingKafkaMessageConverter)) {
+            return Collections.singletonList(send(producer, record, null));
+        }
+        List<ProducerRecord<K, V>> chunks = toRecords(record);
+        List<Future<RecordMetadata>> publishStatus = new ArrayList<>(chunks.size());
+        chunks.forEach(chunk -> publishStatus.add(send(producer, chunk, null)));
+        return publishStatus;
+    }
+
+    /**
+     * Returns the records to send for the given {@code record}, which are its chunks if the {@link
+     * KafkaMessageConverter} is a {@link ChunkingKafkaMessageConverter}.
+     */
+    private List<ProducerRecord<K, V>> toRecords(ProducerRecord<K, V> record) {
+        return messageConverter instanceof ChunkingKafkaMessageConverter
+                ? ((ChunkingKafkaMessageConverter<K, V>) messageConverter).toChunks(record)
+                : Collections.singletonList(record);
+    }
+
+    private void waitForPublishAcks(List<SentRecord> sentRecords) {
+        long deadline = System.currentTimeMillis() + publisherAckTimeout;
+        EventPublicationFailedException failure = null;
+        for (SentRecord sentRecord : sentRecords) {
+            try {
+                waitForPublishAck(sentRecord.publishStatus, sentRecord.monitorCallback, deadline);
+            } catch (EventPublicationFailedException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
     }
 
     private void tryBeginTxn(Producer<?, ?> producer) {
@@ -178,9 +779,19 @@ private void tryBeginTxn(Producer<?, ?> producer) {
         }
     }
 
-    private void tryCommit(Producer<?, ?> producer, MonitorCallback monitorCallback) {
+    /**
+     * Commits the transaction of the given {@code producer}. If {@code consumedOffsets} are given, these are committed
+     * as part of the transaction too.
+     */
+    private void tryCommit(Producer<?, ?> producer, ConsumedOffsets consumedOffsets, MonitorCallback monitorCallback) {
         try {
+            if (consumedOffsets != null) {
+                producer.sendOffsetsToTransaction(consumedOffsets.offsets(), consumedOffsets.groupMetadata());
+            }
             producer.commitTransaction();
+            if (consumedOffsets != null) {
+                consumedOffsets.markCommitted();
+            }
             monitorCallback.reportSuccess();
         } catch (ProducerFencedException e) {
             logger.warn("Unable to commit transaction");
@@ -191,10 +802,13 @@ private void tryCommit(Producer<?, ?> producer, MonitorCallback monitorCallback)
         }
     }
 
-    private void waitForPublishAck(Future<RecordMetadata> future, MonitorCallback monitorCallback) {
-        long deadline = System.currentTimeMillis() + publisherAckTimeout;
+    private void waitForPublishAck(List<Future<RecordMetadata>> futures,
+                                   MonitorCallback monitorCallback,
+                                   long deadline) {
         try {
-            future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            for (Future<RecordMetadata> future : futures) {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
             monitorCallback.reportSuccess();
         } catch (InterruptedException e) {
             monitorCallback.reportFailure(e);
@@ -227,13 +841,260 @@ private void tryClose(Producer<?, ?> producer) {
         }
     }
 
+    /**
+     * The records sent by a single {@link Producer} within a {@link UnitOfWork}, in a single Kafka transaction if the
+     * {@link ConfirmationMode} is transactional.
+     */
+    private final class Publication {
+
+        private final Producer<K, V> producer;
+        private final ConfirmationMode confirmationMode;
+        private final ConsumedOffsets consumedOffsets;
+        private final List<SentRecord> sentRecords = new ArrayList<>();
+        private boolean closed;
+
+        private Publication(Producer<K, V> producer,
+                            ConfirmationMode confirmationMode,
+                            ConsumedOffsets consumedOffsets) {
+            this.producer = producer;
+            this.confirmationMode = confirmationMode;
+            this.consumedOffsets = consumedOffsets;
+        }
+
+        private void send(ProducerRecord<K, V> record, MonitorCallback monitorCallback) {
+            sentRecords.add(new SentRecord(sendRecord(producer, record), monitorCallback));
+        }
+
+        private void complete() {
+            if (confirmationMode.isTransactional()) {
+                List<MonitorCallback> callbacks = new ArrayList<>(sentRecords.size());
+                sentRecords.forEach(sentRecord -> callbacks.add(sentRecord.monitorCallback));
+                tryCommit(producer, consumedOffsets, new CompositeMonitorCallback(callbacks));
+            } else if (confirmationMode.isWaitForAck()) {
+                waitForPublishAcks(sentRecords);
+            }
+            close();
+        }
+
+        private void abort() {
+            if (confirmationMode.isTransactional() && !closed) {
+                tryRollback(producer);
+            }
+            close();
+        }
+
+        private void close() {
+            if (!closed) {
+                closed = true;
+                tryClose(producer);
+            }
+        }
+    }
+
+    /**
+     * The records of an event published through {@link #publishAsync(EventMessage)}, completing the event's future
+     * and reporting to its {@link MonitorCallback} once all records have been acknowledged or one has failed.
+     */
+    private final class AsyncPublication implements Callback {
+
+        private final AtomicInteger remainingRecords;
+        private final int permits;
+        private final MonitorCallback monitorCallback;
+        private final CompletableFuture<RecordMetadata> result;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private volatile RecordMetadata lastMetadata;
+
+        private AsyncPublication(int records,
+                                 int permits,
+                                 MonitorCallback monitorCallback,
+                                 CompletableFuture<RecordMetadata> result) {
+            this.remainingRecords = new AtomicInteger(records);
+            this.permits = permits;
+            this.monitorCallback = monitorCallback;
+            this.result = result;
+        }
+
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception exception) {
+            if (exception != null) {
+                failure.compareAndSet(null, exception);
+            } else {
+                lastMetadata = metadata;
+            }
+            if (remainingRecords.decrementAndGet() > 0) {
+                return;
+            }
+            inFlightRecords.release(permits);
+            Exception publicationFailure = failure.get();
+            if (publicationFailure == null) {
+                monitorCallback.reportSuccess();
+                result.complete(lastMetadata);
+            } else {
+                logger.warn("Encountered error while waiting for event publication.", publicationFailure);
+                monitorCallback.reportFailure(publicationFailure);
+                result.completeExceptionally(new EventPublicationFailedException(
+                        "Event publication failed, exception occurred while publishing the event.",
+                        publicationFailure
+                ));
+            }
+        }
+    }
+
+    /**
+     * The records of a {@link UnitOfWork} awaiting their group commit or spooling, together with the {@link
+     * MonitorCallback}s of their events.
+     */
+    private final class GatheredRecords {
+
+        private final List<ProducerRecord<K, V>> records = new ArrayList<>();
+        private final List<MonitorCallback> monitorCallbacks = new ArrayList<>();
+
+        private void add(ProducerRecord<K, V> record, MonitorCallback monitorCallback) {
+            records.add(record);
+            monitorCallbacks.add(monitorCallback);
+        }
+    }
+
+    /**
+     * An event gathered in a {@link UnitOfWork}, awaiting its parallel conversion in to a record or the commit of the
+     * nested {@link UnitOfWork} it was published in.
+     */
+    private static final class SerializableEvent {
+
+        private final EventMessage<?> event;
+        private final List<String> topics;
+        private final MonitorCallback monitorCallback;
+
+        private SerializableEvent(EventMessage<?> event, List<String> topics, MonitorCallback monitorCallback) {
+            this.event = event;
+            this.topics = topics;
+            this.monitorCallback = monitorCallback;
+        }
+    }
+
+    /**
+     * An event gathered in a {@link UnitOfWork}, awaiting publication as part of a batch.
+     */
+    private static final class PendingEvent {
+
+        private final String topic;
+        private final EventMessage<?> event;
+        private final MonitorCallback monitorCallback;
+
+        private PendingEvent(String topic, EventMessage<?> event, MonitorCallback monitorCallback) {
+            this.topic = topic;
+            this.event = event;
+            this.monitorCallback = monitorCallback;
+        }
+    }
+
+    /**
+     * A record handed to a {@link Producer}, possibly as several chunks, combined with the {@link MonitorCallback} of
+     * the event(s) it contains.
+     */
+    private static final class SentRecord {
+
+        private final List<Future<RecordMetadata>> publishStatus;
+        private final MonitorCallback monitorCallback;
+
+        private SentRecord(List<Future<RecordMetadata>> publishStatus, MonitorCallback monitorCallback) {
+            this.publishStatus = publishStatus;
+            this.monitorCallback = monitorCallback;
+        }
+    }
+
+    /**
+     * A {@link MonitorCallback} of an event published to several topics, reporting to the event's {@link
+     * MonitorCallback} once for all topics. Success is reported once the event has been published to every topic, a
+     * failure as soon as publishing to one of the topics failed.
+     */
+    private static final class FanOutMonitorCallback implements MonitorCallback {
+
+        private final MonitorCallback delegate;
+        private final AtomicInteger remainingTopics;
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        private FanOutMonitorCallback(MonitorCallback delegate, int topics) {
+            this.delegate = delegate;
+            this.remainingTopics = new AtomicInteger(topics);
+        }
+
+        @Override
+        public void reportSuccess() {
+            if (remainingTopics.decrementAndGet() == 0 && reported.compareAndSet(false, true)) {
+                delegate.reportSuccess();
+            }
+        }
+
+        @Override
+        public void reportFailure(Throwable cause) {
+            if (reported.compareAndSet(false, true)) {
+                delegate.reportFailure(cause);
+            }
+        }
+
+        @Override
+        public void reportIgnored() {
+            if (remainingTopics.decrementAndGet() == 0 && reported.compareAndSet(false, true)) {
+                delegate.reportIgnored();
+            }
+        }
+    }
+
+    /**
+     * A {@link MonitorCallback} reporting to all the callbacks of the events published together.
+     */
+    private static final class CompositeMonitorCallback implements MonitorCallback {
+
+        private final List<MonitorCallback> delegates;
+
+        private CompositeMonitorCallback(List<MonitorCallback> delegates) {
+            this.delegates = delegates;
+        }
+
+        @Override
+        public void reportSuccess() {
+            delegates.forEach(MonitorCallback::reportSuccess);
+        }
+
+        @Override
+        public void reportFailure(Throwable cause) {
+            delegates.forEach(delegate -> delegate.reportFailure(cause));
+        }
+
+        @Override
+        public void reportIgnored() {
+            delegates.forEach(MonitorCallback::reportIgnored);
+        }
+    }
+
+    /**
+     * Starts relaying the records of the {@link RecordSpool}, if any, including the records spooled but not relayed
+     * in a previous run. Records are only relayed once this publisher has been started. Upon start up of an
+     * application, this method is invoked in the {@link Phase#OUTBOUND_EVENT_CONNECTORS} phase.
+     */
+    public void start() {
+        if (spoolRelay != null) {
+            spoolRelay.start();
+        }
+    }
+
     /**
      * Shuts down this component by calling {@link ProducerFactory#shutDown()} ensuring no new {@link Producer}
-     * instances can be created. Upon shutdown of an application, this method is invoked in the
-     * {@link Phase#INBOUND_EVENT_CONNECTORS} phase.
+     * instances can be created, and by shutting down the {@code serializationExecutor}, if any. The relay of the
+     * {@link RecordSpool}, if any, is stopped and the spool closed first, retaining the records not relayed yet for the
+     * next run. Upon shutdown of an application, this method is invoked in the {@link Phase#INBOUND_EVENT_CONNECTORS}
+     * phase.
      */
     public void shutDown() {
+        if (spoolRelay != null) {
+            spoolRelay.stop();
+            spool.close();
+        }
         producerFactory.shutDown();
+        if (serializationExecutor != null) {
+            serializationExecutor.shutdown();
+        }
     }
 
     /**
@@ -241,6 +1102,7 @@ public void shutDown() {
      */
     @Override
     public void registerLifecycleHandlers(@Nonnull LifecycleRegistry lifecycle) {
+        lifecycle.onStart(Phase.OUTBOUND_EVENT_CONNECTORS, this::start);
         lifecycle.onShutdown(Phase.INBOUND_EVENT_CONNECTORS, this::shutDown);
     }
 
@@ -262,8 +1124,14 @@ public void registerLifecycleHandlers(@Nonnull LifecycleRegistry lifecycle) {
         private ProducerFactory<K, V> producerFactory;
         private KafkaMessageConverter<K, V> messageConverter;
         private MessageMonitor<? super EventMessage<?>> messageMonitor = NoOpMessageMonitor.instance();
-        private TopicResolver topicResolver = m -> Optional.of(DEFAULT_TOPIC);
+        private MultiTopicResolver topicResolver = m -> Collections.singletonList(DEFAULT_TOPIC);
         private long publisherAckTimeout = 1_000;
+        private int maxEventsPerRecord = 1;
+        private int maxInFlightRecords = DEFAULT_MAX_IN_FLIGHT_RECORDS;
+        private long groupCommitWindow = 0;
+        private ExecutorService serializationExecutor;
+        private AdmissionControl admissionControl;
+        private RecordSpool<K, V> spool;
         private Supplier<Serializer> serializer;
 
         /**
@@ -334,7 +1202,8 @@ public Builder<K, V> messageMonitor(MessageMonitor<? super EventMessage<?>> mess
         @SuppressWarnings("squid:S1133") //needs a major release to remove, since part of public API
         public Builder<K, V> topic(String topic) {
             assertThat(topic, name -> Objects.nonNull(name) && !"".equals(name), "The topic may not be null or empty");
-            this.topicResolver = m -> Optional.of(topic);
+            List<String> topics = Collections.singletonList(topic);
+            this.topicResolver = m -> topics;
             return this;
         }
 
@@ -350,7 +1219,23 @@ public Builder<K, V> topic(String topic) {
          */
         public Builder<K, V> topicResolver(TopicResolver topicResolver) {
             assertNonNull(topicResolver, "The TopicResolver may not be null");
-            this.topicResolver = topicResolver;
+            this.topicResolver = MultiTopicResolver.of(topicResolver);
+            return this;
+        }
+
+        /**
+         * Set the resolver to determine the Kafka {@code topics} to publish a certain {@link EventMessage} to. The
+         * {@code EventMessage} is not published if the resolver returns an empty {@link List}. An event published to
+         * several topics is serialized only once, and is regarded successfully published once it has been published
+         * to all of them. Replaces any {@link TopicResolver} set through {@link #topicResolver(TopicResolver)}.
+         *
+         * @param multiTopicResolver the resolver determining the Kafka {@code topics} to publish {@link
+         *                           EventMessage}s on
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> multiTopicResolver(MultiTopicResolver multiTopicResolver) {
+            assertNonNull(multiTopicResolver, "The MultiTopicResolver may not be null");
+            this.topicResolver = multiTopicResolver;
             return this;
         }
 
@@ -372,6 +1257,117 @@ public Builder<K, V> publisherAckTimeout(long publisherAckTimeout) {
             return this;
         }
 
+        /**
+         * Sets the maximum number of events of a single {@link UnitOfWork} which are packed in to one Kafka record.
+         * Only events for the same topic and record key are packed together. Defaults to {@code 1}, meaning every event
+         * is published as a separate record.
+         * <p>
+         * Values larger than {@code 1} require the {@link KafkaMessageConverter} to be a {@link
+         * BatchingKafkaMessageConverter}. Note that consumers should read the records with a {@link
+         * BatchingKafkaMessageConverter} too, to be able to unpack them.
+         *
+         * @param maxEventsPerRecord the maximum number of events packed in to a single Kafka record
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> maxEventsPerRecord(int maxEventsPerRecord) {
+            assertThat(maxEventsPerRecord, max -> max > 0, "The maxEventsPerRecord should be a positive number");
+            this.maxEventsPerRecord = maxEventsPerRecord;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of records published through {@link KafkaPublisher#publishAsync(EventMessage)}
+         * which may await their acknowledgement at the same time. Further asynchronous publications block until
+         * records have been acknowledged. Defaults to {@link KafkaPublisher#DEFAULT_MAX_IN_FLIGHT_RECORDS}.
+         *
+         * @param maxInFlightRecords the maximum number of asynchronously published records awaiting acknowledgement
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> maxInFlightRecords(int maxInFlightRecords) {
+            assertThat(maxInFlightRecords, max -> max > 0, "The maxInFlightRecords should be a positive number");
+            this.maxInFlightRecords = maxInFlightRecords;
+            return this;
+        }
+
+        /**
+         * Sets the window in milliseconds during which Units of Work preparing to commit join a shared Kafka
+         * transaction, when using the {@link ConfirmationMode#TRANSACTIONAL} mode. The first Unit of Work preparing to
+         * commit waits for this window, after which the records of all Units of Work that joined are committed in a
+         * single transaction. All of them succeed or fail together. The Units of Work that joined wait for at most the
+         * window and the {@link #publisherAckTimeout(long) publisherAckTimeout} for this transaction, after which they
+         * fail. Defaults to {@code 0}, meaning every Unit of Work commits its own transaction.
+         * <p>
+         * Group commit reduces the number of transaction commits under high concurrency, at the expense of up to the
+         * window in added latency per Unit of Work.
+         *
+         * @param groupCommitWindow the window in milliseconds during which Units of Work join a shared transaction
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> groupCommitWindow(long groupCommitWindow) {
+            assertThat(groupCommitWindow, window -> window >= 0,
+                       "The groupCommitWindow should be a positive number or zero");
+            this.groupCommitWindow = groupCommitWindow;
+            return this;
+        }
+
+        /**
+         * Sets the {@link ExecutorService} used to convert the events of a {@link UnitOfWork} in to records in
+         * parallel. The events are gathered until the Unit of Work prepares to commit, after which they are converted
+         * in parallel and handed to the {@link Producer} in their original order, retaining the order per record key.
+         * The {@link ExecutorService} should be bounded, like a {@link
+         * java.util.concurrent.Executors#newFixedThreadPool(int)}, and is shut down on {@link
+         * KafkaPublisher#shutDown()}. The {@link KafkaMessageConverter} should be thread safe. Defaults to {@code
+         * null}, converting every event on the publishing thread as it is published.
+         *
+         * @param serializationExecutor the {@link ExecutorService} used to convert the events of a {@link UnitOfWork}
+         *                              in parallel
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> serializationExecutor(ExecutorService serializationExecutor) {
+            assertNonNull(serializationExecutor, "The serializationExecutor may not be null");
+            this.serializationExecutor = serializationExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the {@link AdmissionControl} tracking the records and bytes in flight, and turning events away
+         * according to its {@link SaturationPolicy} once saturated. The {@link AdmissionControl} exposes the
+         * saturation state and metrics of this publisher, and should not be shared with other publishers. Defaults
+         * to {@code null}, admitting all events.
+         * <p>
+         * Events are admitted when they are published, against the records in flight at that moment. When packing
+         * events per record, serializing on a {@code serializationExecutor} or committing in a group, the records of
+         * a {@link UnitOfWork} are only sent, and hence tracked, once it prepares to commit. A single {@link
+         * UnitOfWork} is therefore not admission controlled, and may exceed the thresholds; only the events published
+         * while its records are in flight are. Can not be combined with a {@link #spool(RecordSpool) spool}, as the
+         * records relayed from the spool are not tracked.
+         *
+         * @param admissionControl the {@link AdmissionControl} of this publisher
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> admissionControl(AdmissionControl admissionControl) {
+            assertNonNull(admissionControl, "The AdmissionControl may not be null");
+            this.admissionControl = admissionControl;
+            return this;
+        }
+
+        /**
+         * Sets the {@link RecordSpool} to append the records of a {@link UnitOfWork} to when it prepares to commit,
+         * instead of publishing them to Kafka directly. A background relay publishes the spooled records to Kafka in
+         * order, awaiting their acknowledgement for at most the {@code publisherAckTimeout} before retrying. The
+         * relay is started on {@link KafkaPublisher#start()}, and the {@link RecordSpool} is closed on {@link
+         * KafkaPublisher#shutDown()}. Can not be combined with a {@code groupCommitWindow} or an {@link
+         * AdmissionControl}. Defaults to {@code null}, publishing records to Kafka directly.
+         *
+         * @param spool the {@link RecordSpool} to append the records of a {@link UnitOfWork} to
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> spool(RecordSpool<K, V> spool) {
+            assertNonNull(spool, "The RecordSpool may not be null");
+            this.spool = spool;
+            return this;
+        }
+
         /**
          * Initializes a {@link KafkaPublisher} as specified through this Builder.
          *
@@ -407,6 +1403,21 @@ protected void validate() throws AxonConfigurationException {
                                                                                              .serializer(serializer.get())
                                                                                              .build();
             }
+            if (maxEventsPerRecord > 1 && !(messageConverter instanceof BatchingKafkaMessageConverter)) {
+                throw new AxonConfigurationException(
+                        "Packing several events per record requires a BatchingKafkaMessageConverter"
+                );
+            }
+            if (spool != null && groupCommitWindow > 0) {
+                throw new AxonConfigurationException(
+                        "A spool can not be combined with a group commit window"
+                );
+            }
+            if (spool != null && admissionControl != null) {
+                throw new AxonConfigurationException(
+                        "A spool can not be combined with admission control, as relayed records are not tracked"
+                );
+            }
         }
     }
 }
\ No newline at end of file
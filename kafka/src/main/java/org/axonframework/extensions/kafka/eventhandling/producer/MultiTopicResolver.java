@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.axonframework.eventhandling.EventMessage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Interface to determine if an {@code EventMessage} should be published to Kafka, and if so to which topics. If the
+ * result from the call is an empty {@link List} it will not be published, else it is published to every topic in the
+ * result. The {@link KafkaPublisher} serializes such an event only once, sharing the serialized form over the records
+ * of all topics.
+ *
+ * @since 4.9.0
+ */
+@FunctionalInterface
+public interface MultiTopicResolver extends Function<EventMessage<?>, List<String>> {
+
+    /**
+     * Creates a {@link MultiTopicResolver} resolving the single topic resolved by the given {@code topicResolver}.
+     *
+     * @param topicResolver the {@link TopicResolver} to resolve the single topic with
+     * @return a {@link MultiTopicResolver} resolving the single topic resolved by the given {@code topicResolver}
+     */
+    static MultiTopicResolver of(TopicResolver topicResolver) {
+        return event -> topicResolver.resolve(event)
+                                     .map(Collections::singletonList)
+                                     .orElse(Collections.emptyList());
+    }
+
+    /**
+     * Resolve an {@code EventMessage} to the distinct topics to publish the event to.
+     *
+     * @param event an {@code EventMessage}
+     * @return the topics to publish the event to, when empty the event message will not be published
+     */
+    default List<String> resolve(EventMessage<?> event) {
+        return this.apply(event);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.axonframework.common.AxonConfigurationException;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.axonframework.common.BuilderUtils.assertNonEmpty;
+import static org.axonframework.common.BuilderUtils.assertNonNull;
+
+/**
+ * A {@link TransactionalIdAllocator} combining a prefix and a node identity with leased slot numbers, resulting in
+ * {@code transactional.id}s of the format {@code [prefix][nodeId]-[slot]}.
+ * <p>
+ * A slot is leased for as long as the {@link org.apache.kafka.clients.producer.Producer} using it is alive, and the
+ * lowest free slot is always allocated first. As such a node allocates the same {@code transactional.id}s after a
+ * restart, fencing only the {@link org.apache.kafka.clients.producer.Producer}s of its previous incarnation (the
+ * genuine zombies), while nodes with distinct node identities never fence one another. The node identity should
+ * therefore be unique within the cluster and stable across restarts, like a host name in a stateful deployment.
+ * <p>
+ * Without a node identity, the {@code transactional.id}s are of the format {@code [prefix][slot]}. This only avoids
+ * collisions when every node uses a distinct prefix.
+ *
+ * @since 4.9.0
+ */
+public class NodeTransactionalIdAllocator implements TransactionalIdAllocator {
+
+    private final String baseId;
+    private final BitSet leasedSlots = new BitSet();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+
+    /**
+     * Instantiate a {@link NodeTransactionalIdAllocator} based on the fields contained in the {@link Builder}.
+     * <p>
+     * Will assert that the {@code prefix} is not {@code null}, and will throw an {@link AxonConfigurationException} if
+     * it is {@code null}.
+     *
+     * @param builder the {@link Builder} used to instantiate a {@link NodeTransactionalIdAllocator} instance
+     */
+    protected NodeTransactionalIdAllocator(Builder builder) {
+        builder.validate();
+        this.baseId = builder.nodeId == null ? builder.prefix : builder.prefix + builder.nodeId + "-";
+    }
+
+    /**
+     * Instantiate a Builder to be able to create a {@link NodeTransactionalIdAllocator}.
+     * <p>
+     * The {@code nodeId} is optional. The {@code prefix} is a <b>hard requirement</b> and as such should be provided.
+     *
+     * @return a Builder to be able to create a {@link NodeTransactionalIdAllocator}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public synchronized String allocate() {
+        int slot = leasedSlots.nextClearBit(0);
+        leasedSlots.set(slot);
+        String transactionalId = baseId + slot;
+        slotsById.put(transactionalId, slot);
+        return transactionalId;
+    }
+
+    @Override
+    public synchronized void release(String transactionalId) {
+        Integer slot = slotsById.remove(transactionalId);
+        if (slot != null) {
+            leasedSlots.clear(slot);
+        }
+    }
+
+    /**
+     * Builder class to instantiate a {@link NodeTransactionalIdAllocator}.
+     * <p>
+     * The {@code nodeId} is optional. The {@code prefix} is a <b>hard requirement</b> and as such should be provided.
+     */
+    public static class Builder {
+
+        private String prefix;
+        private String nodeId;
+
+        /**
+         * Sets the prefix of every allocated {@code transactional.id}.
+         *
+         * @param prefix the prefix of every allocated {@code transactional.id}
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder prefix(String prefix) {
+            assertNonNull(prefix, "The prefix may not be null");
+            this.prefix = prefix;
+            return this;
+        }
+
+        /**
+         * Sets the identity of this node, which should be unique within the cluster and stable across restarts.
+         *
+         * @param nodeId the identity of this node
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder nodeId(String nodeId) {
+            assertNonEmpty(nodeId, "The nodeId may not be null or empty");
+            this.nodeId = nodeId;
+            return this;
+        }
+
+        /**
+         * Initializes a {@link NodeTransactionalIdAllocator} as specified through this Builder.
+         *
+         * @return a {@link NodeTransactionalIdAllocator} as specified through this Builder
+         */
+        public NodeTransactionalIdAllocator build() {
+            return new NodeTransactionalIdAllocator(this);
+        }
+
+        /**
+         * Validates whether the fields contained in this Builder are set accordingly.
+         *
+         * @throws AxonConfigurationException if one field is asserted to be incorrect according to the Builder's
+         *                                    specifications
+         */
+        protected void validate() throws AxonConfigurationException {
+            assertNonNull(prefix, "The prefix is a hard requirement and should be provided");
+        }
+    }
+}
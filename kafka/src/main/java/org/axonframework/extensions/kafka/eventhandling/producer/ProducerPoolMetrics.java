@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the metrics of the pool of transactional {@link org.apache.kafka.clients.producer.Producer} instances
+ * maintained by the {@link DefaultProducerFactory}.
+ *
+ * @since 4.9.0
+ */
+public final class ProducerPoolMetrics {
+
+    private final long hits;
+    private final long misses;
+    private final long totalWaitNanos;
+    private final int size;
+    private final long discardedProducers;
+    private final long evictedProducers;
+
+    ProducerPoolMetrics(long hits,
+                        long misses,
+                        long totalWaitNanos,
+                        int size,
+                        long discardedProducers,
+                        long evictedProducers) {
+        this.hits = hits;
+        this.misses = misses;
+        this.totalWaitNanos = totalWaitNanos;
+        this.size = size;
+        this.discardedProducers = discardedProducers;
+        this.evictedProducers = evictedProducers;
+    }
+
+    /**
+     * The number of {@link org.apache.kafka.clients.producer.Producer} requests served from the pool.
+     *
+     * @return the number of {@link org.apache.kafka.clients.producer.Producer} requests served from the pool
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * The number of {@link org.apache.kafka.clients.producer.Producer} requests which required a new {@link
+     * org.apache.kafka.clients.producer.Producer} to be created and initialized.
+     *
+     * @return the number of {@link org.apache.kafka.clients.producer.Producer} requests not served from the pool
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * The ratio of {@link org.apache.kafka.clients.producer.Producer} requests served from the pool, between {@code 0}
+     * and {@code 1}. Returns {@code 0} if no requests have been made yet.
+     *
+     * @return the ratio of {@link org.apache.kafka.clients.producer.Producer} requests served from the pool
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /**
+     * The average time a request waited for a {@link org.apache.kafka.clients.producer.Producer}, including the time
+     * to create and initialize new {@link org.apache.kafka.clients.producer.Producer} instances on a miss.
+     *
+     * @return the average time a request waited for a {@link org.apache.kafka.clients.producer.Producer}
+     */
+    public Duration averageWaitTime() {
+        long requests = hits + misses;
+        return requests == 0 ? Duration.ZERO : Duration.ofNanos(totalWaitNanos / requests);
+    }
+
+    /**
+     * The number of idle {@link org.apache.kafka.clients.producer.Producer} instances currently in the pool.
+     *
+     * @return the number of idle {@link org.apache.kafka.clients.producer.Producer} instances currently in the pool
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The number of {@link org.apache.kafka.clients.producer.Producer} instances which were closed instead of returned
+     * to the pool, because they failed a transactional operation or were released during a transaction.
+     *
+     * @return the number of {@link org.apache.kafka.clients.producer.Producer} instances discarded as unhealthy
+     */
+    public long discardedProducers() {
+        return discardedProducers;
+    }
+
+    /**
+     * The number of {@link org.apache.kafka.clients.producer.Producer} instances which were closed after idling in the
+     * pool for longer than the configured idle timeout.
+     *
+     * @return the number of {@link org.apache.kafka.clients.producer.Producer} instances evicted for being idle
+     */
+    public long evictedProducers() {
+        return evictedProducers;
+    }
+
+    @Override
+    public String toString() {
+        return "ProducerPoolMetrics{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", averageWaitTime=" + averageWaitTime() +
+                ", size=" + size +
+                ", discardedProducers=" + discardedProducers +
+                ", evictedProducers=" + evictedProducers +
+                '}';
+    }
+}
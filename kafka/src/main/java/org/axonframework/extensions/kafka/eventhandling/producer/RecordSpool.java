@@ -0,0 +1,810 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.ByteBufferUnmapper;
+import org.axonframework.common.AxonConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.axonframework.common.BuilderUtils.assertNonNull;
+import static org.axonframework.common.BuilderUtils.assertThat;
+
+/**
+ * A durable, local write-ahead spool of records, used by the {@link KafkaPublisher} to decouple the commit of a {@link
+ * org.axonframework.messaging.unitofwork.UnitOfWork} from the availability and latency of Kafka.
+ * <p>
+ * Records are appended to memory-mapped segment files in the configured {@code directory}. An append returns once its
+ * records have been forced to disk. Concurrent appends share a single force, batching the fsyncs under load. Every
+ * entry carries a CRC32 checksum, such that an entry torn by a crash is detected and discarded when the spool is
+ * reopened. Corrupted entries followed by valid ones are not torn and are retained on reopening. Entries found
+ * corrupted while reading are logged and skipped, as they can never be relayed.
+ * <p>
+ * Records are read in the order they were appended. Once read records have been acknowledged by Kafka, the read
+ * position is checkpointed and the segments preceding it are deleted. Records appended but not acknowledged before a
+ * shut down or crash are read again once the spool is reopened. Records are hence relayed to Kafka at least once.
+ *
+ * @param <K> the key type of the records spooled
+ * @param <V> the value type of the records spooled
+ * @since 4.9.0
+ */
+public class RecordSpool<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordSpool.class);
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int ENTRY_HEADER_SIZE = 8;
+    private static final int END_OF_SEGMENT = -1;
+    private static final int NULL_LENGTH = -1;
+    private static final boolean WINDOWS =
+            System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Serializer<K> keySerializer;
+    private final Deserializer<K> keyDeserializer;
+    private final Serializer<V> valueSerializer;
+    private final Deserializer<V> valueDeserializer;
+
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private final Object appendSignal = new Object();
+    private final List<Segment> unsyncedSegments = new ArrayList<>();
+    private Segment writeSegment;
+    private int writeOffset;
+    private long writeSequence;
+    private long syncedSequence;
+    private boolean closed;
+    private volatile Position readablePosition;
+    private volatile Position acknowledgedPosition;
+
+    /**
+     * Instantiate a {@link RecordSpool} based on the fields contained in the {@link Builder}, opening the spool in the
+     * configured {@code directory}. Records spooled in a previous run, but not acknowledged yet, are recovered.
+     * <p>
+     * Will assert that the {@code directory}, {@code keySerde} and {@code valueSerde} are not {@code null}, and will
+     * throw an {@link AxonConfigurationException} if any of them is {@code null}.
+     *
+     * @param builder the {@link Builder} used to instantiate a {@link RecordSpool} instance
+     * @throws UncheckedIOException if the spool could not be opened
+     */
+    protected RecordSpool(Builder<K, V> builder) {
+        builder.validate();
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.keySerializer = builder.keySerde.serializer();
+        this.keyDeserializer = builder.keySerde.deserializer();
+        this.valueSerializer = builder.valueSerde.serializer();
+        this.valueDeserializer = builder.valueSerde.deserializer();
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the record spool in [" + directory + "]", e);
+        }
+    }
+
+    /**
+     * Instantiate a Builder to be able to create a {@link RecordSpool}.
+     * <p>
+     * The {@code segmentSize} defaults to {@code 64} MiB. The {@code directory}, {@code keySerde} and {@code
+     * valueSerde} are <b>hard requirements</b> and as such should be provided.
+     *
+     * @param <K> the key type of the records spooled
+     * @param <V> the value type of the records spooled
+     * @return a Builder to be able to create a {@link RecordSpool}
+     */
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        Position checkpoint = readCheckpoint();
+        List<Long> indices = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                 .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                 .forEach(name -> indices.add(Long.parseLong(
+                         name.substring(0, name.length() - SEGMENT_SUFFIX.length())
+                 )));
+        }
+        Collections.sort(indices);
+        if (checkpoint != null) {
+            for (Long index : indices) {
+                if (index < checkpoint.segment) {
+                    Files.deleteIfExists(segmentFile(index));
+                }
+            }
+            indices.removeIf(index -> index < checkpoint.segment);
+        }
+
+        if (indices.isEmpty()) {
+            writeSegment = segment(checkpoint != null ? checkpoint.segment : 0);
+            writeOffset = 0;
+        } else {
+            writeSegment = segment(indices.get(indices.size() - 1));
+            writeOffset = recoverWriteOffset(writeSegment);
+            if (writeOffset == END_OF_SEGMENT) {
+                // The segment was completed, but its successor was never created
+                writeSegment = segment(writeSegment.index + 1);
+                writeOffset = 0;
+            }
+        }
+        readablePosition = new Position(writeSegment.index, writeOffset);
+        acknowledgedPosition = checkpoint != null && !indices.isEmpty() && indices.get(0) == checkpoint.segment
+                ? checkpoint
+                : new Position(indices.isEmpty() ? writeSegment.index : indices.get(0), 0);
+        logger.debug("Opened record spool in [{}], relaying from [{}] up to [{}].",
+                     directory, acknowledgedPosition, readablePosition);
+    }
+
+    /**
+     * Scans the given {@code segment} for the end of its valid entries, returning {@link #END_OF_SEGMENT} if it has
+     * been completed. A torn entry, left behind by a crash during an append, is zeroed, such that it is overwritten by
+     * the next append. A corrupted entry followed by a valid entry is not torn, and is retained to be skipped when
+     * read, as the entries following it have already been appended.
+     */
+    private int recoverWriteOffset(Segment segment) {
+        int offset = 0;
+        while (segment.capacity - offset >= ENTRY_HEADER_SIZE) {
+            int length = segment.buffer.getInt(offset);
+            if (length == 0) {
+                return offset;
+            }
+            if (length == END_OF_SEGMENT) {
+                return END_OF_SEGMENT;
+            }
+            if (!hasValidLength(segment, offset, length)) {
+                return discardTornEntry(segment, offset);
+            }
+            if (!hasValidChecksum(segment, offset, length)) {
+                if (!isFollowedByValidEntry(segment, offset + ENTRY_HEADER_SIZE + length)) {
+                    return discardTornEntry(segment, offset);
+                }
+                logger.warn("Retaining corrupted entry in record spool segment [{}] at offset [{}], "
+                                    + "as valid entries follow it.", segment.index, offset);
+            }
+            offset += ENTRY_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns whether a valid entry follows the given {@code offset} of the given {@code segment}, possibly after
+     * further corrupted entries.
+     */
+    private static boolean isFollowedByValidEntry(Segment segment, int offset) {
+        while (segment.capacity - offset >= ENTRY_HEADER_SIZE) {
+            int length = segment.buffer.getInt(offset);
+            if (!hasValidLength(segment, offset, length)) {
+                return false;
+            }
+            if (hasValidChecksum(segment, offset, length)) {
+                return true;
+            }
+            offset += ENTRY_HEADER_SIZE + length;
+        }
+        return false;
+    }
+
+    private static boolean hasValidLength(Segment segment, int offset, int length) {
+        return length > 0 && length <= segment.capacity - offset - ENTRY_HEADER_SIZE;
+    }
+
+    private static boolean hasValidChecksum(Segment segment, int offset, int length) {
+        return checksum(readPayload(segment, offset, length)) == segment.buffer.getInt(offset + 4);
+    }
+
+    private static int discardTornEntry(Segment segment, int offset) {
+        logger.warn("Discarding torn entry in record spool segment [{}] at offset [{}].", segment.index, offset);
+        for (int i = offset; i < segment.capacity; i++) {
+            segment.buffer.put(i, (byte) 0);
+        }
+        segment.buffer.force();
+        return offset;
+    }
+
+    /**
+     * Appends the given {@code records} to the spool, returning once they have been forced to disk. Concurrent
+     * appends share a single force.
+     *
+     * @param records the records to append
+     * @throws IllegalArgumentException if a record does not fit in a single segment
+     * @throws IllegalStateException    if the spool has been closed
+     * @throws UncheckedIOException     if a new segment could not be created
+     */
+    public void append(List<ProducerRecord<K, V>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<byte[]> payloads = new ArrayList<>(records.size());
+        for (ProducerRecord<K, V> record : records) {
+            byte[] payload = encode(record);
+            if (ENTRY_HEADER_SIZE + payload.length > segmentSize) {
+                throw new IllegalArgumentException(
+                        "Record of " + payload.length + " bytes does not fit in a spool segment of " + segmentSize
+                                + " bytes"
+                );
+            }
+            payloads.add(payload);
+        }
+        long sequence;
+        synchronized (writeLock) {
+            if (closed) {
+                throw new IllegalStateException("The record spool in [" + directory + "] has been closed");
+            }
+            payloads.forEach(this::write);
+            sequence = ++writeSequence;
+        }
+        sync(sequence);
+    }
+
+    private void write(byte[] payload) {
+        int entrySize = ENTRY_HEADER_SIZE + payload.length;
+        if (entrySize > writeSegment.capacity - writeOffset) {
+            roll();
+        }
+        MappedByteBuffer buffer = writeSegment.buffer;
+        buffer.putInt(writeOffset + 4, checksum(payload));
+        ByteBuffer payloadBuffer = buffer.duplicate();
+        payloadBuffer.position(writeOffset + ENTRY_HEADER_SIZE);
+        payloadBuffer.put(payload);
+        // The length is written last, such that a torn entry reads as the end of the segment
+        buffer.putInt(writeOffset, payload.length);
+        writeOffset += entrySize;
+    }
+
+    private void roll() {
+        if (writeSegment.capacity - writeOffset >= 4) {
+            writeSegment.buffer.putInt(writeOffset, END_OF_SEGMENT);
+        }
+        unsyncedSegments.add(writeSegment);
+        writeSegment = segment(writeSegment.index + 1);
+        writeOffset = 0;
+    }
+
+    /**
+     * Forces all segments written to up to the given {@code sequence} to disk, unless a concurrent sync already did.
+     * Only synced records become readable.
+     */
+    private void sync(long sequence) {
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            List<Segment> segmentsToForce;
+            long sequenceToSync;
+            Position position;
+            synchronized (writeLock) {
+                segmentsToForce = new ArrayList<>(unsyncedSegments);
+                segmentsToForce.add(writeSegment);
+                unsyncedSegments.clear();
+                sequenceToSync = writeSequence;
+                position = new Position(writeSegment.index, writeOffset);
+            }
+            segmentsToForce.forEach(segment -> segment.buffer.force());
+            syncedSequence = sequenceToSync;
+            readablePosition = position;
+        }
+        synchronized (appendSignal) {
+            appendSignal.notifyAll();
+        }
+    }
+
+    /**
+     * Whether the spool contains records which have not been acknowledged yet.
+     *
+     * @return {@code true} if the spool contains records which have not been acknowledged yet, {@code false}
+     * otherwise
+     */
+    public boolean hasPendingRecords() {
+        return !acknowledgedPosition.equals(readablePosition);
+    }
+
+    /**
+     * The position up to which records have been acknowledged, being the position to resume reading from.
+     *
+     * @return the position up to which records have been acknowledged
+     */
+    Position acknowledgedPosition() {
+        return acknowledgedPosition;
+    }
+
+    /**
+     * Reads at most {@code maxRecords} records following the given {@code position}, in the order they were
+     * appended. Entries which are corrupted, or which can not be decoded, are logged and skipped. If the length of a
+     * corrupted entry can not be trusted, the remainder of its segment is skipped.
+     *
+     * @param position   the position to read from
+     * @param maxRecords the maximum number of records to read
+     * @return the records read and the position following them
+     */
+    ReadBatch<K, V> read(Position position, int maxRecords) {
+        Position limit = readablePosition;
+        long segmentIndex = position.segment;
+        int offset = position.offset;
+        List<ProducerRecord<K, V>> records = new ArrayList<>();
+        while (records.size() < maxRecords && (segmentIndex < limit.segment || offset < limit.offset)) {
+            Segment segment = segment(segmentIndex);
+            if (segmentIndex < limit.segment && (segment.capacity - offset < ENTRY_HEADER_SIZE
+                    || segment.buffer.getInt(offset) <= 0)) {
+                segmentIndex++;
+                offset = 0;
+                continue;
+            }
+            int end = segmentIndex < limit.segment ? segment.capacity : limit.offset;
+            int length = end - offset < ENTRY_HEADER_SIZE ? 0 : segment.buffer.getInt(offset);
+            if (length <= 0 || length > end - offset - ENTRY_HEADER_SIZE) {
+                logger.error("Skipping the remainder of record spool segment [{}] from offset [{}], "
+                                     + "as the entry at this offset is corrupted.", segmentIndex, offset);
+                if (segmentIndex < limit.segment) {
+                    segmentIndex++;
+                    offset = 0;
+                } else {
+                    offset = limit.offset;
+                }
+                continue;
+            }
+            byte[] payload = readPayload(segment, offset, length);
+            if (checksum(payload) != segment.buffer.getInt(offset + 4)) {
+                logger.error("Skipping corrupted entry in record spool segment [{}] at offset [{}].",
+                             segmentIndex, offset);
+            } else {
+                try {
+                    records.add(decode(payload));
+                } catch (RuntimeException e) {
+                    logger.error("Skipping undecodable entry in record spool segment [{}] at offset [{}].",
+                                 segmentIndex, offset, e);
+                }
+            }
+            offset += ENTRY_HEADER_SIZE + length;
+        }
+        return new ReadBatch<>(records, new Position(segmentIndex, offset));
+    }
+
+    /**
+     * Waits for at most {@code timeoutMillis} until records following the given {@code position} become readable.
+     *
+     * @param position      the position following the records read so far
+     * @param timeoutMillis the maximum time to wait in milliseconds
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitRecords(Position position, long timeoutMillis) throws InterruptedException {
+        synchronized (appendSignal) {
+            if (position.equals(readablePosition)) {
+                appendSignal.wait(timeoutMillis);
+            }
+        }
+    }
+
+    /**
+     * Acknowledges all records preceding the given {@code position}, checkpointing it and deleting the segments
+     * preceding it. The checkpoint is written to a temporary file which is forced to disk, and then atomically moved
+     * in place, after which the directory is forced too. A crash hence leaves either the previous or the new
+     * checkpoint.
+     *
+     * @param position the position following the acknowledged records
+     * @throws UncheckedIOException if the checkpoint could not be written
+     */
+    void acknowledge(Position position) {
+        try {
+            Path temporaryCheckpoint = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryCheckpoint,
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer checkpoint = ByteBuffer.allocate(12).putLong(position.segment).putInt(position.offset);
+                checkpoint.flip();
+                while (checkpoint.hasRemaining()) {
+                    channel.write(checkpoint);
+                }
+                channel.force(true);
+            }
+            Files.move(temporaryCheckpoint, directory.resolve(CHECKPOINT_FILE),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to checkpoint the record spool in [" + directory + "]", e);
+        }
+        acknowledgedPosition = position;
+        for (Segment segment : segments.headMap(position.segment).values()) {
+            segments.remove(segment.index);
+            // Only segments preceding the acknowledged position are deleted, which are no longer read or written
+            segment.unmap();
+            segment.close();
+            try {
+                Files.deleteIfExists(segmentFile(segment.index));
+            } catch (IOException e) {
+                logger.warn("Unable to delete acknowledged record spool segment [{}].", segment.index, e);
+            }
+        }
+    }
+
+    /**
+     * Forces the entries of the spool's directory to disk, such that created and renamed files survive a crash. Skipped
+     * on Windows, which does not support opening a directory.
+     */
+    private void forceDirectory() throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private Position readCheckpoint() throws IOException {
+        Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpointFile)) {
+            return null;
+        }
+        ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+        return new Position(checkpoint.getLong(), checkpoint.getInt());
+    }
+
+    /**
+     * Closes the spool, forcing all appended records to disk. Records not acknowledged yet are recovered when the
+     * spool is reopened.
+     */
+    public void close() {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        sync(writeSequence());
+        segments.values().forEach(Segment::close);
+        segments.clear();
+        synchronized (appendSignal) {
+            appendSignal.notifyAll();
+        }
+    }
+
+    private long writeSequence() {
+        synchronized (writeLock) {
+            return writeSequence;
+        }
+    }
+
+    private Segment segment(long index) {
+        Segment segment = segments.get(index);
+        if (segment != null) {
+            return segment;
+        }
+        synchronized (segments) {
+            return segments.computeIfAbsent(index, this::openSegment);
+        }
+    }
+
+    private Segment openSegment(long index) {
+        Path file = segmentFile(index);
+        try {
+            boolean created = !Files.exists(file);
+            FileChannel channel = FileChannel.open(
+                    file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+            );
+            int capacity = (int) Math.max(channel.size(), segmentSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            if (created) {
+                forceDirectory();
+            }
+            return new Segment(index, channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open record spool segment [" + file + "]", e);
+        }
+    }
+
+    private Path segmentFile(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private static byte[] readPayload(Segment segment, int offset, int length) {
+        byte[] payload = new byte[length];
+        ByteBuffer payloadBuffer = segment.buffer.duplicate();
+        payloadBuffer.position(offset + ENTRY_HEADER_SIZE);
+        payloadBuffer.get(payload);
+        return payload;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private byte[] encode(ProducerRecord<K, V> record) {
+        byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+        byte[] key = keySerializer.serialize(record.topic(), record.key());
+        byte[] value = valueSerializer.serialize(record.topic(), record.value());
+        Header[] headers = record.headers().toArray();
+        int size = 4 + topic.length + 4 + 1 + 8 + sizeOf(key) + sizeOf(value) + 4;
+        for (Header header : headers) {
+            size += sizeOf(header.key().getBytes(StandardCharsets.UTF_8)) + sizeOf(header.value());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        putBytes(buffer, topic);
+        buffer.putInt(record.partition() == null ? NULL_LENGTH : record.partition());
+        buffer.put((byte) (record.timestamp() == null ? 0 : 1));
+        buffer.putLong(record.timestamp() == null ? 0 : record.timestamp());
+        putBytes(buffer, key);
+        putBytes(buffer, value);
+        buffer.putInt(headers.length);
+        for (Header header : headers) {
+            putBytes(buffer, header.key().getBytes(StandardCharsets.UTF_8));
+            putBytes(buffer, header.value());
+        }
+        return buffer.array();
+    }
+
+    private ProducerRecord<K, V> decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        String topic = new String(getBytes(buffer), StandardCharsets.UTF_8);
+        int partition = buffer.getInt();
+        boolean hasTimestamp = buffer.get() == 1;
+        long timestamp = buffer.getLong();
+        byte[] key = getBytes(buffer);
+        byte[] value = getBytes(buffer);
+        RecordHeaders headers = new RecordHeaders();
+        int headerCount = buffer.getInt();
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(new String(getBytes(buffer), StandardCharsets.UTF_8), getBytes(buffer));
+        }
+        return new ProducerRecord<>(topic,
+                                    partition == NULL_LENGTH ? null : partition,
+                                    hasTimestamp ? timestamp : null,
+                                    keyDeserializer.deserialize(topic, key),
+                                    valueDeserializer.deserialize(topic, value),
+                                    headers);
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * A position in the spool, being a segment and the offset of an entry within it.
+     */
+    static final class Position {
+
+        private final long segment;
+        private final int offset;
+
+        Position(long segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Position position = (Position) o;
+            return segment == position.segment && offset == position.offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(segment, offset);
+        }
+
+        @Override
+        public String toString() {
+            return segment + ":" + offset;
+        }
+    }
+
+    /**
+     * The records read from the spool, and the position following them.
+     *
+     * @param <K> the key type of the records read
+     * @param <V> the value type of the records read
+     */
+    static final class ReadBatch<K, V> {
+
+        private final List<ProducerRecord<K, V>> records;
+        private final Position next;
+
+        private ReadBatch(List<ProducerRecord<K, V>> records, Position next) {
+            this.records = records;
+            this.next = next;
+        }
+
+        List<ProducerRecord<K, V>> records() {
+            return records;
+        }
+
+        Position next() {
+            return next;
+        }
+    }
+
+    private static final class Segment {
+
+        private final long index;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+
+        private Segment(long index, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close record spool segment [{}].", index, e);
+            }
+        }
+
+        /**
+         * Releases the memory mapping of this segment, rather than leaving it to the garbage collector. The segment may
+         * not be accessed afterwards.
+         */
+        private void unmap() {
+            try {
+                ByteBufferUnmapper.unmap("record spool segment " + index, buffer);
+            } catch (IOException e) {
+                logger.debug("Unable to unmap record spool segment [{}].", index, e);
+            }
+        }
+    }
+
+    /**
+     * Builder class to instantiate a {@link RecordSpool}.
+     * <p>
+     * The {@code segmentSize} defaults to {@code 64} MiB. The {@code directory}, {@code keySerde} and {@code
+     * valueSerde} are <b>hard requirements</b> and as such should be provided.
+     *
+     * @param <K> the key type of the records spooled
+     * @param <V> the value type of the records spooled
+     */
+    public static class Builder<K, V> {
+
+        private Path directory;
+        private Serde<K> keySerde;
+        private Serde<V> valueSerde;
+        private int segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * Sets the directory to store the spool's segment files and checkpoint in. The directory is created if it does
+         * not exist. It should be on a local disk and be used by a single spool.
+         *
+         * @param directory the directory to store the spool in
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> directory(Path directory) {
+            assertNonNull(directory, "The directory may not be null");
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Serde} used to store and restore the keys of spooled records.
+         *
+         * @param keySerde the {@link Serde} used to store and restore the keys of spooled records
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> keySerde(Serde<K> keySerde) {
+            assertNonNull(keySerde, "The keySerde may not be null");
+            this.keySerde = keySerde;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Serde} used to store and restore the values of spooled records.
+         *
+         * @param valueSerde the {@link Serde} used to store and restore the values of spooled records
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> valueSerde(Serde<V> valueSerde) {
+            assertNonNull(valueSerde, "The valueSerde may not be null");
+            this.valueSerde = valueSerde;
+            return this;
+        }
+
+        /**
+         * Sets the size in bytes of the memory-mapped segment files. A record should fit in a single segment.
+         * Defaults to {@code 64} MiB.
+         *
+         * @param segmentSize the size in bytes of the segment files
+         * @return the current Builder instance, for fluent interfacing
+         */
+        public Builder<K, V> segmentSize(int segmentSize) {
+            assertThat(segmentSize, size -> size > ENTRY_HEADER_SIZE,
+                       "The segmentSize should be larger than " + ENTRY_HEADER_SIZE + " bytes");
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Initializes a {@link RecordSpool} as specified through this Builder.
+         *
+         * @return a {@link RecordSpool} as specified through this Builder
+         */
+        public RecordSpool<K, V> build() {
+            return new RecordSpool<>(this);
+        }
+
+        /**
+         * Validates whether the fields contained in this Builder are set accordingly.
+         *
+         * @throws AxonConfigurationException if one field is asserted to be incorrect according to the Builder's
+         *                                    specifications
+         */
+        protected void validate() throws AxonConfigurationException {
+            assertNonNull(directory, "The directory is a hard requirement and should be provided");
+            assertNonNull(keySerde, "The keySerde is a hard requirement and should be provided");
+            assertNonNull(valueSerde, "The valueSerde is a hard requirement and should be provided");
+        }
+    }
+}
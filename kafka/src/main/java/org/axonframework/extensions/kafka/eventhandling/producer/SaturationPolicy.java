@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+/**
+ * Policies for handling events published while the {@link AdmissionControl} of a {@link KafkaPublisher} is saturated.
+ * <ul>
+ * <li>FAIL_FAST: reject the event immediately</li>
+ * <li>SHED: drop the event, reporting it as ignored</li>
+ * <li>DELAY: wait for capacity for at most the configured delay, rejecting the event if none frees up</li>
+ * </ul>
+ *
+ * @since 4.9.0
+ */
+public enum SaturationPolicy {
+
+    /**
+     * Indicates a saturation policy which rejects events immediately, by failing their publication.
+     */
+    FAIL_FAST,
+
+    /**
+     * Indicates a saturation policy which drops events, reporting them as ignored to the {@link
+     * org.axonframework.monitoring.MessageMonitor}.
+     */
+    SHED,
+
+    /**
+     * Indicates a saturation policy which delays events until capacity frees up, for at most a configured delay.
+     * Events for which no capacity freed up in time are rejected.
+     */
+    DELAY
+}
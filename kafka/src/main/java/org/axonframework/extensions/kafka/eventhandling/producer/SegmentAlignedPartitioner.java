@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.axonframework.extensions.kafka.eventhandling.SegmentPartitions;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Kafka {@link Partitioner} placing every record on the partition derived from the same hash an Axon {@link
+ * org.axonframework.eventhandling.Segment} matches its key on, as defined by {@link SegmentPartitions}. All records of
+ * a sequence identifier hence end up on a single partition, and the records matched by a segment on a fixed subset of
+ * the partitions. Segment-scoped consumers can select these through {@link
+ * SegmentPartitions#topicPartitionsFor(org.axonframework.eventhandling.Segment, java.util.Collection)}.
+ * <p>
+ * Only the aligned partition count, the largest power of two not exceeding the number of partitions of a topic, is
+ * used. Records without a key are distributed over the aligned partitions in a round-robin fashion.
+ * <p>
+ * Configure this partitioner through the {@link
+ * org.apache.kafka.clients.producer.ProducerConfig#PARTITIONER_CLASS_CONFIG} property of the {@link ProducerFactory}.
+ *
+ * @since 4.9.0
+ */
+public class SegmentAlignedPartitioner implements Partitioner {
+
+    private final AtomicInteger unkeyedCounter = new AtomicInteger();
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int numberOfPartitions = cluster.partitionCountForTopic(topic);
+        if (key == null) {
+            int alignedPartitionCount = SegmentPartitions.alignedPartitionCount(numberOfPartitions);
+            return (unkeyedCounter.getAndIncrement() & Integer.MAX_VALUE) % alignedPartitionCount;
+        }
+        return SegmentPartitions.partitionFor(key, numberOfPartitions);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        // No configuration required
+    }
+
+    @Override
+    public void close() {
+        // No resources to release
+    }
+}
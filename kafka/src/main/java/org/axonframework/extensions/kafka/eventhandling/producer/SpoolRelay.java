@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.InvalidRecordException;
+import org.apache.kafka.common.errors.InvalidTopicException;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TopicAuthorizationException;
+import org.axonframework.common.AxonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Relays the records of a {@link RecordSpool} to Kafka on a background thread, in the order they were spooled.
+ * <p>
+ * Records are read in batches, which are sent through a {@link Producer} of the given {@link ProducerFactory}, in a
+ * Kafka transaction if it is transactional. Once all records of a batch have been acknowledged, the batch is
+ * acknowledged to the {@link RecordSpool}, truncating the segments it no longer needs. A batch which fails is retried
+ * from its first record after a back off, retaining the order of the records at the expense of possible duplicates.
+ * Corrupted entries are not retried, as they are skipped by the {@link RecordSpool} when read. Neither are records
+ * which Kafka will never accept, for example because they are too large or can not be serialized. When a batch fails
+ * for such a reason, its records are relayed one by one, logging and skipping those which fail for that reason.
+ *
+ * @param <K> the key type of the records relayed
+ * @param <V> the value type of the records relayed
+ * @since 4.9.0
+ */
+final class SpoolRelay<K, V> implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolRelay.class);
+
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long IDLE_WAIT_MILLIS = 1_000;
+    private static final long RETRY_BACKOFF_MILLIS = 1_000;
+
+    private final RecordSpool<K, V> spool;
+    private final ProducerFactory<K, V> producerFactory;
+    private final long ackTimeoutMillis;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Instantiate a {@link SpoolRelay} relaying the records of the given {@code spool} through {@link Producer}s of
+     * the given {@code producerFactory}, awaiting the acknowledgement of each record for at most {@code
+     * ackTimeoutMillis} milliseconds.
+     *
+     * @param spool            the {@link RecordSpool} to relay the records of
+     * @param producerFactory  the {@link ProducerFactory} providing the {@link Producer}s to relay records with
+     * @param ackTimeoutMillis the time in milliseconds to await the acknowledgement of a record
+     */
+    SpoolRelay(RecordSpool<K, V> spool, ProducerFactory<K, V> producerFactory, long ackTimeoutMillis) {
+        this.spool = spool;
+        this.producerFactory = producerFactory;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+    }
+
+    /**
+     * Starts relaying on a background thread, unless already started.
+     */
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new AxonThreadFactory("KafkaPublisher-spool-relay").newThread(this);
+        thread.start();
+    }
+
+    /**
+     * Stops relaying, waiting for the batch in progress to complete. Records not relayed yet remain in the spool.
+     */
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        RecordSpool.Position position = spool.acknowledgedPosition();
+        while (running) {
+            try {
+                RecordSpool.ReadBatch<K, V> batch = spool.read(position, MAX_BATCH_SIZE);
+                if (batch.records().isEmpty()) {
+                    spool.awaitRecords(batch.next(), IDLE_WAIT_MILLIS);
+                    position = batch.next();
+                    continue;
+                }
+                relayBatch(batch.records());
+                spool.acknowledge(batch.next());
+                position = batch.next();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Unable to relay spooled records to Kafka. Retrying in [{}] ms.", RETRY_BACKOFF_MILLIS, e);
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Relays the given {@code records}. If they fail for a reason which can not be resolved by retrying, the records
+     * are relayed one by one instead, skipping those which fail for such a reason.
+     */
+    private void relayBatch(List<ProducerRecord<K, V>> records)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            relay(records);
+        } catch (RuntimeException | ExecutionException e) {
+            if (!isNonRetriable(e)) {
+                throw e;
+            }
+            logger.warn("Unable to relay batch of spooled records to Kafka. Relaying its records one by one.", e);
+            for (ProducerRecord<K, V> record : records) {
+                relaySingle(record);
+            }
+        }
+    }
+
+    private void relaySingle(ProducerRecord<K, V> record)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            relay(Collections.singletonList(record));
+        } catch (RuntimeException | ExecutionException e) {
+            if (!isNonRetriable(e)) {
+                throw e;
+            }
+            logger.error("Skipping spooled record for topic [{}], as Kafka will never accept it.", record.topic(), e);
+        }
+    }
+
+    /**
+     * Returns whether the given {@code failure} to relay records is caused by a record Kafka will never accept,
+     * regardless of how often it is retried.
+     */
+    private static boolean isNonRetriable(Exception failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RecordTooLargeException
+                    || cause instanceof SerializationException
+                    || cause instanceof InvalidTopicException
+                    || cause instanceof InvalidRecordException
+                    || cause instanceof TopicAuthorizationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("squid:S2095") //producer is closed in the finally block
+    private void relay(List<ProducerRecord<K, V>> records)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Producer<K, V> producer = producerFactory.createProducer();
+        boolean transactional = producerFactory.confirmationMode().isTransactional();
+        try {
+            if (transactional) {
+                producer.beginTransaction();
+            }
+            List<Future<RecordMetadata>> acknowledgements = new ArrayList<>(records.size());
+            records.forEach(record -> acknowledgements.add(producer.send(record)));
+            if (transactional) {
+                producer.commitTransaction();
+            }
+            long deadline = System.currentTimeMillis() + ackTimeoutMillis;
+            for (Future<RecordMetadata> acknowledgement : acknowledgements) {
+                acknowledgement.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+            logger.debug("Relayed [{}] spooled records to Kafka.", records.size());
+        } catch (RuntimeException | InterruptedException | ExecutionException | TimeoutException e) {
+            if (transactional) {
+                abort(producer);
+            }
+            throw e;
+        } finally {
+            producer.close();
+        }
+    }
+
+    private static void abort(Producer<?, ?> producer) {
+        try {
+            producer.abortTransaction();
+        } catch (Exception e) {
+            logger.debug("Unable to abort the transaction of spooled records.", e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.axonframework.extensions.kafka.eventhandling.consumer.ConsumedOffsets;
+import org.axonframework.messaging.EventPublicationFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Commits the records of concurrent units of work in a shared Kafka transaction, rather than in a transaction per unit
+ * of work. Like the group commit of a database, this trades a little latency for far fewer transaction commits, and
+ * hence fewer transaction markers and round trips to the transaction coordinator.
+ * <p>
+ * The first participant to {@link #commit(List, ConsumedOffsets) commit} opens a group and waits for the configured
+ * window. All participants committing within this window join the group. The first participant then sends all records
+ * of the group in a single transaction and commits it on behalf of all participants. Every participant blocks until
+ * this transaction has been committed or has failed, and hence succeeds or fails together with the other participants.
+ * Participants other than the first wait for at most the window and the configured acknowledgement timeout, after
+ * which they fail regardless of the outcome of the transaction. The {@link ConsumedOffsets} of the participants, if
+ * any, are committed as part of the shared transaction.
+ *
+ * @param <K> the key type of the records committed
+ * @param <V> the value type of the records committed
+ * @since 4.9.0
+ */
+final class TransactionGroupCommit<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionGroupCommit.class);
+
+    private final ProducerFactory<K, V> producerFactory;
+    private final long windowMillis;
+    private final long ackTimeoutMillis;
+    private final AdmissionControl admissionControl;
+    private final Object lock = new Object();
+    private Group openGroup;
+
+    /**
+     * Instantiate a {@link TransactionGroupCommit} committing groups of records through transactional {@link
+     * Producer}s of the given {@code producerFactory}, gathering participants for {@code windowMillis} milliseconds.
+     *
+     * @param producerFactory  the {@link ProducerFactory} providing transactional {@link Producer}s
+     * @param windowMillis     the time in milliseconds participants may join a group after it has been opened
+     * @param ackTimeoutMillis the time in milliseconds participants wait for the transaction of their group, on top of
+     *                         the {@code windowMillis}
+     */
+    TransactionGroupCommit(ProducerFactory<K, V> producerFactory, long windowMillis, long ackTimeoutMillis) {
+        this(producerFactory, windowMillis, ackTimeoutMillis, null);
+    }
+
+    /**
+     * Instantiate a {@link TransactionGroupCommit} committing groups of records through transactional {@link
+     * Producer}s of the given {@code producerFactory}, gathering participants for {@code windowMillis} milliseconds.
+     * The records sent are tracked by the given {@code admissionControl}, unless it is {@code null}.
+     *
+     * @param producerFactory  the {@link ProducerFactory} providing transactional {@link Producer}s
+     * @param windowMillis     the time in milliseconds participants may join a group after it has been opened
+     * @param ackTimeoutMillis the time in milliseconds participants wait for the transaction of their group, on top of
+     *                         the {@code windowMillis}
+     * @param admissionControl the {@link AdmissionControl} tracking the records sent, or {@code null}
+     */
+    TransactionGroupCommit(ProducerFactory<K, V> producerFactory,
+                           long windowMillis,
+                           long ackTimeoutMillis,
+                           AdmissionControl admissionControl) {
+        this.producerFactory = producerFactory;
+        this.windowMillis = windowMillis;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.admissionControl = admissionControl;
+    }
+
+    /**
+     * Commit the given {@code records} as part of a group, blocking until the transaction of the group has been
+     * committed. The given {@code consumedOffsets} are committed as part of the transaction too, unless they are
+     * {@code null}.
+     *
+     * @param records         the records to commit
+     * @param consumedOffsets the {@link ConsumedOffsets} to commit with the {@code records}, or {@code null}
+     * @throws EventPublicationFailedException if the transaction of the group could not be committed, or was not
+     *                                         committed in time
+     */
+    void commit(List<ProducerRecord<K, V>> records, ConsumedOffsets consumedOffsets) {
+        Group group;
+        boolean leader;
+        synchronized (lock) {
+            leader = openGroup == null;
+            if (leader) {
+                openGroup = new Group();
+            }
+            group = openGroup;
+            group.records.addAll(records);
+            if (consumedOffsets != null) {
+                group.consumedOffsets.add(consumedOffsets);
+            }
+        }
+        if (leader) {
+            awaitParticipants();
+            synchronized (lock) {
+                openGroup = null;
+            }
+            group.commit();
+        }
+        group.awaitOutcome();
+    }
+
+    private void awaitParticipants() {
+        try {
+            Thread.sleep(windowMillis);
+        } catch (InterruptedException e) {
+            logger.debug("Interrupted while waiting for participants of a group commit. Committing right away.");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The records of the participants of a single group commit.
+     */
+    private final class Group {
+
+        private final List<ProducerRecord<K, V>> records = new ArrayList<>();
+        private final List<ConsumedOffsets> consumedOffsets = new ArrayList<>();
+        private final CompletableFuture<Void> outcome = new CompletableFuture<>();
+
+        @SuppressWarnings("squid:S2095") //producer is closed in the finally block
+        private void commit() {
+            Producer<K, V> producer = null;
+            try {
+                producer = producerFactory.createProducer();
+                producer.beginTransaction();
+                for (ProducerRecord<K, V> record : records) {
+                    if (admissionControl == null) {
+                        producer.send(record);
+                    } else {
+                        admissionControl.send(producer, record, null);
+                    }
+                }
+                for (ConsumedOffsets offsets : consumedOffsets) {
+                    producer.sendOffsetsToTransaction(offsets.offsets(), offsets.groupMetadata());
+                }
+                producer.commitTransaction();
+                consumedOffsets.forEach(ConsumedOffsets::markCommitted);
+                logger.debug("Committed [{}] records in a shared transaction.", records.size());
+                outcome.complete(null);
+            } catch (Throwable e) {
+                // Any failure, including errors, is handed to the participants awaiting the outcome
+                if (producer != null) {
+                    abort(producer);
+                }
+                outcome.completeExceptionally(e);
+            } finally {
+                if (producer != null) {
+                    close(producer);
+                }
+            }
+        }
+
+        private void awaitOutcome() {
+            try {
+                outcome.get(windowMillis + ackTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw new EventPublicationFailedException(
+                        "Event publication failed, exception occurred while committing shared Kafka transaction.",
+                        e.getCause()
+                );
+            } catch (TimeoutException e) {
+                throw new EventPublicationFailedException(
+                        "Event publication failed, shared Kafka transaction was not committed in time.", e
+                );
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EventPublicationFailedException(
+                        "Event publication failed, interrupted while awaiting shared Kafka transaction.", e
+                );
+            }
+        }
+
+        private void abort(Producer<K, V> producer) {
+            try {
+                producer.abortTransaction();
+            } catch (Exception e) {
+                logger.warn("Unable to abort shared transaction.", e);
+            }
+        }
+
+        private void close(Producer<K, V> producer) {
+            try {
+                producer.close();
+            } catch (Exception e) {
+                logger.debug("Unable to close producer.", e);
+            }
+        }
+    }
+}
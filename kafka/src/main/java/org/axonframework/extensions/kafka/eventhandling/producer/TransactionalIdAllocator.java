@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+/**
+ * Allocates the {@code transactional.id} for transactional {@link org.apache.kafka.clients.producer.Producer}
+ * instances. Kafka fences any older {@link org.apache.kafka.clients.producer.Producer} using the same {@code
+ * transactional.id}, hence an allocator should never hand out an id which is in use by another live {@link
+ * org.apache.kafka.clients.producer.Producer}, be it in this JVM or on another node.
+ *
+ * @since 4.9.0
+ */
+public interface TransactionalIdAllocator {
+
+    /**
+     * Allocates a {@code transactional.id} which is not in use by any other live {@link
+     * org.apache.kafka.clients.producer.Producer}.
+     *
+     * @return the allocated {@code transactional.id}
+     */
+    String allocate();
+
+    /**
+     * Releases the given {@code transactionalId}, as the {@link org.apache.kafka.clients.producer.Producer} using it
+     * has been closed. The {@code transactionalId} may be allocated again afterwards.
+     *
+     * @param transactionalId the {@code transactional.id} to release
+     */
+    void release(String transactionalId);
+}
@@ -24,9 +24,12 @@
 import org.axonframework.eventhandling.DomainEventMessage;
 import org.axonframework.eventhandling.EventMessage;
 import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.extensions.kafka.eventhandling.consumer.FetchEventException;
 import org.axonframework.extensions.kafka.utils.TestSerializer;
 import org.axonframework.messaging.MetaData;
 import org.axonframework.serialization.FixedValueRevisionResolver;
+import org.axonframework.serialization.SerializedMessage;
 import org.axonframework.serialization.SerializedObject;
 import org.axonframework.serialization.SimpleSerializedType;
 import org.axonframework.serialization.upcasting.event.EventUpcasterChain;
@@ -34,13 +37,19 @@
 import org.axonframework.serialization.xml.XStreamSerializer;
 import org.junit.jupiter.api.*;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.kafka.clients.consumer.ConsumerRecord.NULL_SIZE;
 import static org.apache.kafka.common.record.RecordBatch.NO_TIMESTAMP;
 import static org.apache.kafka.common.record.TimestampType.NO_TIMESTAMP_TYPE;
 import static org.axonframework.eventhandling.GenericEventMessage.asEventMessage;
+import static org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter.SERIALIZED_METADATA;
 import static org.axonframework.extensions.kafka.eventhandling.HeaderUtils.*;
 import static org.axonframework.extensions.kafka.eventhandling.util.HeaderAssertUtil.assertDomainHeaders;
 import static org.axonframework.extensions.kafka.eventhandling.util.HeaderAssertUtil.assertEventHeaders;
@@ -61,6 +70,8 @@ class DefaultKafkaMessageConverterTest {
     private static final int SOME_OFFSET = 0;
     private static final int SOME_PARTITION = 0;
     private static final String SOME_AGGREGATE_IDENTIFIER = "1234";
+    private static final String REPETITIVE_PAYLOAD =
+            "{\"orderId\":\"order-1\",\"customerId\":\"customer-1\",\"status\":\"CONFIRMED\"}";
 
     private DefaultKafkaMessageConverter testSubject;
     private XStreamSerializer serializer;
@@ -245,6 +256,66 @@ void testWritingDomainEventMessageShouldBeReadAsDomainMessageAndPassUpcaster() {
         assertEquals(1, upcasterCalled.get());
     }
 
+    @Test
+    void testReadingEventsOfPassThroughTypeSkipsUpcasterChainOnceRemembered() {
+        AtomicInteger upcasterCalled = new AtomicInteger(0);
+        EventUpcasterChain chain = new EventUpcasterChain(intermediateRepresentations -> {
+            upcasterCalled.addAndGet(1);
+            return intermediateRepresentations;
+        });
+        testSubject = DefaultKafkaMessageConverter.builder()
+                                                  .serializer(serializer)
+                                                  .upcasterChain(chain)
+                                                  .passThroughTypeCacheSize(16)
+                                                  .build();
+
+        EventMessage<?> expected = eventMessage();
+        ProducerRecord<String, byte[]> senderMessage = testSubject.createKafkaMessage(expected, SOME_TOPIC);
+        assertEventMessage(receiverMessage(senderMessage), expected);
+        assertEventMessage(receiverMessage(senderMessage), expected);
+
+        assertEquals(1, upcasterCalled.get());
+    }
+
+
+    @Test
+    void testSerializationPassthroughWritesStoredBytesWithoutDeserializing() {
+        testSubject = DefaultKafkaMessageConverter.builder()
+                                                  .serializer(serializer)
+                                                  .serializationPassthrough(true)
+                                                  .build();
+        SerializedObject<byte[]> storedPayload = serializer.serialize("SomePayload", byte[].class);
+        SerializedObject<byte[]> storedMetaData = serializer.serialize(MetaData.with("key", "value"), byte[].class);
+        SerializedMessage<String> storedMessage =
+                new SerializedMessage<>("event-id", storedPayload, storedMetaData, serializer);
+        GenericEventMessage<String> storedEvent = new GenericEventMessage<>(storedMessage, Instant::now);
+
+        ProducerRecord<String, byte[]> senderMessage = testSubject.createKafkaMessage(storedEvent, SOME_TOPIC);
+
+        assertSame(storedPayload.getData(), senderMessage.value());
+        assertSame(storedMetaData.getData(), senderMessage.headers().lastHeader(SERIALIZED_METADATA).value());
+        assertEquals(storedPayload.getType().getName(), valueAsString(senderMessage.headers(), MESSAGE_TYPE));
+        assertEquals(storedPayload.getType().getRevision(), valueAsString(senderMessage.headers(), MESSAGE_REVISION));
+        assertNull(senderMessage.headers().lastHeader(generateMetadataKey("key")));
+        assertFalse(storedMessage.isPayloadDeserialized());
+        assertFalse(storedMessage.isMetaDataDeserialized());
+
+        assertEventMessage(receiverMessage(senderMessage), storedEvent);
+    }
+
+    @Test
+    void testSerializationPassthroughRecordIsReadByConverterWithoutPassthrough() {
+        DefaultKafkaMessageConverter passthroughConverter = DefaultKafkaMessageConverter.builder()
+                                                                                        .serializer(serializer)
+                                                                                        .serializationPassthrough(true)
+                                                                                        .build();
+        DomainEventMessage<?> expected = domainMessage();
+
+        EventMessage<?> actual = receiverMessage(passthroughConverter.createKafkaMessage(expected, SOME_TOPIC));
+
+        assertEventMessage(actual, expected);
+        assertDomainMessage((DomainEventMessage<?>) actual, expected);
+    }
 
     @Test
     void testBuildWithoutSerializerThrowsAxonConfigurationException() {
@@ -281,6 +352,13 @@ void testBuildWithNullUpcasterChainThrowsAxonConfigurationException() {
         assertThrows(AxonConfigurationException.class, () -> testSubject.upcasterChain(null));
     }
 
+    @Test
+    void testBuildWithNegativePassThroughTypeCacheSizeThrowsAxonConfigurationException() {
+        DefaultKafkaMessageConverter.Builder testSubject = DefaultKafkaMessageConverter.builder();
+
+        assertThrows(AxonConfigurationException.class, () -> testSubject.passThroughTypeCacheSize(-1));
+    }
+
     @Test
     void whenListIsUsedAsMetadataValue_thenAfterConvertNotTheSame() {
         EventMessage<Object> expected = asEventMessage("SomePayload")
@@ -292,6 +370,232 @@ void whenListIsUsedAsMetadataValue_thenAfterConvertNotTheSame() {
     }
 
 
+    @Test
+    void testWritingSeveralEventsAsSingleKafkaMessageShouldBeReadAsSeveralMessages() {
+        GenericDomainEventMessage<String> first = domainMessage();
+        GenericDomainEventMessage<String> second = new GenericDomainEventMessage<>(
+            "Stub", SOME_AGGREGATE_IDENTIFIER, 2L, "OtherPayload", MetaData.with("other-key", "other-value")
+        );
+
+        ProducerRecord<String, byte[]> batchedMessage =
+            testSubject.createKafkaMessage(Arrays.asList(first, second), SOME_TOPIC);
+
+        assertEquals(SOME_AGGREGATE_IDENTIFIER, batchedMessage.key());
+        assertEquals(2, valueAsInt(batchedMessage.headers(), DefaultKafkaMessageConverter.BATCH_SIZE));
+        List<EventMessage<?>> result = testSubject.readKafkaMessages(toReceiverRecord(batchedMessage));
+        assertEquals(2, result.size());
+        assertEventMessage(result.get(0), first);
+        assertDomainMessage((DomainEventMessage<?>) result.get(0), first);
+        assertEventMessage(result.get(1), second);
+        assertDomainMessage((DomainEventMessage<?>) result.get(1), second);
+    }
+
+    @Test
+    void testWritingSingleEventAsBatchShouldCreateRegularKafkaMessage() {
+        EventMessage<?> expected = eventMessage();
+
+        ProducerRecord<String, byte[]> senderMessage =
+            testSubject.createKafkaMessage(Collections.singletonList(expected), SOME_TOPIC);
+
+        assertNull(senderMessage.headers().lastHeader(DefaultKafkaMessageConverter.BATCH_SIZE));
+        assertEventMessage(receiverMessage(senderMessage), expected);
+        List<EventMessage<?>> result = testSubject.readKafkaMessages(toReceiverRecord(senderMessage));
+        assertEquals(1, result.size());
+        assertEventMessage(result.get(0), expected);
+    }
+
+    @Test
+    void testReadingBatchedMessageAsSingleMessageShouldReturnEmptyMessage() {
+        ProducerRecord<String, byte[]> batchedMessage =
+            testSubject.createKafkaMessage(Arrays.asList(eventMessage(), eventMessage()), SOME_TOPIC);
+
+        assertFalse(testSubject.readKafkaMessage(toReceiverRecord(batchedMessage)).isPresent());
+    }
+
+    @Test
+    void testReadingCorruptBatchedMessageShouldReturnNoMessages() {
+        ProducerRecord<String, byte[]> batchedMessage =
+            testSubject.createKafkaMessage(Arrays.asList(eventMessage(), eventMessage()), SOME_TOPIC);
+        byte[] truncatedBody = Arrays.copyOf(batchedMessage.value(), batchedMessage.value().length / 2);
+        ConsumerRecord<String, byte[]> corruptRecord =
+            new ConsumerRecord<>(SOME_TOPIC, SOME_PARTITION, SOME_OFFSET, batchedMessage.key(), truncatedBody);
+        batchedMessage.headers().forEach(header -> corruptRecord.headers().add(header));
+
+        assertTrue(testSubject.readKafkaMessages(corruptRecord).isEmpty());
+    }
+
+    @Test
+    void testWritingMessageWithPayloadCodecShouldCompressPayloadAndBeReadAsSameMessage() {
+        DefaultKafkaMessageConverter compressingSubject = DefaultKafkaMessageConverter.builder()
+                                                                                      .serializer(serializer)
+                                                                                      .payloadCodec(payloadCodec())
+                                                                                      .build();
+        EventMessage<?> expected = asEventMessage(REPETITIVE_PAYLOAD);
+
+        ProducerRecord<String, byte[]> senderMessage = compressingSubject.createKafkaMessage(expected, SOME_TOPIC);
+
+        assertEquals("string-v1", valueAsString(senderMessage.headers(), DictionaryPayloadCodec.PAYLOAD_DICTIONARY));
+        byte[] uncompressed = expected.serializePayload(serializer, byte[].class).getData();
+        assertTrue(senderMessage.value().length < uncompressed.length);
+        EventMessage<?> result = compressingSubject.readKafkaMessage(toReceiverRecord(senderMessage))
+                                                   .orElseThrow(AssertionError::new);
+        assertEventMessage(result, expected);
+    }
+
+    @Test
+    void testReadingUncompressedMessageWithPayloadCodecShouldReturnSameMessage() {
+        DefaultKafkaMessageConverter compressingSubject = DefaultKafkaMessageConverter.builder()
+                                                                                      .serializer(serializer)
+                                                                                      .payloadCodec(payloadCodec())
+                                                                                      .build();
+        EventMessage<?> expected = asEventMessage(REPETITIVE_PAYLOAD);
+        ProducerRecord<String, byte[]> senderMessage = testSubject.createKafkaMessage(expected, SOME_TOPIC);
+
+        EventMessage<?> result = compressingSubject.readKafkaMessage(toReceiverRecord(senderMessage))
+                                                   .orElseThrow(AssertionError::new);
+
+        assertEventMessage(result, expected);
+    }
+
+    @Test
+    void testReadingCompressedMessageWithoutPayloadCodecThrowsFetchEventException() {
+        DefaultKafkaMessageConverter compressingSubject = DefaultKafkaMessageConverter.builder()
+                                                                                      .serializer(serializer)
+                                                                                      .payloadCodec(payloadCodec())
+                                                                                      .build();
+        ProducerRecord<String, byte[]> senderMessage =
+                compressingSubject.createKafkaMessage(asEventMessage(REPETITIVE_PAYLOAD), SOME_TOPIC);
+        ConsumerRecord<String, byte[]> receiverRecord = toReceiverRecord(senderMessage);
+
+        assertThrows(FetchEventException.class, () -> testSubject.readKafkaMessage(receiverRecord));
+    }
+
+    @Test
+    void testReadingCompressedMessageWithMissingDictionaryThrowsFetchEventException() {
+        DefaultKafkaMessageConverter compressingSubject = DefaultKafkaMessageConverter.builder()
+                                                                                      .serializer(serializer)
+                                                                                      .payloadCodec(payloadCodec())
+                                                                                      .build();
+        DictionaryPayloadCodec retiringCodec =
+                DictionaryPayloadCodec.builder()
+                                      .dictionary(serializer.typeForClass(String.class).getName(),
+                                                  "string-v2",
+                                                  REPETITIVE_PAYLOAD.getBytes(StandardCharsets.UTF_8))
+                                      .build();
+        DefaultKafkaMessageConverter retiringSubject = DefaultKafkaMessageConverter.builder()
+                                                                                   .serializer(serializer)
+                                                                                   .payloadCodec(retiringCodec)
+                                                                                   .build();
+        ConsumerRecord<String, byte[]> receiverRecord = toReceiverRecord(
+                compressingSubject.createKafkaMessage(asEventMessage(REPETITIVE_PAYLOAD), SOME_TOPIC)
+        );
+        ConsumerRecord<String, byte[]> batchedReceiverRecord = toReceiverRecord(compressingSubject.createKafkaMessage(
+                Arrays.asList(asEventMessage(REPETITIVE_PAYLOAD), asEventMessage(REPETITIVE_PAYLOAD)), SOME_TOPIC
+        ));
+
+        assertThrows(FetchEventException.class, () -> retiringSubject.readKafkaMessage(receiverRecord));
+        assertThrows(FetchEventException.class, () -> retiringSubject.readKafkaMessages(batchedReceiverRecord));
+    }
+
+    @Test
+    void testWritingSeveralEventsWithPayloadCodecShouldBeReadAsSeveralMessages() {
+        DefaultKafkaMessageConverter compressingSubject = DefaultKafkaMessageConverter.builder()
+                                                                                      .serializer(serializer)
+                                                                                      .payloadCodec(payloadCodec())
+                                                                                      .build();
+        EventMessage<?> first = asEventMessage(REPETITIVE_PAYLOAD);
+        EventMessage<?> second = asEventMessage(REPETITIVE_PAYLOAD + "-second");
+
+        ProducerRecord<String, byte[]> batchedMessage =
+                compressingSubject.createKafkaMessage(Arrays.asList(first, second), SOME_TOPIC);
+
+        List<EventMessage<?>> result = compressingSubject.readKafkaMessages(toReceiverRecord(batchedMessage));
+        assertEquals(2, result.size());
+        assertEventMessage(result.get(0), first);
+        assertEventMessage(result.get(1), second);
+    }
+
+    @Test
+    void testSmallRecordIsNotSplitInToChunks() {
+        DefaultKafkaMessageConverter chunkingSubject = DefaultKafkaMessageConverter.builder()
+                                                                                   .serializer(serializer)
+                                                                                   .chunkSize(1024)
+                                                                                   .build();
+        ProducerRecord<String, byte[]> record = chunkingSubject.createKafkaMessage(domainMessage(), SOME_TOPIC);
+
+        List<ProducerRecord<String, byte[]>> result = chunkingSubject.toChunks(record);
+
+        assertEquals(1, result.size());
+        assertSame(record, result.get(0));
+    }
+
+    @Test
+    void testLargeRecordIsSplitInToChunksWhichReassembleToSameMessage() {
+        DefaultKafkaMessageConverter chunkingSubject = DefaultKafkaMessageConverter.builder()
+                                                                                   .serializer(serializer)
+                                                                                   .chunkSize(10)
+                                                                                   .build();
+        GenericDomainEventMessage<String> expected = domainMessage();
+        ProducerRecord<String, byte[]> record = chunkingSubject.createKafkaMessage(expected, SOME_TOPIC);
+
+        List<ProducerRecord<String, byte[]>> chunks = chunkingSubject.toChunks(record);
+
+        assertEquals((record.value().length + 9) / 10, chunks.size());
+        List<ConsumerRecord<String, byte[]>> consumerChunks = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            ProducerRecord<String, byte[]> chunk = chunks.get(i);
+            assertEquals(SOME_AGGREGATE_IDENTIFIER, chunk.key());
+            assertTrue(chunk.value().length <= 10);
+            ConsumerRecord<String, byte[]> consumerChunk = toReceiverRecord(chunk);
+            RecordChunk recordChunk = chunkingSubject.chunkOf(consumerChunk).orElseThrow(AssertionError::new);
+            assertEquals(i, recordChunk.index());
+            assertEquals(chunks.size(), recordChunk.count());
+            assertFalse(chunkingSubject.readKafkaMessage(consumerChunk).isPresent());
+            assertTrue(chunkingSubject.readKafkaMessages(consumerChunk).isEmpty());
+            consumerChunks.add(consumerChunk);
+        }
+        ConsumerRecord<String, byte[]> reassembled = chunkingSubject.reassemble(consumerChunks);
+        assertFalse(chunkingSubject.chunkOf(reassembled).isPresent());
+        assertEquals(SOME_AGGREGATE_IDENTIFIER, reassembled.key());
+        EventMessage<?> result = chunkingSubject.readKafkaMessage(reassembled).orElseThrow(AssertionError::new);
+        assertEventMessage(result, expected);
+        assertDomainMessage((DomainEventMessage<?>) result, expected);
+    }
+
+    @Test
+    void testChunksOfRecordWithoutKeyShareGeneratedKey() {
+        DefaultKafkaMessageConverter chunkingSubject = DefaultKafkaMessageConverter.builder()
+                                                                                   .serializer(serializer)
+                                                                                   .chunkSize(10)
+                                                                                   .build();
+        ProducerRecord<String, byte[]> record = chunkingSubject.createKafkaMessage(eventMessage(), SOME_TOPIC);
+
+        List<ProducerRecord<String, byte[]>> chunks = chunkingSubject.toChunks(record);
+
+        String chunkKey = chunks.get(0).key();
+        assertNotNull(chunkKey);
+        chunks.forEach(chunk -> assertEquals(chunkKey, chunk.key()));
+        List<ConsumerRecord<String, byte[]>> consumerChunks = new ArrayList<>();
+        chunks.forEach(chunk -> consumerChunks.add(toReceiverRecord(chunk)));
+        assertNull(chunkingSubject.reassemble(consumerChunks).key());
+    }
+
+    @Test
+    void testBuildWithInvalidChunkSizeThrowsAxonConfigurationException() {
+        DefaultKafkaMessageConverter.Builder builder = DefaultKafkaMessageConverter.builder();
+
+        assertThrows(AxonConfigurationException.class, () -> builder.chunkSize(0));
+    }
+
+    private DictionaryPayloadCodec payloadCodec() {
+        byte[] dictionary = ("<string>" + REPETITIVE_PAYLOAD + "</string>").getBytes(StandardCharsets.UTF_8);
+        String payloadType = serializer.typeForClass(String.class).getName();
+        return DictionaryPayloadCodec.builder()
+                                     .dictionary(payloadType, "string-v1", dictionary)
+                                     .minimumPayloadSize(0)
+                                     .build();
+    }
+
     private void assertDomainMessage(DomainEventMessage<?> actual, DomainEventMessage<?> expected) {
         assertEquals(expected.getAggregateIdentifier(), actual.getAggregateIdentifier());
         assertEquals(expected.getSequenceNumber(), actual.getSequenceNumber());
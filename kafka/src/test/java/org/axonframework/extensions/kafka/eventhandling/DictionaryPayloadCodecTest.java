@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.axonframework.common.AxonConfigurationException;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.axonframework.extensions.kafka.eventhandling.DictionaryPayloadCodec.PAYLOAD_DICTIONARY;
+import static org.axonframework.extensions.kafka.eventhandling.HeaderUtils.valueAsString;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link DictionaryPayloadCodec}.
+ */
+class DictionaryPayloadCodecTest {
+
+    private static final String ORDER_TYPE = "com.example.OrderConfirmed";
+    private static final byte[] ORDER_PAYLOAD =
+            "{\"orderId\":\"order-42\",\"customerId\":\"customer-7\",\"status\":\"CONFIRMED\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private DictionaryPayloadCodec testSubject;
+
+    @BeforeEach
+    void setUp() {
+        testSubject = DictionaryPayloadCodec.builder()
+                                            .dictionaryResource(ORDER_TYPE, "order-v1", "dictionaries/order-v1.dict")
+                                            .minimumPayloadSize(0)
+                                            .build();
+    }
+
+    @Test
+    void testEncodeCompressesPayloadAndMarksDictionary() {
+        Headers headers = new RecordHeaders();
+
+        byte[] result = testSubject.encode(ORDER_TYPE, ORDER_PAYLOAD, headers);
+
+        assertTrue(result.length < ORDER_PAYLOAD.length);
+        assertEquals("order-v1", valueAsString(headers, PAYLOAD_DICTIONARY));
+        assertArrayEquals(ORDER_PAYLOAD, testSubject.decode(result, headers));
+    }
+
+    @Test
+    void testEncodeLeavesPayloadWithoutDictionaryUntouched() {
+        Headers headers = new RecordHeaders();
+
+        byte[] result = testSubject.encode("com.example.Unknown", ORDER_PAYLOAD, headers);
+
+        assertSame(ORDER_PAYLOAD, result);
+        assertNull(headers.lastHeader(PAYLOAD_DICTIONARY));
+    }
+
+    @Test
+    void testEncodeLeavesSmallPayloadUntouched() {
+        DictionaryPayloadCodec sizeLimitedSubject =
+                DictionaryPayloadCodec.builder()
+                                      .dictionaryResource(ORDER_TYPE, "order-v1", "dictionaries/order-v1.dict")
+                                      .minimumPayloadSize(ORDER_PAYLOAD.length + 1)
+                                      .build();
+        Headers headers = new RecordHeaders();
+
+        assertSame(ORDER_PAYLOAD, sizeLimitedSubject.encode(ORDER_TYPE, ORDER_PAYLOAD, headers));
+        assertNull(headers.lastHeader(PAYLOAD_DICTIONARY));
+    }
+
+    @Test
+    void testDecodeReturnsUncompressedPayloadAsIs() {
+        assertSame(ORDER_PAYLOAD, testSubject.decode(ORDER_PAYLOAD, new RecordHeaders()));
+    }
+
+    @Test
+    void testDecodeWithSupersededDictionary() {
+        byte[] oldDictionary = "{\"orderId\":\"\",\"status\":\"\"}".getBytes(StandardCharsets.UTF_8);
+        DictionaryPayloadCodec oldSubject = DictionaryPayloadCodec.builder()
+                                                                  .dictionary(ORDER_TYPE, "order-v0", oldDictionary)
+                                                                  .minimumPayloadSize(0)
+                                                                  .build();
+        DictionaryPayloadCodec newSubject =
+                DictionaryPayloadCodec.builder()
+                                      .dictionaryResource(ORDER_TYPE, "order-v1", "dictionaries/order-v1.dict")
+                                      .decodingDictionary("order-v0", oldDictionary)
+                                      .build();
+        Headers headers = new RecordHeaders();
+        byte[] compressed = oldSubject.encode(ORDER_TYPE, ORDER_PAYLOAD, headers);
+
+        assertArrayEquals(ORDER_PAYLOAD, newSubject.decode(compressed, headers));
+    }
+
+    @Test
+    void testDecodeWithUnknownDictionaryThrowsIllegalStateException() {
+        DictionaryPayloadCodec otherSubject =
+                DictionaryPayloadCodec.builder()
+                                      .dictionary(ORDER_TYPE, "other", "other".getBytes(StandardCharsets.UTF_8))
+                                      .minimumPayloadSize(0)
+                                      .build();
+        Headers headers = new RecordHeaders();
+        byte[] compressed = otherSubject.encode(ORDER_TYPE, ORDER_PAYLOAD, headers);
+
+        assertThrows(IllegalStateException.class, () -> testSubject.decode(compressed, headers));
+    }
+
+    @Test
+    void testBuildWithoutDictionaryThrowsAxonConfigurationException() {
+        DictionaryPayloadCodec.Builder builder = DictionaryPayloadCodec.builder();
+
+        assertThrows(AxonConfigurationException.class, builder::build);
+    }
+
+    @Test
+    void testRegisteringDifferentDictionaryUnderSameIdThrowsAxonConfigurationException() {
+        DictionaryPayloadCodec.Builder builder =
+                DictionaryPayloadCodec.builder().decodingDictionary("id", new byte[]{1, 2, 3});
+
+        assertThrows(AxonConfigurationException.class, () -> builder.decodingDictionary("id", new byte[]{4}));
+    }
+
+    @Test
+    void testMissingDictionaryResourceThrowsAxonConfigurationException() {
+        DictionaryPayloadCodec.Builder builder = DictionaryPayloadCodec.builder();
+
+        assertThrows(AxonConfigurationException.class,
+                     () -> builder.dictionaryResource(ORDER_TYPE, "missing", "dictionaries/missing.dict"));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.eventhandling.Segment;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link SegmentPartitions}.
+ */
+class SegmentPartitionsTest {
+
+    @Test
+    void testAlignedPartitionCountIsLargestPowerOfTwo() {
+        assertEquals(1, SegmentPartitions.alignedPartitionCount(1));
+        assertEquals(4, SegmentPartitions.alignedPartitionCount(4));
+        assertEquals(4, SegmentPartitions.alignedPartitionCount(6));
+        assertEquals(8, SegmentPartitions.alignedPartitionCount(12));
+        assertThrows(IllegalArgumentException.class, () -> SegmentPartitions.alignedPartitionCount(0));
+    }
+
+    @Test
+    void testByteArrayIdentifiersAreHashedByContent() {
+        byte[] identifier = "identifier".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(SegmentPartitions.hash(identifier), SegmentPartitions.hash(identifier.clone()));
+        assertEquals(0, SegmentPartitions.hash(null));
+    }
+
+    @Test
+    void testSegmentPartitionsContainEveryIdentifierTheSegmentMatches() {
+        for (int numberOfPartitions : new int[]{1, 3, 8, 12}) {
+            for (int numberOfSegments : new int[]{1, 2, 4, 5, 16}) {
+                List<Segment> segments = Segment.splitBalanced(Segment.ROOT_SEGMENT, numberOfSegments - 1);
+                for (int i = 0; i < 200; i++) {
+                    String identifier = UUID.randomUUID().toString();
+                    int partition = SegmentPartitions.partitionFor(identifier, numberOfPartitions);
+                    assertTrue(partition < SegmentPartitions.alignedPartitionCount(numberOfPartitions));
+                    segments.stream()
+                            .filter(segment -> segment.matches(identifier))
+                            .forEach(segment -> assertTrue(
+                                    SegmentPartitions.partitionsFor(segment, numberOfPartitions).contains(partition)
+                            ));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSegmentsDivideTheAlignedPartitions() {
+        List<Segment> segments = Arrays.asList(Segment.computeSegments(0, 1, 2, 3));
+        List<Integer> allPartitions = new ArrayList<>();
+
+        segments.forEach(segment -> {
+            List<Integer> partitions = SegmentPartitions.partitionsFor(segment, 8);
+            assertEquals(2, partitions.size());
+            allPartitions.addAll(partitions);
+        });
+
+        assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7)), new HashSet<>(allPartitions));
+        assertEquals(8, allPartitions.size());
+        assertEquals(Arrays.asList(0, 1, 2, 3), SegmentPartitions.partitionsFor(Segment.ROOT_SEGMENT, 5));
+    }
+
+    @Test
+    void testTopicPartitionsForSegmentAreSelectedPerTopic() {
+        List<TopicPartition> topicPartitions = new ArrayList<>();
+        for (int partition = 0; partition < 4; partition++) {
+            topicPartitions.add(new TopicPartition("four", partition));
+        }
+        topicPartitions.add(new TopicPartition("two", 0));
+        topicPartitions.add(new TopicPartition("two", 1));
+        Segment segment = Segment.computeSegment(1, 0, 1);
+
+        Set<TopicPartition> result = new HashSet<>(SegmentPartitions.topicPartitionsFor(segment, topicPartitions));
+
+        assertEquals(new HashSet<>(Arrays.asList(new TopicPartition("four", 1),
+                                                 new TopicPartition("four", 3),
+                                                 new TopicPartition("two", 1))), result);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling;
+
+import org.axonframework.eventhandling.GenericDomainEventEntry;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.extensions.kafka.utils.TestSerializer;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.axonframework.serialization.upcasting.event.EventUpcasterChain;
+import org.axonframework.serialization.upcasting.event.InitialEventRepresentation;
+import org.axonframework.serialization.upcasting.event.IntermediateEventRepresentation;
+import org.axonframework.serialization.upcasting.event.SingleEventUpcaster;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link UpcasterFastPath}.
+ */
+class UpcasterFastPathTest {
+
+    private static final String UPCASTED_TYPE = "com.example.Upcasted";
+
+    private final Serializer serializer = TestSerializer.JACKSON.getSerializer();
+    private final AtomicInteger chainInvocations = new AtomicInteger();
+    private final EventUpcasterChain upcasterChain = new EventUpcasterChain(intermediateRepresentations -> {
+        chainInvocations.incrementAndGet();
+        return intermediateRepresentations;
+    }, new RevisionUpcaster());
+
+    @Test
+    void testWithoutUpcastersReturnsRepresentationAsIs() {
+        IntermediateEventRepresentation representation = representation("com.example.Other", null);
+
+        assertSame(representation, UpcasterFastPath.withoutUpcasters().upcast(representation).orElse(null));
+        assertTrue(UpcasterFastPath.withoutUpcasters().skipsChainFor("com.example.Other", null));
+    }
+
+    @Test
+    void testPassThroughTypeSkipsChainOnceRemembered() {
+        UpcasterFastPath testSubject = new UpcasterFastPath(upcasterChain, 16);
+
+        IntermediateEventRepresentation first = representation("com.example.Other", "1");
+        assertSame(first, testSubject.upcast(first).orElse(null));
+        IntermediateEventRepresentation second = representation("com.example.Other", "1");
+        assertSame(second, testSubject.upcast(second).orElse(null));
+
+        assertEquals(1, chainInvocations.get());
+        assertTrue(testSubject.skipsChainFor("com.example.Other", "1"));
+        assertFalse(testSubject.skipsChainFor("com.example.Other", "2"));
+    }
+
+    @Test
+    void testUpcastedTypeIsNeverRemembered() {
+        UpcasterFastPath testSubject = new UpcasterFastPath(upcasterChain, 16);
+
+        Optional<IntermediateEventRepresentation> result = testSubject.upcast(representation(UPCASTED_TYPE, "1"));
+        testSubject.upcast(representation(UPCASTED_TYPE, "1"));
+
+        assertEquals("2", result.map(r -> r.getType().getRevision()).orElse(null));
+        assertEquals(2, chainInvocations.get());
+        assertFalse(testSubject.skipsChainFor(UPCASTED_TYPE, "1"));
+    }
+
+    @Test
+    void testRemembersAtMostConfiguredNumberOfTypes() {
+        UpcasterFastPath testSubject = new UpcasterFastPath(upcasterChain, 1);
+
+        testSubject.upcast(representation("com.example.First", null));
+        testSubject.upcast(representation("com.example.Second", null));
+
+        assertTrue(testSubject.skipsChainFor("com.example.First", null));
+        assertFalse(testSubject.skipsChainFor("com.example.Second", null));
+    }
+
+    @Test
+    void testZeroSizeDisablesRemembering() {
+        UpcasterFastPath testSubject = new UpcasterFastPath(upcasterChain, 0);
+
+        testSubject.upcast(representation("com.example.Other", null));
+        testSubject.upcast(representation("com.example.Other", null));
+
+        assertEquals(2, chainInvocations.get());
+        assertFalse(testSubject.skipsChainFor("com.example.Other", null));
+    }
+
+    private IntermediateEventRepresentation representation(String payloadType, String revision) {
+        SerializedObject<byte[]> payload = serializer.serialize("payload", byte[].class);
+        GenericDomainEventEntry<byte[]> entry = new GenericDomainEventEntry<>(
+                "Stub", "aggregate", 0L, "event-id", GenericEventMessage.clock.instant(),
+                payloadType, revision, payload.getData(), serializer.serialize(MetaData.emptyInstance(), byte[].class).getData()
+        );
+        return new InitialEventRepresentation(entry, serializer);
+    }
+
+    private static class RevisionUpcaster extends SingleEventUpcaster {
+
+        @Override
+        protected boolean canUpcast(IntermediateEventRepresentation intermediateRepresentation) {
+            return intermediateRepresentation.getType().equals(new SimpleSerializedType(UPCASTED_TYPE, "1"));
+        }
+
+        @Override
+        protected IntermediateEventRepresentation doUpcast(IntermediateEventRepresentation intermediateRepresentation) {
+            return intermediateRepresentation.upcastPayload(
+                    new SimpleSerializedType(UPCASTED_TYPE, "2"), byte[].class, bytes -> bytes
+            );
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.benchmark;
+
+import io.cloudevents.CloudEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.cloudevent.CloudEventKafkaMessageConverter;
+import org.axonframework.extensions.kafka.utils.TestSerializer;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.upcasting.event.EventUpcasterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This compares the speed of reading identical events through the {@link CloudEventKafkaMessageConverter} and the
+ * {@link DefaultKafkaMessageConverter}, including access to the payload and metadata of the read event. The Cloud Event
+ * converter is measured both without an upcaster chain, which wraps the Cloud Event data and builds the metadata from
+ * its extensions directly, and with an (empty) upcaster chain, which passes both through the {@link Serializer}. Re-run
+ * this benchmark when changing the way either converter reads records.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class CloudEventBenchmarks_ReadKafkaMessage {
+
+    private static final String TOPIC = "benchmark";
+
+    private DefaultKafkaMessageConverter defaultConverter;
+    private CloudEventKafkaMessageConverter cloudEventConverter;
+    private CloudEventKafkaMessageConverter upcastingCloudEventConverter;
+    private ConsumerRecord<String, byte[]> defaultRecord;
+    private ConsumerRecord<String, CloudEvent> cloudEventRecord;
+
+    @Setup(Level.Trial)
+    public void createConverters() {
+        Serializer serializer = TestSerializer.JACKSON.getSerializer();
+        defaultConverter = DefaultKafkaMessageConverter.builder()
+                                                       .serializer(serializer)
+                                                       .build();
+        cloudEventConverter = CloudEventKafkaMessageConverter.builder()
+                                                             .serializer(serializer)
+                                                             .build();
+        upcastingCloudEventConverter = CloudEventKafkaMessageConverter.builder()
+                                                                      .serializer(serializer)
+                                                                      .upcasterChain(new EventUpcasterChain())
+                                                                      .build();
+    }
+
+    @Setup(Level.Trial)
+    public void prepareTestData() {
+        EventMessage<?> event = new GenericDomainEventMessage<>(
+                "Order", "order-42", 7L, "payload", MetaData.with("traceId", "trace-1").and("correlationId", "corr-1")
+        );
+        defaultRecord = toConsumerRecord(defaultConverter.createKafkaMessage(event, TOPIC));
+        cloudEventRecord = toConsumerRecord(cloudEventConverter.createKafkaMessage(event, TOPIC));
+    }
+
+    @Benchmark
+    public void readDefault(Blackhole blackhole) {
+        consume(defaultConverter.readKafkaMessage(defaultRecord).orElseThrow(IllegalStateException::new), blackhole);
+    }
+
+    @Benchmark
+    public void readCloudEvent(Blackhole blackhole) {
+        consume(cloudEventConverter.readKafkaMessage(cloudEventRecord).orElseThrow(IllegalStateException::new),
+                blackhole);
+    }
+
+    @Benchmark
+    public void readCloudEventThroughUpcasterChain(Blackhole blackhole) {
+        consume(upcastingCloudEventConverter.readKafkaMessage(cloudEventRecord)
+                                            .orElseThrow(IllegalStateException::new),
+                blackhole);
+    }
+
+    private static void consume(EventMessage<?> eventMessage, Blackhole blackhole) {
+        blackhole.consume(eventMessage.getPayload());
+        blackhole.consume(eventMessage.getMetaData());
+    }
+
+    private static <V> ConsumerRecord<String, V> toConsumerRecord(ProducerRecord<String, V> producerRecord) {
+        ConsumerRecord<String, V> consumerRecord =
+                new ConsumerRecord<>(TOPIC, 0, 0, producerRecord.key(), producerRecord.value());
+        producerRecord.headers().forEach(header -> consumerRecord.headers().add(header));
+        return consumerRecord;
+    }
+
+    // Convenience main entry-point
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(".*" + CloudEventBenchmarks_ReadKafkaMessage.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(opt).run();
+    }
+}
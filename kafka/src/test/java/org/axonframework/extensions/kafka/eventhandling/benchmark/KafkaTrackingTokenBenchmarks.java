@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.benchmark;
+
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.extensions.kafka.eventhandling.consumer.streamable.KafkaTrackingToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This compares the speed of the {@link KafkaTrackingToken} operations performed per event, for tokens spanning a
+ * varying number of partitions. {@link KafkaTrackingToken#advancedTo(String, int, long)} is invoked for every record
+ * read, whereas {@link KafkaTrackingToken#covers(TrackingToken)} and the bounds are invoked per event during replays.
+ * Re-run this benchmark when changing the internal representation of the {@link KafkaTrackingToken}.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class KafkaTrackingTokenBenchmarks {
+
+    private static final String TOPIC = "benchmark";
+
+    @SuppressWarnings("unused")
+    @Param(value = {"1", "64", "1024"})
+    private int partitions;
+
+    private KafkaTrackingToken token;
+    private KafkaTrackingToken advancedToken;
+    private int nextPartition;
+    private long nextOffset;
+
+    @Setup(Level.Trial)
+    public void createTokens() {
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            positions.put(new TopicPartition(TOPIC, partition), 1000L + partition);
+        }
+        token = KafkaTrackingToken.newInstance(positions);
+        advancedToken = token.advancedTo(TOPIC, partitions / 2, 5000L);
+        nextOffset = 5000L;
+    }
+
+    @Benchmark
+    public KafkaTrackingToken advancedTo() {
+        nextPartition = nextPartition + 1 == partitions ? 0 : nextPartition + 1;
+        return token.advancedTo(TOPIC, nextPartition, nextOffset++);
+    }
+
+    @Benchmark
+    public boolean covers() {
+        return advancedToken.covers(token);
+    }
+
+    @Benchmark
+    public TrackingToken upperBound() {
+        return token.upperBound(advancedToken);
+    }
+
+    @Benchmark
+    public TrackingToken lowerBound() {
+        return token.lowerBound(advancedToken);
+    }
+
+    // Convenience main entry-point
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(".*" + KafkaTrackingTokenBenchmarks.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.benchmark;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.axonframework.extensions.kafka.eventhandling.producer.DefaultProducerFactory;
+import org.axonframework.extensions.kafka.eventhandling.producer.ProducerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This compares the publish throughput of the shared non-transactional {@link Producer} of the {@link
+ * DefaultProducerFactory} for a varying number of producer stripes, with several threads publishing concurrently.
+ * Requires a running Kafka broker, located through the {@code kafka.bootstrap.servers} system property (defaulting to
+ * {@code localhost:9092}), with the {@code striped-publish} topic present.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@Threads(8)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ProducerBenchmarks_StripedPublish {
+
+    private static final String TOPIC = "striped-publish";
+    private static final String PAYLOAD = new String(new char[256]).replace('\0', 'x');
+
+    @SuppressWarnings("unused")
+    @Param(value = {"1", "2", "4", "8"})
+    private int stripes;
+
+    private ProducerFactory<String, String> producerFactory;
+    private Producer<String, String> producer;
+
+    @Setup(Level.Trial)
+    public void createProducer() {
+        Map<String, Object> configuration = new HashMap<>();
+        configuration.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG,
+                          System.getProperty("kafka.bootstrap.servers", "localhost:9092"));
+        configuration.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        configuration.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configuration.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerFactory = DefaultProducerFactory.<String, String>builder()
+                                                .configuration(configuration)
+                                                .closeTimeout(5, ChronoUnit.SECONDS)
+                                                .producerStripes(stripes)
+                                                .build();
+        producer = producerFactory.createProducer();
+    }
+
+    @TearDown(Level.Trial)
+    public void shutDown() {
+        producer.flush();
+        producerFactory.shutDown();
+    }
+
+    @Benchmark
+    public Object publish() {
+        String key = Integer.toString(ThreadLocalRandom.current().nextInt(1024));
+        return producer.send(new ProducerRecord<>(TOPIC, key, PAYLOAD));
+    }
+
+    // Convenience main entry-point
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(".*" + ProducerBenchmarks_StripedPublish.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.benchmark;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter;
+import org.axonframework.extensions.kafka.utils.TestSerializer;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.axonframework.serialization.upcasting.event.EventUpcasterChain;
+import org.axonframework.serialization.upcasting.event.IntermediateEventRepresentation;
+import org.axonframework.serialization.upcasting.event.SingleEventUpcaster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.axonframework.eventhandling.GenericEventMessage.asEventMessage;
+
+/**
+ * This compares the speed of reading Kafka records through the {@link DefaultKafkaMessageConverter} with an upcaster
+ * chain which does not touch the events read, with and without remembering pass through types. Re-run this benchmark
+ * when changing the way the {@link DefaultKafkaMessageConverter} upcasts events.
+ */
+@Measurement(iterations = 5, time = 1)
+@Warmup(iterations = 10, time = 1)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class UpcasterBenchmarks_ReadKafkaMessage {
+
+    @SuppressWarnings("unused")
+    @Param(value = {"0", "64"})
+    private int passThroughTypeCacheSize;
+
+    private DefaultKafkaMessageConverter converter;
+    private ConsumerRecord<String, byte[]> consumerRecord;
+
+    @Setup(Level.Trial)
+    public void createConverter() {
+        EventUpcasterChain upcasterChain = new EventUpcasterChain(
+                new UnrelatedTypeUpcaster("com.example.First"),
+                new UnrelatedTypeUpcaster("com.example.Second"),
+                new UnrelatedTypeUpcaster("com.example.Third")
+        );
+        converter = DefaultKafkaMessageConverter.builder()
+                                                .serializer(TestSerializer.JACKSON.getSerializer())
+                                                .upcasterChain(upcasterChain)
+                                                .passThroughTypeCacheSize(passThroughTypeCacheSize)
+                                                .build();
+    }
+
+    @Setup(Level.Trial)
+    public void prepareTestData() {
+        ProducerRecord<String, byte[]> producerRecord =
+                converter.createKafkaMessage(asEventMessage("payload"), "benchmark");
+        consumerRecord = new ConsumerRecord<>("benchmark", 0, 0, producerRecord.key(), producerRecord.value());
+        producerRecord.headers().forEach(header -> consumerRecord.headers().add(header));
+    }
+
+    @Benchmark
+    public Optional<EventMessage<?>> readKafkaMessage() {
+        return converter.readKafkaMessage(consumerRecord);
+    }
+
+    // Convenience main entry-point
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(".*" + UpcasterBenchmarks_ReadKafkaMessage.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    private static class UnrelatedTypeUpcaster extends SingleEventUpcaster {
+
+        private final SimpleSerializedType upcastedType;
+
+        private UnrelatedTypeUpcaster(String payloadType) {
+            this.upcastedType = new SimpleSerializedType(payloadType, null);
+        }
+
+        @Override
+        protected boolean canUpcast(IntermediateEventRepresentation intermediateRepresentation) {
+            return upcastedType.equals(intermediateRepresentation.getType());
+        }
+
+        @Override
+        protected IntermediateEventRepresentation doUpcast(IntermediateEventRepresentation intermediateRepresentation) {
+            return intermediateRepresentation;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.cloudevent;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.v1.CloudEventBuilder;
+import org.axonframework.messaging.MetaData;
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.util.Collections;
+
+import static org.axonframework.extensions.kafka.eventhandling.cloudevent.ExtensionUtils.AGGREGATE_ID;
+import static org.axonframework.extensions.kafka.eventhandling.cloudevent.ExtensionUtils.MESSAGE_REVISION;
+import static org.axonframework.extensions.kafka.eventhandling.cloudevent.MetadataUtils.SUBJECT;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CachingMetadataKeyResolver}.
+ */
+class CachingMetadataKeyResolverTest {
+
+    private final CachingMetadataKeyResolver testSubject =
+            new CachingMetadataKeyResolver(Collections.singletonMap("traceid", "traceId"));
+
+    @Test
+    void testMetaDataContainsResolvedExtensionsAndAttributes() {
+        MetaData result = testSubject.metaDataOf(cloudEvent());
+
+        assertEquals("trace", result.get("traceId"));
+        assertEquals("value", result.get("unmapped"));
+        assertEquals("subject", result.get(SUBJECT));
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void testMetaDataIsEqualForRepeatedReads() {
+        assertEquals(testSubject.metaDataOf(cloudEvent()), testSubject.metaDataOf(cloudEvent()));
+    }
+
+    @Test
+    void testMetaDataMatchesExtensionUtils() {
+        CloudEvent cloudEvent = cloudEvent();
+        MetaData expected = ExtensionUtils.getExtensionsAsMetadata(cloudEvent, Collections.singletonMap(
+                "traceid", "traceId"
+        )).mergedWith(MetadataUtils.getAdditionalEntries(cloudEvent));
+
+        assertEquals(expected, testSubject.metaDataOf(cloudEvent));
+    }
+
+    private static CloudEvent cloudEvent() {
+        return new CloudEventBuilder().withId("id")
+                                      .withSource(URI.create("source"))
+                                      .withType("type")
+                                      .withSubject("subject")
+                                      .withExtension("traceid", "trace")
+                                      .withExtension("unmapped", "value")
+                                      .withExtension(AGGREGATE_ID, "aggregate")
+                                      .withExtension(MESSAGE_REVISION, "1")
+                                      .build();
+    }
+}
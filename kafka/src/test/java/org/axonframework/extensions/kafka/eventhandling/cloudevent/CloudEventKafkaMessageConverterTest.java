@@ -200,6 +200,27 @@ void whenWritingEventMessage_thenShouldBeReadAsEventMessageAndPassUpcaster() {
         assertEquals(1, upcasterCalled.get());
     }
 
+    @Test
+    void whenEventSkipsUpcasterChain_thenShouldBeReadAsWhenPassingUpcasterChain() {
+        CloudEventKafkaMessageConverter upcastingSubject =
+                CloudEventKafkaMessageConverter.builder()
+                                               .serializer(serializer)
+                                               .upcasterChain(new EventUpcasterChain())
+                                               .build();
+        DomainEventMessage<?> expected = domainMessage().andMetaData(MetaData.with(SUBJECT, "subject"));
+        ConsumerRecord<String, CloudEvent> receiverRecord =
+                toReceiverRecord(testSubject.createKafkaMessage(expected, SOME_TOPIC));
+
+        EventMessage<?> skipped = testSubject.readKafkaMessage(receiverRecord).orElseThrow(AssertionError::new);
+        EventMessage<?> upcasted = upcastingSubject.readKafkaMessage(receiverRecord).orElseThrow(AssertionError::new);
+
+        assertEventMessage(skipped, expected);
+        assertEventMessage(skipped, upcasted);
+        assertDomainMessage((DomainEventMessage<?>) skipped, expected);
+        MetaData serializedMetaData = serializer.deserialize(skipped.serializeMetaData(serializer, byte[].class));
+        assertEquals(expected.getMetaData(), serializedMetaData);
+    }
+
     @Test
     void whenWritingEventMessageWithNullRevision_thenShouldWriteRevisionAsNull() {
         EventMessage<?> eventMessage = eventMessage();
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link ConsumedOffsets}.
+ */
+class ConsumedOffsetsTest {
+
+    private static final String TEST_TOPIC = "topic";
+    private static final ConsumerGroupMetadata GROUP_METADATA = new ConsumerGroupMetadata("group");
+
+    @Test
+    void testOffsetsFollowTheLastRecordOfEveryPartition() {
+        TopicPartition partitionZero = new TopicPartition(TEST_TOPIC, 0);
+        TopicPartition partitionOne = new TopicPartition(TEST_TOPIC, 1);
+        Map<TopicPartition, List<ConsumerRecord<String, String>>> records = new HashMap<>();
+        records.put(partitionZero, Arrays.asList(record(0, 10), record(0, 11), record(0, 12)));
+        records.put(partitionOne, Collections.singletonList(record(1, 3)));
+
+        ConsumedOffsets testSubject = ConsumedOffsets.of(new ConsumerRecords<>(records), GROUP_METADATA);
+
+        assertEquals(2, testSubject.offsets().size());
+        assertEquals(new OffsetAndMetadata(13), testSubject.offsets().get(partitionZero));
+        assertEquals(new OffsetAndMetadata(4), testSubject.offsets().get(partitionOne));
+        assertSame(GROUP_METADATA, testSubject.groupMetadata());
+        assertFalse(testSubject.isCommitted());
+    }
+
+    @Test
+    void testExecuteBindsOffsetsToTheCurrentThreadOnlyDuringTheTask() {
+        ConsumedOffsets testSubject = ConsumedOffsets.of(ConsumerRecords.empty(), GROUP_METADATA);
+        AtomicReference<ConsumedOffsets> boundOffsets = new AtomicReference<>();
+
+        testSubject.execute(() -> boundOffsets.set(ConsumedOffsets.current().orElse(null)));
+
+        assertSame(testSubject, boundOffsets.get());
+        assertFalse(ConsumedOffsets.current().isPresent());
+    }
+
+    @Test
+    void testNestedExecuteRestoresOuterOffsets() {
+        ConsumedOffsets outer = ConsumedOffsets.of(ConsumerRecords.empty(), GROUP_METADATA);
+        ConsumedOffsets inner = ConsumedOffsets.of(ConsumerRecords.empty(), GROUP_METADATA);
+        AtomicReference<ConsumedOffsets> boundAfterInner = new AtomicReference<>();
+
+        outer.execute(() -> {
+            inner.execute(() -> assertSame(inner, ConsumedOffsets.current().orElse(null)));
+            boundAfterInner.set(ConsumedOffsets.current().orElse(null));
+        });
+
+        assertSame(outer, boundAfterInner.get());
+        assertFalse(ConsumedOffsets.current().isPresent());
+    }
+
+    @Test
+    void testExecuteUnbindsOffsetsWhenTaskFails() {
+        ConsumedOffsets testSubject = ConsumedOffsets.of(ConsumerRecords.empty(), GROUP_METADATA);
+
+        assertThrows(IllegalStateException.class, () -> testSubject.execute(() -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        assertFalse(ConsumedOffsets.current().isPresent());
+    }
+
+    @Test
+    void testMarkCommitted() {
+        ConsumedOffsets testSubject = ConsumedOffsets.of(ConsumerRecords.empty(), GROUP_METADATA);
+
+        testSubject.markCommitted();
+
+        assertTrue(testSubject.isCommitted());
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, long offset) {
+        return new ConsumerRecord<>(TEST_TOPIC, partition, offset, "key", "value");
+    }
+}
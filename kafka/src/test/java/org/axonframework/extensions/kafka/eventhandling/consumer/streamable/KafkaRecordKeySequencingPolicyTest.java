@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.axonframework.common.AxonConfigurationException;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventhandling.async.FullConcurrencyPolicy;
+import org.axonframework.messaging.MetaData;
+import org.junit.jupiter.api.*;
+
+import java.nio.ByteBuffer;
+
+import static org.axonframework.eventhandling.GenericEventMessage.asEventMessage;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link KafkaRecordKeySequencingPolicy}.
+ */
+class KafkaRecordKeySequencingPolicyTest {
+
+    private static final String TEST_TOPIC = "some-topic";
+
+    private final KafkaRecordKeySequencingPolicy testSubject = new KafkaRecordKeySequencingPolicy();
+
+    @Test
+    void testSequenceIdentifierIsRecordKey() {
+        EventMessage<?> event = readFrom(new ConsumerRecord<>(TEST_TOPIC, 0, 0, "record-key", "value"),
+                                         asEventMessage("payload"));
+
+        assertEquals("record-key", testSubject.getSequenceIdentifierFor(event));
+    }
+
+    @Test
+    void testRecordKeyTakesPrecedenceOverAggregateIdentifier() {
+        EventMessage<?> event = readFrom(new ConsumerRecord<>(TEST_TOPIC, 0, 0, "record-key", "value"),
+                                         new GenericDomainEventMessage<>("Stub", "aggregate-id", 0L, "payload"));
+
+        assertEquals("record-key", testSubject.getSequenceIdentifierFor(event));
+    }
+
+    @Test
+    void testByteArrayKeysResultInEqualSequenceIdentifiersForEqualContent() {
+        EventMessage<?> first = readFrom(new ConsumerRecord<>(TEST_TOPIC, 0, 0, new byte[]{1, 2}, "value"),
+                                         asEventMessage("payload"));
+        EventMessage<?> second = readFrom(new ConsumerRecord<>(TEST_TOPIC, 0, 1, new byte[]{1, 2}, "value"),
+                                          asEventMessage("payload"));
+
+        Object firstIdentifier = testSubject.getSequenceIdentifierFor(first);
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2}), firstIdentifier);
+        assertEquals(firstIdentifier, testSubject.getSequenceIdentifierFor(second));
+    }
+
+    @Test
+    void testEventWithoutRecordKeyUsesFallbackPolicy() {
+        EventMessage<?> event = readFrom(new ConsumerRecord<>(TEST_TOPIC, 0, 0, null, "value"),
+                                         new GenericDomainEventMessage<>("Stub", "aggregate-id", 0L, "payload"));
+
+        assertEquals("aggregate-id", testSubject.getSequenceIdentifierFor(event));
+    }
+
+    @Test
+    void testEventNotReadFromKafkaUsesFallbackPolicy() {
+        EventMessage<?> event = asEventMessage("payload").andMetaData(MetaData.with("key", "value"));
+        KafkaRecordKeySequencingPolicy fullConcurrencySubject =
+                new KafkaRecordKeySequencingPolicy(new FullConcurrencyPolicy());
+
+        assertEquals(event.getIdentifier(), fullConcurrencySubject.getSequenceIdentifierFor(event));
+        assertNull(testSubject.getSequenceIdentifierFor(event));
+    }
+
+    @Test
+    void testBuildingWithNullFallbackPolicyThrowsAxonConfigurationException() {
+        assertThrows(AxonConfigurationException.class, () -> new KafkaRecordKeySequencingPolicy(null));
+    }
+
+    private static EventMessage<?> readFrom(ConsumerRecord<?, ?> consumerRecord, EventMessage<?> eventMessage) {
+        return KafkaEventMessage.from(eventMessage, consumerRecord, KafkaTrackingToken.emptyToken()).value();
+    }
+}
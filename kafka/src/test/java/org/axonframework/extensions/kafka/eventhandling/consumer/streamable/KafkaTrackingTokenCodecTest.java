@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.extensions.kafka.utils.TestSerializer;
+import org.axonframework.serialization.SerializationException;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link KafkaTrackingTokenCodec}.
+ */
+class KafkaTrackingTokenCodecTest {
+
+    private static final String TEST_TOPIC = "topic";
+
+    @Test
+    void testEncodedTokenDecodesToEqualToken() {
+        KafkaTrackingToken token = KafkaTrackingToken.emptyToken()
+                                                     .advancedTo(TEST_TOPIC, 0, 1_000_000L)
+                                                     .advancedTo(TEST_TOPIC, 1, 999_990L)
+                                                     .advancedTo(TEST_TOPIC, 100, 0L)
+                                                     .advancedTo("other", 3, Long.MAX_VALUE)
+                                                     .advancedTo(TEST_TOPIC, 2, 1_000_010L, 4);
+
+        KafkaTrackingToken result = KafkaTrackingTokenCodec.decode(KafkaTrackingTokenCodec.encode(token));
+
+        assertEquals(token, result);
+        assertEquals(token.getPositions(), result.getPositions());
+        assertEquals(token.getSubOffsets(), result.getSubOffsets());
+    }
+
+    @Test
+    void testEmptyTokenRoundTrips() {
+        KafkaTrackingToken token = KafkaTrackingToken.emptyToken();
+
+        assertEquals(token, KafkaTrackingTokenCodec.decode(KafkaTrackingTokenCodec.encode(token)));
+    }
+
+    @Test
+    void testEncodingIsSmallerThanGeneralPurposeSerializers() {
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        for (int partition = 0; partition < 128; partition++) {
+            positions.put(new TopicPartition(TEST_TOPIC, partition), 1_000_000L + partition);
+        }
+        KafkaTrackingToken token = KafkaTrackingToken.newInstance(positions);
+
+        byte[] encoded = KafkaTrackingTokenCodec.encode(token);
+
+        // Every position takes a byte for the topic index, partition and offset delta
+        assertTrue(encoded.length < 4 * 128, "Unexpected encoded size " + encoded.length);
+        for (TestSerializer serializer : TestSerializer.all()) {
+            int serializedSize = serializer.serialize(token).getBytes(StandardCharsets.UTF_8).length;
+            assertTrue(encoded.length * 5 < serializedSize, "Not significantly smaller than " + serializer);
+        }
+    }
+
+    @Test
+    void testIsEncodedOnlyRecognizesBinaryTokens() {
+        KafkaTrackingToken token = KafkaTrackingToken.emptyToken().advancedTo(TEST_TOPIC, 0, 1L);
+
+        assertTrue(KafkaTrackingTokenCodec.isEncoded(KafkaTrackingTokenCodec.encode(token)));
+        for (TestSerializer serializer : TestSerializer.all()) {
+            byte[] serialized = serializer.getSerializer().serialize(token, byte[].class).getData();
+            assertFalse(KafkaTrackingTokenCodec.isEncoded(serialized), "Mistook output of " + serializer);
+        }
+        assertFalse(KafkaTrackingTokenCodec.isEncoded(null));
+        assertFalse(KafkaTrackingTokenCodec.isEncoded(new byte[0]));
+    }
+
+    @Test
+    void testDecodingCorruptBytesThrowsSerializationException() {
+        byte[] encoded = KafkaTrackingTokenCodec.encode(KafkaTrackingToken.emptyToken().advancedTo(TEST_TOPIC, 0, 1L));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 2);
+
+        assertThrows(SerializationException.class, () -> KafkaTrackingTokenCodec.decode(truncated));
+        assertThrows(SerializationException.class, () -> KafkaTrackingTokenCodec.decode(new byte[]{'{', '}'}));
+    }
+}
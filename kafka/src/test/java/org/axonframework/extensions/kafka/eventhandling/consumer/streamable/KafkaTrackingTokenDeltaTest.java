@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link KafkaTrackingTokenDelta}.
+ */
+class KafkaTrackingTokenDeltaTest {
+
+    private static final String TEST_TOPIC = "topic";
+
+    @Test
+    void testBaseReturnsGivenToken() {
+        KafkaTrackingToken token = KafkaTrackingToken.newInstance(singletonMap(new TopicPartition(TEST_TOPIC, 0), 1L));
+
+        assertSame(token, KafkaTrackingTokenDelta.of(token).get());
+    }
+
+    @Test
+    void testMaterializedTokenEqualsAdvancedToken() {
+        KafkaTrackingToken base = KafkaTrackingToken.emptyToken();
+        KafkaTrackingToken expected = base;
+        KafkaTrackingTokenDelta position = KafkaTrackingTokenDelta.of(base);
+        List<KafkaTrackingToken> expectedTokens = new ArrayList<>();
+        List<KafkaTrackingTokenDelta> positions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 == 3) {
+                expected = expected.advancedTo(TEST_TOPIC, i % 4, i, 1);
+                position = position.advancedTo(TEST_TOPIC, i % 4, i, 1);
+            } else {
+                expected = expected.advancedTo(TEST_TOPIC, i % 4, i);
+                position = position.advancedTo(TEST_TOPIC, i % 4, i);
+            }
+            expectedTokens.add(expected);
+            positions.add(position);
+        }
+
+        // Materialize out of order, as the buffer orders messages on timestamp rather than fetch order
+        assertEquals(expectedTokens.get(50), positions.get(50).get());
+        assertEquals(expectedTokens.get(20), positions.get(20).get());
+        for (int i = 0; i < positions.size(); i++) {
+            assertEquals(expectedTokens.get(i), positions.get(i).get());
+            assertEquals(expectedTokens.get(i).getSubOffsets(), positions.get(i).get().getSubOffsets());
+        }
+    }
+
+    @Test
+    void testTokenIsOnlyMaterializedOnce() {
+        KafkaTrackingTokenDelta position = KafkaTrackingTokenDelta.of(KafkaTrackingToken.emptyToken())
+                                                                  .advancedTo(TEST_TOPIC, 0, 1L);
+
+        assertSame(position.get(), position.get());
+    }
+}
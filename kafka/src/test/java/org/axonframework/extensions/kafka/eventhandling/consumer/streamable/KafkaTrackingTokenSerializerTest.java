@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.common.AxonConfigurationException;
+import org.axonframework.eventhandling.ReplayToken;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.extensions.kafka.utils.TestSerializer;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.axonframework.serialization.SimpleSerializedType;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Collection;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link KafkaTrackingTokenSerializer}.
+ */
+class KafkaTrackingTokenSerializerTest {
+
+    private static final KafkaTrackingToken TEST_TOKEN =
+            KafkaTrackingToken.newInstance(singletonMap(new TopicPartition("topic", 1), 42L))
+                              .advancedTo("topic", 2, 7L, 3);
+
+    static Collection<TestSerializer> serializers() {
+        return TestSerializer.all();
+    }
+
+    @ParameterizedTest
+    @MethodSource("serializers")
+    void testTokenIsSerializedInBinaryForm(TestSerializer delegate) {
+        Serializer testSubject = KafkaTrackingTokenSerializer.builder().delegate(delegate.getSerializer()).build();
+
+        SerializedObject<byte[]> result = testSubject.serialize(TEST_TOKEN, byte[].class);
+
+        assertTrue(KafkaTrackingTokenCodec.isEncoded(result.getData()));
+        assertEquals(KafkaTrackingToken.class.getName(), result.getType().getName());
+        assertEquals(TEST_TOKEN, testSubject.deserialize(result));
+    }
+
+    @ParameterizedTest
+    @MethodSource("serializers")
+    void testTokenSerializedByDelegateRemainsReadable(TestSerializer delegate) {
+        Serializer testSubject = KafkaTrackingTokenSerializer.builder().delegate(delegate.getSerializer()).build();
+        SerializedObject<byte[]> stored = delegate.getSerializer().serialize(TEST_TOKEN, byte[].class);
+        // Token stores only retain the type name of the serialized token
+        SerializedObject<byte[]> fetched = new SimpleSerializedObject<>(
+                stored.getData(), byte[].class, new SimpleSerializedType(stored.getType().getName(), null)
+        );
+
+        assertEquals(TEST_TOKEN, testSubject.deserialize(fetched));
+    }
+
+    @ParameterizedTest
+    @MethodSource("serializers")
+    void testOtherObjectsAndRepresentationsAreDelegated(TestSerializer delegate) {
+        Serializer testSubject = KafkaTrackingTokenSerializer.builder().delegate(delegate.getSerializer()).build();
+        ReplayToken replayToken = new ReplayToken(TEST_TOKEN);
+
+        SerializedObject<byte[]> serializedReplayToken = testSubject.serialize(replayToken, byte[].class);
+        SerializedObject<String> serializedAsString = testSubject.serialize(TEST_TOKEN, String.class);
+
+        assertFalse(KafkaTrackingTokenCodec.isEncoded(serializedReplayToken.getData()));
+        assertEquals(replayToken, testSubject.<byte[], TrackingToken>deserialize(serializedReplayToken));
+        assertEquals(delegate.getSerializer().serialize(TEST_TOKEN, String.class).getData(),
+                     serializedAsString.getData());
+    }
+
+    @Test
+    void testBuildWithoutDelegateThrowsAxonConfigurationException() {
+        KafkaTrackingTokenSerializer.Builder builder = KafkaTrackingTokenSerializer.builder();
+
+        assertThrows(AxonConfigurationException.class, builder::build);
+        assertThrows(AxonConfigurationException.class, () -> builder.delegate(null));
+    }
+}
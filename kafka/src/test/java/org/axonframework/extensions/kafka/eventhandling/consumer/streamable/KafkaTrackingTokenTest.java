@@ -17,6 +17,7 @@
 package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
 
 import org.apache.kafka.common.TopicPartition;
+import org.axonframework.extensions.kafka.utils.TestSerializer;
 import org.junit.jupiter.api.*;
 
 import java.util.HashMap;
@@ -205,6 +206,60 @@ void testCoversRegression() {
         assertFalse(first.covers(second));
     }
 
+    @Test
+    void testAdvanceToSubOffsetMarksRecordAsPartiallyHandled() {
+        KafkaTrackingToken testSubject = nonEmptyToken().advancedTo(TEST_TOPIC, TEST_PARTITION, 1L, 2);
+
+        assertEquals(Long.valueOf(1), testSubject.getPositions().get(TEST_TOPIC_PARTITION));
+        assertEquals(Integer.valueOf(2), testSubject.getSubOffsets().get(TEST_TOPIC_PARTITION));
+        assertTrue(testSubject.isPartiallyHandled(TEST_TOPIC_PARTITION));
+        assertEquals("KafkaTrackingToken{positions={topic-0=1}, subOffsets={topic-0=2}}", testSubject.toString());
+    }
+
+    @Test
+    void testAdvanceToInvalidSubOffset() {
+        KafkaTrackingToken token = emptyToken();
+        assertThrows(IllegalArgumentException.class, () -> token.advancedTo(TEST_TOPIC, 0, 1, -1));
+    }
+
+    @Test
+    void testAdvancingPastPartiallyHandledRecordRemovesSubOffset() {
+        KafkaTrackingToken partiallyHandled = nonEmptyToken().advancedTo(TEST_TOPIC, TEST_PARTITION, 1L, 0);
+
+        KafkaTrackingToken testSubject = partiallyHandled.advancedTo(TEST_TOPIC, TEST_PARTITION, 1L);
+
+        assertFalse(testSubject.isPartiallyHandled(TEST_TOPIC_PARTITION));
+        assertEquals(newInstance(singletonMap(TEST_TOPIC_PARTITION, 1L)), testSubject);
+        assertEquals(newInstance(singletonMap(TEST_TOPIC_PARTITION, 1L)).hashCode(), testSubject.hashCode());
+    }
+
+    @Test
+    void testCoversTakesSubOffsetsIntoAccount() {
+        KafkaTrackingToken previousRecord = newInstance(singletonMap(TEST_TOPIC_PARTITION, 0L));
+        KafkaTrackingToken firstEvent = previousRecord.advancedTo(TEST_TOPIC, TEST_PARTITION, 1L, 0);
+        KafkaTrackingToken secondEvent = firstEvent.advancedTo(TEST_TOPIC, TEST_PARTITION, 1L, 1);
+        KafkaTrackingToken lastEvent = secondEvent.advancedTo(TEST_TOPIC, TEST_PARTITION, 1L);
+
+        assertTrue(firstEvent.covers(previousRecord));
+        assertFalse(previousRecord.covers(firstEvent));
+        assertTrue(secondEvent.covers(firstEvent));
+        assertFalse(firstEvent.covers(secondEvent));
+        assertTrue(lastEvent.covers(secondEvent));
+        assertFalse(secondEvent.covers(lastEvent));
+    }
+
+    @Test
+    void testBoundsTakeSubOffsetsIntoAccount() {
+        KafkaTrackingToken firstEvent = emptyToken().advancedTo(TEST_TOPIC, TEST_PARTITION, 1L, 0);
+        KafkaTrackingToken secondEvent = emptyToken().advancedTo(TEST_TOPIC, TEST_PARTITION, 1L, 1);
+        KafkaTrackingToken completeRecord = emptyToken().advancedTo(TEST_TOPIC, TEST_PARTITION, 1L);
+
+        assertEquals(firstEvent, firstEvent.lowerBound(secondEvent));
+        assertEquals(secondEvent, firstEvent.upperBound(secondEvent));
+        assertEquals(secondEvent, completeRecord.lowerBound(secondEvent));
+        assertEquals(completeRecord, secondEvent.upperBound(completeRecord));
+    }
+
     @Test
     void testRelationOfCoversAndUpperBounds() {
         Random random = new Random();
@@ -230,4 +285,24 @@ void testRelationOfCoversAndUpperBounds() {
             }
         }
     }
+
+    @Test
+    void testAdvancedTokenRoundTripsThroughAllSerializers() {
+        KafkaTrackingToken token = newInstance(singletonMap(new TopicPartition(TEST_TOPIC, 0), 5L))
+                .advancedTo(TEST_TOPIC, 70, 7L)
+                .advancedTo("other", 1, 9L)
+                .advancedTo(TEST_TOPIC, 3, 2L, 1);
+
+        for (TestSerializer serializer : TestSerializer.all()) {
+            String serialized = serializer.serialize(token);
+            assertFalse(serialized.contains(PartitionOffsets.class.getSimpleName()),
+                        "The internal representation leaked into the " + serializer + " serialized form");
+
+            KafkaTrackingToken result = serializer.deserialize(serialized, KafkaTrackingToken.class);
+            assertEquals(token, result, "Unexpected round trip for " + serializer);
+            assertEquals(token.getPositions(), result.getPositions());
+            assertEquals(token.getSubOffsets(), result.getSubOffsets());
+            assertEquals(token.advancedTo(TEST_TOPIC, 0, 6L), result.advancedTo(TEST_TOPIC, 0, 6L));
+        }
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link PartitionOffsets}.
+ */
+class PartitionOffsetsTest {
+
+    private static final String TEST_TOPIC = "topic";
+
+    @Test
+    void testEmptyInstanceContainsNoOffsets() {
+        PartitionOffsets testSubject = PartitionOffsets.empty();
+
+        assertTrue(testSubject.isEmpty());
+        assertEquals(-1L, testSubject.offset(TEST_TOPIC, 0));
+        assertNull(testSubject.get(new TopicPartition(TEST_TOPIC, 0)));
+    }
+
+    @Test
+    void testFromBehavesLikeTheGivenMap() {
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        positions.put(new TopicPartition(TEST_TOPIC, 0), 1L);
+        positions.put(new TopicPartition(TEST_TOPIC, 130), 2L);
+        positions.put(new TopicPartition("other", 5), 3L);
+
+        PartitionOffsets testSubject = PartitionOffsets.from(positions);
+
+        assertEquals(positions, testSubject);
+        assertEquals(testSubject, positions);
+        assertEquals(positions.hashCode(), testSubject.hashCode());
+        assertEquals(positions.entrySet(), testSubject.entrySet());
+        assertEquals(3, testSubject.size());
+        assertEquals(2L, testSubject.offset(TEST_TOPIC, 130));
+        assertEquals(-1L, testSubject.offset(TEST_TOPIC, 129));
+        assertFalse(testSubject.containsKey(new TopicPartition(TEST_TOPIC, 1)));
+    }
+
+    @Test
+    void testFromRejectsNegativeOffsets() {
+        Map<TopicPartition, Long> positions = singletonMap(new TopicPartition(TEST_TOPIC, 0), -1L);
+
+        assertThrows(IllegalArgumentException.class, () -> PartitionOffsets.from(positions));
+    }
+
+    @Test
+    void testWithLeavesTheOriginalUntouched() {
+        PartitionOffsets original = PartitionOffsets.empty().with(TEST_TOPIC, 0, 1L).with(TEST_TOPIC, 100, 1L);
+
+        PartitionOffsets result = original.with(TEST_TOPIC, 0, 2L);
+
+        assertEquals(1L, original.offset(TEST_TOPIC, 0));
+        assertEquals(2L, result.offset(TEST_TOPIC, 0));
+        assertEquals(1L, result.offset(TEST_TOPIC, 100));
+        assertEquals(2, result.size());
+        assertSame(result, result.with(TEST_TOPIC, 0, 2L));
+    }
+
+    @Test
+    void testCovers() {
+        PartitionOffsets lower = PartitionOffsets.empty().with(TEST_TOPIC, 0, 1L).with(TEST_TOPIC, 70, 1L);
+        PartitionOffsets higher = lower.with(TEST_TOPIC, 70, 2L);
+        PartitionOffsets wider = lower.with("other", 0, 0L);
+
+        assertTrue(higher.covers(lower));
+        assertFalse(lower.covers(higher));
+        assertTrue(wider.covers(lower));
+        assertFalse(lower.covers(wider));
+        assertTrue(PartitionOffsets.empty().covers(PartitionOffsets.empty()));
+    }
+
+    @Test
+    void testBoundTreatsAbsentPartitionsAsOffsetZero() {
+        PartitionOffsets first = PartitionOffsets.empty().with(TEST_TOPIC, 0, 3L).with(TEST_TOPIC, 1, 1L);
+        PartitionOffsets second = PartitionOffsets.empty().with(TEST_TOPIC, 1, 2L).with("other", 64, 4L);
+
+        PartitionOffsets upper = first.bound(second, true);
+        PartitionOffsets lower = first.bound(second, false);
+
+        assertEquals(3L, upper.offset(TEST_TOPIC, 0));
+        assertEquals(2L, upper.offset(TEST_TOPIC, 1));
+        assertEquals(4L, upper.offset("other", 64));
+        assertEquals(0L, lower.offset(TEST_TOPIC, 0));
+        assertEquals(1L, lower.offset(TEST_TOPIC, 1));
+        assertEquals(0L, lower.offset("other", 64));
+        assertEquals(3, upper.size());
+        assertEquals(3, lower.size());
+    }
+}
@@ -16,18 +16,31 @@
 
 package org.axonframework.extensions.kafka.eventhandling.consumer.streamable;
 
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.common.TopicPartition;
+import org.axonframework.eventhandling.TrackedEventMessage;
 import org.axonframework.eventhandling.TrackingToken;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.axonframework.extensions.kafka.eventhandling.BatchingKafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter;
 import org.axonframework.extensions.kafka.eventhandling.KafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.consumer.FetchEventException;
+import org.axonframework.extensions.kafka.utils.TestSerializer;
 import org.junit.jupiter.api.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
+import static org.apache.kafka.clients.consumer.ConsumerRecord.NULL_SIZE;
+import static org.apache.kafka.common.record.RecordBatch.NO_TIMESTAMP;
+import static org.apache.kafka.common.record.TimestampType.NO_TIMESTAMP_TYPE;
 import static org.axonframework.eventhandling.GenericEventMessage.asEventMessage;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -92,6 +105,32 @@ void testConverterConvertsRecordsAndTracksProgress() {
         assertEquals(expectedCurrentToken, resultCurrentToken);
     }
 
+    @Test
+    void testConvertedEventsCarryTheirRecordOrigin() {
+        List<KafkaEventMessage> result = testSubject.convert(buildConsumerRecords(2));
+
+        KafkaEventMessage lastResult = result.get(1);
+        Optional<KafkaRecordOrigin> recordOrigin = KafkaRecordOrigin.of(lastResult.value());
+        assertEquals(Optional.of(new KafkaRecordOrigin(TEST_TOPIC, TEST_PARTITION, 1, "record-key")), recordOrigin);
+        assertEquals(recordOrigin, KafkaRecordOrigin.of(lastResult.value().withTrackingToken(null)));
+        assertEquals(lastResult.value().trackingToken(), testSubject.currentToken());
+    }
+
+    @Test
+    void testConvertedEventsMaterializeTheirTrackingTokenWhenSerialized() {
+        List<KafkaEventMessage> result = testSubject.convert(buildConsumerRecords(3));
+        TrackedEventMessage<?> firstEvent = result.get(0).value();
+
+        TestSerializer serializer = TestSerializer.JAVA;
+        TrackedEventMessage<?> deserialized =
+                serializer.deserialize(serializer.serialize(firstEvent), TrackedEventMessage.class);
+
+        KafkaTrackingToken expectedToken =
+                KafkaTrackingToken.newInstance(Collections.singletonMap(TEST_TOPIC_PARTITION, 0L));
+        assertEquals(expectedToken, deserialized.trackingToken());
+        assertEquals(expectedToken, firstEvent.trackingToken());
+    }
+
     @Test
     void testCurrentTokenReturnsTheGivenTokenIfNoConversionHasTakenPlace() {
         KafkaTrackingToken expectedToken = KafkaTrackingToken.emptyToken();
@@ -103,6 +142,238 @@ void testCurrentTokenReturnsTheGivenTokenIfNoConversionHasTakenPlace() {
         assertEquals(expectedToken, resultToken);
     }
 
+    @Test
+    void testConverterUnpacksBatchedRecordsAndTracksSubOffsets() {
+        BatchingKafkaMessageConverter<String, String> batchingConverter = batchingConverter();
+        TrackingRecordConverter<String, String> testSubject =
+                new TrackingRecordConverter<>(batchingConverter, KafkaTrackingToken.emptyToken());
+
+        List<KafkaEventMessage> result = testSubject.convert(buildConsumerRecords(2));
+
+        assertEquals(6, result.size());
+        KafkaEventMessage firstOfRecord = result.get(0);
+        assertEquals(0, firstOfRecord.offset());
+        assertEquals(0, firstOfRecord.subOffset());
+        KafkaTrackingToken firstToken = (KafkaTrackingToken) firstOfRecord.value().trackingToken();
+        assertEquals(KafkaTrackingToken.emptyToken().advancedTo(TEST_TOPIC, TEST_PARTITION, 0, 0), firstToken);
+        KafkaEventMessage lastOfRecord = result.get(2);
+        assertEquals(2, lastOfRecord.subOffset());
+        KafkaTrackingToken lastToken = (KafkaTrackingToken) lastOfRecord.value().trackingToken();
+        assertFalse(lastToken.isPartiallyHandled(TEST_TOPIC_PARTITION));
+        assertEquals(KafkaTrackingToken.newInstance(Collections.singletonMap(TEST_TOPIC_PARTITION, 1L)),
+                     testSubject.currentToken());
+    }
+
+    @Test
+    void testConverterResumesWithinPartiallyHandledRecord() {
+        KafkaTrackingToken partiallyHandled =
+                KafkaTrackingToken.emptyToken().advancedTo(TEST_TOPIC, TEST_PARTITION, 0, 1);
+        TrackingRecordConverter<String, String> testSubject =
+                new TrackingRecordConverter<>(batchingConverter(), partiallyHandled);
+
+        List<KafkaEventMessage> result = testSubject.convert(buildConsumerRecords(2));
+
+        assertEquals(4, result.size());
+        assertEquals(0, result.get(0).offset());
+        assertEquals(2, result.get(0).subOffset());
+        assertEquals("record-value-0-2", result.get(0).value().getPayload());
+        assertEquals(1, result.get(1).offset());
+        assertEquals(0, result.get(1).subOffset());
+    }
+
+    @Test
+    void testConverterReassemblesChunkedRecordAndOnlyAdvancesTokenPastFinalChunk() {
+        DefaultKafkaMessageConverter chunkingConverter = chunkingConverter();
+        TrackingRecordConverter<String, byte[]> chunkingSubject =
+                new TrackingRecordConverter<>(chunkingConverter, KafkaTrackingToken.emptyToken());
+        List<ProducerRecord<String, byte[]>> chunks = chunkingConverter.toChunks(
+                chunkingConverter.createKafkaMessage(asEventMessage("a-payload-spanning-several-chunks"), TEST_TOPIC)
+        );
+        assertEquals(3, chunks.size());
+        ProducerRecord<String, byte[]> interleaved =
+                chunkingConverter.createKafkaMessage(asEventMessage("small"), TEST_TOPIC);
+        List<ConsumerRecord<String, byte[]>> consumerRecords = new ArrayList<>();
+        consumerRecords.add(toConsumerRecord(buildRecord(0).key(), "not-an-event".getBytes(), 0));
+        consumerRecords.add(toConsumerRecord(chunks.get(0), 1));
+        consumerRecords.add(toConsumerRecord(chunks.get(1), 2));
+        consumerRecords.add(toConsumerRecord(interleaved, 3));
+        consumerRecords.add(toConsumerRecord(chunks.get(2), 4));
+
+        List<KafkaEventMessage> result = chunkingSubject.convert(
+                new ConsumerRecords<>(Collections.singletonMap(TEST_TOPIC_PARTITION, consumerRecords))
+        );
+
+        assertEquals(2, result.size());
+        KafkaEventMessage interleavedEvent = result.get(0);
+        assertEquals("small", interleavedEvent.value().getPayload());
+        assertEquals(KafkaTrackingToken.newInstance(Collections.singletonMap(TEST_TOPIC_PARTITION, 0L)),
+                     interleavedEvent.value().trackingToken());
+        KafkaEventMessage chunkedEvent = result.get(1);
+        assertEquals("a-payload-spanning-several-chunks", chunkedEvent.value().getPayload());
+        assertEquals(4, chunkedEvent.offset());
+        assertEquals(KafkaTrackingToken.newInstance(Collections.singletonMap(TEST_TOPIC_PARTITION, 4L)),
+                     chunkedEvent.value().trackingToken());
+    }
+
+    @Test
+    void testTokenIsLeftUnchangedForEventsInterleavedWithRecordChunkedFromFirstOffset() {
+        DefaultKafkaMessageConverter chunkingConverter = chunkingConverter();
+        TrackingRecordConverter<String, byte[]> chunkingSubject =
+                new TrackingRecordConverter<>(chunkingConverter, KafkaTrackingToken.emptyToken());
+        List<ProducerRecord<String, byte[]>> chunks = chunkingConverter.toChunks(
+                chunkingConverter.createKafkaMessage(asEventMessage("a-payload-spanning-several-chunks"), TEST_TOPIC)
+        );
+        ProducerRecord<String, byte[]> interleaved =
+                chunkingConverter.createKafkaMessage(asEventMessage("small"), TEST_TOPIC);
+        List<ConsumerRecord<String, byte[]>> consumerRecords = Arrays.asList(
+                toConsumerRecord(chunks.get(0), 0),
+                toConsumerRecord(chunks.get(1), 1),
+                toConsumerRecord(interleaved, 2),
+                toConsumerRecord(chunks.get(2), 3)
+        );
+
+        List<KafkaEventMessage> result = chunkingSubject.convert(
+                new ConsumerRecords<>(Collections.singletonMap(TEST_TOPIC_PARTITION, consumerRecords))
+        );
+
+        assertEquals(2, result.size());
+        KafkaEventMessage interleavedEvent = result.get(0);
+        assertEquals("small", interleavedEvent.value().getPayload());
+        assertEquals(KafkaTrackingToken.emptyToken(), interleavedEvent.value().trackingToken());
+        KafkaEventMessage chunkedEvent = result.get(1);
+        assertEquals("a-payload-spanning-several-chunks", chunkedEvent.value().getPayload());
+        assertEquals(KafkaTrackingToken.newInstance(Collections.singletonMap(TEST_TOPIC_PARTITION, 3L)),
+                     chunkedEvent.value().trackingToken());
+    }
+
+    @Test
+    void testConverterDropsChunksOfRecordWithMissingFirstChunk() {
+        DefaultKafkaMessageConverter chunkingConverter = chunkingConverter();
+        TrackingRecordConverter<String, byte[]> chunkingSubject =
+                new TrackingRecordConverter<>(chunkingConverter, KafkaTrackingToken.emptyToken());
+        List<ProducerRecord<String, byte[]>> chunks = chunkingConverter.toChunks(
+                chunkingConverter.createKafkaMessage(asEventMessage("a-payload-spanning-several-chunks"), TEST_TOPIC)
+        );
+        List<ConsumerRecord<String, byte[]>> consumerRecords =
+                Arrays.asList(toConsumerRecord(chunks.get(1), 5), toConsumerRecord(chunks.get(2), 6));
+
+        List<KafkaEventMessage> result = chunkingSubject.convert(
+                new ConsumerRecords<>(Collections.singletonMap(TEST_TOPIC_PARTITION, consumerRecords))
+        );
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void testTokenDoesNotAdvancePastIncompleteRecordWhileChunkBufferIsFull() {
+        DefaultKafkaMessageConverter chunkingConverter = chunkingConverter();
+        List<ProducerRecord<String, byte[]>> first = chunkingConverter.toChunks(
+                chunkingConverter.createKafkaMessage(asEventMessage("a-payload-spanning-several-chunks"), TEST_TOPIC)
+        );
+        List<ProducerRecord<String, byte[]>> second = chunkingConverter.toChunks(
+                chunkingConverter.createKafkaMessage(asEventMessage("another-payload-spanning-chunks"), TEST_TOPIC)
+        );
+        int firstRecordSize = first.stream().mapToInt(chunk -> chunk.value().length).sum();
+        TrackingRecordConverter<String, byte[]> chunkingSubject =
+                new TrackingRecordConverter<>(chunkingConverter, KafkaTrackingToken.emptyToken(), firstRecordSize);
+        ProducerRecord<String, byte[]> small = chunkingConverter.createKafkaMessage(asEventMessage("small"), TEST_TOPIC);
+        TopicPartition otherPartition = new TopicPartition(TEST_TOPIC, TEST_PARTITION + 1);
+        //noinspection unchecked
+        Consumer<String, byte[]> consumer = mock(Consumer.class);
+        when(consumer.assignment()).thenReturn(new HashSet<>(Arrays.asList(TEST_TOPIC_PARTITION, otherPartition)));
+
+        List<KafkaEventMessage> result = chunkingSubject.convert(new ConsumerRecords<>(Collections.singletonMap(
+                TEST_TOPIC_PARTITION,
+                Arrays.asList(toConsumerRecord(small, 0), toConsumerRecord(first.get(0), 1),
+                              toConsumerRecord(second.get(0), 2), toConsumerRecord(first.get(1), 3),
+                              toConsumerRecord(small, 4))
+        )));
+        chunkingSubject.regulateFetching(consumer);
+
+        assertEquals(2, result.size());
+        assertEquals(KafkaTrackingToken.newInstance(Collections.singletonMap(TEST_TOPIC_PARTITION, 0L)),
+                     chunkingSubject.currentToken());
+        verify(consumer).pause(Collections.singleton(otherPartition));
+
+        result = chunkingSubject.convert(new ConsumerRecords<>(Collections.singletonMap(
+                TEST_TOPIC_PARTITION, Collections.singletonList(toConsumerRecord(first.get(2), 5))
+        )));
+        chunkingSubject.regulateFetching(consumer);
+
+        assertEquals(1, result.size());
+        assertEquals("a-payload-spanning-several-chunks", result.get(0).value().getPayload());
+        assertEquals(KafkaTrackingToken.newInstance(Collections.singletonMap(TEST_TOPIC_PARTITION, 1L)),
+                     chunkingSubject.currentToken());
+        verify(consumer).resume(Collections.singleton(otherPartition));
+    }
+
+    @Test
+    void testConverterFailsOnRecordExceedingChunkBufferSize() {
+        DefaultKafkaMessageConverter chunkingConverter = chunkingConverter();
+        TrackingRecordConverter<String, byte[]> chunkingSubject =
+                new TrackingRecordConverter<>(chunkingConverter, KafkaTrackingToken.emptyToken(), 20);
+        List<ProducerRecord<String, byte[]>> chunks = chunkingConverter.toChunks(
+                chunkingConverter.createKafkaMessage(asEventMessage("a-payload-spanning-several-chunks"), TEST_TOPIC)
+        );
+        List<ConsumerRecord<String, byte[]>> consumerRecords = Arrays.asList(
+                toConsumerRecord(chunks.get(0), 0), toConsumerRecord(chunks.get(1), 1),
+                toConsumerRecord(chunks.get(2), 2)
+        );
+
+        assertThrows(FetchEventException.class, () -> chunkingSubject.convert(
+                new ConsumerRecords<>(Collections.singletonMap(TEST_TOPIC_PARTITION, consumerRecords))
+        ));
+        assertEquals(KafkaTrackingToken.emptyToken(), chunkingSubject.currentToken());
+    }
+
+    @Test
+    void testConverterFailsOnMissingChunkOfRecord() {
+        DefaultKafkaMessageConverter chunkingConverter = chunkingConverter();
+        TrackingRecordConverter<String, byte[]> chunkingSubject =
+                new TrackingRecordConverter<>(chunkingConverter, KafkaTrackingToken.emptyToken());
+        List<ProducerRecord<String, byte[]>> chunks = chunkingConverter.toChunks(
+                chunkingConverter.createKafkaMessage(asEventMessage("a-payload-spanning-several-chunks"), TEST_TOPIC)
+        );
+        List<ConsumerRecord<String, byte[]>> consumerRecords =
+                Arrays.asList(toConsumerRecord(chunks.get(0), 0), toConsumerRecord(chunks.get(2), 1));
+
+        assertThrows(FetchEventException.class, () -> chunkingSubject.convert(
+                new ConsumerRecords<>(Collections.singletonMap(TEST_TOPIC_PARTITION, consumerRecords))
+        ));
+    }
+
+    private static DefaultKafkaMessageConverter chunkingConverter() {
+        return DefaultKafkaMessageConverter.builder()
+                                           .serializer(TestSerializer.JACKSON.getSerializer())
+                                           .chunkSize(16)
+                                           .build();
+    }
+
+    private static ConsumerRecord<String, byte[]> toConsumerRecord(ProducerRecord<String, byte[]> record,
+                                                                   long offset) {
+        ConsumerRecord<String, byte[]> consumerRecord = toConsumerRecord(record.key(), record.value(), offset);
+        record.headers().forEach(header -> consumerRecord.headers().add(header));
+        return consumerRecord;
+    }
+
+    private static ConsumerRecord<String, byte[]> toConsumerRecord(String key, byte[] value, long offset) {
+        return new ConsumerRecord<>(TEST_TOPIC, TEST_PARTITION, offset, NO_TIMESTAMP, NO_TIMESTAMP_TYPE,
+                                    NULL_SIZE, value.length, key, value, new RecordHeaders(), Optional.empty());
+    }
+
+    private static BatchingKafkaMessageConverter<String, String> batchingConverter() {
+        //noinspection unchecked
+        BatchingKafkaMessageConverter<String, String> batchingConverter = mock(BatchingKafkaMessageConverter.class);
+        //noinspection unchecked
+        when(batchingConverter.readKafkaMessages(any())).thenAnswer(it -> {
+            String value = ((ConsumerRecord<String, String>) it.getArgument(0)).value();
+            return Arrays.asList(
+                    asEventMessage(value + "-0"), asEventMessage(value + "-1"), asEventMessage(value + "-2")
+            );
+        });
+        return batchingConverter;
+    }
+
     private static ConsumerRecords<String, String> buildConsumerRecords(int numberOfRecords) {
         List<ConsumerRecord<String, String>> consumerRecordList = new ArrayList<>();
         for (int i = 0; i < numberOfRecords; i++) {
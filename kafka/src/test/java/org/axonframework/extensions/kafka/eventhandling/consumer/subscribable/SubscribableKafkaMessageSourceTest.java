@@ -17,23 +17,37 @@
 package org.axonframework.extensions.kafka.eventhandling.consumer.subscribable;
 
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.BrokerNotAvailableException;
 import org.axonframework.common.AxonConfigurationException;
 import org.axonframework.common.Registration;
 import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter;
 import org.axonframework.extensions.kafka.eventhandling.consumer.AsyncFetcher;
+import org.axonframework.extensions.kafka.eventhandling.consumer.ConsumedOffsets;
 import org.axonframework.extensions.kafka.eventhandling.consumer.ConsumerFactory;
+import org.axonframework.extensions.kafka.eventhandling.consumer.EventConsumer;
+import org.axonframework.extensions.kafka.eventhandling.consumer.FetchEventException;
 import org.axonframework.extensions.kafka.eventhandling.consumer.Fetcher;
+import org.axonframework.extensions.kafka.eventhandling.consumer.RecordConverter;
+import org.axonframework.extensions.kafka.eventhandling.consumer.RuntimeErrorHandler;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -45,14 +59,18 @@
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.awaitility.Awaitility.await;
+import static org.axonframework.eventhandling.GenericEventMessage.asEventMessage;
 import static org.axonframework.extensions.kafka.eventhandling.util.ConsumerConfigUtil.DEFAULT_GROUP_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyMap;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -234,6 +252,121 @@ void testSubscribingTheSameInstanceTwiceDisregardsSecondInstanceOnStart() {
         verify(fetcher, times(1)).poll(eq(mockConsumer), any(), any(), any());
     }
 
+    @Test
+    void testSubscribingSecondEventProcessorToExactlyOnceSourceThrowsAxonConfigurationException() {
+        SubscribableKafkaMessageSource<String, String> testSubject =
+                SubscribableKafkaMessageSource.<String, String>builder()
+                                              .topics(Collections.singletonList(TEST_TOPIC))
+                                              .groupId(DEFAULT_GROUP_ID)
+                                              .consumerFactory(consumerFactory)
+                                              .fetcher(fetcher)
+                                              .exactlyOnce()
+                                              .build();
+        testSubject.subscribe(NO_OP_EVENT_PROCESSOR);
+        testSubject.subscribe(NO_OP_EVENT_PROCESSOR);
+
+        assertThrows(AxonConfigurationException.class, () -> testSubject.subscribe(eventMessages -> {
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testExactlyOnceBindsConsumedOffsetsAndCommitsThemIfNoTransactionDid() throws InterruptedException {
+        ArgumentCaptor<RecordConverter<String, String, EventMessage<?>>> recordConverter =
+                ArgumentCaptor.forClass(RecordConverter.class);
+        ArgumentCaptor<EventConsumer<EventMessage<?>>> eventConsumer = ArgumentCaptor.forClass(EventConsumer.class);
+        when(fetcher.poll(eq(mockConsumer), recordConverter.capture(), eventConsumer.capture(), any()))
+                .thenReturn(NO_OP_FETCHER_REGISTRATION);
+        when(mockConsumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata(DEFAULT_GROUP_ID));
+        List<ConsumedOffsets> boundOffsets = new ArrayList<>();
+
+        SubscribableKafkaMessageSource<String, String> testSubject =
+                SubscribableKafkaMessageSource.<String, String>builder()
+                                              .topics(Collections.singletonList(TEST_TOPIC))
+                                              .groupId(DEFAULT_GROUP_ID)
+                                              .consumerFactory(consumerFactory)
+                                              .fetcher(fetcher)
+                                              .exactlyOnce()
+                                              .build();
+        testSubject.subscribe(eventMessages -> boundOffsets.add(ConsumedOffsets.current().orElse(null)));
+        testSubject.start();
+
+        TopicPartition partition = new TopicPartition(TEST_TOPIC, 0);
+        ConsumerRecords<String, String> records = new ConsumerRecords<>(Collections.singletonMap(
+                partition,
+                Arrays.asList(new ConsumerRecord<>(TEST_TOPIC, 0, 4, "key", "value"),
+                              new ConsumerRecord<>(TEST_TOPIC, 0, 5, "key", "value"))
+        ));
+        recordConverter.getValue().convert(records);
+        eventConsumer.getValue().consume(Collections.singletonList(asEventMessage("event")));
+
+        assertEquals(1, boundOffsets.size());
+        Map<TopicPartition, OffsetAndMetadata> expectedOffsets =
+                Collections.singletonMap(partition, new OffsetAndMetadata(6));
+        assertEquals(expectedOffsets, boundOffsets.get(0).offsets());
+        assertEquals(DEFAULT_GROUP_ID, boundOffsets.get(0).groupMetadata().groupId());
+        verify(mockConsumer).commitSync(expectedOffsets);
+        assertFalse(ConsumedOffsets.current().isPresent());
+        testSubject.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testExactlyOnceDoesNotCommitOffsetsCommittedByTransaction() throws InterruptedException {
+        ArgumentCaptor<RecordConverter<String, String, EventMessage<?>>> recordConverter =
+                ArgumentCaptor.forClass(RecordConverter.class);
+        ArgumentCaptor<EventConsumer<EventMessage<?>>> eventConsumer = ArgumentCaptor.forClass(EventConsumer.class);
+        when(fetcher.poll(eq(mockConsumer), recordConverter.capture(), eventConsumer.capture(), any()))
+                .thenReturn(NO_OP_FETCHER_REGISTRATION);
+        when(mockConsumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata(DEFAULT_GROUP_ID));
+
+        SubscribableKafkaMessageSource<String, String> testSubject =
+                SubscribableKafkaMessageSource.<String, String>builder()
+                                              .topics(Collections.singletonList(TEST_TOPIC))
+                                              .groupId(DEFAULT_GROUP_ID)
+                                              .consumerFactory(consumerFactory)
+                                              .fetcher(fetcher)
+                                              .exactlyOnce()
+                                              .build();
+        testSubject.subscribe(eventMessages -> ConsumedOffsets.current().ifPresent(ConsumedOffsets::markCommitted));
+        testSubject.start();
+
+        recordConverter.getValue().convert(new ConsumerRecords<>(Collections.singletonMap(
+                new TopicPartition(TEST_TOPIC, 0),
+                Collections.singletonList(new ConsumerRecord<>(TEST_TOPIC, 0, 0, "key", "value"))
+        )));
+        eventConsumer.getValue().consume(Collections.singletonList(asEventMessage("event")));
+
+        verify(mockConsumer, never()).commitSync(anyMap());
+        testSubject.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testChunkRecordStopsConsumerInsteadOfBeingSkipped() {
+        ArgumentCaptor<RecordConverter<String, String, EventMessage<?>>> recordConverter =
+                ArgumentCaptor.forClass(RecordConverter.class);
+        ArgumentCaptor<RuntimeErrorHandler> errorHandler = ArgumentCaptor.forClass(RuntimeErrorHandler.class);
+        when(fetcher.poll(eq(mockConsumer), recordConverter.capture(), any(), errorHandler.capture()))
+                .thenReturn(NO_OP_FETCHER_REGISTRATION);
+        testSubject.subscribe(eventMessages -> {
+        });
+        testSubject.start();
+
+        ConsumerRecord<String, String> chunkRecord = new ConsumerRecord<>(TEST_TOPIC, 0, 0, "key", "value");
+        chunkRecord.headers().add(DefaultKafkaMessageConverter.CHUNK_ID,
+                                  "chunked-record".getBytes(StandardCharsets.UTF_8));
+        ConsumerRecords<String, String> records = new ConsumerRecords<>(Collections.singletonMap(
+                new TopicPartition(TEST_TOPIC, 0), Collections.singletonList(chunkRecord)
+        ));
+
+        FetchEventException failure =
+                assertThrows(FetchEventException.class, () -> recordConverter.getValue().convert(records));
+        errorHandler.getValue().handle(new FetchEventException("Cannot proceed", failure));
+
+        verify(consumerFactory, times(1)).createConsumer(DEFAULT_GROUP_ID);
+    }
+
     @Test
     void testStartSubscribesConsumerToAllProvidedTopics() {
         when(fetcher.poll(eq(mockConsumer), any(), any(), any())).thenReturn(NO_OP_FETCHER_REGISTRATION);
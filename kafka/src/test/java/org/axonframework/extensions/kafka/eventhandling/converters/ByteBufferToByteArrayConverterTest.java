@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.converters;
+
+import org.axonframework.serialization.ChainingConverter;
+import org.junit.jupiter.api.*;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ByteBufferToByteArrayConverter}.
+ */
+class ByteBufferToByteArrayConverterTest {
+
+    private final ByteBufferToByteArrayConverter testSubject = new ByteBufferToByteArrayConverter();
+
+    @Test
+    void testConvertReturnsBackingArrayWhenBufferSpansIt() {
+        byte[] bytes = {1, 2, 3};
+
+        assertSame(bytes, testSubject.convert(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    void testConvertCopiesRemainingBytesOfSlice() {
+        ByteBuffer slice = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}, 1, 3).slice();
+
+        assertArrayEquals(new byte[]{2, 3, 4}, testSubject.convert(slice));
+        assertEquals(0, slice.position());
+    }
+
+    @Test
+    void testConvertDirectBuffer() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(3);
+        direct.put(new byte[]{1, 2, 3}).flip();
+
+        assertArrayEquals(new byte[]{1, 2, 3}, testSubject.convert(direct));
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    void testConverterIsRegisteredThroughServiceLoader() {
+        assertTrue(new ChainingConverter().canConvert(ByteBuffer.class, byte[].class));
+    }
+}
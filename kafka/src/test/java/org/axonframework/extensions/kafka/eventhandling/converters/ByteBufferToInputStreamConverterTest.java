@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.converters;
+
+import org.axonframework.serialization.ChainingConverter;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ByteBufferToInputStreamConverter}.
+ */
+class ByteBufferToInputStreamConverterTest {
+
+    private final ByteBufferToInputStreamConverter testSubject = new ByteBufferToInputStreamConverter();
+
+    @Test
+    void testConvertedStreamReadsRemainingBytesWithoutMovingBuffer() throws IOException {
+        ByteBuffer slice = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}, 1, 3).slice();
+
+        InputStream result = testSubject.convert(slice);
+
+        assertEquals(3, result.available());
+        byte[] read = new byte[5];
+        assertEquals(3, result.read(read, 0, 5));
+        assertEquals(-1, result.read());
+        assertArrayEquals(new byte[]{2, 3, 4, 0, 0}, read);
+        assertEquals(0, slice.position());
+    }
+
+    @Test
+    void testBufferCanBeConvertedSeveralTimes() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{(byte) 200});
+
+        assertEquals(200, testSubject.convert(buffer).read());
+        assertEquals(200, testSubject.convert(buffer).read());
+    }
+
+    @Test
+    void testConverterIsRegisteredThroughServiceLoader() {
+        assertTrue(new ChainingConverter().canConvert(ByteBuffer.class, InputStream.class));
+    }
+}
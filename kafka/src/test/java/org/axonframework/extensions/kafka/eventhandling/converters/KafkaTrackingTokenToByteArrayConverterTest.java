@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.axonframework.extensions.kafka.eventhandling.converters;
+
+import org.apache.kafka.common.TopicPartition;
+import org.axonframework.extensions.kafka.eventhandling.consumer.streamable.KafkaTrackingToken;
+import org.axonframework.serialization.ChainingConverter;
+import org.junit.jupiter.api.*;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link KafkaTrackingTokenToByteArrayConverter} and {@link ByteArrayToKafkaTrackingTokenConverter}.
+ */
+class KafkaTrackingTokenToByteArrayConverterTest {
+
+    private final KafkaTrackingTokenToByteArrayConverter testSubject = new KafkaTrackingTokenToByteArrayConverter();
+
+    @Test
+    void testConvertedTokenConvertsBackToEqualToken() {
+        KafkaTrackingToken token = KafkaTrackingToken.newInstance(singletonMap(new TopicPartition("topic", 2), 42L));
+
+        byte[] result = testSubject.convert(token);
+
+        assertEquals(token, new ByteArrayToKafkaTrackingTokenConverter().convert(result));
+    }
+
+    @Test
+    void testConvertersAreRegisteredThroughServiceLoader() {
+        ChainingConverter converter = new ChainingConverter();
+
+        assertTrue(converter.canConvert(KafkaTrackingToken.class, byte[].class));
+        assertTrue(converter.canConvert(byte[].class, KafkaTrackingToken.class));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.axonframework.common.AxonConfigurationException;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link AdaptiveBatchingPolicy}.
+ */
+class AdaptiveBatchingPolicyTest {
+
+    private static final Map<String, Object> BATCH_SIZE_1000 =
+            Collections.singletonMap(ProducerConfig.BATCH_SIZE_CONFIG, 1000);
+
+    private AdaptiveBatchingPolicy testSubject;
+
+    @BeforeEach
+    void setUp() {
+        testSubject = AdaptiveBatchingPolicy.builder()
+                                            .level(Collections.singletonMap(ProducerConfig.LINGER_MS_CONFIG, 0))
+                                            .level(Collections.singletonMap(ProducerConfig.LINGER_MS_CONFIG, 5))
+                                            .level(Collections.singletonMap(ProducerConfig.LINGER_MS_CONFIG, 50))
+                                            .latencyTarget(Duration.ofMillis(100))
+                                            .build();
+    }
+
+    @Test
+    void testBuildingWithInvalidConfiguration() {
+        AdaptiveBatchingPolicy.Builder builder = AdaptiveBatchingPolicy.builder();
+        assertThrows(AxonConfigurationException.class, () -> builder.level(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.latencyTarget(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.latencyTarget(Duration.ZERO));
+        assertThrows(AxonConfigurationException.class, () -> builder.evaluationInterval(Duration.ofSeconds(-1)));
+
+        builder.level(Collections.emptyMap()).latencyTarget(Duration.ofMillis(10));
+        assertThrows(AxonConfigurationException.class, builder::build);
+        builder.level(Collections.emptyMap());
+        assertEquals(2, builder.build().levels());
+        assertThrows(AxonConfigurationException.class,
+                     () -> AdaptiveBatchingPolicy.builder()
+                                                 .level(Collections.emptyMap())
+                                                 .level(Collections.emptyMap())
+                                                 .build());
+    }
+
+    @Test
+    void testMovesUpWhenBatchesFillWellUnderLatencyTarget() {
+        assertEquals(2, testSubject.evaluate(1, 0.9, 20));
+        assertEquals(2, testSubject.evaluate(2, 0.9, 20));
+    }
+
+    @Test
+    void testMovesDownWhenExceedingLatencyTarget() {
+        assertEquals(1, testSubject.evaluate(2, 0.9, 150));
+        assertEquals(0, testSubject.evaluate(0, 0.9, 150));
+    }
+
+    @Test
+    void testMovesDownWhenBatchesAreMostlyEmpty() {
+        assertEquals(0, testSubject.evaluate(1, 0.1, 1));
+    }
+
+    @Test
+    void testStaysWithinHysteresis() {
+        assertEquals(1, testSubject.evaluate(1, 0.5, 20));
+        assertEquals(1, testSubject.evaluate(1, 0.9, 80));
+    }
+
+    @Test
+    void testEvaluatesAggregatedProducerMetrics() {
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        addMetrics(metrics, "stripe-0", 100, 900, 10, 5);
+        addMetrics(metrics, "stripe-1", 100, 700, 20, 10);
+
+        assertEquals(2, testSubject.evaluate(1, BATCH_SIZE_1000, metrics));
+
+        addMetrics(metrics, "stripe-1", 100, 700, 90, 20);
+        assertEquals(0, testSubject.evaluate(1, BATCH_SIZE_1000, metrics));
+    }
+
+    @Test
+    void testRetainsLevelWithoutTraffic() {
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        addMetrics(metrics, "idle", 0, Double.NaN, Double.NaN, Double.NaN);
+
+        assertEquals(1, testSubject.evaluate(1, BATCH_SIZE_1000, metrics));
+        assertEquals(1, testSubject.evaluate(1, BATCH_SIZE_1000, Collections.emptyMap()));
+    }
+
+    static void addMetrics(Map<MetricName, Metric> metrics,
+                           String clientId,
+                           double sendRate,
+                           double batchSizeAvg,
+                           double queueTimeMax,
+                           double requestLatencyMax) {
+        addMetric(metrics, clientId, "record-send-rate", sendRate);
+        addMetric(metrics, clientId, "batch-size-avg", batchSizeAvg);
+        addMetric(metrics, clientId, "record-queue-time-max", queueTimeMax);
+        addMetric(metrics, clientId, "request-latency-max", requestLatencyMax);
+    }
+
+    private static void addMetric(Map<MetricName, Metric> metrics, String clientId, String name, double value) {
+        MetricName metricName = new MetricName(name,
+                                               "producer-metrics",
+                                               "",
+                                               Collections.singletonMap("client-id", clientId));
+        metrics.put(metricName, new Metric() {
+            @Override
+            public MetricName metricName() {
+                return metricName;
+            }
+
+            @Override
+            public Object metricValue() {
+                return value;
+            }
+        });
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.axonframework.common.AxonConfigurationException;
+import org.axonframework.messaging.EventPublicationFailedException;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link AdmissionControl}.
+ */
+class AdmissionControlTest {
+
+    private final MockProducer<String, String> producer =
+            new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+
+    @Test
+    void testBuildingWithInvalidConfiguration() {
+        AdmissionControl.Builder builder = AdmissionControl.builder();
+        assertThrows(AxonConfigurationException.class, () -> builder.maxInFlightRecords(0));
+        assertThrows(AxonConfigurationException.class, () -> builder.maxInFlightBytes(-1));
+        assertThrows(AxonConfigurationException.class, () -> builder.saturationPolicy(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.maxDelay(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.maxDelay(Duration.ofMillis(-1)));
+    }
+
+    @Test
+    void testTracksRecordsAndBytesInFlightUntilCompleted() {
+        AdmissionControl testSubject = AdmissionControl.builder().maxInFlightBytes(10).build();
+        AtomicBoolean completed = new AtomicBoolean();
+
+        testSubject.send(producer, new ProducerRecord<>("topic", "key", "value"), (metadata, e) -> completed.set(true));
+        testSubject.send(producer, new ProducerRecord<>("topic", null, "v"), null);
+
+        AdmissionMetrics result = testSubject.metrics();
+        assertEquals(2, result.inFlightRecords());
+        assertEquals(9, result.inFlightBytes());
+        assertFalse(result.saturated());
+
+        producer.completeNext();
+        assertTrue(completed.get());
+        producer.errorNext(new RuntimeException("failed"));
+        assertEquals(0, testSubject.metrics().inFlightRecords());
+        assertEquals(0, testSubject.metrics().inFlightBytes());
+    }
+
+    @Test
+    void testFailFastRejectsEventsWhenSaturated() {
+        AdmissionControl testSubject = AdmissionControl.builder().maxInFlightRecords(1).build();
+        assertTrue(testSubject.admit());
+        testSubject.send(producer, new ProducerRecord<>("topic", "value"), null);
+
+        assertTrue(testSubject.isSaturated());
+        assertThrows(EventPublicationFailedException.class, testSubject::admit);
+        assertEquals(1, testSubject.metrics().rejectedEvents());
+
+        producer.completeNext();
+        assertFalse(testSubject.isSaturated());
+        assertTrue(testSubject.admit());
+    }
+
+    @Test
+    void testShedDropsEventsWhenSaturated() {
+        AdmissionControl testSubject = AdmissionControl.builder()
+                                                       .maxInFlightRecords(1)
+                                                       .saturationPolicy(SaturationPolicy.SHED)
+                                                       .build();
+        testSubject.send(producer, new ProducerRecord<>("topic", "value"), null);
+
+        assertFalse(testSubject.admit());
+        assertEquals(1, testSubject.metrics().shedEvents());
+        assertEquals(0, testSubject.metrics().rejectedEvents());
+    }
+
+    @Test
+    void testDelayAdmitsOnceCapacityFreesUp() throws Exception {
+        AdmissionControl testSubject = AdmissionControl.builder()
+                                                       .maxInFlightRecords(1)
+                                                       .saturationPolicy(SaturationPolicy.DELAY)
+                                                       .maxDelay(Duration.ofSeconds(10))
+                                                       .build();
+        testSubject.send(producer, new ProducerRecord<>("topic", "value"), null);
+
+        CompletableFuture<Boolean> admitted = CompletableFuture.supplyAsync(testSubject::admit);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (testSubject.metrics().delayedEvents() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        assertFalse(admitted.isDone());
+        producer.completeNext();
+
+        assertTrue(admitted.get(5, TimeUnit.SECONDS));
+        assertEquals(1, testSubject.metrics().delayedEvents());
+        assertTrue(testSubject.metrics().averageDelay().toMillis() >= 50);
+    }
+
+    @Test
+    void testDelayRejectsWhenNoCapacityFreesUpInTime() {
+        AdmissionControl testSubject = AdmissionControl.builder()
+                                                       .maxInFlightRecords(1)
+                                                       .saturationPolicy(SaturationPolicy.DELAY)
+                                                       .maxDelay(Duration.ofMillis(20))
+                                                       .build();
+        testSubject.send(producer, new ProducerRecord<>("topic", "value"), null);
+
+        assertThrows(EventPublicationFailedException.class, testSubject::admit);
+        assertEquals(1, testSubject.metrics().delayedEvents());
+        assertEquals(1, testSubject.metrics().rejectedEvents());
+    }
+}
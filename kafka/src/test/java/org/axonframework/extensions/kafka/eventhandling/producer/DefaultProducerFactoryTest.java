@@ -0,0 +1,491 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.axonframework.common.AxonConfigurationException;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.axonframework.extensions.kafka.eventhandling.util.ProducerConfigUtil.minimal;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link DefaultProducerFactory} without a Kafka broker.
+ */
+class DefaultProducerFactoryTest {
+
+    private static final String UNREACHABLE_BROKER = "localhost:1";
+
+    private final List<MockProducer<String, String>> createdProducers = new CopyOnWriteArrayList<>();
+    private final List<Object> transactionalIds = new CopyOnWriteArrayList<>();
+    private final List<Map<String, Object>> producerConfigurations = new CopyOnWriteArrayList<>();
+    private boolean autoCompleteSends = true;
+
+    @Test
+    void testConfiguringInvalidProducerStripes() {
+        DefaultProducerFactory.Builder<Object, Object> builder = DefaultProducerFactory.builder();
+        assertThrows(AxonConfigurationException.class, () -> builder.producerStripes(0));
+        assertThrows(AxonConfigurationException.class, () -> builder.producerStripes(-1));
+    }
+
+    @Test
+    void testNonTransactionalProducerIsSharedAcrossInvocations() {
+        ProducerFactory<String, String> testSubject = producerFactory(1, "shared");
+        try {
+            Producer<String, String> producer = testSubject.createProducer();
+            producer.close();
+
+            assertSame(producer, testSubject.createProducer());
+        } finally {
+            testSubject.shutDown();
+        }
+    }
+
+    @Test
+    void testStripedProducerIsSharedAndSpansAllStripes() {
+        ProducerFactory<String, String> testSubject = producerFactory(3, "striped");
+        try {
+            Producer<String, String> producer = testSubject.createProducer();
+            producer.close();
+
+            assertSame(producer, testSubject.createProducer());
+            Set<String> clientIds = producer.metrics()
+                                            .keySet()
+                                            .stream()
+                                            .map(metricName -> metricName.tags().get("client-id"))
+                                            .filter(clientId -> clientId != null && clientId.startsWith("striped"))
+                                            .collect(Collectors.toSet());
+            assertEquals(3, clientIds.size());
+            assertTrue(clientIds.contains("striped-0"));
+            assertTrue(clientIds.contains("striped-2"));
+        } finally {
+            testSubject.shutDown();
+        }
+    }
+
+    @Test
+    void testShutDownAllowsCreatingNewStripedProducer() {
+        ProducerFactory<String, String> testSubject = producerFactory(2, "recreated");
+        Producer<String, String> first = testSubject.createProducer();
+        testSubject.shutDown();
+
+        try {
+            assertNotSame(first, testSubject.createProducer());
+        } finally {
+            testSubject.shutDown();
+        }
+    }
+
+    @Test
+    void testConfiguringInvalidProducerPool() {
+        DefaultProducerFactory.Builder<Object, Object> builder = DefaultProducerFactory.builder();
+        assertThrows(AxonConfigurationException.class, () -> builder.producerPoolWarmUpSize(-1));
+        assertThrows(AxonConfigurationException.class, () -> builder.producerIdleTimeout(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.producerIdleTimeout(Duration.ofSeconds(-1)));
+
+        DefaultProducerFactory.Builder<Object, Object> tooLargeWarmUp =
+                DefaultProducerFactory.builder()
+                                      .configuration(minimal(UNREACHABLE_BROKER))
+                                      .producerCacheSize(2)
+                                      .producerPoolWarmUpSize(3);
+        assertThrows(AxonConfigurationException.class, tooLargeWarmUp::build);
+    }
+
+    @Test
+    void testStartWarmsUpTransactionalProducerPool() {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(3, Duration.ZERO);
+
+        testSubject.start();
+
+        assertEquals(3, createdProducers.size());
+        assertTrue(createdProducers.stream().allMatch(MockProducer::transactionInitialized));
+        assertEquals(3, testSubject.poolMetrics().size());
+
+        testSubject.createProducer();
+        ProducerPoolMetrics result = testSubject.poolMetrics();
+        assertEquals(3, createdProducers.size());
+        assertEquals(1, result.hits());
+        assertEquals(0, result.misses());
+        assertEquals(1.0, result.hitRate());
+        assertEquals(2, result.size());
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testStartDoesNothingForNonTransactionalProducers() {
+        DefaultProducerFactory<String, String> testSubject =
+                DefaultProducerFactory.<String, String>builder()
+                                      .configuration(minimal(UNREACHABLE_BROKER))
+                                      .producerPoolWarmUpSize(2)
+                                      .build();
+
+        testSubject.start();
+
+        assertEquals(0, testSubject.poolMetrics().size());
+    }
+
+    @Test
+    void testPoolMetricsReflectHitsAndMisses() {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(0, Duration.ZERO);
+
+        Producer<String, String> first = testSubject.createProducer();
+        Producer<String, String> second = testSubject.createProducer();
+        first.close();
+        second.close();
+        testSubject.createProducer();
+
+        ProducerPoolMetrics result = testSubject.poolMetrics();
+        assertEquals(1, result.hits());
+        assertEquals(2, result.misses());
+        assertEquals(1.0 / 3, result.hitRate(), 0.0001);
+        assertEquals(1, result.size());
+        assertFalse(result.averageWaitTime().isNegative());
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testMostRecentlyReleasedProducerIsReusedFirst() {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(0, Duration.ZERO);
+        Producer<String, String> first = testSubject.createProducer();
+        Producer<String, String> second = testSubject.createProducer();
+        first.close();
+        second.close();
+
+        assertSame(second, testSubject.createProducer());
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testFencedProducerIsDiscardedInsteadOfReturnedToThePool() {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(0, Duration.ZERO);
+        Producer<String, String> producer = testSubject.createProducer();
+        producer.beginTransaction();
+        createdProducers.get(0).fenceProducer();
+
+        assertThrows(ProducerFencedException.class, producer::commitTransaction);
+        producer.close();
+
+        assertTrue(createdProducers.get(0).closed());
+        assertEquals(0, testSubject.poolMetrics().size());
+        assertEquals(1, testSubject.poolMetrics().discardedProducers());
+        assertNotSame(producer, testSubject.createProducer());
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testProducerClosedDuringTransactionIsDiscarded() {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(0, Duration.ZERO);
+        Producer<String, String> producer = testSubject.createProducer();
+        producer.beginTransaction();
+
+        producer.close();
+
+        assertTrue(createdProducers.get(0).closed());
+        assertEquals(1, testSubject.poolMetrics().discardedProducers());
+    }
+
+    @Test
+    void testCompletedTransactionsKeepProducerInThePool() {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(0, Duration.ZERO);
+        Producer<String, String> producer = testSubject.createProducer();
+        producer.beginTransaction();
+        producer.commitTransaction();
+        producer.close();
+        producer.beginTransaction();
+        producer.abortTransaction();
+        producer.close();
+
+        assertFalse(createdProducers.get(0).closed());
+        assertEquals(0, testSubject.poolMetrics().discardedProducers());
+        assertSame(producer, testSubject.createProducer());
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testIdleProducersAreEvictedDownToTheWarmUpSize() throws InterruptedException {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(1, Duration.ofMillis(20));
+        Producer<String, String> first = testSubject.createProducer();
+        Producer<String, String> second = testSubject.createProducer();
+        Producer<String, String> third = testSubject.createProducer();
+        first.close();
+        second.close();
+        third.close();
+        Thread.sleep(50);
+
+        testSubject.createProducer();
+
+        ProducerPoolMetrics result = testSubject.poolMetrics();
+        assertEquals(1, result.size());
+        assertEquals(1, result.evictedProducers());
+        assertEquals(1, createdProducers.stream().filter(MockProducer::closed).count());
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testTransactionalIdOfDiscardedProducerIsReusedByNodeAllocator() {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(
+                builder().transactionalIdAllocator(NodeTransactionalIdAllocator.builder().prefix("pool-").build())
+        );
+        Producer<String, String> first = testSubject.createProducer();
+        testSubject.createProducer();
+        first.beginTransaction();
+        createdProducers.get(0).fenceProducer();
+        assertThrows(ProducerFencedException.class, first::commitTransaction);
+        first.close();
+
+        testSubject.createProducer();
+
+        assertEquals(3, transactionalIds.size());
+        assertEquals("pool-0", transactionalIds.get(0));
+        assertEquals("pool-1", transactionalIds.get(1));
+        assertEquals("pool-0", transactionalIds.get(2));
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testTransactionalIdPrefixIsFollowedByIncreasingCounter() {
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(0, Duration.ZERO);
+        Producer<String, String> first = testSubject.createProducer();
+        testSubject.createProducer();
+        first.beginTransaction();
+        createdProducers.get(0).fenceProducer();
+        assertThrows(ProducerFencedException.class, first::commitTransaction);
+        first.close();
+
+        testSubject.createProducer();
+
+        assertEquals(Arrays.asList("pool-0", "pool-1", "pool-2"), transactionalIds);
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testConfiguredTransactionalIdAllocatorIsUsed() {
+        TransactionalIdAllocator allocator = NodeTransactionalIdAllocator.builder()
+                                                                         .prefix("pool-")
+                                                                         .nodeId("node-a")
+                                                                         .build();
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(
+                builder().transactionalIdAllocator(allocator)
+        );
+        assertEquals(ConfirmationMode.TRANSACTIONAL, testSubject.confirmationMode());
+
+        testSubject.createProducer();
+        testSubject.createProducer();
+
+        assertEquals("pool-node-a-0", transactionalIds.get(0));
+        assertEquals("pool-node-a-1", transactionalIds.get(1));
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testConfiguringInvalidTopicProfiles() {
+        DefaultProducerFactory.Builder<Object, Object> builder = DefaultProducerFactory.builder();
+        assertThrows(AxonConfigurationException.class, () -> builder.topicProfile(null, Collections.emptyMap()));
+        assertThrows(AxonConfigurationException.class, () -> builder.topicProfile("", Collections.emptyMap()));
+        assertThrows(AxonConfigurationException.class, () -> builder.topicProfile("topic", null));
+        assertThrows(AxonConfigurationException.class,
+                     () -> builder.topicPatternProfile(null, Collections.emptyMap()));
+        assertThrows(AxonConfigurationException.class,
+                     () -> builder.topicPatternProfile(Pattern.compile(".*"), null));
+
+        DefaultProducerFactory.Builder<String, String> transactional =
+                builder().transactionalIdPrefix("tx-")
+                         .topicProfile("notifications", Collections.emptyMap());
+        assertThrows(AxonConfigurationException.class, transactional::build);
+    }
+
+    @Test
+    void testTopicProfilesRouteRecordsToDedicatedProducers() {
+        Map<String, Object> latency = new HashMap<>();
+        latency.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+        latency.put(ProducerConfig.ACKS_CONFIG, "1");
+        Map<String, Object> throughput = new HashMap<>();
+        throughput.put(ProducerConfig.LINGER_MS_CONFIG, 50);
+        throughput.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd");
+        DefaultProducerFactory<String, String> testSubject = transactionalProducerFactory(
+                builder().topicProfile("notifications", latency)
+                         .topicPatternProfile(Pattern.compile("audit-.*"), throughput)
+        );
+
+        Producer<String, String> producer = testSubject.createProducer();
+        producer.send(new ProducerRecord<>("notifications", "key", "value"));
+        producer.send(new ProducerRecord<>("audit-orders", "key", "value"));
+        producer.send(new ProducerRecord<>("audit-payments", "key", "value"));
+        producer.send(new ProducerRecord<>("other", "key", "value"));
+
+        assertSame(producer, testSubject.createProducer());
+        assertEquals(3, createdProducers.size());
+        MockProducer<String, String> defaultProducer = createdProducers.get(0);
+        MockProducer<String, String> latencyProducer = createdProducers.get(1);
+        MockProducer<String, String> throughputProducer = createdProducers.get(2);
+        assertEquals(1, defaultProducer.history().size());
+        assertEquals("other", defaultProducer.history().get(0).topic());
+        assertEquals(1, latencyProducer.history().size());
+        assertEquals("notifications", latencyProducer.history().get(0).topic());
+        assertEquals(2, throughputProducer.history().size());
+
+        assertNotEquals(50, producerConfigurations.get(0).get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(50, producerConfigurations.get(2).get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("1", producerConfigurations.get(1).get(ProducerConfig.ACKS_CONFIG));
+        assertEquals("zstd", producerConfigurations.get(2).get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals(UNREACHABLE_BROKER,
+                     producerConfigurations.get(2).get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+
+        testSubject.shutDown();
+        assertTrue(createdProducers.stream().allMatch(MockProducer::closed));
+    }
+
+    @Test
+    void testAdaptiveBatchingSwitchesProducerBetweenLevels() {
+        AdaptiveBatchingPolicy policy =
+                AdaptiveBatchingPolicy.builder()
+                                      .level(Collections.singletonMap(ProducerConfig.BATCH_SIZE_CONFIG, 1000))
+                                      .level(Collections.singletonMap(ProducerConfig.LINGER_MS_CONFIG, 50))
+                                      .latencyTarget(Duration.ofMillis(100))
+                                      .evaluationInterval(Duration.ofNanos(1))
+                                      .build();
+        DefaultProducerFactory<String, String> testSubject =
+                transactionalProducerFactory(builder().adaptiveBatching(policy));
+
+        Producer<String, String> producer = testSubject.createProducer();
+        assertEquals(0, testSubject.batchingLevel());
+        assertEquals(1, createdProducers.size());
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        AdaptiveBatchingPolicyTest.addMetrics(metrics, "level-0", 1000, 900, 10, 5);
+        metrics.forEach(createdProducers.get(0)::setMockMetrics);
+
+        assertSame(producer, testSubject.createProducer());
+        assertEquals(1, testSubject.batchingLevel());
+        assertEquals(2, createdProducers.size());
+        assertEquals(50, producerConfigurations.get(1).get(ProducerConfig.LINGER_MS_CONFIG));
+        producer.send(new ProducerRecord<>("topic", "level-1"));
+        assertEquals(1, createdProducers.get(1).history().size());
+
+        AdaptiveBatchingPolicyTest.addMetrics(metrics, "level-1", 1000, 900, 500, 5);
+        metrics.forEach(createdProducers.get(1)::setMockMetrics);
+        assertSame(producer, testSubject.createProducer());
+        assertEquals(0, testSubject.batchingLevel());
+        assertEquals(2, createdProducers.size());
+        producer.send(new ProducerRecord<>("topic", "level-0"));
+        assertEquals(1, createdProducers.get(0).history().size());
+
+        testSubject.shutDown();
+        assertTrue(createdProducers.stream().allMatch(MockProducer::closed));
+    }
+
+    @Test
+    void testAdaptiveBatchingCompletesRecordsOfPreviousLevelBeforeSwitching() {
+        autoCompleteSends = false;
+        AdaptiveBatchingPolicy policy =
+                AdaptiveBatchingPolicy.builder()
+                                      .level(Collections.singletonMap(ProducerConfig.BATCH_SIZE_CONFIG, 1000))
+                                      .level(Collections.singletonMap(ProducerConfig.LINGER_MS_CONFIG, 50))
+                                      .latencyTarget(Duration.ofMillis(100))
+                                      .evaluationInterval(Duration.ofNanos(1))
+                                      .build();
+        DefaultProducerFactory<String, String> testSubject =
+                transactionalProducerFactory(builder().adaptiveBatching(policy));
+
+        Producer<String, String> producer = testSubject.createProducer();
+        Future<RecordMetadata> before = producer.send(new ProducerRecord<>("topic", "key", "before"));
+        assertFalse(before.isDone());
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        AdaptiveBatchingPolicyTest.addMetrics(metrics, "level-0", 1000, 900, 10, 5);
+        metrics.forEach(createdProducers.get(0)::setMockMetrics);
+
+        testSubject.createProducer();
+        assertEquals(1, testSubject.batchingLevel());
+        assertTrue(before.isDone());
+        Future<RecordMetadata> after = producer.send(new ProducerRecord<>("topic", "key", "after"));
+        assertFalse(after.isDone());
+        assertEquals(1, createdProducers.get(0).history().size());
+        assertEquals("after", createdProducers.get(1).history().get(0).value());
+
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testAdaptiveBatchingIsNotSupportedForTransactionalProducers() {
+        AdaptiveBatchingPolicy policy = AdaptiveBatchingPolicy.builder()
+                                                              .level(Collections.emptyMap())
+                                                              .level(Collections.emptyMap())
+                                                              .latencyTarget(Duration.ofMillis(100))
+                                                              .build();
+        DefaultProducerFactory.Builder<String, String> transactional =
+                builder().transactionalIdPrefix("tx-").adaptiveBatching(policy);
+        assertThrows(AxonConfigurationException.class, transactional::build);
+    }
+
+    private DefaultProducerFactory<String, String> transactionalProducerFactory(int warmUpSize, Duration idleTimeout) {
+        return transactionalProducerFactory(builder().transactionalIdPrefix("pool-")
+                                                     .producerPoolWarmUpSize(warmUpSize)
+                                                     .producerIdleTimeout(idleTimeout));
+    }
+
+    private static DefaultProducerFactory.Builder<String, String> builder() {
+        return DefaultProducerFactory.<String, String>builder()
+                                     .configuration(minimal(UNREACHABLE_BROKER))
+                                     .closeTimeout(Duration.ofMillis(100));
+    }
+
+    private DefaultProducerFactory<String, String> transactionalProducerFactory(
+            DefaultProducerFactory.Builder<String, String> builder
+    ) {
+        return new DefaultProducerFactory<String, String>(builder) {
+            @Override
+            protected Producer<String, String> createKafkaProducer(Map<String, Object> configs) {
+                MockProducer<String, String> producer =
+                        new MockProducer<>(autoCompleteSends, new StringSerializer(), new StringSerializer());
+                createdProducers.add(producer);
+                transactionalIds.add(configs.get(ProducerConfig.TRANSACTIONAL_ID_CONFIG));
+                producerConfigurations.add(configs);
+                return producer;
+            }
+        };
+    }
+
+    private static ProducerFactory<String, String> producerFactory(int stripes, String clientId) {
+        Map<String, Object> configuration = minimal(UNREACHABLE_BROKER);
+        configuration.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
+        return DefaultProducerFactory.<String, String>builder()
+                                     .configuration(configuration)
+                                     .closeTimeout(100, ChronoUnit.MILLIS)
+                                     .producerStripes(stripes)
+                                     .build();
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.axonframework.extensions.kafka.eventhandling.producer;
 
+import org.axonframework.common.AxonConfigurationException;
+import org.axonframework.extensions.kafka.eventhandling.KafkaMessageConverter;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.*;
 import org.mockito.*;
@@ -35,4 +37,75 @@ void testKafkaPublisherInitialisationShouldNotThrowException() {
                                                .producerFactory(producerFactory)
                                                .build());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPackingEventsRequiresBatchingMessageConverter() {
+        //noinspection unchecked
+        KafkaMessageConverter<String, byte[]> nonBatchingConverter = Mockito.mock(KafkaMessageConverter.class);
+        KafkaPublisher.Builder<String, byte[]> testSubject = KafkaPublisher.<String, byte[]>builder()
+                                                                           .producerFactory(producerFactory)
+                                                                           .messageConverter(nonBatchingConverter)
+                                                                           .maxEventsPerRecord(10);
+
+        assertThrows(AxonConfigurationException.class, testSubject::build);
+    }
+
+    @Test
+    void testNonPositiveMaxEventsPerRecordThrowsAxonConfigurationException() {
+        KafkaPublisher.Builder<String, byte[]> testSubject = KafkaPublisher.builder();
+
+        assertThrows(AxonConfigurationException.class, () -> testSubject.maxEventsPerRecord(0));
+    }
+
+    @Test
+    void testNullMultiTopicResolverThrowsAxonConfigurationException() {
+        KafkaPublisher.Builder<String, byte[]> testSubject = KafkaPublisher.builder();
+
+        assertThrows(AxonConfigurationException.class, () -> testSubject.multiTopicResolver(null));
+    }
+
+    @Test
+    void testNullSerializationExecutorThrowsAxonConfigurationException() {
+        KafkaPublisher.Builder<String, byte[]> testSubject = KafkaPublisher.builder();
+
+        assertThrows(AxonConfigurationException.class, () -> testSubject.serializationExecutor(null));
+    }
+
+    @Test
+    void testNullAdmissionControlThrowsAxonConfigurationException() {
+        KafkaPublisher.Builder<String, byte[]> testSubject = KafkaPublisher.builder();
+
+        assertThrows(AxonConfigurationException.class, () -> testSubject.admissionControl(null));
+    }
+
+    @Test
+    void testNullSpoolThrowsAxonConfigurationException() {
+        KafkaPublisher.Builder<String, byte[]> testSubject = KafkaPublisher.builder();
+
+        assertThrows(AxonConfigurationException.class, () -> testSubject.spool(null));
+    }
+
+    @Test
+    void testSpoolCombinedWithGroupCommitThrowsAxonConfigurationException(@Mock RecordSpool<String, byte[]> spool) {
+        KafkaPublisher.Builder<String, byte[]> testSubject = KafkaPublisher.<String, byte[]>builder()
+                                                                           .producerFactory(producerFactory)
+                                                                           .spool(spool)
+                                                                           .groupCommitWindow(100);
+
+        assertThrows(AxonConfigurationException.class, testSubject::build);
+    }
+
+    @Test
+    void testSpoolCombinedWithAdmissionControlThrowsAxonConfigurationException(
+            @Mock RecordSpool<String, byte[]> spool
+    ) {
+        KafkaPublisher.Builder<String, byte[]> testSubject = KafkaPublisher.<String, byte[]>builder()
+                                                                           .producerFactory(producerFactory)
+                                                                           .spool(spool)
+                                                                           .admissionControl(
+                                                                                   AdmissionControl.builder().build()
+                                                                           );
+
+        assertThrows(AxonConfigurationException.class, testSubject::build);
+    }
+}
@@ -0,0 +1,763 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.extensions.kafka.eventhandling.DefaultKafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.KafkaMessageConverter;
+import org.axonframework.extensions.kafka.eventhandling.consumer.ConsumedOffsets;
+import org.axonframework.extensions.kafka.utils.TestSerializer;
+import org.axonframework.messaging.EventPublicationFailedException;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.axonframework.monitoring.MessageMonitor;
+import org.axonframework.monitoring.MessageMonitor.MonitorCallback;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.axonframework.eventhandling.GenericEventMessage.asEventMessage;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests validating the {@link KafkaPublisher} publishes all events of a {@link UnitOfWork} through a single {@link
+ * org.apache.kafka.clients.producer.Producer}, and publishes events asynchronously through {@link
+ * KafkaPublisher#publishAsync(EventMessage)}.
+ */
+class KafkaPublisherTest {
+
+    private static final String TEST_TOPIC = "topic";
+
+    private ProducerFactory<String, byte[]> producerFactory;
+    private MessageMonitor<EventMessage<?>> messageMonitor;
+    private MockProducer<String, byte[]> producer;
+    private final List<MonitorCallback> monitorCallbacks = new CopyOnWriteArrayList<>();
+
+    private KafkaPublisher<String, byte[]> testSubject;
+
+    @BeforeEach
+    void setUp() {
+        //noinspection unchecked
+        producerFactory = mock(ProducerFactory.class);
+        //noinspection unchecked
+        messageMonitor = mock(MessageMonitor.class);
+        when(messageMonitor.onMessageIngested(any())).thenAnswer(invocation -> {
+            MonitorCallback monitorCallback = mock(MonitorCallback.class);
+            monitorCallbacks.add(monitorCallback);
+            return monitorCallback;
+        });
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .build();
+    }
+
+    private void useProducer(ConfirmationMode confirmationMode, boolean autoComplete) {
+        producer = new MockProducer<>(autoComplete, new StringSerializer(), new ByteArraySerializer());
+        if (confirmationMode.isTransactional()) {
+            producer.initTransactions();
+        }
+        when(producerFactory.createProducer()).thenReturn(producer);
+        when(producerFactory.confirmationMode()).thenReturn(confirmationMode);
+    }
+
+    private void sendEvents(int numberOfEvents) {
+        for (int i = 0; i < numberOfEvents; i++) {
+            testSubject.send(asEventMessage("event-" + i));
+        }
+    }
+
+    @Test
+    void testEventsOfUnitOfWorkArePublishedInSingleTransaction() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(3);
+        uow.commit();
+
+        verify(producerFactory, times(1)).createProducer();
+        assertEquals(3, producer.history().size());
+        assertEquals(1, producer.commitCount());
+        assertTrue(producer.closed());
+        monitorCallbacks.forEach(monitorCallback -> verify(monitorCallback).reportSuccess());
+    }
+
+    @Test
+    void testConsumedOffsetsAreCommittedInTheTransactionOfTheUnitOfWork() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        TopicPartition partition = new TopicPartition(TEST_TOPIC, 0);
+        ConsumedOffsets consumedOffsets = consumedOffsets(partition, 41);
+
+        consumedOffsets.execute(() -> {
+            UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+            sendEvents(2);
+            uow.commit();
+        });
+
+        assertEquals(1, producer.commitCount());
+        assertEquals(Collections.singletonList(Collections.singletonMap(
+                "group", Collections.singletonMap(partition, new OffsetAndMetadata(42))
+        )), producer.consumerGroupOffsetsHistory());
+        assertTrue(consumedOffsets.isCommitted());
+    }
+
+    @Test
+    void testConsumedOffsetsAreNotCommittedWhenUnitOfWorkRollsBack() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        ConsumedOffsets consumedOffsets = consumedOffsets(new TopicPartition(TEST_TOPIC, 0), 41);
+
+        consumedOffsets.execute(() -> {
+            UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+            sendEvents(2);
+            uow.rollback();
+        });
+
+        assertTrue(producer.consumerGroupOffsetsHistory().isEmpty());
+        assertFalse(consumedOffsets.isCommitted());
+    }
+
+    @Test
+    void testEventsOfNestedUnitsOfWorkArePublishedInTheTransactionOfTheRootUnitOfWork() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        TopicPartition partition = new TopicPartition(TEST_TOPIC, 0);
+        ConsumedOffsets consumedOffsets = consumedOffsets(partition, 41);
+
+        consumedOffsets.execute(() -> {
+            UnitOfWork<?> root = DefaultUnitOfWork.startAndGet(null);
+            UnitOfWork<?> first = DefaultUnitOfWork.startAndGet(null);
+            testSubject.send(asEventMessage("event-0"));
+            first.commit();
+            UnitOfWork<?> second = DefaultUnitOfWork.startAndGet(null);
+            testSubject.send(asEventMessage("event-1"));
+            second.rollback();
+
+            assertEquals(0, producer.commitCount());
+            assertTrue(producer.consumerGroupOffsetsHistory().isEmpty());
+            root.commit();
+        });
+
+        verify(producerFactory, times(1)).createProducer();
+        assertEquals(1, producer.history().size());
+        assertEquals(1, producer.commitCount());
+        assertEquals(Collections.singletonList(Collections.singletonMap(
+                "group", Collections.singletonMap(partition, new OffsetAndMetadata(42))
+        )), producer.consumerGroupOffsetsHistory());
+        assertTrue(consumedOffsets.isCommitted());
+        verify(monitorCallbacks.get(0)).reportSuccess();
+        verify(monitorCallbacks.get(1), never()).reportSuccess();
+    }
+
+    @Test
+    void testEventsOfNestedUnitsOfWorkAreNotPublishedWhenRootUnitOfWorkRollsBack() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        ConsumedOffsets consumedOffsets = consumedOffsets(new TopicPartition(TEST_TOPIC, 0), 41);
+
+        consumedOffsets.execute(() -> {
+            UnitOfWork<?> root = DefaultUnitOfWork.startAndGet(null);
+            UnitOfWork<?> nested = DefaultUnitOfWork.startAndGet(null);
+            sendEvents(2);
+            nested.commit();
+            root.rollback();
+        });
+
+        assertTrue(producer.history().isEmpty());
+        assertTrue(producer.consumerGroupOffsetsHistory().isEmpty());
+        assertFalse(consumedOffsets.isCommitted());
+    }
+
+    @Test
+    void testConsumedOffsetsAreIgnoredWithoutTransactions() {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, true);
+        ConsumedOffsets consumedOffsets = consumedOffsets(new TopicPartition(TEST_TOPIC, 0), 41);
+
+        consumedOffsets.execute(() -> {
+            UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+            sendEvents(2);
+            uow.commit();
+        });
+
+        assertEquals(2, producer.history().size());
+        assertFalse(consumedOffsets.isCommitted());
+    }
+
+    private static ConsumedOffsets consumedOffsets(TopicPartition partition, long lastOffset) {
+        ConsumerRecord<String, String> record =
+                new ConsumerRecord<>(partition.topic(), partition.partition(), lastOffset, "key", "value");
+        return ConsumedOffsets.of(new ConsumerRecords<>(Collections.singletonMap(
+                partition, Collections.singletonList(record)
+        )), new ConsumerGroupMetadata("group"));
+    }
+
+    @Test
+    void testRolledBackUnitOfWorkAbortsTheSingleTransaction() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(3);
+        uow.rollback();
+
+        verify(producerFactory, times(1)).createProducer();
+        assertTrue(producer.transactionAborted());
+        assertEquals(0, producer.commitCount());
+        assertTrue(producer.closed());
+    }
+
+    @Test
+    void testAcknowledgementsOfUnitOfWorkAreAwaitedTogether() {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, false);
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(3);
+        producer.completeNext();
+        producer.errorNext(new RuntimeException("failed"));
+        producer.completeNext();
+
+        assertThrows(EventPublicationFailedException.class, uow::commit);
+
+        verify(producerFactory, times(1)).createProducer();
+        verify(monitorCallbacks.get(0)).reportSuccess();
+        verify(monitorCallbacks.get(1)).reportFailure(any());
+        verify(monitorCallbacks.get(2)).reportSuccess();
+        assertTrue(producer.closed());
+    }
+
+    @Test
+    void testPublishAsyncCompletesOnAcknowledgementWithoutUnitOfWork() throws Exception {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, false);
+
+        CompletableFuture<RecordMetadata> result = testSubject.publishAsync(asEventMessage("event"));
+
+        assertFalse(result.isDone());
+        producer.completeNext();
+        assertEquals(TEST_TOPIC, result.get(1, TimeUnit.SECONDS).topic());
+        verify(monitorCallbacks.get(0)).reportSuccess();
+    }
+
+    @Test
+    void testPublishAsyncReportsFailureOfRecord() {
+        useProducer(ConfirmationMode.NONE, false);
+
+        CompletableFuture<RecordMetadata> result = testSubject.publishAsync(asEventMessage("event"));
+        producer.errorNext(new RuntimeException("failed"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertTrue(exception.getCause() instanceof EventPublicationFailedException);
+        verify(monitorCallbacks.get(0)).reportFailure(any());
+    }
+
+    @Test
+    void testPublishAsyncReportsFailureToConvertEvent() {
+        useProducer(ConfirmationMode.NONE, true);
+        IllegalStateException conversionFailure = new IllegalStateException("conversion failed");
+        useParallelSerialization(Executors.newSingleThreadExecutor(), (event, topic) -> {
+            throw conversionFailure;
+        });
+
+        CompletableFuture<RecordMetadata> result = testSubject.publishAsync(asEventMessage("event"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertSame(conversionFailure, exception.getCause());
+        verify(monitorCallbacks.get(0)).reportFailure(conversionFailure);
+        verify(producerFactory, never()).createProducer();
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testSerializationOnShutDownExecutorFailsUnitOfWork() {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, true);
+        ExecutorService serializationExecutor = Executors.newSingleThreadExecutor();
+        serializationExecutor.shutdown();
+        useParallelSerialization(serializationExecutor, (event, topic) -> new ProducerRecord<>(topic, new byte[0]));
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(3);
+
+        assertThrows(RejectedExecutionException.class, uow::commit);
+        assertEquals(3, monitorCallbacks.size());
+        monitorCallbacks.forEach(monitorCallback -> verify(monitorCallback).reportFailure(any()));
+    }
+
+    @Test
+    void testPublishAsyncBoundsRecordsInFlight() {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, false);
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .publisherAckTimeout(10)
+                                    .maxInFlightRecords(1)
+                                    .build();
+
+        CompletableFuture<RecordMetadata> first = testSubject.publishAsync(asEventMessage("first"));
+        CompletableFuture<RecordMetadata> rejected = testSubject.publishAsync(asEventMessage("rejected"));
+
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(1, producer.history().size());
+        verify(monitorCallbacks.get(1)).reportFailure(any());
+
+        producer.completeNext();
+        assertTrue(first.isDone());
+        CompletableFuture<RecordMetadata> next = testSubject.publishAsync(asEventMessage("next"));
+        assertFalse(next.isDone());
+        assertEquals(2, producer.history().size());
+    }
+
+    @Test
+    void testPublishAsyncIsNotSupportedInTransactionalMode() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+
+        CompletableFuture<RecordMetadata> result = testSubject.publishAsync(asEventMessage("event"));
+
+        assertTrue(result.isCompletedExceptionally());
+        verify(producerFactory, never()).createProducer();
+    }
+
+    @Test
+    void testConcurrentUnitsOfWorkShareGroupCommit() throws Exception {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .groupCommitWindow(500)
+                                    .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<CompletableFuture<Void>> unitsOfWork = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            unitsOfWork.add(CompletableFuture.runAsync(() -> {
+                UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+                sendEvents(2);
+                uow.commit();
+            }, executor));
+        }
+        for (CompletableFuture<Void> unitOfWork : unitsOfWork) {
+            unitOfWork.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        verify(producerFactory, times(1)).createProducer();
+        assertEquals(1, producer.commitCount());
+        assertEquals(6, producer.history().size());
+        assertEquals(6, monitorCallbacks.size());
+        monitorCallbacks.forEach(monitorCallback -> verify(monitorCallback).reportSuccess());
+    }
+
+    @Test
+    void testEventPublishedToSeveralTopicsIsSerializedOnceAndReportedOnce() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        useMultiTopicResolver(TEST_TOPIC, "public-topic");
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(1);
+        uow.commit();
+
+        List<ProducerRecord<String, byte[]>> history = producer.history();
+        assertEquals(2, history.size());
+        assertEquals(TEST_TOPIC, history.get(0).topic());
+        assertEquals("public-topic", history.get(1).topic());
+        assertSame(history.get(0).value(), history.get(1).value());
+        assertEquals(history.get(0).key(), history.get(1).key());
+        assertArrayEquals(history.get(0).headers().toArray(), history.get(1).headers().toArray());
+        assertEquals(1, producer.commitCount());
+        assertEquals(1, monitorCallbacks.size());
+        verify(monitorCallbacks.get(0), times(1)).reportSuccess();
+    }
+
+    @Test
+    void testEventPublishedToSeveralTopicsFailsIfOneTopicFails() {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, false);
+        useMultiTopicResolver(TEST_TOPIC, "public-topic");
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(1);
+        producer.completeNext();
+        producer.errorNext(new RuntimeException("failed"));
+
+        assertThrows(EventPublicationFailedException.class, uow::commit);
+        verify(monitorCallbacks.get(0), times(1)).reportFailure(any());
+        verify(monitorCallbacks.get(0), never()).reportSuccess();
+    }
+
+    @Test
+    void testEventWithoutTopicsIsNotPublished() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        useMultiTopicResolver();
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(1);
+        uow.commit();
+
+        verify(producerFactory, never()).createProducer();
+        assertTrue(monitorCallbacks.isEmpty());
+    }
+
+    @Test
+    void testPublishAsyncToSeveralTopicsCompletesOnceAllAreAcknowledged() throws Exception {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, false);
+        useMultiTopicResolver(TEST_TOPIC, "public-topic");
+
+        CompletableFuture<RecordMetadata> result = testSubject.publishAsync(asEventMessage("event"));
+
+        assertEquals(2, producer.history().size());
+        producer.completeNext();
+        assertFalse(result.isDone());
+        producer.completeNext();
+        assertEquals("public-topic", result.get(1, TimeUnit.SECONDS).topic());
+        verify(monitorCallbacks.get(0), times(1)).reportSuccess();
+    }
+
+    @Test
+    void testParallelSerializationHandsRecordsToProducerInOriginalOrder() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        Set<String> convertingThreads = ConcurrentHashMap.newKeySet();
+        ExecutorService serializationExecutor = Executors.newFixedThreadPool(4);
+        useParallelSerialization(serializationExecutor, (event, topic) -> {
+            convertingThreads.add(Thread.currentThread().getName());
+            return new ProducerRecord<>(topic, ((String) event.getPayload()).getBytes(StandardCharsets.UTF_8));
+        });
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(50);
+        assertTrue(producer.history().isEmpty());
+        uow.commit();
+
+        List<ProducerRecord<String, byte[]>> history = producer.history();
+        assertEquals(50, history.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("event-" + i, new String(history.get(i).value(), StandardCharsets.UTF_8));
+        }
+        assertTrue(convertingThreads.size() > 1);
+        assertEquals(1, producer.commitCount());
+        monitorCallbacks.forEach(monitorCallback -> verify(monitorCallback).reportSuccess());
+
+        testSubject.shutDown();
+        assertTrue(serializationExecutor.isShutdown());
+    }
+
+    @Test
+    void testParallelSerializationFailureFailsUnitOfWork() {
+        useProducer(ConfirmationMode.TRANSACTIONAL, true);
+        ExecutorService serializationExecutor = Executors.newFixedThreadPool(2);
+        useParallelSerialization(serializationExecutor, (event, topic) -> {
+            if ("event-2".equals(event.getPayload())) {
+                throw new IllegalStateException("serialization failed");
+            }
+            return new ProducerRecord<>(topic, new byte[0]);
+        });
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(4);
+
+        assertThrows(IllegalStateException.class, uow::commit);
+        verify(producerFactory, never()).createProducer();
+        monitorCallbacks.forEach(monitorCallback -> verify(monitorCallback).reportFailure(any()));
+        serializationExecutor.shutdown();
+    }
+
+    @Test
+    void testSaturatedPublisherRejectsEventsWhenFailingFast() {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, false);
+        AdmissionControl admissionControl = AdmissionControl.builder().maxInFlightRecords(2).build();
+        useAdmissionControl(admissionControl);
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(2);
+        assertTrue(admissionControl.isSaturated());
+        assertThrows(EventPublicationFailedException.class, () -> testSubject.send(asEventMessage("rejected")));
+        verify(monitorCallbacks.get(2)).reportFailure(any());
+        assertEquals(2, producer.history().size());
+
+        CompletableFuture<RecordMetadata> result = testSubject.publishAsync(asEventMessage("rejected-async"));
+        assertTrue(result.isCompletedExceptionally());
+
+        producer.completeNext();
+        producer.completeNext();
+        uow.commit();
+        assertFalse(admissionControl.isSaturated());
+        assertEquals(2, admissionControl.metrics().rejectedEvents());
+    }
+
+    @Test
+    void testSaturatedPublisherShedsEvents() {
+        useProducer(ConfirmationMode.NONE, false);
+        AdmissionControl admissionControl = AdmissionControl.builder()
+                                                            .maxInFlightRecords(1)
+                                                            .saturationPolicy(SaturationPolicy.SHED)
+                                                            .build();
+        useAdmissionControl(admissionControl);
+        DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(3);
+
+        assertEquals(1, producer.history().size());
+        verify(monitorCallbacks.get(1)).reportIgnored();
+        verify(monitorCallbacks.get(2)).reportIgnored();
+        assertEquals(2, admissionControl.metrics().shedEvents());
+        CurrentUnitOfWork.get().rollback();
+    }
+
+    @Test
+    void testEventsOfUnitOfWorkDeferringRecordsAreAdmittedRegardlessOfItsOwnRecords() {
+        useProducer(ConfirmationMode.NONE, false);
+        AdmissionControl admissionControl = AdmissionControl.builder()
+                                                            .maxInFlightRecords(2)
+                                                            .saturationPolicy(SaturationPolicy.SHED)
+                                                            .build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .serializationExecutor(executor)
+                                    .admissionControl(admissionControl)
+                                    .build();
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(3);
+        assertFalse(admissionControl.isSaturated());
+        uow.commit();
+
+        assertEquals(3, producer.history().size());
+        assertEquals(3, admissionControl.metrics().inFlightRecords());
+        assertEquals(0, admissionControl.metrics().shedEvents());
+
+        DefaultUnitOfWork.startAndGet(null);
+        sendEvents(1);
+        verify(monitorCallbacks.get(3)).reportIgnored();
+        assertEquals(1, admissionControl.metrics().shedEvents());
+        CurrentUnitOfWork.get().rollback();
+        executor.shutdown();
+    }
+
+    @Test
+    void testBatchedEventPublishedFromPrepareCommitHandlerIsPublished() {
+        List<MockProducer<String, byte[]>> producers = new ArrayList<>();
+        when(producerFactory.confirmationMode()).thenReturn(ConfirmationMode.WAIT_FOR_ACK);
+        when(producerFactory.createProducer()).thenAnswer(invocation -> {
+            MockProducer<String, byte[]> batchProducer =
+                    new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+            producers.add(batchProducer);
+            return batchProducer;
+        });
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .maxEventsPerRecord(10)
+                                    .build();
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(2);
+        uow.onPrepareCommit(u -> testSubject.send(asEventMessage("late-event")));
+        uow.commit();
+
+        assertEquals(2, producers.size());
+        assertEquals(1, producers.get(0).history().size());
+        assertEquals(1, producers.get(1).history().size());
+        assertEquals(3, monitorCallbacks.size());
+        monitorCallbacks.forEach(monitorCallback -> verify(monitorCallback).reportSuccess());
+    }
+
+    @Test
+    void testBatchedEventsPublishedToSeveralTopicsAreSerializedOnce() {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, true);
+        DefaultKafkaMessageConverter converter = spy(
+                DefaultKafkaMessageConverter.builder().serializer(TestSerializer.JACKSON.getSerializer()).build()
+        );
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .messageConverter(converter)
+                                    .multiTopicResolver(event -> Arrays.asList(TEST_TOPIC, "public-topic"))
+                                    .maxEventsPerRecord(10)
+                                    .build();
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(3);
+        uow.commit();
+
+        verify(converter, times(1)).createKafkaMessage(anyList(), anyString());
+        List<ProducerRecord<String, byte[]>> history = producer.history();
+        assertEquals(2, history.size());
+        assertEquals(TEST_TOPIC, history.get(0).topic());
+        assertEquals("public-topic", history.get(1).topic());
+        assertSame(history.get(0).value(), history.get(1).value());
+        assertNotSame(history.get(0).headers(), history.get(1).headers());
+        assertArrayEquals(history.get(0).headers().toArray(), history.get(1).headers().toArray());
+        monitorCallbacks.forEach(monitorCallback -> verify(monitorCallback).reportSuccess());
+    }
+
+    @Test
+    void testSpooledEventsAreRelayedOncePublisherIsStarted(@TempDir Path directory) throws Exception {
+        useProducer(ConfirmationMode.WAIT_FOR_ACK, true);
+        RecordSpool<String, byte[]> spool = RecordSpool.<String, byte[]>builder()
+                                                       .directory(directory)
+                                                       .keySerde(Serdes.String())
+                                                       .valueSerde(Serdes.ByteArray())
+                                                       .segmentSize(64 * 1024)
+                                                       .build();
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .spool(spool)
+                                    .build();
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+
+        sendEvents(3);
+        uow.commit();
+        monitorCallbacks.forEach(monitorCallback -> verify(monitorCallback).reportSuccess());
+        assertTrue(spool.hasPendingRecords());
+        assertTrue(producer.history().isEmpty());
+
+        testSubject.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (spool.hasPendingRecords() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(spool.hasPendingRecords());
+        assertEquals(3, producer.history().size());
+        assertEquals(TEST_TOPIC, producer.history().get(0).topic());
+        testSubject.shutDown();
+    }
+
+    @Test
+    void testSpooledRecordsKafkaNeverAcceptsAreSkipped(@TempDir Path directory) throws Exception {
+        when(producerFactory.confirmationMode()).thenReturn(ConfirmationMode.WAIT_FOR_ACK);
+        List<ProducerRecord<String, byte[]>> relayed = new CopyOnWriteArrayList<>();
+        when(producerFactory.createProducer()).thenAnswer(invocation -> new MockProducer<String, byte[]>(
+                true, new StringSerializer(), new ByteArraySerializer()
+        ) {
+            @Override
+            public synchronized Future<RecordMetadata> send(ProducerRecord<String, byte[]> record, Callback callback) {
+                CompletableFuture<RecordMetadata> result = new CompletableFuture<>();
+                if (new String(record.value(), StandardCharsets.UTF_8).contains("event-1")) {
+                    result.completeExceptionally(new RecordTooLargeException("The record of event-1 is too large"));
+                    return result;
+                }
+                relayed.add(record);
+                return super.send(record, callback);
+            }
+        });
+        RecordSpool<String, byte[]> spool = RecordSpool.<String, byte[]>builder()
+                                                       .directory(directory)
+                                                       .keySerde(Serdes.String())
+                                                       .valueSerde(Serdes.ByteArray())
+                                                       .segmentSize(64 * 1024)
+                                                       .build();
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .spool(spool)
+                                    .build();
+        UnitOfWork<?> uow = DefaultUnitOfWork.startAndGet(null);
+        sendEvents(3);
+        uow.commit();
+
+        testSubject.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (spool.hasPendingRecords() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        testSubject.shutDown();
+
+        assertFalse(spool.hasPendingRecords());
+        List<String> relayedValues = new ArrayList<>();
+        relayed.forEach(record -> relayedValues.add(new String(record.value(), StandardCharsets.UTF_8)));
+        assertTrue(relayedValues.stream().anyMatch(value -> value.contains("event-0")));
+        assertTrue(relayedValues.stream().anyMatch(value -> value.contains("event-2")));
+        assertTrue(relayedValues.stream().noneMatch(value -> value.contains("event-1")));
+    }
+
+    private void useAdmissionControl(AdmissionControl admissionControl) {
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .admissionControl(admissionControl)
+                                    .build();
+    }
+
+    private void useParallelSerialization(ExecutorService serializationExecutor,
+                                          BiFunction<EventMessage<?>, String, ProducerRecord<String, byte[]>> converter) {
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .topic(TEST_TOPIC)
+                                    .messageConverter(new KafkaMessageConverter<String, byte[]>() {
+                                        @Override
+                                        public ProducerRecord<String, byte[]> createKafkaMessage(
+                                                EventMessage<?> eventMessage, String topic
+                                        ) {
+                                            return converter.apply(eventMessage, topic);
+                                        }
+
+                                        @Override
+                                        public Optional<EventMessage<?>> readKafkaMessage(
+                                                ConsumerRecord<String, byte[]> consumerRecord
+                                        ) {
+                                            return Optional.empty();
+                                        }
+                                    })
+                                    .serializationExecutor(serializationExecutor)
+                                    .build();
+    }
+
+    private void useMultiTopicResolver(String... topics) {
+        testSubject = KafkaPublisher.<String, byte[]>builder()
+                                    .producerFactory(producerFactory)
+                                    .messageMonitor(messageMonitor)
+                                    .multiTopicResolver(event -> Arrays.asList(topics))
+                                    .build();
+    }
+}
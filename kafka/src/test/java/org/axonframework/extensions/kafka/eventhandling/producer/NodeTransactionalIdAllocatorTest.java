@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.axonframework.common.AxonConfigurationException;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link NodeTransactionalIdAllocator}.
+ */
+class NodeTransactionalIdAllocatorTest {
+
+    @Test
+    void testBuildingWithoutPrefixFails() {
+        NodeTransactionalIdAllocator.Builder builder = NodeTransactionalIdAllocator.builder();
+        assertThrows(AxonConfigurationException.class, builder::build);
+        assertThrows(AxonConfigurationException.class, () -> builder.prefix(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.nodeId(""));
+    }
+
+    @Test
+    void testAllocatesIdsCombiningPrefixNodeIdAndSlot() {
+        TransactionalIdAllocator testSubject = NodeTransactionalIdAllocator.builder()
+                                                                           .prefix("axon-")
+                                                                           .nodeId("node-a")
+                                                                           .build();
+
+        assertEquals("axon-node-a-0", testSubject.allocate());
+        assertEquals("axon-node-a-1", testSubject.allocate());
+    }
+
+    @Test
+    void testAllocatesIdsCombiningPrefixAndSlotWithoutNodeId() {
+        TransactionalIdAllocator testSubject = NodeTransactionalIdAllocator.builder().prefix("axon-").build();
+
+        assertEquals("axon-0", testSubject.allocate());
+        assertEquals("axon-1", testSubject.allocate());
+    }
+
+    @Test
+    void testReleasedSlotIsReusedBeforeHigherSlots() {
+        TransactionalIdAllocator testSubject = NodeTransactionalIdAllocator.builder()
+                                                                           .prefix("axon-")
+                                                                           .nodeId("node-a")
+                                                                           .build();
+        testSubject.allocate();
+        String second = testSubject.allocate();
+        testSubject.allocate();
+
+        testSubject.release(second);
+
+        assertEquals(second, testSubject.allocate());
+        assertEquals("axon-node-a-3", testSubject.allocate());
+    }
+
+    @Test
+    void testReleasingUnknownIdIsIgnored() {
+        TransactionalIdAllocator testSubject = NodeTransactionalIdAllocator.builder().prefix("axon-").build();
+        testSubject.allocate();
+
+        testSubject.release("other-0");
+        testSubject.release("axon-5");
+
+        assertEquals("axon-1", testSubject.allocate());
+    }
+
+    @Test
+    void testNewInstanceForSameNodeAllocatesSameIds() {
+        NodeTransactionalIdAllocator.Builder builder = NodeTransactionalIdAllocator.builder()
+                                                                                   .prefix("axon-")
+                                                                                   .nodeId("node-a");
+        TransactionalIdAllocator beforeRestart = builder.build();
+        String first = beforeRestart.allocate();
+        String second = beforeRestart.allocate();
+
+        TransactionalIdAllocator afterRestart = builder.build();
+
+        assertEquals(first, afterRestart.allocate());
+        assertEquals(second, afterRestart.allocate());
+    }
+
+    @Test
+    void testDistinctNodesNeverAllocateTheSameId() {
+        TransactionalIdAllocator nodeA = NodeTransactionalIdAllocator.builder().prefix("axon-").nodeId("a").build();
+        TransactionalIdAllocator nodeB = NodeTransactionalIdAllocator.builder().prefix("axon-").nodeId("b").build();
+
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals(nodeA.allocate(), nodeB.allocate());
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serdes;
+import org.axonframework.common.AxonConfigurationException;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link RecordSpool}.
+ */
+class RecordSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private RecordSpool<String, byte[]> testSubject;
+
+    @AfterEach
+    void tearDown() {
+        if (testSubject != null) {
+            testSubject.close();
+        }
+    }
+
+    @Test
+    void testBuildingWithInvalidConfiguration() {
+        RecordSpool.Builder<String, byte[]> builder = RecordSpool.builder();
+        assertThrows(AxonConfigurationException.class, () -> builder.directory(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.keySerde(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.valueSerde(null));
+        assertThrows(AxonConfigurationException.class, () -> builder.segmentSize(8));
+        assertThrows(AxonConfigurationException.class, builder::build);
+    }
+
+    @Test
+    void testAppendedRecordsAreReadInOrder() {
+        testSubject = spool(1024 * 1024);
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("header", "header-value".getBytes(StandardCharsets.UTF_8));
+        headers.add("null-header", null);
+        ProducerRecord<String, byte[]> first = new ProducerRecord<>("topic", 3, 42L, "key", bytes("first"), headers);
+        ProducerRecord<String, byte[]> second = new ProducerRecord<>("other-topic", null, bytes("second"));
+
+        assertFalse(testSubject.hasPendingRecords());
+        testSubject.append(Arrays.asList(first, second));
+        assertTrue(testSubject.hasPendingRecords());
+
+        List<ProducerRecord<String, byte[]>> result =
+                testSubject.read(testSubject.acknowledgedPosition(), 10).records();
+        assertEquals(2, result.size());
+        assertEquals("topic", result.get(0).topic());
+        assertEquals(3, result.get(0).partition());
+        assertEquals(42L, result.get(0).timestamp());
+        assertEquals("key", result.get(0).key());
+        assertArrayEquals(bytes("first"), result.get(0).value());
+        assertArrayEquals(headers.toArray(), result.get(0).headers().toArray());
+        assertEquals("other-topic", result.get(1).topic());
+        assertNull(result.get(1).partition());
+        assertNull(result.get(1).timestamp());
+        assertNull(result.get(1).key());
+        assertArrayEquals(bytes("second"), result.get(1).value());
+    }
+
+    @Test
+    void testRecordsRollOverSegmentsAndAcknowledgedSegmentsAreDeleted() throws IOException {
+        testSubject = spool(256);
+        for (int i = 0; i < 20; i++) {
+            testSubject.append(Collections.singletonList(record(i)));
+        }
+        assertTrue(segmentFiles().size() > 1);
+
+        RecordSpool.Position position = testSubject.acknowledgedPosition();
+        List<String> values = new ArrayList<>();
+        while (values.size() < 20) {
+            RecordSpool.ReadBatch<String, byte[]> batch = testSubject.read(position, 3);
+            batch.records().forEach(record -> values.add(new String(record.value(), StandardCharsets.UTF_8)));
+            position = batch.next();
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals("value-" + i, values.get(i));
+        }
+        assertTrue(testSubject.read(position, 3).records().isEmpty());
+
+        testSubject.acknowledge(position);
+        assertFalse(testSubject.hasPendingRecords());
+        assertEquals(1, segmentFiles().size());
+    }
+
+    @Test
+    void testReopenedSpoolResumesAfterAcknowledgedRecords() {
+        testSubject = spool(256);
+        for (int i = 0; i < 10; i++) {
+            testSubject.append(Collections.singletonList(record(i)));
+        }
+        RecordSpool.ReadBatch<String, byte[]> batch = testSubject.read(testSubject.acknowledgedPosition(), 4);
+        testSubject.acknowledge(batch.next());
+        testSubject.close();
+
+        testSubject = spool(256);
+        assertTrue(testSubject.hasPendingRecords());
+        List<ProducerRecord<String, byte[]>> result =
+                testSubject.read(testSubject.acknowledgedPosition(), 100).records();
+        assertEquals(6, result.size());
+        assertArrayEquals(bytes("value-4"), result.get(0).value());
+
+        testSubject.append(Collections.singletonList(record(10)));
+        assertEquals(7, testSubject.read(testSubject.acknowledgedPosition(), 100).records().size());
+    }
+
+    @Test
+    void testTornEntryIsDiscardedOnRecovery() throws IOException {
+        testSubject = spool(1024);
+        testSubject.append(Collections.singletonList(record(0)));
+        testSubject.append(Collections.singletonList(record(1)));
+        RecordSpool.Position afterFirst = testSubject.read(testSubject.acknowledgedPosition(), 1).next();
+        testSubject.close();
+
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            // Corrupt the checksum of the second entry
+            channel.write(ByteBuffer.allocate(4).putInt(0, 0xBAD), offsetOf(afterFirst) + 4);
+        }
+
+        testSubject = spool(1024);
+        List<ProducerRecord<String, byte[]>> result =
+                testSubject.read(testSubject.acknowledgedPosition(), 100).records();
+        assertEquals(1, result.size());
+        assertArrayEquals(bytes("value-0"), result.get(0).value());
+
+        testSubject.append(Collections.singletonList(record(2)));
+        result = testSubject.read(testSubject.acknowledgedPosition(), 100).records();
+        assertEquals(2, result.size());
+        assertArrayEquals(bytes("value-2"), result.get(1).value());
+    }
+
+    @Test
+    void testCorruptedEntryFollowedByValidEntriesIsRetainedOnRecovery() throws IOException {
+        testSubject = spool(1024);
+        for (int i = 0; i < 3; i++) {
+            testSubject.append(Collections.singletonList(record(i)));
+        }
+        RecordSpool.Position afterFirst = testSubject.read(testSubject.acknowledgedPosition(), 1).next();
+        testSubject.close();
+
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            // Corrupt the checksum of the second entry
+            channel.write(ByteBuffer.allocate(4).putInt(0, 0xBAD), offsetOf(afterFirst) + 4);
+        }
+
+        testSubject = spool(1024);
+        List<ProducerRecord<String, byte[]>> result =
+                testSubject.read(testSubject.acknowledgedPosition(), 100).records();
+        assertEquals(2, result.size());
+        assertArrayEquals(bytes("value-0"), result.get(0).value());
+        assertArrayEquals(bytes("value-2"), result.get(1).value());
+
+        testSubject.append(Collections.singletonList(record(3)));
+        result = testSubject.read(testSubject.acknowledgedPosition(), 100).records();
+        assertEquals(3, result.size());
+        assertArrayEquals(bytes("value-3"), result.get(2).value());
+    }
+
+    @Test
+    void testCorruptedEntryIsSkippedWhenRead() throws IOException {
+        testSubject = spool(1024);
+        for (int i = 0; i < 3; i++) {
+            testSubject.append(Collections.singletonList(record(i)));
+        }
+        RecordSpool.Position afterFirst = testSubject.read(testSubject.acknowledgedPosition(), 1).next();
+
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            // Corrupt the payload of the second entry
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xBA, (byte) 0xD0}), offsetOf(afterFirst) + 10);
+        }
+
+        RecordSpool.ReadBatch<String, byte[]> batch = testSubject.read(testSubject.acknowledgedPosition(), 100);
+        assertEquals(2, batch.records().size());
+        assertArrayEquals(bytes("value-0"), batch.records().get(0).value());
+        assertArrayEquals(bytes("value-2"), batch.records().get(1).value());
+        testSubject.acknowledge(batch.next());
+        assertFalse(testSubject.hasPendingRecords());
+    }
+
+    @Test
+    void testRemainderOfSegmentIsSkippedWhenLengthOfEntryIsCorrupted() throws IOException {
+        testSubject = spool(1024);
+        for (int i = 0; i < 3; i++) {
+            testSubject.append(Collections.singletonList(record(i)));
+        }
+        RecordSpool.Position afterFirst = testSubject.read(testSubject.acknowledgedPosition(), 1).next();
+
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 1000), offsetOf(afterFirst));
+        }
+
+        RecordSpool.ReadBatch<String, byte[]> batch = testSubject.read(testSubject.acknowledgedPosition(), 100);
+        assertEquals(1, batch.records().size());
+        assertArrayEquals(bytes("value-0"), batch.records().get(0).value());
+        testSubject.acknowledge(batch.next());
+        assertFalse(testSubject.hasPendingRecords());
+    }
+
+    @Test
+    void testAppendingRecordLargerThanSegmentIsRejected() {
+        testSubject = spool(64);
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> testSubject.append(Collections.singletonList(
+                             new ProducerRecord<>("topic", new byte[128])
+                     )));
+    }
+
+    private RecordSpool<String, byte[]> spool(int segmentSize) {
+        return RecordSpool.<String, byte[]>builder()
+                          .directory(directory)
+                          .keySerde(Serdes.String())
+                          .valueSerde(Serdes.ByteArray())
+                          .segmentSize(segmentSize)
+                          .build();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".spool")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static int offsetOf(RecordSpool.Position position) {
+        return Integer.parseInt(position.toString().split(":")[1]);
+    }
+
+    private static ProducerRecord<String, byte[]> record(int i) {
+        return new ProducerRecord<>("topic", "key-" + i, bytes("value-" + i));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
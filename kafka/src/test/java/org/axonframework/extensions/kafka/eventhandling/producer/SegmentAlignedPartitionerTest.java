@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2010-2021. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.axonframework.eventhandling.Segment;
+import org.axonframework.extensions.kafka.eventhandling.SegmentPartitions;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests validating the {@link SegmentAlignedPartitioner}.
+ */
+class SegmentAlignedPartitionerTest {
+
+    private static final String TOPIC = "topic";
+
+    private final SegmentAlignedPartitioner testSubject = new SegmentAlignedPartitioner();
+
+    @Test
+    void testKeyedRecordsArePlacedOnPartitionOfMatchingSegment() {
+        Cluster cluster = cluster(6);
+        Segment[] segments = Segment.computeSegments(0, 1, 2, 3);
+
+        for (int i = 0; i < 100; i++) {
+            String key = UUID.randomUUID().toString();
+            int partition = testSubject.partition(TOPIC, key, null, null, null, cluster);
+
+            assertEquals(SegmentPartitions.partitionFor(key, 6), partition);
+            assertEquals(partition, testSubject.partition(TOPIC, key, null, null, null, cluster));
+            for (Segment segment : segments) {
+                assertEquals(segment.matches(key), SegmentPartitions.partitionsFor(segment, 6).contains(partition));
+            }
+        }
+    }
+
+    @Test
+    void testRecordsWithoutKeyAreDistributedOverAlignedPartitions() {
+        Cluster cluster = cluster(6);
+        Set<Integer> partitions = new HashSet<>();
+
+        for (int i = 0; i < 8; i++) {
+            partitions.add(testSubject.partition(TOPIC, null, null, null, null, cluster));
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3)), partitions);
+    }
+
+    private static Cluster cluster(int numberOfPartitions) {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int partition = 0; partition < numberOfPartitions; partition++) {
+            partitions.add(new PartitionInfo(TOPIC, partition, node, new Node[]{node}, new Node[]{node}));
+        }
+        return new Cluster("cluster", Collections.singletonList(node), partitions,
+                           Collections.emptySet(), Collections.emptySet());
+    }
+}
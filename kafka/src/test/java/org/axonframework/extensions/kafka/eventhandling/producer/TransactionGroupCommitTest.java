@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2010-2023. Axon Framework
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.axonframework.extensions.kafka.eventhandling.producer;
+
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.axonframework.extensions.kafka.eventhandling.consumer.ConsumedOffsets;
+import org.axonframework.messaging.EventPublicationFailedException;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests validating the {@link TransactionGroupCommit}.
+ */
+class TransactionGroupCommitTest {
+
+    private static final String TEST_TOPIC = "topic";
+    private static final int PARTICIPANTS = 4;
+
+    private MockProducer<String, String> producer;
+    private ProducerFactory<String, String> producerFactory;
+
+    private ExecutorService executor;
+
+    private TransactionGroupCommit<String, String> testSubject;
+
+    @BeforeEach
+    void setUp() {
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        producer.initTransactions();
+        //noinspection unchecked
+        producerFactory = mock(ProducerFactory.class);
+        when(producerFactory.createProducer()).thenReturn(producer);
+
+        executor = Executors.newFixedThreadPool(PARTICIPANTS);
+
+        testSubject = new TransactionGroupCommit<>(producerFactory, 500, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private List<CompletableFuture<Void>> commitConcurrently() {
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            List<ProducerRecord<String, String>> records =
+                    Collections.singletonList(new ProducerRecord<>(TEST_TOPIC, "record-" + i));
+            results.add(CompletableFuture.runAsync(() -> testSubject.commit(records, null), executor));
+        }
+        return results;
+    }
+
+    @Test
+    void testConcurrentParticipantsShareSingleTransaction() throws Exception {
+        List<CompletableFuture<Void>> results = commitConcurrently();
+
+        for (CompletableFuture<Void> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        verify(producerFactory, times(1)).createProducer();
+        assertEquals(1, producer.commitCount());
+        assertEquals(PARTICIPANTS, producer.history().size());
+        assertTrue(producer.closed());
+    }
+
+    @Test
+    void testAllParticipantsFailWhenSharedTransactionFails() {
+        producer.fenceProducer();
+
+        List<CompletableFuture<Void>> results = commitConcurrently();
+
+        for (CompletableFuture<Void> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof EventPublicationFailedException);
+        }
+        assertEquals(0, producer.commitCount());
+    }
+
+    @Test
+    void testAllParticipantsFailWhenProducerCannotBeCreated() {
+        when(producerFactory.createProducer()).thenThrow(new KafkaException("Unable to initialize transactions"));
+
+        List<CompletableFuture<Void>> results = commitConcurrently();
+
+        for (CompletableFuture<Void> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof EventPublicationFailedException);
+        }
+        assertEquals(0, producer.commitCount());
+    }
+
+    @Test
+    void testParticipantsFailWhenSharedTransactionIsNotCommittedInTime() throws Exception {
+        CountDownLatch producerRequested = new CountDownLatch(1);
+        CountDownLatch releaseProducer = new CountDownLatch(1);
+        when(producerFactory.createProducer()).thenAnswer(invocation -> {
+            producerRequested.countDown();
+            releaseProducer.await();
+            return producer;
+        });
+        testSubject = new TransactionGroupCommit<>(producerFactory, 200, 100);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            List<ProducerRecord<String, String>> records =
+                    Collections.singletonList(new ProducerRecord<>(TEST_TOPIC, "record-" + i));
+            results.add(CompletableFuture.runAsync(() -> testSubject.commit(records, null), executor));
+        }
+
+        // The leader blocks on its producer, hence the first participant to complete is the follower
+        CompletableFuture<Object> follower = CompletableFuture.anyOf(results.toArray(new CompletableFuture[0]));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof EventPublicationFailedException);
+        assertTrue(producerRequested.await(5, TimeUnit.SECONDS));
+        releaseProducer.countDown();
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).handle((r, e) -> r).get(5, TimeUnit.SECONDS);
+        assertEquals(1, results.stream().filter(result -> !result.isCompletedExceptionally()).count());
+    }
+
+    @Test
+    void testSubsequentCommitsOpenNewGroup() {
+        testSubject = new TransactionGroupCommit<>(producerFactory, 0, 1000);
+
+        testSubject.commit(Collections.singletonList(new ProducerRecord<>(TEST_TOPIC, "first")), null);
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        producer.initTransactions();
+        when(producerFactory.createProducer()).thenReturn(producer);
+        testSubject.commit(Collections.singletonList(new ProducerRecord<>(TEST_TOPIC, "second")), null);
+
+        verify(producerFactory, times(2)).createProducer();
+        assertEquals(1, producer.commitCount());
+    }
+
+    @Test
+    void testConsumedOffsetsAreCommittedInTheSharedTransaction() {
+        testSubject = new TransactionGroupCommit<>(producerFactory, 0, 1000);
+        TopicPartition partition = new TopicPartition(TEST_TOPIC, 0);
+        ConsumedOffsets consumedOffsets = ConsumedOffsets.of(
+                new ConsumerRecords<>(Collections.singletonMap(
+                        partition, Collections.singletonList(new ConsumerRecord<>(TEST_TOPIC, 0, 7, "key", "value"))
+                )),
+                new ConsumerGroupMetadata("group")
+        );
+
+        testSubject.commit(Collections.singletonList(new ProducerRecord<>(TEST_TOPIC, "event")), consumedOffsets);
+
+        assertEquals(1, producer.commitCount());
+        assertEquals(Collections.singletonList(Collections.singletonMap(
+                "group", Collections.singletonMap(partition, new OffsetAndMetadata(8))
+        )), producer.consumerGroupOffsetsHistory());
+        assertTrue(consumedOffsets.isCommitted());
+    }
+}